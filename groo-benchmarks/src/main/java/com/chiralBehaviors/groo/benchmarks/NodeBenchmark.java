@@ -0,0 +1,133 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo.benchmarks;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.chiralBehaviors.groo.Aggregate;
+import com.chiralBehaviors.groo.Aggregation;
+import com.chiralBehaviors.groo.Node;
+import com.chiralBehaviors.groo.OperationResult;
+
+/**
+ * The throughput and latency of the single target and pattern operations of
+ * the root of a {@link NodeTree}.
+ * 
+ * <pre>
+ * mvn -pl groo-benchmarks -am package
+ * java -jar groo-benchmarks/target/benchmarks.jar -p depth=2 -p fanOut=4
+ * </pre>
+ * 
+ * @author hhildebrand
+ * 
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NodeBenchmark {
+    private static final String[] ECHO_SIGNATURE = new String[] { String.class.getName() };
+
+    @Param({ "1", "2" })
+    public int                    depth;
+
+    @Param({ "4" })
+    public int                    fanOut;
+
+    @Param({ "10", "100" })
+    public int                    mbeansPerLeaf;
+
+    @Param({ "16", "1024" })
+    public int                    payloadSize;
+
+    private Object[]              echo;
+    private Node                  root;
+    private NodeTree              tree;
+
+    @Benchmark
+    public Aggregate aggregate() throws Exception {
+        return root.aggregate(NodeTree.PAYLOADS, null, "Value",
+                              Aggregation.SUM);
+    }
+
+    @Benchmark
+    public Object getAttribute() throws Exception {
+        return root.getAttribute(tree.randomTarget(), "Payload");
+    }
+
+    @Benchmark
+    public Map<ObjectName, OperationResult<Object>> getAttributePattern()
+                                                                         throws Exception {
+        return root.getAttribute(NodeTree.PAYLOADS, null, "Payload");
+    }
+
+    @Benchmark
+    public Object invoke() throws Exception {
+        return root.invoke(tree.randomTarget(), "echo", echo, ECHO_SIGNATURE);
+    }
+
+    @Benchmark
+    public Map<ObjectName, OperationResult<Object>> invokePattern()
+                                                                   throws Exception {
+        return root.invoke(NodeTree.PAYLOADS, null, "echo", echo,
+                           ECHO_SIGNATURE);
+    }
+
+    @Benchmark
+    public Set<ObjectName> queryNames() throws Exception {
+        return root.queryNames(NodeTree.PAYLOADS, null);
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        tree = new NodeTree(depth, fanOut, mbeansPerLeaf, payloadSize);
+        root = tree.getRoot();
+        echo = new Object[] { new Payload(0, payloadSize).getPayload() };
+        // learn the routes of the single target operations
+        root.queryNames(NodeTree.PAYLOADS, null);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        tree.stop();
+    }
+
+    @Benchmark
+    public Map<ObjectName, Number> top() throws Exception {
+        return root.top(NodeTree.PAYLOADS, null, "Value", 10, true);
+    }
+}
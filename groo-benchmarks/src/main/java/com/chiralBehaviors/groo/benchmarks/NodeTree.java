@@ -0,0 +1,151 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import com.chiralBehaviors.groo.Groo;
+import com.chiralBehaviors.groo.LocalMbscFactory;
+import com.chiralBehaviors.groo.Node;
+
+/**
+ * An in memory tree of nodes, each in its own MBeanServer, joined by
+ * {@link LocalMbscFactory} connections. The leaves host the {@link Payload}
+ * MBeans.
+ * 
+ * @author hhildebrand
+ * 
+ */
+public class NodeTree {
+    /**
+     * The pattern matching every payload MBean of the tree
+     */
+    public static final ObjectName PAYLOADS;
+
+    private static final String    NODE_DOMAIN    = "groo-node";
+    private static final String    PAYLOAD_DOMAIN = "bench";
+
+    static {
+        try {
+            PAYLOADS = ObjectName.getInstance(PAYLOAD_DOMAIN + ":*");
+        } catch (Exception e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final List<Groo>       groos          = new ArrayList<>();
+    private final int              mbeansPerLeaf;
+    private final int              payloadSize;
+    private final Node             root;
+    private final List<ObjectName> targets        = new ArrayList<>();
+
+    /**
+     * @param depth
+     *            - the number of levels of nodes above the leaves
+     * @param fanOut
+     *            - the number of children of each node above the leaves
+     * @param mbeansPerLeaf
+     *            - the number of payload MBeans hosted by each leaf
+     * @param payloadSize
+     *            - the number of characters of each payload
+     */
+    public NodeTree(int depth, int fanOut, int mbeansPerLeaf, int payloadSize)
+                                                                               throws Exception {
+        if (depth < 1) {
+            throw new IllegalArgumentException(
+                                               String.format("Depth must be positive: %s",
+                                                             depth));
+        }
+        this.mbeansPerLeaf = mbeansPerLeaf;
+        this.payloadSize = payloadSize;
+        MBeanServer mbs = MBeanServerFactory.newMBeanServer();
+        root = parent(mbs, depth, fanOut, "0");
+    }
+
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the names of all the payload MBeans of the tree
+     */
+    public List<ObjectName> getTargets() {
+        return targets;
+    }
+
+    /**
+     * @return the name of a payload MBean, chosen at random
+     */
+    public ObjectName randomTarget() {
+        return targets.get(ThreadLocalRandom.current().nextInt(targets.size()));
+    }
+
+    /**
+     * Disconnect the nodes of the tree
+     */
+    public void stop() throws IOException {
+        for (Groo groo : groos) {
+            groo.stop();
+        }
+    }
+
+    private MBeanServer child(int level, int fanOut, String id)
+                                                               throws Exception {
+        MBeanServer mbs = MBeanServerFactory.newMBeanServer();
+        if (level > 0) {
+            parent(mbs, level, fanOut, id);
+            return mbs;
+        }
+        for (int i = 0; i < mbeansPerLeaf; i++) {
+            ObjectName name = ObjectName.getInstance(String.format("%s:leaf=%s,id=%s",
+                                                                   PAYLOAD_DOMAIN,
+                                                                   id, i));
+            mbs.registerMBean(new Payload(i, payloadSize), name);
+            targets.add(name);
+        }
+        mbs.registerMBean(new Node(), nodeName(id));
+        return mbs;
+    }
+
+    private ObjectName nodeName(String id) throws Exception {
+        return ObjectName.getInstance(String.format("%s:id=%s", NODE_DOMAIN,
+                                                    id));
+    }
+
+    private Node parent(MBeanServer mbs, int level, int fanOut, String id)
+                                                                          throws Exception {
+        Node node = new Node(ObjectName.getInstance(NODE_DOMAIN + ":*"), null);
+        mbs.registerMBean(node, nodeName(id));
+        Groo groo = new Groo(id);
+        groos.add(groo);
+        groo.addParent(node);
+        for (int i = 0; i < fanOut; i++) {
+            String childId = id + "." + i;
+            groo.addConnection(new LocalMbscFactory(groo,
+                                                    child(level - 1, fanOut,
+                                                          childId), childId));
+        }
+        return node;
+    }
+}
@@ -0,0 +1,62 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo.benchmarks;
+
+import java.util.Arrays;
+
+/**
+ * The MBean hosted by the leaves of the benchmark trees, answering a payload
+ * of a configurable size
+ * 
+ * @author hhildebrand
+ * 
+ */
+public class Payload implements PayloadMBean {
+    private final String payload;
+    private final long   value;
+
+    public Payload(long value, int payloadSize) {
+        this.value = value;
+        char[] chars = new char[payloadSize];
+        Arrays.fill(chars, 'x');
+        payload = new String(chars);
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.benchmarks.PayloadMBean#echo(java.lang.String)
+     */
+    @Override
+    public String echo(String payload) {
+        return payload;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.benchmarks.PayloadMBean#getPayload()
+     */
+    @Override
+    public String getPayload() {
+        return payload;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.benchmarks.PayloadMBean#getValue()
+     */
+    @Override
+    public long getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,233 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The partial result of an {@link Aggregation}. Each node reduces the values
+ * of its local MBeans and merges the partial aggregates of its children, so a
+ * single aggregate crosses each hop of the hierarchy. The count, sum, minimum
+ * and maximum are all carried, so that every aggregation - including the
+ * average - may be merged exactly. Integral values are summed exactly, apart
+ * from any fractional values, so that the sum of large counters is not
+ * rounded to a double. The {@link Aggregation#SKETCH} aggregation also
+ * carries a {@link QuantileSketch} of the values.
+ * 
+ * @author hhildebrand
+ * 
+ */
+public class Aggregate implements Serializable {
+    private static final long    serialVersionUID = 1L;
+
+    private final Aggregation    aggregation;
+    private long                 count;
+    private boolean              fractional;
+    private long                 integral;
+    private double               max              = Double.NEGATIVE_INFINITY;
+    private double               min              = Double.POSITIVE_INFINITY;
+    private BigInteger           overflow;
+    private final QuantileSketch sketch;
+    private double               sum;
+
+    public Aggregate(Aggregation aggregation) {
+        if (aggregation == null) {
+            throw new IllegalArgumentException("Aggregation must not be null");
+        }
+        this.aggregation = aggregation;
+        sketch = aggregation == Aggregation.SKETCH ? new QuantileSketch()
+                                                   : null;
+    }
+
+    /**
+     * Add the value to the aggregate. Values which are not numbers are
+     * ignored
+     * 
+     * @param value
+     */
+    public void add(Object value) {
+        if (!(value instanceof Number)) {
+            return;
+        }
+        double v = ((Number) value).doubleValue();
+        count++;
+        if (value instanceof BigInteger) {
+            addIntegral((BigInteger) value);
+        } else if (isIntegral(value)) {
+            addIntegral(((Number) value).longValue());
+        } else {
+            fractional = true;
+            sum += v;
+        }
+        min = Math.min(min, v);
+        max = Math.max(max, v);
+        if (sketch != null) {
+            sketch.add(v);
+        }
+    }
+
+    /**
+     * @return the aggregation
+     */
+    public Aggregation getAggregation() {
+        return aggregation;
+    }
+
+    /**
+     * @return the number of values aggregated
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the largest value aggregated
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * @return the smallest value aggregated
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Answer the estimate of the quantile of the values aggregated
+     * 
+     * @param quantile
+     *            - between 0 and 1, i.e. 0.99 for the 99th percentile
+     * @return the estimate, or null if no values were aggregated
+     * @throws IllegalStateException
+     *             if the aggregation is not {@link Aggregation#SKETCH}
+     */
+    public Double getQuantile(double quantile) {
+        if (sketch == null) {
+            throw new IllegalStateException(
+                                            String.format("Quantiles are not available from %s",
+                                                          aggregation));
+        }
+        return count == 0 ? null : Double.valueOf(sketch.getQuantile(quantile));
+    }
+
+    /**
+     * @return the sketch of the values aggregated, or null if the aggregation
+     *         is not {@link Aggregation#SKETCH}
+     */
+    public QuantileSketch getSketch() {
+        return sketch;
+    }
+
+    /**
+     * @return the total of the values aggregated, as a double
+     */
+    public double getSum() {
+        return sum + getIntegralSum().doubleValue();
+    }
+
+    /**
+     * @return the value of the aggregation - the median for a sketch - or
+     *         null if no values were aggregated and the aggregation is
+     *         undefined for no values. The sum of integral values is exact,
+     *         and is a Long, or a BigInteger if it does not fit in a long
+     */
+    public Number getValue() {
+        switch (aggregation) {
+            case AVG:
+                return count == 0 ? null : Double.valueOf(getSum() / count);
+            case COUNT:
+                return count;
+            case MAX:
+                return count == 0 ? null : Double.valueOf(max);
+            case MIN:
+                return count == 0 ? null : Double.valueOf(min);
+            case SKETCH:
+                return getQuantile(0.5);
+            default:
+                return fractional ? Double.valueOf(getSum())
+                                 : getIntegralSum();
+        }
+    }
+
+    /**
+     * Merge the partial aggregate into the receiver
+     * 
+     * @param partial
+     */
+    public void merge(Aggregate partial) {
+        if (partial == null || partial.count == 0) {
+            return;
+        }
+        count += partial.count;
+        fractional |= partial.fractional;
+        sum += partial.sum;
+        addIntegral(partial.integral);
+        if (partial.overflow != null) {
+            addIntegral(partial.overflow);
+        }
+        min = Math.min(min, partial.min);
+        max = Math.max(max, partial.max);
+        if (sketch != null) {
+            sketch.merge(partial.sketch);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "Aggregate [" + aggregation + "=" + getValue() + ", count="
+               + count + "]";
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer
+               || value instanceof Short || value instanceof Byte
+               || value instanceof AtomicLong || value instanceof AtomicInteger;
+    }
+
+    private void addIntegral(BigInteger value) {
+        overflow = overflow == null ? value : overflow.add(value);
+    }
+
+    private void addIntegral(long value) {
+        try {
+            integral = Math.addExact(integral, value);
+        } catch (ArithmeticException e) {
+            addIntegral(BigInteger.valueOf(integral).add(BigInteger.valueOf(value)));
+            integral = 0;
+        }
+    }
+
+    /**
+     * @return the exact sum of the integral values aggregated
+     */
+    private Number getIntegralSum() {
+        if (overflow == null) {
+            return integral;
+        }
+        BigInteger total = overflow.add(BigInteger.valueOf(integral));
+        return total.bitLength() < Long.SIZE ? (Number) total.longValue()
+                                             : total;
+    }
+}
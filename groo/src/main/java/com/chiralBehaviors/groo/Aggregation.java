@@ -0,0 +1,54 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+/**
+ * The reductions which may be pushed down the node hierarchy by
+ * {@link NodeMBean#aggregate(javax.management.ObjectName, javax.management.QueryExp, String, Aggregation)}
+ * 
+ * @author hhildebrand
+ * 
+ */
+public enum Aggregation {
+    /**
+     * The mean of the numeric values
+     */
+    AVG,
+    /**
+     * The number of numeric values
+     */
+    COUNT,
+    /**
+     * The largest of the numeric values
+     */
+    MAX,
+    /**
+     * The smallest of the numeric values
+     */
+    MIN,
+    /**
+     * A mergeable sketch of the distribution of the numeric values, answering
+     * quantiles such as the median or the 99th percentile
+     * 
+     * @see Aggregate#getQuantile(double)
+     */
+    SKETCH,
+    /**
+     * The total of the numeric values
+     */
+    SUM;
+}
@@ -0,0 +1,158 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A size bounded, least recently used cache of the attribute values read
+ * through a node, and of the members of the patterns read. The bound is on
+ * the weight of the entries: a value weighs one, and the members of a
+ * pattern weigh one per member. Entries do not expire; instead each read states the
+ * maximum age of the values it will accept, so readers with different
+ * tolerances for staleness share the same cache. The age of a value is
+ * measured from the start of the read that fetched it, and values fetched
+ * by reads that started before an invalidation are not cached.
+ * 
+ * @author hhildebrand
+ * 
+ */
+class AttributeCache {
+    /**
+     * A cached value and the time it was read
+     */
+    static class Entry {
+        private final long   read;
+        private final Object value;
+        private final int    weight;
+
+        private Entry(Object value, long read, int weight) {
+            this.value = value;
+            this.read = read;
+            this.weight = weight;
+        }
+
+        Object getValue() {
+            return value;
+        }
+    }
+
+    private final LinkedHashMap<List<Object>, Entry> entries     = new LinkedHashMap<>(
+                                                                                      16,
+                                                                                      0.75f,
+                                                                                      true);
+    private long                                     invalidated = System.nanoTime();
+    private volatile int                             maxEntries;
+    private long                                     weight;
+
+    AttributeCache(int maxEntries) {
+        setMaxEntries(maxEntries);
+    }
+
+    /**
+     * @param key
+     * @param maxAge
+     *            - the maximum age, in milliseconds, of the value
+     * @return the entry of the key, if it was read no more than maxAge ago,
+     *         or null
+     */
+    synchronized Entry get(List<Object> key, long maxAge) {
+        if (maxAge <= 0) {
+            return null;
+        }
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.read > TimeUnit.MILLISECONDS.toNanos(maxAge)) {
+            return null;
+        }
+        return entry;
+    }
+
+    int getMaxEntries() {
+        return maxEntries;
+    }
+
+    /**
+     * Discard all the entries
+     */
+    synchronized void invalidate() {
+        invalidated = System.nanoTime();
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Cache the value
+     * 
+     * @param key
+     * @param value
+     * @param read
+     *            - the {@link System#nanoTime()} at the start of the read of
+     *            the value
+     */
+    void put(List<Object> key, Object value, long read) {
+        put(key, value, read, 1);
+    }
+
+    /**
+     * Cache the value, unless it alone weighs more than the bound
+     * 
+     * @param key
+     * @param value
+     * @param read
+     *            - the {@link System#nanoTime()} at the start of the read of
+     *            the value
+     * @param weight
+     *            - the weight of the value
+     */
+    synchronized void put(List<Object> key, Object value, long read,
+                          int weight) {
+        if (read - invalidated <= 0 || weight > maxEntries) {
+            return;
+        }
+        Entry previous = entries.put(key, new Entry(value, read, weight));
+        this.weight += weight - (previous == null ? 0 : previous.weight);
+        evict();
+    }
+
+    synchronized void setMaxEntries(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException(
+                                               String.format("Max entries must be positive: %s",
+                                                             maxEntries));
+        }
+        this.maxEntries = maxEntries;
+        evict();
+    }
+
+    /**
+     * Evict the least recently used entries until the cache is within its
+     * bound
+     */
+    private void evict() {
+        for (Iterator<Entry> i = entries.values().iterator(); i.hasNext()
+                                                               && weight > maxEntries;) {
+            weight -= i.next().weight;
+            i.remove();
+        }
+    }
+}
@@ -1,33 +1,178 @@
 package com.chiralBehaviors.groo;
 
 import java.io.IOException;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+import javax.management.AttributeNotFoundException;
+import javax.management.InstanceNotFoundException;
 import javax.management.ListenerNotFoundException;
+import javax.management.MBeanException;
 import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+import javax.management.remote.JMXAddressable;
 import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
 import javax.security.auth.Subject;
 
 /**
- * A basic {@link MbscFactory} that wraps a {@link JMXConnector}. This
- * implementation does not support transparent reconnection.
+ * A basic {@link MbscFactory} that wraps a {@link JMXConnector}. When the
+ * connection fails, connectors which know their address are replaced by new
+ * connectors to the same address, created with the environment of the
+ * factory.
+ * <p>
+ * Once connected, the connection is answered without locking. The factory
+ * may be given a pool of connectors to the same endpoint, in which case the
+ * operations of the remote nodes are spread across the pool, each operation
+ * going to the connector with the fewest operations in flight. The first
+ * connector of the pool carries the listener registrations.
  * 
  * @since Java DMK 5.1
  **/
 public class BasicMbscFactory extends MbscFactory {
 
-    private final AtomicReference<MBeanServerConnection> connection = new AtomicReference<>();
-    private final JMXConnector                           connector;
-    private final AtomicBoolean                          failed     = new AtomicBoolean();
-    private final Subject                                subject;
+    /**
+     * The channel spreading the operations of the remote nodes across the
+     * pooled connectors
+     */
+    private class PooledChannel implements NodeChannel {
+        private final AtomicIntegerArray inFlight = new AtomicIntegerArray(
+                                                                           connectors.length);
+
+        /* (non-Javadoc)
+         * @see com.chiralBehaviors.groo.NodeChannel#getAttribute(javax.management.ObjectName, java.lang.String)
+         */
+        @Override
+        public Object getAttribute(ObjectName name, String attribute)
+                                                                     throws MBeanException,
+                                                                     AttributeNotFoundException,
+                                                                     InstanceNotFoundException,
+                                                                     ReflectionException,
+                                                                     IOException {
+            int slot = acquire();
+            MBeanServerConnection connection = null;
+            try {
+                connection = connection(slot);
+                return connection.getAttribute(name, attribute);
+            } catch (IOException e) {
+                reset(slot, connection);
+                throw e;
+            } finally {
+                inFlight.decrementAndGet(slot);
+            }
+        }
+
+        /* (non-Javadoc)
+         * @see com.chiralBehaviors.groo.NodeChannel#invoke(javax.management.ObjectName, java.lang.String, java.lang.Object[], java.lang.String[])
+         */
+        @Override
+        public Object invoke(ObjectName name, String operationName,
+                             Object[] params, String[] signature)
+                                                                 throws InstanceNotFoundException,
+                                                                 MBeanException,
+                                                                 ReflectionException,
+                                                                 IOException {
+            int slot = acquire();
+            MBeanServerConnection connection = null;
+            try {
+                connection = connection(slot);
+                return connection.invoke(name, operationName, params,
+                                         signature);
+            } catch (IOException e) {
+                reset(slot, connection);
+                throw e;
+            } finally {
+                inFlight.decrementAndGet(slot);
+            }
+        }
+
+        private int acquire() {
+            int least = 0;
+            for (int i = 1; i < connectors.length; i++) {
+                if (inFlight.get(i) < inFlight.get(least)) {
+                    least = i;
+                }
+            }
+            inFlight.incrementAndGet(least);
+            return least;
+        }
+    }
+
+    private final AtomicReferenceArray<MBeanServerConnection> connections;
+    private volatile JMXConnector[]                           connectors;
+    private final Map<String, ?>                              environment;
+    private final Object[]                                    locks;
+    private final NodeChannel                                 pool;
+    private volatile boolean                                  reconnected;
+    private final Subject                                     subject;
 
     public BasicMbscFactory(Groo groo, JMXConnector connector,
                             Subject delegationSubject) {
+        this(groo, Collections.singletonList(connector), delegationSubject);
+    }
+
+    /**
+     * @param groo
+     * @param connectors
+     *            - the pool of connectors to the remote MBean server. The
+     *            first connector carries the listener registrations
+     * @param delegationSubject
+     */
+    public BasicMbscFactory(Groo groo, List<JMXConnector> connectors,
+                            Subject delegationSubject) {
+        this(groo, connectors, Collections.<String, Object> emptyMap(),
+             delegationSubject);
+    }
+
+    /**
+     * @param groo
+     * @param connectors
+     *            - the pool of connectors to the remote MBean server. The
+     *            first connector carries the listener registrations
+     * @param environment
+     *            - the environment of the connectors created to reconnect
+     * @param delegationSubject
+     */
+    public BasicMbscFactory(Groo groo, List<JMXConnector> connectors,
+                            Map<String, ?> environment,
+                            Subject delegationSubject) {
         super(groo);
-        this.connector = connector;
+        if (connectors.isEmpty()) {
+            throw new IllegalArgumentException(
+                                               "At least one connector is required");
+        }
+        this.connectors = connectors.toArray(new JMXConnector[connectors.size()]);
+        connections = new AtomicReferenceArray<>(this.connectors.length);
+        locks = new Object[this.connectors.length];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        this.environment = environment;
         subject = delegationSubject;
-        failed.set(false);
+        pool = this.connectors.length > 1 ? new PooledChannel() : null;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.MbscFactory#close()
+     */
+    @Override
+    public void close() {
+        super.close();
+        if (!reconnected) {
+            // the connectors passed to the factory are owned by the caller
+            return;
+        }
+        for (JMXConnector connector : connectors) {
+            try {
+                connector.close();
+            } catch (IOException e) {
+                // ignored
+            }
+        }
     }
 
     /**
@@ -35,30 +180,30 @@ public class BasicMbscFactory extends MbscFactory {
      * @throws IOException
      */
     public MBeanServerConnection getConnection() throws IOException {
-        connector.connect();
-        return connector.getMBeanServerConnection(subject);
+        return connect(connectors[0]);
     }
 
     @Override
     public String getConnectionId() throws IOException {
-        if (failed.get()) {
-            throw new IOException("connection already failed");
-        }
+        checkConnected();
         return getJMXConnector().getConnectionId();
     }
 
     public JMXConnector getJMXConnector() {
-        return connector;
+        return connectors[0];
     }
 
     @Override
-    public synchronized MBeanServerConnection getMBeanServerConnection()
-                                                                        throws IOException {
-        if (failed.get()) {
-            throw new IOException("connection already failed");
-        }
-        connection.compareAndSet(null, getConnection());
-        return connection.get();
+    public MBeanServerConnection getMBeanServerConnection() throws IOException {
+        checkConnected();
+        return connection(0);
+    }
+
+    /**
+     * @return the number of pooled connectors
+     */
+    public int getPoolSize() {
+        return connectors.length;
     }
 
     /* (non-Javadoc)
@@ -67,19 +212,136 @@ public class BasicMbscFactory extends MbscFactory {
     @Override
     protected void deregisterConnectListener() {
         try {
-            connector.removeConnectionNotificationListener(connectListener,
-                                                           null, null);
+            getJMXConnector().removeConnectionNotificationListener(connectListener,
+                                                                   null, null);
         } catch (ListenerNotFoundException e) {
             // ignored
         }
     }
 
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.MbscFactory#getNodeChannel()
+     */
+    @Override
+    NodeChannel getNodeChannel() throws IOException {
+        return pool == null ? super.getNodeChannel() : pool;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.MbscFactory#isReconnectable()
+     */
+    @Override
+    protected boolean isReconnectable() {
+        for (JMXConnector connector : connectors) {
+            if (!(connector instanceof JMXAddressable)
+                || ((JMXAddressable) connector).getAddress() == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.MbscFactory#reconnect()
+     */
+    @Override
+    protected void reconnect() throws IOException {
+        JMXConnector[] failed = connectors;
+        // the failed connectors notify their close, which is not the close of the factory
+        for (JMXConnector connector : failed) {
+            try {
+                connector.removeConnectionNotificationListener(connectListener);
+            } catch (ListenerNotFoundException e) {
+                // ignored
+            }
+        }
+        JMXConnector[] replacements = new JMXConnector[failed.length];
+        for (int i = 0; i < failed.length; i++) {
+            replacements[i] = JMXConnectorFactory.newJMXConnector(((JMXAddressable) failed[i]).getAddress(),
+                                                                  environment);
+        }
+        // fail the attempt, rather than the first operation, if unreachable
+        replacements[0].connect();
+        swap(replacements, 0);
+        reconnected = true;
+        for (int i = 0; i < failed.length; i++) {
+            try {
+                failed[i].close();
+            } catch (IOException e) {
+                // ignored
+            }
+        }
+    }
+
     /* (non-Javadoc)
      * @see com.hellblazer.groo.MbscFactory#registerConnectListener()
      */
     @Override
     protected void registerConnectListener() {
-        connector.addConnectionNotificationListener(connectListener, null, null);
+        getJMXConnector().addConnectionNotificationListener(connectListener,
+                                                            null, null);
+    }
+
+    private MBeanServerConnection connect(JMXConnector connector)
+                                                                 throws IOException {
+        connector.connect();
+        return connector.getMBeanServerConnection(subject);
+    }
+
+    /**
+     * @param slot
+     * @return the connection of the pooled connector, connecting only if the
+     *         connector has not been connected
+     * @throws IOException
+     */
+    private MBeanServerConnection connection(int slot) throws IOException {
+        MBeanServerConnection current = connections.get(slot);
+        if (current != null) {
+            return current;
+        }
+        synchronized (locks[slot]) {
+            current = connections.get(slot);
+            if (current == null) {
+                current = connect(connectors[slot]);
+                connections.set(slot, current);
+            }
+            return current;
+        }
     }
 
+    /**
+     * Forget the connection of the connector, which failed, so the connection
+     * is fetched again on its next use. A connection fetched since the
+     * failure is kept
+     * 
+     * @param slot
+     * @param failed
+     *            - the connection which failed, or null if the connection
+     *            could not be fetched
+     */
+    private void reset(int slot, MBeanServerConnection failed) {
+        if (failed != null) {
+            connections.compareAndSet(slot, failed, null);
+        }
+    }
+
+    /**
+     * Replace the connectors, clearing the connection of each slot and
+     * holding the locks of the slots from this one on, so that a racing
+     * {@link #connection(int)} can neither cache the connection of a
+     * replaced connector nor see the replacements with a stale connection
+     * 
+     * @param replacements
+     * @param slot
+     */
+    private void swap(JMXConnector[] replacements, int slot) {
+        if (slot == locks.length) {
+            connectors = replacements;
+            return;
+        }
+        synchronized (locks[slot]) {
+            connections.set(slot, null);
+            swap(replacements, slot + 1);
+        }
+    }
 }
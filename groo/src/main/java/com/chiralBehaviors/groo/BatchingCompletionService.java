@@ -0,0 +1,64 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A completion service which also accepts tasks that are run by the caller,
+ * rather than submitted to the executor. Such local tasks are queued for
+ * completion exactly like submitted tasks, so they may be run inline or
+ * batched together on a few executor threads.
+ * 
+ * @author hhildebrand
+ * 
+ */
+public class BatchingCompletionService<V> extends ExecutorCompletionService<V> {
+    private final BlockingQueue<Future<V>> completionQueue;
+
+    public BatchingCompletionService(Executor executor) {
+        this(executor, new LinkedBlockingQueue<Future<V>>());
+    }
+
+    private BatchingCompletionService(Executor executor,
+                                      BlockingQueue<Future<V>> completionQueue) {
+        super(executor, completionQueue);
+        this.completionQueue = completionQueue;
+    }
+
+    /**
+     * Answer a task which is queued for completion when it is run. The caller
+     * is responsible for running the task
+     * 
+     * @param task
+     * @return
+     */
+    public FutureTask<V> localTask(Callable<V> task) {
+        return new FutureTask<V>(task) {
+            @Override
+            protected void done() {
+                completionQueue.add(this);
+            }
+        };
+    }
+}
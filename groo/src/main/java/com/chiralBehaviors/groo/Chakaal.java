@@ -21,6 +21,7 @@ import static com.hellblazer.slp.ServiceScope.SERVICE_TYPE;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -244,8 +245,10 @@ public class Chakaal implements ChakaalMBean {
                      e);
             return;
         }
-        MbscFactory factory = new BasicMbscFactory(groo, connection,
-                                                   delegationSubject);
+        MbscFactory factory = new BasicMbscFactory(
+                                                   groo,
+                                                   Collections.singletonList(connection),
+                                                   sourceMap, delegationSubject);
         discovered.put(reference.getRegistration(), factory);
         try {
             groo.addConnection(factory);
@@ -0,0 +1,307 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.ClosedByInterruptException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.JMException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The health of the children of a node. Each child has a circuit which opens
+ * after a run of consecutive failed or slow requests. While the circuit is
+ * open, the child is skipped by the node's operations. Once the open
+ * interval has elapsed, a single request is let through as a probe; its
+ * success closes the circuit, its failure opens it for another interval.
+ * A probe which is cancelled or interrupted lets the next request probe, as
+ * does a probe which has not reported within the open interval, such as one
+ * cancelled before it ran.
+ * <p>
+ * A request fails if the child could not answer it: JMX exceptions, such as
+ * an unknown instance or an exception thrown by the target MBean, are
+ * answers from a healthy child and do not count against it. A cancelled or
+ * interrupted request is neither a success nor a failure.
+ * <p>
+ * Circuits are keyed by the identity of the child, as the children of a node
+ * are, so a child keeps its circuit when it is registered.
+ * 
+ * @author hhildebrand
+ * 
+ */
+class ChildCircuits {
+    private static class Circuit {
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile boolean    open;
+        private long                opened;
+        private long                probed;
+        private boolean             probing;
+    }
+
+    /**
+     * The outcome of a request
+     */
+    private enum Outcome {
+        ABANDONED, FAILURE, SUCCESS;
+    }
+
+    private static final Logger                         log      = LoggerFactory.getLogger(ChildCircuits.class);
+
+    private final ConcurrentMap<ChildIdentity, Circuit> circuits = new ConcurrentHashMap<>();
+    private volatile int                                failureThreshold;
+    private volatile long                               openInterval;
+    private volatile long                               slowCallThreshold;
+
+    /**
+     * @param failureThreshold
+     *            - the number of consecutive failures which opens a circuit
+     * @param openInterval
+     *            - the time, in milliseconds, a circuit stays open before it
+     *            is probed
+     * @param slowCallThreshold
+     *            - the time, in milliseconds, after which an answer counts as
+     *            a failure. 0 disables the latency check
+     */
+    ChildCircuits(int failureThreshold, long openInterval,
+                  long slowCallThreshold) {
+        setFailureThreshold(failureThreshold);
+        setOpenInterval(openInterval);
+        setSlowCallThreshold(slowCallThreshold);
+    }
+
+    /**
+     * @param child
+     * @return true if a request may be made of the child. If the circuit of
+     *         the child is due to be probed, only the first caller is
+     *         answered true
+     */
+    boolean allow(NodeMBean child) {
+        Circuit circuit = circuits.get(new ChildIdentity(child));
+        if (circuit == null || !circuit.open) {
+            return true;
+        }
+        long interval = TimeUnit.MILLISECONDS.toNanos(openInterval);
+        long now = System.nanoTime();
+        synchronized (circuit) {
+            if (!circuit.open) {
+                return true;
+            }
+            if (now - circuit.opened < interval) {
+                return false;
+            }
+            if (circuit.probing && now - circuit.probed < interval) {
+                return false;
+            }
+            circuit.probing = true;
+            circuit.probed = now;
+            return true;
+        }
+    }
+
+    int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    long getOpenInterval() {
+        return openInterval;
+    }
+
+    long getSlowCallThreshold() {
+        return slowCallThreshold;
+    }
+
+    /**
+     * Answer the task which records the outcome of the request of the child
+     * 
+     * @param child
+     * @param task
+     * @return
+     */
+    <V> Callable<V> guard(final NodeMBean child, final Callable<V> task) {
+        return new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                long start = System.nanoTime();
+                Outcome outcome = Outcome.ABANDONED;
+                Throwable failure = null;
+                try {
+                    V result = task.call();
+                    outcome = outcome(start);
+                    return result;
+                } catch (Exception e) {
+                    failure = e;
+                    outcome = outcome(e);
+                    throw e;
+                } finally {
+                    record(child, outcome, failure);
+                }
+            }
+        };
+    }
+
+    /**
+     * Record the outcome of the request of the child when the future
+     * completes
+     * 
+     * @param child
+     * @param future
+     * @return the future
+     */
+    <V> CompletableFuture<V> guard(final NodeMBean child,
+                                   CompletableFuture<V> future) {
+        final long start = System.nanoTime();
+        return future.whenComplete((result, e) -> record(child,
+                                                         e == null ? outcome(start)
+                                                                  : outcome(e),
+                                                         e));
+    }
+
+    /**
+     * @param child
+     * @return true if the circuit of the child is open
+     */
+    boolean isOpen(NodeMBean child) {
+        Circuit circuit = circuits.get(new ChildIdentity(child));
+        return circuit != null && circuit.open;
+    }
+
+    /**
+     * Forget the circuit of the child
+     * 
+     * @param child
+     */
+    void remove(NodeMBean child) {
+        circuits.remove(new ChildIdentity(child));
+    }
+
+    void setFailureThreshold(int failureThreshold) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException(
+                                               String.format("Failure threshold must be at least 1: %s",
+                                                             failureThreshold));
+        }
+        this.failureThreshold = failureThreshold;
+    }
+
+    void setOpenInterval(long openInterval) {
+        if (openInterval < 0) {
+            throw new IllegalArgumentException(
+                                               String.format("Open interval must not be negative: %s",
+                                                             openInterval));
+        }
+        this.openInterval = openInterval;
+    }
+
+    void setSlowCallThreshold(long slowCallThreshold) {
+        if (slowCallThreshold < 0) {
+            throw new IllegalArgumentException(
+                                               String.format("Slow call threshold must not be negative: %s",
+                                                             slowCallThreshold));
+        }
+        this.slowCallThreshold = slowCallThreshold;
+    }
+
+    /**
+     * @return the outcome of a request answered after starting at the time
+     */
+    private Outcome outcome(long start) {
+        long slow = TimeUnit.MILLISECONDS.toNanos(slowCallThreshold);
+        return slow != 0 && System.nanoTime() - start > slow ? Outcome.FAILURE
+                                                             : Outcome.SUCCESS;
+    }
+
+    /**
+     * @return the outcome of a request which threw the exception
+     */
+    private Outcome outcome(Throwable e) {
+        while ((e instanceof ExecutionException || e instanceof CompletionException)
+               && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (e instanceof InterruptedException
+            || e instanceof CancellationException
+            || e instanceof ClosedByInterruptException
+            || (e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException))) {
+            return Outcome.ABANDONED;
+        }
+        return e instanceof JMException ? Outcome.SUCCESS : Outcome.FAILURE;
+    }
+
+    private void record(NodeMBean child, Outcome outcome, Throwable e) {
+        Circuit circuit = circuits.get(new ChildIdentity(child));
+        switch (outcome) {
+            case ABANDONED:
+                if (circuit != null && circuit.open) {
+                    synchronized (circuit) {
+                        circuit.probing = false;
+                    }
+                }
+                return;
+            case SUCCESS:
+                if (circuit != null) {
+                    circuit.failures.set(0);
+                    if (circuit.open) {
+                        synchronized (circuit) {
+                            circuit.open = false;
+                            circuit.probing = false;
+                        }
+                        log.info(String.format("Closed the circuit of %s",
+                                               child.getName()));
+                    }
+                }
+                return;
+            default:
+                break;
+        }
+        if (circuit == null) {
+            circuit = circuits.computeIfAbsent(new ChildIdentity(child),
+                                               c -> new Circuit());
+        }
+        if (circuit.open) {
+            synchronized (circuit) {
+                if (circuit.probing) {
+                    circuit.probing = false;
+                    circuit.opened = System.nanoTime();
+                }
+            }
+            return;
+        }
+        if (circuit.failures.incrementAndGet() >= failureThreshold) {
+            synchronized (circuit) {
+                circuit.opened = System.nanoTime();
+                circuit.probing = false;
+                circuit.open = true;
+            }
+            log.warn(String.format("Opened the circuit of %s after %s consecutive failures",
+                                   child.getName(), circuit.failures.get()),
+                     e);
+        }
+    }
+}
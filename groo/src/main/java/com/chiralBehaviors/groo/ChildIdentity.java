@@ -0,0 +1,50 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+/**
+ * Keys a child by its identity, as the children of a node are. The equality
+ * of a node follows its name, which is null until the node is registered and
+ * changes when it is.
+ * 
+ * @author hhildebrand
+ * 
+ */
+final class ChildIdentity {
+    private final NodeMBean child;
+
+    ChildIdentity(NodeMBean child) {
+        this.child = child;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof ChildIdentity
+               && ((ChildIdentity) obj).child == child;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(child);
+    }
+}
@@ -0,0 +1,135 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.ObjectName;
+
+/**
+ * The children Groo has added to its parents, indexed by the connection
+ * factory and the name of the source MBean. A source matching the filters of
+ * several parents has a child for each parent, keyed by the handback of the
+ * parent's filter. Adding and removing a child are constant time.
+ * 
+ * @author hhildebrand
+ * 
+ */
+class ChildRegistry {
+    private final ConcurrentMap<MbscFactory, ConcurrentMap<ObjectName, Map<UUID, NodeMBean>>> children = new ConcurrentHashMap<>();
+
+    /**
+     * @param factory
+     * @param parent
+     * @param child
+     * @return true if the child was registered, false if the factory is not
+     *         registered or the parent already has a child for the source
+     */
+    boolean add(MbscFactory factory, final Node parent, final NodeMBean child) {
+        ConcurrentMap<ObjectName, Map<UUID, NodeMBean>> sources = children.get(factory);
+        if (sources == null) {
+            return false;
+        }
+        final boolean[] added = new boolean[1];
+        sources.compute(child.getName(), (name, byParent) -> {
+            Map<UUID, NodeMBean> updated = byParent == null ? new ConcurrentHashMap<>()
+                                                           : byParent;
+            added[0] = updated.putIfAbsent(parent.getFilter().getHandback(),
+                                           child) == null;
+            return updated;
+        });
+        return added[0];
+    }
+
+    /**
+     * Register the factory, without children
+     * 
+     * @param factory
+     */
+    void addFactory(MbscFactory factory) {
+        children.putIfAbsent(factory, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Remove all the factories and their children
+     */
+    void clear() {
+        children.clear();
+    }
+
+    /**
+     * Remove all the children of the factory, which stays registered
+     * 
+     * @param factory
+     * @return the removed children, by source name and the handback of the parent
+     */
+    Map<ObjectName, Map<UUID, NodeMBean>> clear(MbscFactory factory) {
+        Map<ObjectName, Map<UUID, NodeMBean>> removed = children.replace(factory,
+                                                                         new ConcurrentHashMap<>());
+        return removed == null ? Collections.<ObjectName, Map<UUID, NodeMBean>> emptyMap()
+                               : removed;
+    }
+
+    boolean contains(MbscFactory factory) {
+        return children.containsKey(factory);
+    }
+
+    /**
+     * @return a view of the registered factories
+     */
+    Set<MbscFactory> factories() {
+        return Collections.unmodifiableSet(children.keySet());
+    }
+
+    /**
+     * Remove the factory and all its children
+     * 
+     * @param factory
+     * @return the removed children, by source name and the handback of the parent
+     */
+    Map<ObjectName, Map<UUID, NodeMBean>> remove(MbscFactory factory) {
+        Map<ObjectName, Map<UUID, NodeMBean>> removed = children.remove(factory);
+        return removed == null ? Collections.<ObjectName, Map<UUID, NodeMBean>> emptyMap()
+                               : removed;
+    }
+
+    /**
+     * @param factory
+     * @param parent
+     * @param sourceName
+     * @return the removed child of the parent for the source, or null
+     */
+    NodeMBean remove(MbscFactory factory, final Node parent,
+                     ObjectName sourceName) {
+        ConcurrentMap<ObjectName, Map<UUID, NodeMBean>> sources = children.get(factory);
+        if (sources == null) {
+            return null;
+        }
+        final NodeMBean[] removed = new NodeMBean[1];
+        sources.computeIfPresent(sourceName, (name, byParent) -> {
+            removed[0] = byParent.remove(parent.getFilter().getHandback());
+            return byParent.isEmpty() ? null : byParent;
+        });
+        return removed[0];
+    }
+}
@@ -0,0 +1,109 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The children of a node. Adding and removing a child are constant time, and
+ * do not copy the set. The fan out of the node's operations iterates over a
+ * snapshot of the children, which is rebuilt lazily by the first operation
+ * after the children change. Each change advances the generation of the set,
+ * so a snapshot taken across a change is never reused. Children are held by
+ * identity, as the equality of a node follows its name, which changes when
+ * the node is registered.
+ * 
+ * @author hhildebrand
+ * 
+ */
+class ChildSet {
+    private static class Snapshot {
+        private final List<NodeMBean> children;
+        private final long            generation;
+
+        private Snapshot(List<NodeMBean> children, long generation) {
+            this.children = children;
+            this.generation = generation;
+        }
+    }
+
+    private final Set<NodeMBean> children   = Collections.newSetFromMap(new IdentityHashMap<NodeMBean, Boolean>());
+    private final AtomicLong     generation = new AtomicLong();
+    private volatile Snapshot    snapshot   = new Snapshot(
+                                                           Collections.<NodeMBean> emptyList(),
+                                                           0);
+
+    /**
+     * @param child
+     * @return true if the child was not already present
+     */
+    synchronized boolean add(NodeMBean child) {
+        if (!children.add(child)) {
+            return false;
+        }
+        generation.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @return an unmodifiable copy of the children
+     */
+    Set<NodeMBean> asSet() {
+        Set<NodeMBean> copy = Collections.newSetFromMap(new IdentityHashMap<NodeMBean, Boolean>());
+        copy.addAll(snapshot());
+        return Collections.unmodifiableSet(copy);
+    }
+
+    synchronized boolean contains(NodeMBean child) {
+        return children.contains(child);
+    }
+
+    /**
+     * @param child
+     * @return true if the child was present
+     */
+    synchronized boolean remove(NodeMBean child) {
+        if (!children.remove(child)) {
+            return false;
+        }
+        generation.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * @return an unmodifiable snapshot of the children, which does not change
+     *         while it is iterated
+     */
+    List<NodeMBean> snapshot() {
+        Snapshot last = snapshot;
+        if (last.generation == generation.get()) {
+            return last.children;
+        }
+        synchronized (this) {
+            long current = generation.get();
+            List<NodeMBean> copy = Collections.unmodifiableList(Arrays.asList(children.toArray(new NodeMBean[0])));
+            snapshot = new Snapshot(copy, current);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+/**
+ * The results of a pattern operation in columnar form: the names of the
+ * MBeans, a parallel array of their values and a bitset marking the
+ * successful results. Merging the results of a child is an array copy, and
+ * the serialized form carries no per MBean result objects.
+ * 
+ * @author hhildebrand
+ * 
+ */
+public class ColumnarResult<T> extends Columns<ColumnarResult<T>> {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param name
+     * @param value
+     * @return the result holding the single successful value
+     */
+    public static <T> ColumnarResult<T> of(ObjectName name, T value) {
+        ColumnarResult<T> result = new ColumnarResult<>(1);
+        result.add(name, value);
+        return result;
+    }
+
+    private transient Object[] values;
+
+    public ColumnarResult() {
+        this(16);
+    }
+
+    /**
+     * @param capacity
+     *            - the expected number of results
+     */
+    public ColumnarResult(int capacity) {
+        super(capacity);
+        values = new Object[capacity()];
+    }
+
+    /**
+     * Add the successful result of the MBean
+     * 
+     * @param name
+     * @param value
+     */
+    public void add(ObjectName name, T value) {
+        values[append(name)] = value;
+    }
+
+    /**
+     * @param index
+     * @return the result, as an OperationResult
+     */
+    public OperationResult<T> getResult(int index) {
+        return isSuccess(index) ? new OperationResult<T>(getValue(index))
+                               : OperationResult.<T> failure(getMessage(index));
+    }
+
+    /**
+     * @param index
+     * @return the value of the successful result, or null if the result
+     *         failed
+     */
+    @SuppressWarnings("unchecked")
+    public T getValue(int index) {
+        checkIndex(index);
+        return (T) values[index];
+    }
+
+    /**
+     * @return the results, keyed by the name of their MBean
+     */
+    public Map<ObjectName, OperationResult<T>> toMap() {
+        Map<ObjectName, OperationResult<T>> results = new HashMap<>(size() * 2);
+        for (int i = 0; i < size(); i++) {
+            results.put(getName(i), getResult(i));
+        }
+        return results;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.Columns#copyValues(com.chiralBehaviors.groo.Columns, int)
+     */
+    @Override
+    protected void copyValues(ColumnarResult<T> columns, int offset) {
+        System.arraycopy(columns.values, 0, values, offset, columns.size());
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.Columns#grow(int)
+     */
+    @Override
+    protected void grow(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException,
+                                                 ClassNotFoundException {
+        in.defaultReadObject();
+        values = new Object[capacity()];
+        for (int i = 0; i < size(); i++) {
+            values[i] = in.readObject();
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (int i = 0; i < size(); i++) {
+            out.writeObject(values[i]);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import javax.management.ObjectName;
+
+/**
+ * The columnar results of a pattern operation: the names of the MBeans, a
+ * bitset marking the successful results and the messages of the failed ones.
+ * Subclasses hold the values in an array parallel to the names, so merging
+ * the results of a child is an array copy. The names are dictionary encoded
+ * on the wire, and decoded into the process wide pool of names.
+ * 
+ * @author hhildebrand
+ * 
+ */
+abstract public class Columns<C extends Columns<C>> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private transient String[]     messages;
+    private transient ObjectName[] names;
+    private transient int          size;
+    private transient BitSet       success;
+
+    Columns(int capacity) {
+        names = new ObjectName[Math.max(1, capacity)];
+        success = new BitSet();
+    }
+
+    /**
+     * Append the results
+     * 
+     * @param columns
+     */
+    public void addAll(C columns) {
+        Columns<C> from = columns;
+        ensureCapacity(size + from.size);
+        System.arraycopy(from.names, 0, names, size, from.size);
+        copyValues(columns, size);
+        for (int i = from.success.nextSetBit(0); i >= 0; i = from.success.nextSetBit(i + 1)) {
+            success.set(size + i);
+        }
+        if (from.messages != null) {
+            if (messages == null) {
+                messages = new String[names.length];
+            }
+            System.arraycopy(from.messages, 0, messages, size, from.size);
+        }
+        size += from.size;
+    }
+
+    /**
+     * Add the failed result of the MBean
+     * 
+     * @param name
+     * @param message
+     */
+    public void addFailure(ObjectName name, String message) {
+        ensureCapacity(size + 1);
+        if (messages == null) {
+            messages = new String[names.length];
+        }
+        messages[size] = message;
+        names[size++] = name;
+    }
+
+    /**
+     * @param index
+     * @return the message of the failed result, or null if the result is a
+     *         success
+     */
+    public String getMessage(int index) {
+        checkIndex(index);
+        return messages == null ? null : messages[index];
+    }
+
+    /**
+     * @param index
+     * @return the name of the MBean of the result
+     */
+    public ObjectName getName(int index) {
+        checkIndex(index);
+        return names[index];
+    }
+
+    /**
+     * @return the names of the MBeans, in the order of the results
+     */
+    public List<ObjectName> getNames() {
+        return Collections.unmodifiableList(Arrays.asList(names).subList(0,
+                                                                         size));
+    }
+
+    /**
+     * @param index
+     * @return true if the result is a success
+     */
+    public boolean isSuccess(int index) {
+        checkIndex(index);
+        return success.get(index);
+    }
+
+    /**
+     * @return the number of results
+     */
+    public int size() {
+        return size;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " [size=" + size + ", failed="
+               + (size - success.cardinality()) + "]";
+    }
+
+    /**
+     * Add the name of a successful result
+     * 
+     * @param name
+     * @return the index of the result
+     */
+    protected int append(ObjectName name) {
+        ensureCapacity(size + 1);
+        success.set(size);
+        names[size] = name;
+        return size++;
+    }
+
+    /**
+     * @return the length of the arrays of the columns
+     */
+    protected int capacity() {
+        return names.length;
+    }
+
+    protected void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(
+                                                String.format("Index: %s, size: %s",
+                                                              index, size));
+        }
+    }
+
+    /**
+     * Copy the values of the columns into this, starting at the offset
+     */
+    abstract protected void copyValues(C columns, int offset);
+
+    /**
+     * Grow the value array to the capacity
+     */
+    abstract protected void grow(int capacity);
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > names.length) {
+            int grown = Math.max(capacity, names.length * 2);
+            grow(grown);
+            names = Arrays.copyOf(names, grown);
+            if (messages != null) {
+                messages = Arrays.copyOf(messages, grown);
+            }
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException,
+                                                 ClassNotFoundException {
+        in.defaultReadObject();
+        size = in.readInt();
+        names = new ObjectName[Math.max(1, size)];
+        ObjectNames.Reader reader = new ObjectNames.Reader(in);
+        for (int i = 0; i < size; i++) {
+            names[i] = reader.read();
+        }
+        success = BitSet.valueOf((long[]) in.readObject());
+        if (success.cardinality() < size) {
+            messages = new String[names.length];
+            for (int i = success.nextClearBit(0); i < size; i = success.nextClearBit(i + 1)) {
+                messages[i] = (String) in.readObject();
+            }
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(size);
+        ObjectNames.Writer writer = new ObjectNames.Writer(out);
+        for (int i = 0; i < size; i++) {
+            writer.write(names[i]);
+        }
+        out.writeObject(success.toLongArray());
+        for (int i = success.nextClearBit(0); i < size; i = success.nextClearBit(i + 1)) {
+            out.writeObject(messages[i]);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.util.concurrent.Callable;
+
+import javax.management.ObjectName;
+
+/**
+ * The columnar analog of the {@link TaskGenerator}. The results of the local
+ * MBeans are added to the columns of their batch, rather than answered one
+ * MBean at a time
+ * 
+ * @author hhildebrand
+ * 
+ */
+public interface ColumnsTaskGenerator<C extends Columns<C>> {
+
+    void localTask(ObjectName objectName, C columns) throws Exception;
+
+    Callable<C> remoteTask(NodeMBean child);
+}
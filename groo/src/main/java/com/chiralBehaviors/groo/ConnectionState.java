@@ -0,0 +1,48 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+/**
+ * The states of the connection of an {@link MbscFactory}
+ * 
+ * @author hhildebrand
+ * 
+ */
+public enum ConnectionState {
+    /**
+     * Connecting, or reconnecting. The listeners are not yet registered
+     */
+    CONNECTING,
+    /**
+     * Connected, with the listeners registered
+     */
+    UP,
+    /**
+     * Connected, but notifications have been lost. The children of the
+     * connection are being resynchronized
+     */
+    DEGRADED,
+    /**
+     * Failed, waiting out the backoff before the next attempt to reconnect
+     */
+    BACKING_OFF,
+    /**
+     * Closed, and will not reconnect
+     */
+    CLOSED;
+}
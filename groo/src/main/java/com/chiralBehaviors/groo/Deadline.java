@@ -0,0 +1,107 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The deadline of a request as it is fanned out through the node hierarchy.
+ * Children are given the remaining time, less a margin that leaves the parent
+ * room to collect their answers before its own deadline expires.
+ * 
+ * @author hhildebrand
+ * 
+ */
+class Deadline {
+    /**
+     * The fraction of the remaining time withheld from children
+     */
+    static final int       CHILD_MARGIN_DIVISOR = 10;
+    static final Deadline  NONE                 = new Deadline(Long.MAX_VALUE);
+
+    static Deadline after(long timeout, TimeUnit unit) {
+        long nanos = unit.toNanos(timeout);
+        if (nanos == Long.MAX_VALUE) {
+            return NONE;
+        }
+        return new Deadline(System.nanoTime() + Math.max(0, nanos));
+    }
+
+    private final long expiry;
+
+    private Deadline(long expiry) {
+        this.expiry = expiry;
+    }
+
+    /**
+     * @return the time budget for the children of this node
+     */
+    long forChild(TimeUnit unit) {
+        if (!isBounded()) {
+            return Long.MAX_VALUE;
+        }
+        long remaining = remaining(TimeUnit.NANOSECONDS);
+        return unit.convert(remaining - remaining / CHILD_MARGIN_DIVISOR,
+                            TimeUnit.NANOSECONDS);
+    }
+
+    boolean isBounded() {
+        return this != NONE;
+    }
+
+    boolean isExpired() {
+        return remaining(TimeUnit.NANOSECONDS) <= 0;
+    }
+
+    /**
+     * Answer the next completed future, waiting no longer than the deadline.
+     * Once the deadline has expired, only futures which have already
+     * completed are answered
+     * 
+     * @param completionService
+     * @return the next completed future, or null if none completed in time
+     * @throws InterruptedException
+     */
+    <V> Future<V> poll(CompletionService<V> completionService)
+                                                               throws InterruptedException {
+        if (!isBounded()) {
+            return completionService.take();
+        }
+        long remaining = remaining(TimeUnit.NANOSECONDS);
+        if (remaining <= 0) {
+            return completionService.poll();
+        }
+        return completionService.poll(remaining, TimeUnit.NANOSECONDS);
+    }
+
+    long remaining(TimeUnit unit) {
+        if (!isBounded()) {
+            return Long.MAX_VALUE;
+        }
+        return unit.convert(Math.max(0, expiry - System.nanoTime()),
+                            TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return isBounded() ? String.format("Deadline [%s ms]",
+                                           remaining(TimeUnit.MILLISECONDS))
+                          : "Deadline [none]";
+    }
+}
@@ -0,0 +1,121 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import javax.management.ObjectName;
+
+/**
+ * The double values of a numeric attribute of the matching MBeans, held in a
+ * primitive array parallel to the names of the MBeans. The value of a failed
+ * result is 0.
+ * 
+ * @author hhildebrand
+ * 
+ */
+public class DoubleColumns extends Columns<DoubleColumns> {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param name
+     * @param value
+     * @return the columns holding the single successful value
+     */
+    public static DoubleColumns of(ObjectName name, double value) {
+        DoubleColumns columns = new DoubleColumns(1);
+        columns.add(name, value);
+        return columns;
+    }
+
+    private transient double[] values;
+
+    public DoubleColumns() {
+        this(16);
+    }
+
+    /**
+     * @param capacity
+     *            - the expected number of results
+     */
+    public DoubleColumns(int capacity) {
+        super(capacity);
+        values = new double[capacity()];
+    }
+
+    /**
+     * Add the successful result of the MBean
+     * 
+     * @param name
+     * @param value
+     */
+    public void add(ObjectName name, double value) {
+        values[append(name)] = value;
+    }
+
+    /**
+     * @param index
+     * @return the value of the result, 0 if the result failed
+     */
+    public double getDouble(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * @return a copy of the values, in the order of the names
+     */
+    public double[] getValues() {
+        return Arrays.copyOf(values, size());
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.Columns#copyValues(com.chiralBehaviors.groo.Columns, int)
+     */
+    @Override
+    protected void copyValues(DoubleColumns columns, int offset) {
+        System.arraycopy(columns.values, 0, values, offset, columns.size());
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.Columns#grow(int)
+     */
+    @Override
+    protected void grow(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException,
+                                                 ClassNotFoundException {
+        in.defaultReadObject();
+        values = new double[capacity()];
+        for (int i = 0; i < size(); i++) {
+            values[i] = in.readDouble();
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        for (int i = 0; i < size(); i++) {
+            out.writeDouble(values[i]);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+/**
+ * The process wide strategy for running the fan out tasks of the nodes
+ * 
+ * @author hhildebrand
+ * 
+ */
+public enum ExecutionMode {
+    /**
+     * Tasks are run on a single, process wide pool of daemon threads
+     */
+    SHARED,
+    /**
+     * Tasks are run on virtual threads, one per task. Falls back to SHARED on
+     * runtimes without virtual threads
+     */
+    VIRTUAL;
+}
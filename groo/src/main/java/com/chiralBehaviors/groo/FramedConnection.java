@@ -0,0 +1,410 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * A non-blocking socket connection carrying framed messages. A frame is its
+ * length, the id of the request it belongs to, its kind and a serialized
+ * body. Frames are read and written on the reactor's thread; frames may be
+ * sent from any thread, and the frames of many requests are interleaved on
+ * the one connection.
+ * <p>
+ * A connection is authenticated before it carries requests: the server sends
+ * a random challenge, and the client answers with the HMAC of the challenge
+ * keyed by the secret the two share, along with a challenge of its own. The
+ * server proves that it shares the secret by answering with the HMAC of the
+ * client's challenge followed by its own, which the client verifies before it
+ * sends any request. The bodies of the frames are decoded by
+ * a stream which only resolves the classes of the packages the node
+ * operations exchange.
+ * 
+ * @author hhildebrand
+ * 
+ */
+abstract class FramedConnection implements Reactor.Handler {
+    /**
+     * The writer of the body of a frame
+     */
+    interface Body {
+        void write(ObjectOutputStream out) throws IOException;
+    }
+
+    /**
+     * Resolves only the classes of the allowed packages, and no proxies
+     */
+    private static class FilteredInputStream extends ObjectInputStream {
+        private FilteredInputStream(byte[] body) throws IOException {
+            super(new ByteArrayInputStream(body));
+        }
+
+        /* (non-Javadoc)
+         * @see java.io.ObjectInputStream#resolveClass(java.io.ObjectStreamClass)
+         */
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc)
+                                                               throws IOException,
+                                                               ClassNotFoundException {
+            if (!isAllowed(desc.getName())) {
+                throw new InvalidClassException(desc.getName(),
+                                                "not allowed by the node transport");
+            }
+            return super.resolveClass(desc);
+        }
+
+        /* (non-Javadoc)
+         * @see java.io.ObjectInputStream#resolveProxyClass(java.lang.String[])
+         */
+        @Override
+        protected Class<?> resolveProxyClass(String[] interfaces)
+                                                                 throws IOException {
+            throw new InvalidClassException(Arrays.toString(interfaces),
+                                            "proxies are not allowed by the node transport");
+        }
+    }
+
+    private static class FrameBuffer extends ByteArrayOutputStream {
+        private FrameBuffer() {
+            super(256);
+            count = HEADER;
+        }
+
+        private ByteBuffer toFrame(long id, byte kind) {
+            ByteBuffer frame = ByteBuffer.wrap(buf, 0, count);
+            frame.putInt(0, count - Integer.BYTES);
+            frame.putLong(Integer.BYTES, id);
+            frame.put(Integer.BYTES + Long.BYTES, kind);
+            return frame;
+        }
+    }
+
+    static final byte               AUTHENTICATE     = 6;
+    static final byte               AUTHENTICATED    = 7;
+    static final byte               CHALLENGE        = 5;
+    static final byte               EXCEPTION        = 4;
+    static final byte               GET_ATTRIBUTE    = 1;
+    static final byte               INVOKE           = 2;
+    static final byte               RESULT           = 3;
+
+    /**
+     * The packages of the classes which may be deserialized from a frame
+     */
+    static final Set<String>        ALLOWED          = Collections.unmodifiableSet(new HashSet<>(
+                                                                                                 Arrays.asList("java.io",
+                                                                                                               "java.lang",
+                                                                                                               "java.math",
+                                                                                                               "java.util",
+                                                                                                               "java.util.concurrent",
+                                                                                                               "java.util.concurrent.atomic",
+                                                                                                               "javax.management",
+                                                                                                               "javax.management.openmbean",
+                                                                                                               "com.chiralBehaviors.groo")));
+
+    /**
+     * The length of the answer to a challenge, the HMAC-SHA256 of the
+     * challenge
+     */
+    static final int                ANSWER_LENGTH    = 32;
+
+    /**
+     * The length of the challenge of the server
+     */
+    static final int                CHALLENGE_LENGTH = 32;
+
+    /**
+     * The length of the header of a frame
+     */
+    static final int                HEADER           = Integer.BYTES + Long.BYTES + 1;
+
+    /**
+     * The bound on the length of a frame
+     */
+    static final int                MAX_FRAME        = 64 * 1024 * 1024;
+
+    /**
+     * @param body
+     * @return the stream reading the body of a frame
+     * @throws IOException
+     */
+    static ObjectInputStream decode(byte[] body) throws IOException {
+        return new FilteredInputStream(body);
+    }
+
+    /**
+     * @param id
+     * @param kind
+     * @param body
+     * @return the frame
+     * @throws IOException
+     */
+    static ByteBuffer encode(long id, byte kind, Body body) throws IOException {
+        FrameBuffer bytes = new FrameBuffer();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            body.write(out);
+        }
+        if (bytes.size() > MAX_FRAME) {
+            throw new IOException(
+                                  String.format("Frame of %s bytes exceeds the maximum of %s",
+                                                bytes.size(), MAX_FRAME));
+        }
+        return bytes.toFrame(id, kind);
+    }
+
+    /**
+     * @param className
+     * @return true if the class, or the component class of the array, is in
+     *         one of the allowed packages
+     */
+    static boolean isAllowed(String className) {
+        String name = className;
+        while (name.startsWith("[")) {
+            name = name.substring(1);
+        }
+        if (name.length() == 1) {
+            // an array of primitives
+            return true;
+        }
+        if (name.startsWith("L") && name.endsWith(";")) {
+            name = name.substring(1, name.length() - 1);
+        }
+        int lastDot = name.lastIndexOf('.');
+        return lastDot > 0 && ALLOWED.contains(name.substring(0, lastDot));
+    }
+
+    /**
+     * @param secret
+     * @param challenge
+     *            - the challenge, or the parts of the challenge in order
+     * @return the answer to the challenge
+     * @throws IOException
+     */
+    static byte[] sign(byte[] secret, byte[]... challenge) throws IOException {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+            for (byte[] part : challenge) {
+                mac.update(part);
+            }
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Unable to sign the challenge", e);
+        }
+    }
+
+    protected final SocketChannel   channel;
+    protected final Reactor         reactor;
+    private final AtomicBoolean     closed           = new AtomicBoolean();
+    private final AtomicBoolean     flushing         = new AtomicBoolean();
+    private SelectionKey            key;
+    private ByteBuffer              read             = ByteBuffer.allocate(8192);
+    private final Queue<ByteBuffer> writes           = new ConcurrentLinkedQueue<>();
+
+    FramedConnection(SocketChannel channel, Reactor reactor) {
+        this.channel = channel;
+        this.reactor = reactor;
+    }
+
+    /**
+     * Close the connection
+     */
+    void close() {
+        close(new ClosedChannelException());
+    }
+
+    /**
+     * @return true if the connection has not been closed
+     */
+    boolean isOpen() {
+        return !closed.get();
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.Reactor.Handler#ready(java.nio.channels.SelectionKey)
+     */
+    @Override
+    public void ready(SelectionKey key) {
+        try {
+            if (key.isReadable()) {
+                read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush();
+            }
+        } catch (CancelledKeyException e) {
+            // closed by another thread while the key was being serviced
+            close();
+        } catch (IOException e) {
+            close(e);
+        } catch (RuntimeException e) {
+            close(new IOException(String.format("Error servicing %s",
+                                                channel), e));
+        }
+    }
+
+    /**
+     * Register the connection with the reactor
+     */
+    void register() {
+        reactor.execute(() -> {
+            try {
+                key = channel.register(reactor.getSelector(),
+                                       SelectionKey.OP_READ, this);
+                flush();
+            } catch (IOException e) {
+                close(e);
+            }
+        });
+    }
+
+    /**
+     * Queue the frame to be written
+     * 
+     * @param frame
+     * @throws IOException
+     *             - if the connection is closed
+     */
+    void send(ByteBuffer frame) throws IOException {
+        if (closed.get()) {
+            throw new ClosedChannelException();
+        }
+        writes.add(frame);
+        if (flushing.compareAndSet(false, true)) {
+            reactor.execute(() -> {
+                flushing.set(false);
+                try {
+                    flush();
+                } catch (IOException e) {
+                    close(e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Close the connection
+     * 
+     * @param cause
+     */
+    protected void close(IOException cause) {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // ignored
+        }
+        closed(cause);
+    }
+
+    /**
+     * The connection has been closed
+     * 
+     * @param cause
+     */
+    abstract protected void closed(IOException cause);
+
+    /**
+     * The frame has been received. Called on the reactor's thread
+     * 
+     * @param id
+     * @param kind
+     * @param body
+     */
+    abstract protected void received(long id, byte kind, byte[] body);
+
+    /**
+     * @return the bound on the length of the next frame read
+     */
+    protected int maxFrame() {
+        return MAX_FRAME;
+    }
+
+    private void flush() throws IOException {
+        if (key == null || !key.isValid()) {
+            return;
+        }
+        ByteBuffer frame;
+        while ((frame = writes.peek()) != null) {
+            channel.write(frame);
+            if (frame.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+            writes.poll();
+        }
+        key.interestOps(SelectionKey.OP_READ);
+    }
+
+    private void read() throws IOException {
+        if (channel.read(read) < 0) {
+            throw new EOFException("Connection closed by peer");
+        }
+        read.flip();
+        while (read.remaining() >= Integer.BYTES) {
+            int length = read.getInt(read.position());
+            if (length < HEADER - Integer.BYTES || length > maxFrame()) {
+                throw new IOException(String.format("Invalid frame length: %s",
+                                                    length));
+            }
+            if (read.remaining() < Integer.BYTES + length) {
+                break;
+            }
+            read.getInt();
+            long id = read.getLong();
+            byte kind = read.get();
+            byte[] body = new byte[length - (HEADER - Integer.BYTES)];
+            read.get(body);
+            received(id, kind, body);
+        }
+        read.compact();
+        if (read.position() >= Integer.BYTES) {
+            int needed = read.getInt(0) + Integer.BYTES;
+            if (needed > read.capacity()) {
+                ByteBuffer grown = ByteBuffer.allocate(needed);
+                read.flip();
+                grown.put(read);
+                read = grown;
+            }
+        }
+    }
+}
@@ -18,13 +18,15 @@ package com.chiralBehaviors.groo;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.management.InstanceNotFoundException;
@@ -50,7 +52,7 @@ public class Groo implements GrooMBean, MBeanRegistration {
     private final AtomicBoolean                               active   = new AtomicBoolean(
                                                                                            true);
     private final ConcurrentMap<UUID, NetworkBuilder>         builders = new ConcurrentHashMap<>();
-    private final ConcurrentMap<MbscFactory, List<NodeMBean>> children = new ConcurrentHashMap<>();
+    private final ChildRegistry                               children = new ChildRegistry();
     private final String                                      description;
     private final ConcurrentMap<UUID, Node>                   filters  = new ConcurrentHashMap<>();
     private MBeanServer                                       mbs;
@@ -63,7 +65,7 @@ public class Groo implements GrooMBean, MBeanRegistration {
     public void addBuilder(NetworkBuilder builder) throws IOException {
         log.info(String.format("Adding builder: %s on: %s", builder, this));
         builders.put(builder.getFilter().getHandback(), builder);
-        for (MbscFactory factory : children.keySet()) {
+        for (MbscFactory factory : children.factories()) {
             update(factory, builder);
             factory.registerBuilder(builder.getFilter());
         }
@@ -74,7 +76,7 @@ public class Groo implements GrooMBean, MBeanRegistration {
                                                   IOException {
         log.info(String.format("Adding connection factory: %s for: %s",
                                factory, this));
-        children.putIfAbsent(factory, new CopyOnWriteArrayList<NodeMBean>());
+        children.addFactory(factory);
         factory.registerListeners();
         for (Node parent : parents) {
             update(factory, parent);
@@ -93,13 +95,21 @@ public class Groo implements GrooMBean, MBeanRegistration {
                                       parentProperties));
     }
 
+    public void addNetworkBuilder(ObjectName networkPattern,
+                                  QueryExp networkQuery,
+                                  String[] parentProperties, Executor executor)
+                                                                               throws IOException {
+        addBuilder(new NetworkBuilder(this, networkPattern, networkQuery,
+                                      parentProperties, executor));
+    }
+
     public void addParent(Node parent) throws IOException {
         if (!parents.add(parent)) {
             return;
         }
         log.info(String.format("Adding parent: %s on: %s", parent, this));
         filters.put(parent.getFilter().getHandback(), parent);
-        for (MbscFactory factory : children.keySet()) {
+        for (MbscFactory factory : children.factories()) {
             update(factory, parent);
             factory.register(parent.getFilter());
         }
@@ -190,7 +200,7 @@ public class Groo implements GrooMBean, MBeanRegistration {
             return;
         }
         try {
-            for (MbscFactory factory : children.keySet()) {
+            for (MbscFactory factory : children.factories()) {
                 cleanup(factory);
             }
             children.clear();
@@ -213,60 +223,161 @@ public class Groo implements GrooMBean, MBeanRegistration {
         if (!active.get()) {
             return;
         }
-        MbscNodeWrapper child = new MbscNodeWrapper(factory, childName);
+        MbscNodeWrapper child = new MbscNodeWrapper(factory, childName,
+                                                    parent.getExecutor());
         if (!parent.addChild(child)) {
             return;
         }
+        if (!children.add(factory, parent, child)) {
+            // the factory has been cleaned up
+            parent.removeChild(child);
+            return;
+        }
         log.info(String.format("Adding child: %s to parent: %s on: %s", child,
                                parent, factory));
-        children.get(factory).add(child);
     }
 
     private void cleanup(MbscFactory factory) {
-        factory.deregisterListeners();
-        for (Node parent : parents) {
-            for (NodeMBean child : children.remove(factory)) {
-                parent.removeChild(child);
-            }
-        }
+        factory.close();
+        factory.nextResync();
+        removeChildren(children.remove(factory));
+    }
 
+    /**
+     * Remove the children of the factory from the parents. The factory is
+     * kept, so its children are restored when it reconnects
+     * 
+     * @param factory
+     */
+    private void detach(MbscFactory factory) {
+        factory.nextResync();
+        factory.forgetKnown();
+        removeChildren(children.clear(factory));
     }
 
-    private void removeChild(MbscFactory factory, ObjectName sourceName) {
-        NodeMBean n = null;
-        for (NodeMBean child : children.get(factory)) {
-            if (sourceName.equals(child.getName())) {
-                n = child;
-                break;
+    /**
+     * Apply the difference between the last known and the found names of the
+     * parent's filter to the children of the parent. The names notified since
+     * the query started are left to their notifications, as the query may
+     * have missed them
+     * 
+     * @param factory
+     * @param parent
+     * @param found
+     * @param mark
+     *            - the mark of the query which found the names
+     */
+    private void apply(MbscFactory factory, Node parent,
+                       Set<ObjectName> found, long mark) {
+        Set<ObjectName> known = factory.getKnown(parent.getFilter().getHandback());
+        int added = 0;
+        int removed = 0;
+        for (ObjectName name : new ArrayList<>(known)) {
+            if (factory.notifiedSince(name, mark)) {
+                continue;
             }
+            if (!found.contains(name) && known.remove(name)) {
+                removeChild(factory, parent, name);
+                removed++;
+            }
+        }
+        for (ObjectName name : found) {
+            ObjectName interned = ObjectNames.intern(name);
+            if (factory.notifiedSince(interned, mark)) {
+                continue;
+            }
+            if (known.add(interned)) {
+                addChild(parent, interned, factory);
+                added++;
+            }
+        }
+        if (added != 0 || removed != 0) {
+            log.info(String.format("Resynced node: %s on: %s, added: %s removed: %s",
+                                   parent, factory, added, removed));
         }
-        if (n == null) {
+    }
+
+    private Set<ObjectName> query(MbscFactory factory, RegistrationFilter filter)
+                                                                                throws IOException {
+        return new HashSet<>(
+                             factory.getMBeanServerConnection().queryNames(filter.getSourcePattern(),
+                                                                           filter.getSourceQuery()));
+    }
+
+    private void removeChild(MbscFactory factory, Node parent,
+                             ObjectName sourceName) {
+        NodeMBean child = children.remove(factory, parent, sourceName);
+        if (child == null) {
             return;
         }
-        children.get(factory).remove(n);
-        for (Node parent : parents) {
-            parent.removeChild(n);
+        log.info(String.format("Removing child: %s from parent: %s on: %s",
+                               child, parent, factory));
+        parent.removeChild(child);
+    }
+
+    private void removeChildren(Map<ObjectName, Map<UUID, NodeMBean>> removed) {
+        for (Map<UUID, NodeMBean> byParent : removed.values()) {
+            for (Map.Entry<UUID, NodeMBean> entry : byParent.entrySet()) {
+                Node parent = filters.get(entry.getKey());
+                if (parent != null) {
+                    parent.removeChild(entry.getValue());
+                }
+            }
         }
-        return;
     }
 
-    private void update(MbscFactory factory) throws IOException {
+    /**
+     * Resynchronize the children of the factory in the background, so that
+     * the queries do not block the handling of notifications. A burst of
+     * resyncs collapses into the latest
+     * 
+     * @param factory
+     */
+    private void resync(final MbscFactory factory) {
+        final long version = factory.nextResync();
+        NodeExecutors.executor().execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!active.get() || !factory.isCurrentResync(version)) {
+                    return;
+                }
+                try {
+                    update(factory, version);
+                } catch (Exception e) {
+                    log.info(String.format("Unable to resync: %s", factory),
+                             e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Resynchronize the children and the networks of the factory, abandoning
+     * the resync if a later one has started
+     * 
+     * @param factory
+     * @param version
+     * @throws IOException
+     */
+    private void update(MbscFactory factory, long version) throws IOException {
         log.info(String.format("Updating factory: %s", factory));
         for (Node parent : parents) {
-            RegistrationFilter filter = parent.getFilter();
-            final Set<ObjectName> found = factory.getMBeanServerConnection().queryNames(filter.getSourcePattern(),
-                                                                                        filter.getSourceQuery());
-            List<NodeMBean> list = children.get(factory);
-            List<NodeMBean> removed = new ArrayList<>();
-            for (NodeMBean child : list) {
-                if (!found.contains(child.getName())) {
-                    removed.add(child);
+            long mark = factory.query();
+            try {
+                Set<ObjectName> found = query(factory, parent.getFilter());
+                if (!factory.isCurrentResync(version)) {
+                    log.debug(String.format("Resync of: %s superseded", factory));
+                    return;
                 }
-            }
-            for (ObjectName name : found) {
-                addChild(parent, name, factory);
+                apply(factory, parent, found, mark);
+            } finally {
+                factory.queried();
             }
         }
+        for (NetworkBuilder builder : builders.values()) {
+            update(factory, builder);
+        }
+        factory.resynced(version);
         if (log.isDebugEnabled()) {
             log.debug("update, Groo updated");
         }
@@ -297,9 +408,11 @@ public class Groo implements GrooMBean, MBeanRegistration {
         RegistrationFilter filter = parent.getFilter();
         log.info(String.format("Querying for node: %s filter: %s on: %s for: %s",
                                parent, filter, factory, this));
-        for (ObjectName name : factory.getMBeanServerConnection().queryNames(filter.getSourcePattern(),
-                                                                             filter.getSourceQuery())) {
-            addChild(parent, name, factory);
+        long mark = factory.query();
+        try {
+            apply(factory, parent, query(factory, filter), mark);
+        } finally {
+            factory.queried();
         }
     }
 
@@ -316,11 +429,16 @@ public class Groo implements GrooMBean, MBeanRegistration {
                 }
                 if (JMXConnectionNotification.OPENED.equals(nt)
                     || JMXConnectionNotification.NOTIFS_LOST.equals(nt)) {
-                    update(factory);
-                } else if (JMXConnectionNotification.CLOSED.equals(nt)) {
-                    cleanup(factory);
-                } else if (JMXConnectionNotification.FAILED.equals(nt)) {
-                    cleanup(factory);
+                    resync(factory);
+                } else if (JMXConnectionNotification.CLOSED.equals(nt)
+                           || JMXConnectionNotification.FAILED.equals(nt)) {
+                    if (factory.getState() == ConnectionState.BACKING_OFF) {
+                        log.info(String.format("Connection lost, detaching the children of: %s until it reconnects",
+                                               factory));
+                        detach(factory);
+                    } else {
+                        cleanup(factory);
+                    }
                 }
             }
         } catch (Exception x) {
@@ -330,6 +448,29 @@ public class Groo implements GrooMBean, MBeanRegistration {
         }
     }
 
+    /**
+     * The factory has reconnected, and its listeners are registered again.
+     * Restore the children and parents of the connection in the background
+     * 
+     * @param factory
+     */
+    void handleReconnected(MbscFactory factory) {
+        if (!active.get()) {
+            return;
+        }
+        try {
+            synchronized (this) {
+                if (!active.get() || !children.contains(factory)) {
+                    return;
+                }
+                resync(factory);
+            }
+        } catch (Exception x) {
+            log.warn(String.format("Unable to restore the children of: %s",
+                                   factory), x);
+        }
+    }
+
     void handleMBeanServerNotification(MbscFactory factory,
                                        MBeanServerNotification notification,
                                        UUID handback) {
@@ -337,15 +478,22 @@ public class Groo implements GrooMBean, MBeanRegistration {
             return;
         }
         final String type = notification.getType();
-        final ObjectName sourceName = notification.getMBeanName();
+        final ObjectName sourceName = ObjectNames.intern(notification.getMBeanName());
+        factory.notified(sourceName);
+        Node parent = filters.get(handback);
+        if (parent == null) {
+            return;
+        }
+        parent.invalidateQueries();
+        Set<ObjectName> known = factory.getKnown(handback);
         if (MBeanServerNotification.REGISTRATION_NOTIFICATION.equals(type)) {
-            Node parent = filters.get(handback);
-            if (parent != null) {
+            if (known.add(sourceName)) {
                 addChild(parent, sourceName, factory);
             }
         } else if (MBeanServerNotification.UNREGISTRATION_NOTIFICATION.equals(type)) {
-            if (children.containsKey(sourceName)) {
-                removeChild(factory, sourceName);
+            parent.unregistered(sourceName);
+            if (known.remove(sourceName)) {
+                removeChild(factory, parent, sourceName);
             }
         }
     }
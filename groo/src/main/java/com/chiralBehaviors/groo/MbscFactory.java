@@ -2,8 +2,19 @@ package com.chiralBehaviors.groo;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.management.InstanceNotFoundException;
 import javax.management.ListenerNotFoundException;
@@ -13,14 +24,37 @@ import javax.management.MalformedObjectNameException;
 import javax.management.Notification;
 import javax.management.NotificationListener;
 import javax.management.ObjectName;
+import javax.management.remote.JMXConnectionNotification;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 abstract public class MbscFactory {
-    public final static ObjectName         MBSDelegateObjectName;
+    private static class Reconnects {
+        private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+                                                                    Thread thread = new Thread(
+                                                                                               r,
+                                                                                               "groo-reconnect");
+                                                                    thread.setDaemon(true);
+                                                                    return thread;
+                                                                });
+    }
+
+    /**
+     * The default delay, in milliseconds, before the first attempt to
+     * reconnect
+     */
+    public static final long                           DEFAULT_INITIAL_BACKOFF = 1000;
+
+    /**
+     * The default bound, in milliseconds, on the delay between attempts to
+     * reconnect
+     */
+    public static final long                           DEFAULT_MAX_BACKOFF     = 60000;
+
+    public final static ObjectName                     MBSDelegateObjectName;
 
-    private static final Logger            log            = LoggerFactory.getLogger(MbscFactory.class);
+    private static final Logger                        log                     = LoggerFactory.getLogger(MbscFactory.class);
 
     static {
         try {
@@ -31,12 +65,23 @@ abstract public class MbscFactory {
         }
     }
 
-    private final List<RegistrationFilter> builderFilters = new CopyOnWriteArrayList<>();
-    private final List<RegistrationFilter> filters        = new CopyOnWriteArrayList<>();
-    private final Groo                     groo;
-    protected final NotificationListener   builderListener;
-    protected final NotificationListener   connectListener;
-    protected final NotificationListener   mbsListener;
+    private final AtomicInteger                        attempts                = new AtomicInteger();
+    private final List<RegistrationFilter>             builderFilters          = new CopyOnWriteArrayList<>();
+    private final AtomicLong                           epoch                   = new AtomicLong();
+    private final List<RegistrationFilter>             filters                 = new CopyOnWriteArrayList<>();
+    private final Groo                                 groo;
+    private volatile long                              initialBackoff          = DEFAULT_INITIAL_BACKOFF;
+    private final ConcurrentMap<UUID, Set<ObjectName>> known                   = new ConcurrentHashMap<>();
+    private volatile long                              maxBackoff              = DEFAULT_MAX_BACKOFF;
+    private final ConcurrentMap<ObjectName, Long>      notified                = new ConcurrentHashMap<>();
+    private final AtomicLong                           notifications           = new AtomicLong();
+    private volatile ScheduledFuture<?>                pendingReconnect;
+    private final AtomicInteger                        queries                 = new AtomicInteger();
+    private final AtomicLong                           resyncs                 = new AtomicLong();
+    private final AtomicReference<ConnectionState>     state                   = new AtomicReference<>(ConnectionState.CONNECTING);
+    protected final NotificationListener               builderListener;
+    protected final NotificationListener               connectListener;
+    protected final NotificationListener               mbsListener;
 
     /**
      * @param groo
@@ -48,6 +93,19 @@ abstract public class MbscFactory {
         builderListener = nbListener();
     }
 
+    /**
+     * Close the factory: it will not reconnect, and its listeners are
+     * deregistered
+     */
+    public void close() {
+        state.set(ConnectionState.CLOSED);
+        ScheduledFuture<?> pending = pendingReconnect;
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        deregisterListeners();
+    }
+
     public void deregister(RegistrationFilter filter) {
         log.info(String.format("Deregistering filter: %s on :%s", filter, this));
         filters.remove(filter);
@@ -75,11 +133,44 @@ abstract public class MbscFactory {
         deregisterConnectListener();
     }
 
+    /**
+     * @return the connection epoch, advanced whenever the connection of the
+     *         factory is opened, closed or fails. Connections cached by the
+     *         users of the factory are stale once the epoch changes
+     */
+    public long getConnectionEpoch() {
+        return epoch.get();
+    }
+
     abstract public String getConnectionId() throws IOException;
 
+    /**
+     * @return the delay, in milliseconds, before the first attempt to
+     *         reconnect
+     */
+    public long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    /**
+     * @return the bound, in milliseconds, on the delay between attempts to
+     *         reconnect
+     */
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
     abstract public MBeanServerConnection getMBeanServerConnection()
                                                                     throws IOException;
 
+    /**
+     * @return the channel the operations of the remote nodes are invoked over
+     * @throws IOException
+     */
+    NodeChannel getNodeChannel() throws IOException {
+        return NodeChannel.of(getMBeanServerConnection());
+    }
+
     public void register(RegistrationFilter filter) {
         filters.add(filter);
         log.info(String.format("registering filter %s on: %s", filter, this));
@@ -109,6 +200,13 @@ abstract public class MbscFactory {
         }
     }
 
+    /**
+     * @return the state of the connection of the factory
+     */
+    public ConnectionState getState() {
+        return state.get();
+    }
+
     public void registerListeners() throws InstanceNotFoundException,
                                    IOException {
         for (RegistrationFilter filter : filters) {
@@ -128,6 +226,25 @@ abstract public class MbscFactory {
                                                                filter.getHandback());
         }
         registerConnectListener();
+        state.compareAndSet(ConnectionState.CONNECTING, ConnectionState.UP);
+    }
+
+    /**
+     * @param initialBackoff
+     *            - the delay, in milliseconds, before the first attempt to
+     *            reconnect
+     */
+    public void setInitialBackoff(long initialBackoff) {
+        this.initialBackoff = initialBackoff;
+    }
+
+    /**
+     * @param maxBackoff
+     *            - the bound, in milliseconds, on the delay between attempts
+     *            to reconnect
+     */
+    public void setMaxBackoff(long maxBackoff) {
+        this.maxBackoff = maxBackoff;
     }
 
     /* (non-Javadoc)
@@ -143,17 +260,214 @@ abstract public class MbscFactory {
         }
     }
 
+    /**
+     * The delay before the attempt to reconnect: exponential in the number of
+     * failed attempts, bounded by the maximum backoff, and jittered over its
+     * upper half so the children of a failed parent do not reconnect in
+     * lockstep
+     * 
+     * @param attempt
+     * @return the delay, in milliseconds
+     */
+    long backoff(int attempt) {
+        long ceiling = Math.min(maxBackoff,
+                                initialBackoff << Math.min(attempt, 30));
+        long half = ceiling / 2;
+        return half + ThreadLocalRandom.current().nextLong(ceiling - half + 1);
+    }
+
+    /**
+     * Forget the last known names of all the filters, so that the next resync
+     * adds every name it finds
+     */
+    void forgetKnown() {
+        known.clear();
+    }
+
+    /**
+     * @param handback
+     *            - the handback of the filter
+     * @return the live set of the names last known to match the filter
+     */
+    Set<ObjectName> getKnown(UUID handback) {
+        return known.computeIfAbsent(handback,
+                                     h -> ConcurrentHashMap.<ObjectName> newKeySet());
+    }
+
+    /**
+     * @param name
+     * @return true if the name is known to match any of the filters
+     */
+    boolean isKnown(ObjectName name) {
+        for (Set<ObjectName> names : known.values()) {
+            if (names.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param version
+     * @return true if no resync has been started since the resync with the
+     *         version
+     */
+    boolean isCurrentResync(long version) {
+        return resyncs.get() == version;
+    }
+
+    /**
+     * A registration or unregistration of the name has been notified. While
+     * queries are in progress, the name is recorded so that their stale
+     * answers for it are not applied
+     * 
+     * @param name
+     */
+    void notified(ObjectName name) {
+        if (queries.get() > 0) {
+            notified.put(name, notifications.incrementAndGet());
+        }
+    }
+
+    /**
+     * @param name
+     * @param mark
+     *            - the mark of the query
+     * @return true if the registration of the name has been notified since
+     *         the query started
+     */
+    boolean notifiedSince(ObjectName name, long mark) {
+        Long notification = notified.get(name);
+        return notification != null && notification > mark;
+    }
+
+    /**
+     * A query has been applied. The recorded names are discarded once no
+     * queries are in progress
+     */
+    void queried() {
+        long last = notifications.get();
+        if (queries.decrementAndGet() == 0) {
+            notified.values().removeIf(notification -> notification <= last);
+        }
+    }
+
+    /**
+     * Start a query of the names matching the filters, recording the names
+     * notified until the query has been applied
+     * 
+     * @return the mark of the query
+     */
+    long query() {
+        queries.incrementAndGet();
+        return notifications.get();
+    }
+
+    /**
+     * Start a resync, superseding any resync in progress
+     * 
+     * @return the version of the resync
+     */
+    long nextResync() {
+        return resyncs.incrementAndGet();
+    }
+
+    /**
+     * The resync with the version has completed. If no later resync has
+     * started, a degraded connection is up again
+     * 
+     * @param version
+     */
+    void resynced(long version) {
+        if (isCurrentResync(version)) {
+            state.compareAndSet(ConnectionState.DEGRADED, ConnectionState.UP);
+        }
+    }
+
+    /**
+     * Check that the connection may be used
+     * 
+     * @throws IOException
+     *             - if the connection is backing off or closed
+     */
+    protected void checkConnected() throws IOException {
+        ConnectionState current = state.get();
+        if (current == ConnectionState.BACKING_OFF
+            || current == ConnectionState.CLOSED) {
+            throw new IOException(String.format("connection is %s", current));
+        }
+    }
+
+    /**
+     * @return true if the factory can replace its failed connection
+     */
+    protected boolean isReconnectable() {
+        return false;
+    }
+
+    /**
+     * Replace the failed connection of the factory
+     * 
+     * @throws IOException
+     */
+    protected void reconnect() throws IOException {
+        throw new IOException(String.format("%s cannot reconnect", this));
+    }
+
+    private boolean isReconnecting() {
+        ConnectionState current = state.get();
+        return current == ConnectionState.BACKING_OFF
+               || current == ConnectionState.CONNECTING;
+    }
+
     private NotificationListener connectionListener() {
         return new NotificationListener() {
             @Override
             public void handleNotification(Notification notification,
                                            Object handback) {
+                String type = notification.getType();
+                if (JMXConnectionNotification.CLOSED.equals(type)
+                    && isReconnecting()) {
+                    // the failed connection, closing while the factory reconnects
+                    log.debug(String.format("Ignoring the close of the failed connection of: %s",
+                                            MbscFactory.this));
+                    return;
+                }
+                if (!JMXConnectionNotification.NOTIFS_LOST.equals(type)) {
+                    epoch.incrementAndGet();
+                }
+                if (JMXConnectionNotification.FAILED.equals(type)
+                    || JMXConnectionNotification.CLOSED.equals(type)) {
+                    // the RMI connector closes itself when its heartbeat fails;
+                    // only close() closes the factory for good
+                    failed();
+                } else if (JMXConnectionNotification.NOTIFS_LOST.equals(type)) {
+                    state.compareAndSet(ConnectionState.UP,
+                                        ConnectionState.DEGRADED);
+                }
                 groo.handleJMXConnectionNotification(notification,
                                                      MbscFactory.this);
             }
         };
     }
 
+    /**
+     * The connection failed. Back off and reconnect, or close if the factory
+     * cannot reconnect
+     */
+    private void failed() {
+        if (!isReconnectable()) {
+            state.set(ConnectionState.CLOSED);
+            return;
+        }
+        ConnectionState previous = state.getAndUpdate(current -> current == ConnectionState.CLOSED ? current
+                                                                                                   : ConnectionState.BACKING_OFF);
+        if (previous != ConnectionState.CLOSED
+            && previous != ConnectionState.BACKING_OFF) {
+            scheduleReconnect();
+        }
+    }
+
     private NotificationListener mbsListener() {
         return new NotificationListener() {
             @Override
@@ -181,6 +495,51 @@ abstract public class MbscFactory {
         };
     }
 
+    /**
+     * Attempt to reconnect. On success the listener registrations are
+     * restored and Groo restores the children of the connection; on failure
+     * the next attempt is scheduled
+     */
+    private void reconnectAttempt() {
+        if (state.get() != ConnectionState.BACKING_OFF) {
+            return;
+        }
+        boolean connecting = false;
+        try {
+            reconnect();
+            if (!state.compareAndSet(ConnectionState.BACKING_OFF,
+                                     ConnectionState.CONNECTING)) {
+                log.info(String.format("Abandoning the reconnect of %s, the connection is %s",
+                                       this, state.get()));
+                // release the connection just made
+                close();
+                return;
+            }
+            connecting = true;
+            epoch.incrementAndGet();
+            registerListeners();
+        } catch (Exception e) {
+            log.info(String.format("Unable to reconnect %s, attempt %s", this,
+                                   attempts.get()), e);
+            if (connecting ? state.compareAndSet(ConnectionState.CONNECTING,
+                                                 ConnectionState.BACKING_OFF)
+                          : state.get() == ConnectionState.BACKING_OFF) {
+                scheduleReconnect();
+            }
+            return;
+        }
+        attempts.set(0);
+        log.info(String.format("Reconnected %s", this));
+        groo.handleReconnected(this);
+    }
+
+    private void scheduleReconnect() {
+        long delay = backoff(attempts.getAndIncrement());
+        log.info(String.format("Reconnecting %s in %s ms", this, delay));
+        pendingReconnect = Reconnects.SCHEDULER.schedule(() -> NodeExecutors.executor().execute(this::reconnectAttempt),
+                                                  delay, TimeUnit.MILLISECONDS);
+    }
+
     abstract protected void deregisterConnectListener();
 
     abstract protected void registerConnectListener();
@@ -16,9 +16,15 @@
 
 package com.chiralBehaviors.groo;
 
+import static com.chiralBehaviors.groo.RemoteOperation.attribute;
+import static com.chiralBehaviors.groo.RemoteOperation.operation;
+
 import java.io.IOException;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import javax.management.Attribute;
 import javax.management.AttributeList;
@@ -29,8 +35,6 @@ import javax.management.InvalidAttributeValueException;
 import javax.management.ListenerNotFoundException;
 import javax.management.MBeanException;
 import javax.management.MBeanInfo;
-import javax.management.MBeanServerConnection;
-import javax.management.MBeanServerInvocationHandler;
 import javax.management.NotificationFilter;
 import javax.management.NotificationListener;
 import javax.management.ObjectInstance;
@@ -39,17 +43,109 @@ import javax.management.QueryExp;
 import javax.management.ReflectionException;
 
 /**
+ * A remote node, reached through the node channel of the factory. Operations
+ * are invoked directly on the channel with precomputed signatures, without a
+ * dynamic proxy per call. The channel is cached until the factory reports a
+ * change of the connection, or an operation fails with an IOException.
+ * Each operation rethrows the exceptions it declares, and wraps any other
+ * checked exception in an {@link UndeclaredThrowableException}, as a proxy
+ * would.
+ * <p>
+ * The channels are blocking, so the {@link NodeAsync} operations of the
+ * wrapper are those of the {@link NodeAsyncAdapter}: each pending remote call
+ * still holds an executor thread until the remote node answers.
+ * 
  * @author hhildebrand
  * 
  */
-public class MbscNodeWrapper implements NodeMBean {
+public class MbscNodeWrapper extends NodeAsyncAdapter implements NodeMBean {
+    /**
+     * The cached channel, and the connection epoch of the factory it was
+     * obtained in
+     */
+    private static class Handle {
+        private final NodeChannel channel;
+        private final long        epoch;
+
+        private Handle(NodeChannel channel, long epoch) {
+            this.channel = channel;
+            this.epoch = epoch;
+        }
+    }
+
+    private static final RemoteOperation ADD_LISTENER                        = operation("addNotificationListener", ObjectName.class, NotificationListener.class, NotificationFilter.class, Object.class);
+    private static final RemoteOperation ADD_LISTENER_NAME                   = operation("addNotificationListener", ObjectName.class, ObjectName.class, NotificationFilter.class, Object.class);
+    private static final RemoteOperation ADD_QUERY_LISTENER                  = operation("addNotificationListener", ObjectName.class, QueryExp.class, NotificationListener.class, NotificationFilter.class, Object.class);
+    private static final RemoteOperation ADD_QUERY_LISTENER_NAME             = operation("addNotificationListener", ObjectName.class, QueryExp.class, ObjectName.class, NotificationFilter.class, Object.class);
+    private static final RemoteOperation AGGREGATE                           = operation("aggregate", ObjectName.class, QueryExp.class, String.class, Aggregation.class);
+    private static final RemoteOperation AGGREGATE_GROUPED                   = operation("aggregate", ObjectName.class, QueryExp.class, String.class, Aggregation.class, String[].class);
+    private static final RemoteOperation CLOSE_STREAM                        = operation("closeStream", long.class);
+    private static final RemoteOperation GET_ATTRIBUTE                       = operation("getAttribute", ObjectName.class, String.class);
+    private static final RemoteOperation GET_ATTRIBUTES                      = operation("getAttributes", ObjectName.class, String[].class);
+    private static final RemoteOperation GET_ATTRIBUTES_QUERY                = operation("getAttributes", ObjectName.class, QueryExp.class, String[].class);
+    private static final RemoteOperation GET_ATTRIBUTES_QUERY_TIMED          = operation("getAttributes", ObjectName.class, QueryExp.class, String[].class, long.class, TimeUnit.class);
+    private static final RemoteOperation GET_ATTRIBUTE_COLUMNS               = operation("getAttributeColumns", ObjectName.class, QueryExp.class, String.class);
+    private static final RemoteOperation GET_ATTRIBUTE_QUERY                 = operation("getAttribute", ObjectName.class, QueryExp.class, String.class);
+    private static final RemoteOperation GET_ATTRIBUTE_QUERY_TIMED           = operation("getAttribute", ObjectName.class, QueryExp.class, String.class, long.class, TimeUnit.class);
+    private static final RemoteOperation GET_CACHED_ATTRIBUTE                = operation("getCachedAttribute", ObjectName.class, String.class, long.class);
+    private static final RemoteOperation GET_CACHED_ATTRIBUTES               = operation("getCachedAttributes", ObjectName.class, String[].class, long.class);
+    private static final RemoteOperation GET_CACHED_ATTRIBUTES_QUERY         = operation("getCachedAttributes", ObjectName.class, QueryExp.class, String[].class, long.class);
+    private static final RemoteOperation GET_CACHED_ATTRIBUTE_QUERY          = operation("getCachedAttribute", ObjectName.class, QueryExp.class, String.class, long.class);
+    private static final RemoteOperation GET_DOUBLE_ATTRIBUTE                = operation("getDoubleAttribute", ObjectName.class, QueryExp.class, String.class);
+    private static final RemoteOperation GET_LONG_ATTRIBUTE                  = operation("getLongAttribute", ObjectName.class, QueryExp.class, String.class);
+    private static final RemoteOperation GET_MBEAN_COUNT_QUERY               = operation("getMBeanCount", ObjectName.class, QueryExp.class);
+    private static final RemoteOperation GET_MBEAN_INFO                      = operation("getMBeanInfo", ObjectName.class);
+    private static final RemoteOperation GET_OBJECT_INSTANCE                 = operation("getObjectInstance", ObjectName.class);
+    private static final RemoteOperation GET_OBJECT_INSTANCES                = operation("getObjectInstances", ObjectName.class, QueryExp.class);
+    private static final RemoteOperation GET_STACK_TRACE                     = operation("getStackTrace", long.class);
+    private static final RemoteOperation INVOKE                              = operation("invoke", ObjectName.class, String.class, Object[].class, String[].class);
+    private static final RemoteOperation INVOKE_COLUMNS                      = operation("invokeColumns", ObjectName.class, QueryExp.class, String.class, Object[].class, String[].class);
+    private static final RemoteOperation INVOKE_QUERY                        = operation("invoke", ObjectName.class, QueryExp.class, String.class, Object[].class, String[].class);
+    private static final RemoteOperation INVOKE_QUERY_TIMED                  = operation("invoke", ObjectName.class, QueryExp.class, String.class, Object[].class, String[].class, long.class, TimeUnit.class);
+    private static final RemoteOperation IS_INSTANCE_OF                      = operation("isInstanceOf", ObjectName.class, String.class);
+    private static final RemoteOperation IS_REGISTERED                       = operation("isRegistered", ObjectName.class);
+    private static final RemoteOperation MBEAN_COUNT                         = attribute("getMBeanCount");
+    private static final RemoteOperation NEXT_BATCH                          = operation("nextBatch", long.class, long.class, TimeUnit.class);
+    private static final RemoteOperation OPEN_ATTRIBUTES_STREAM              = operation("openAttributesStream", ObjectName.class, QueryExp.class, String[].class);
+    private static final RemoteOperation OPEN_ATTRIBUTE_STREAM               = operation("openAttributeStream", ObjectName.class, QueryExp.class, String.class);
+    private static final RemoteOperation OPEN_INVOKE_STREAM                  = operation("openInvokeStream", ObjectName.class, QueryExp.class, String.class, Object[].class, String[].class);
+    private static final RemoteOperation QUERY_MBEANS                        = operation("queryMBeans", ObjectName.class, QueryExp.class);
+    private static final RemoteOperation QUERY_NAMES                         = operation("queryNames", ObjectName.class, QueryExp.class);
+    private static final RemoteOperation REMOVE_LISTENER                     = operation("removeNotificationListener", ObjectName.class, NotificationListener.class);
+    private static final RemoteOperation REMOVE_LISTENER_FILTERED            = operation("removeNotificationListener", ObjectName.class, NotificationListener.class, NotificationFilter.class, Object.class);
+    private static final RemoteOperation REMOVE_LISTENER_NAME                = operation("removeNotificationListener", ObjectName.class, ObjectName.class);
+    private static final RemoteOperation REMOVE_LISTENER_NAME_FILTERED       = operation("removeNotificationListener", ObjectName.class, ObjectName.class, NotificationFilter.class, Object.class);
+    private static final RemoteOperation REMOVE_QUERY_LISTENER               = operation("removeNotificationListener", ObjectName.class, QueryExp.class, NotificationListener.class);
+    private static final RemoteOperation REMOVE_QUERY_LISTENER_FILTERED      = operation("removeNotificationListener", ObjectName.class, QueryExp.class, NotificationListener.class, NotificationFilter.class, Object.class);
+    private static final RemoteOperation REMOVE_QUERY_LISTENER_NAME          = operation("removeNotificationListener", ObjectName.class, QueryExp.class, ObjectName.class);
+    private static final RemoteOperation REMOVE_QUERY_LISTENER_NAME_FILTERED = operation("removeNotificationListener", ObjectName.class, QueryExp.class, ObjectName.class, NotificationFilter.class, Object.class);
+    private static final RemoteOperation SET_ATTRIBUTE                       = operation("setAttribute", ObjectName.class, Attribute.class);
+    private static final RemoteOperation SET_ATTRIBUTES                      = operation("setAttributes", ObjectName.class, AttributeList.class);
+    private static final RemoteOperation SET_ATTRIBUTES_QUERY                = operation("setAttributes", ObjectName.class, QueryExp.class, AttributeList.class);
+    private static final RemoteOperation SET_ATTRIBUTES_QUERY_TIMED          = operation("setAttributes", ObjectName.class, QueryExp.class, AttributeList.class, long.class, TimeUnit.class);
+    private static final RemoteOperation SET_ATTRIBUTE_QUERY                 = operation("setAttribute", ObjectName.class, QueryExp.class, Attribute.class);
+    private static final RemoteOperation TOP                                 = operation("top", ObjectName.class, QueryExp.class, String.class, int.class, boolean.class);
+
     private final MbscFactory connectionFactory;
+    private volatile Handle   handle;
     private final ObjectName  source;
 
     /**
      * @param connectionFactory
      */
     public MbscNodeWrapper(MbscFactory connectionFactory, ObjectName source) {
+        this(connectionFactory, source, NodeExecutors.executor());
+    }
+
+    /**
+     * @param connectionFactory
+     * @param source
+     * @param executor
+     *            - the executor the async operations are run on
+     */
+    public MbscNodeWrapper(MbscFactory connectionFactory, ObjectName source,
+                           Executor executor) {
+        super(executor);
         this.connectionFactory = connectionFactory;
         this.source = source;
     }
@@ -70,7 +166,13 @@ public class MbscNodeWrapper implements NodeMBean {
                                         NotificationFilter filter,
                                         Object handback)
                                                         throws InstanceNotFoundException {
-        getProxy().addNotificationListener(name, listener, filter, handback);
+        try {
+            invoke(ADD_LISTENER, name, listener, filter, handback);
+        } catch (InstanceNotFoundException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -88,7 +190,13 @@ public class MbscNodeWrapper implements NodeMBean {
                                         NotificationFilter filter,
                                         Object handback)
                                                         throws InstanceNotFoundException {
-        getProxy().addNotificationListener(name, listener, filter, handback);
+        try {
+            invoke(ADD_LISTENER_NAME, name, listener, filter, handback);
+        } catch (InstanceNotFoundException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -108,8 +216,13 @@ public class MbscNodeWrapper implements NodeMBean {
                                         NotificationFilter filter,
                                         Object handback)
                                                         throws InstanceNotFoundException {
-        getProxy().addNotificationListener(name, queryExpr, listener, filter,
-                                           handback);
+        try {
+            invoke(ADD_QUERY_LISTENER, name, queryExpr, listener, filter, handback);
+        } catch (InstanceNotFoundException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -131,8 +244,14 @@ public class MbscNodeWrapper implements NodeMBean {
                                         Object handback)
                                                         throws InstanceNotFoundException,
                                                         IOException {
-        getProxy().addNotificationListener(name, queryExpr, listener, filter,
-                                           handback);
+        try {
+            invoke(ADD_QUERY_LISTENER_NAME, name, queryExpr, listener, filter,
+                   handback);
+        } catch (InstanceNotFoundException | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /* (non-Javadoc)
@@ -160,6 +279,62 @@ public class MbscNodeWrapper implements NodeMBean {
         return true;
     }
 
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#aggregate(javax.management.ObjectName, javax.management.QueryExp, java.lang.String, com.chiralBehaviors.groo.Aggregation)
+     */
+    @Override
+    public Aggregate aggregate(ObjectName name, QueryExp queryExpr,
+                               String attribute, Aggregation aggregation)
+                                                                         throws MBeanException,
+                                                                         ReflectionException,
+                                                                         IOException {
+        try {
+            return invoke(AGGREGATE, name, queryExpr, attribute, aggregation);
+        } catch (MBeanException | ReflectionException | IOException
+                | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#aggregate(javax.management.ObjectName, javax.management.QueryExp, java.lang.String, com.chiralBehaviors.groo.Aggregation, java.lang.String[])
+     */
+    @Override
+    public Map<String, Aggregate> aggregate(ObjectName name,
+                                            QueryExp queryExpr,
+                                            String attribute,
+                                            Aggregation aggregation,
+                                            String[] groupBy)
+                                                             throws MBeanException,
+                                                             ReflectionException,
+                                                             IOException {
+        try {
+            return invoke(AGGREGATE_GROUPED, name, queryExpr, attribute,
+                          aggregation, groupBy);
+        } catch (MBeanException | ReflectionException | IOException
+                | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#closeStream(long)
+     */
+    @Override
+    public void closeStream(long stream) throws IOException {
+        try {
+            invoke(CLOSE_STREAM, stream);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
     /**
      * @param name
      * @param queryExpr
@@ -182,7 +357,41 @@ public class MbscNodeWrapper implements NodeMBean {
                                                                                   InstanceNotFoundException,
                                                                                   ReflectionException,
                                                                                   IOException {
-        return getProxy().getAttribute(name, queryExpr, attribute);
+        try {
+            return invoke(GET_ATTRIBUTE_QUERY, name, queryExpr, attribute);
+        } catch (MBeanException | AttributeNotFoundException
+                | InstanceNotFoundException | ReflectionException | IOException
+                | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#getAttribute(javax.management.ObjectName, javax.management.QueryExp, java.lang.String, long, java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public <T> Map<ObjectName, OperationResult<T>> getAttribute(ObjectName name,
+                                                                QueryExp queryExpr,
+                                                                String attribute,
+                                                                long timeout,
+                                                                TimeUnit unit)
+                                                                              throws MBeanException,
+                                                                              AttributeNotFoundException,
+                                                                              InstanceNotFoundException,
+                                                                              ReflectionException,
+                                                                              IOException {
+        try {
+            return invoke(GET_ATTRIBUTE_QUERY_TIMED, name, queryExpr, attribute,
+                          timeout, unit);
+        } catch (MBeanException | AttributeNotFoundException
+                | InstanceNotFoundException | ReflectionException | IOException
+                | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -202,7 +411,112 @@ public class MbscNodeWrapper implements NodeMBean {
                                                                  AttributeNotFoundException,
                                                                  InstanceNotFoundException,
                                                                  ReflectionException {
-        return getProxy().getAttribute(name, attribute);
+        try {
+            return invoke(GET_ATTRIBUTE, name, attribute);
+        } catch (MBeanException | AttributeNotFoundException
+                | InstanceNotFoundException | ReflectionException
+                | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /**
+     * @param name
+     * @param queryExpr
+     * @param attribute
+     * @return
+     * @throws MBeanException
+     * @throws AttributeNotFoundException
+     * @throws InstanceNotFoundException
+     * @throws ReflectionException
+     * @throws IOException
+     * @see com.chiralBehaviors.groo.NodeMBean#getAttributeColumns(javax.management.ObjectName,
+     *      javax.management.QueryExp, java.lang.String)
+     */
+    @Override
+    public <T> ColumnarResult<T> getAttributeColumns(ObjectName name,
+                                                     QueryExp queryExpr,
+                                                     String attribute)
+                                                                      throws MBeanException,
+                                                                      AttributeNotFoundException,
+                                                                      InstanceNotFoundException,
+                                                                      ReflectionException,
+                                                                      IOException {
+        try {
+            return invoke(GET_ATTRIBUTE_COLUMNS, name, queryExpr, attribute);
+        } catch (MBeanException | AttributeNotFoundException
+                | InstanceNotFoundException | ReflectionException | IOException
+                | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /**
+     * @param name
+     * @param queryExpr
+     * @param attribute
+     * @return
+     * @throws MBeanException
+     * @throws AttributeNotFoundException
+     * @throws InstanceNotFoundException
+     * @throws ReflectionException
+     * @throws IOException
+     * @see com.chiralBehaviors.groo.NodeMBean#getDoubleAttribute(javax.management.ObjectName,
+     *      javax.management.QueryExp, java.lang.String)
+     */
+    @Override
+    public DoubleColumns getDoubleAttribute(ObjectName name, QueryExp queryExpr,
+                                            String attribute)
+                                                             throws MBeanException,
+                                                             AttributeNotFoundException,
+                                                             InstanceNotFoundException,
+                                                             ReflectionException,
+                                                             IOException {
+        try {
+            return invoke(GET_DOUBLE_ATTRIBUTE, name, queryExpr, attribute);
+        } catch (MBeanException | AttributeNotFoundException
+                | InstanceNotFoundException | ReflectionException | IOException
+                | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /**
+     * @param name
+     * @param queryExpr
+     * @param attribute
+     * @return
+     * @throws MBeanException
+     * @throws AttributeNotFoundException
+     * @throws InstanceNotFoundException
+     * @throws ReflectionException
+     * @throws IOException
+     * @see com.chiralBehaviors.groo.NodeMBean#getLongAttribute(javax.management.ObjectName,
+     *      javax.management.QueryExp, java.lang.String)
+     */
+    @Override
+    public LongColumns getLongAttribute(ObjectName name, QueryExp queryExpr,
+                                        String attribute)
+                                                         throws MBeanException,
+                                                         AttributeNotFoundException,
+                                                         InstanceNotFoundException,
+                                                         ReflectionException,
+                                                         IOException {
+        try {
+            return invoke(GET_LONG_ATTRIBUTE, name, queryExpr, attribute);
+        } catch (MBeanException | AttributeNotFoundException
+                | InstanceNotFoundException | ReflectionException | IOException
+                | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -223,7 +537,38 @@ public class MbscNodeWrapper implements NodeMBean {
                                                                                              throws InstanceNotFoundException,
                                                                                              ReflectionException,
                                                                                              IOException, MBeanException {
-        return getProxy().getAttributes(name, queryExpr, attributes);
+        try {
+            return invoke(GET_ATTRIBUTES_QUERY, name, queryExpr, attributes);
+        } catch (InstanceNotFoundException | ReflectionException | IOException
+                | MBeanException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#getAttributes(javax.management.ObjectName, javax.management.QueryExp, java.lang.String[], long, java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public Map<ObjectName, OperationResult<AttributeList>> getAttributes(ObjectName name,
+                                                                         QueryExp queryExpr,
+                                                                         String[] attributes,
+                                                                         long timeout,
+                                                                         TimeUnit unit)
+                                                                                       throws InstanceNotFoundException,
+                                                                                       ReflectionException,
+                                                                                       IOException,
+                                                                                       MBeanException {
+        try {
+            return invoke(GET_ATTRIBUTES_QUERY_TIMED, name, queryExpr, attributes,
+                          timeout, unit);
+        } catch (InstanceNotFoundException | ReflectionException | IOException
+                | MBeanException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -239,7 +584,101 @@ public class MbscNodeWrapper implements NodeMBean {
     public AttributeList getAttributes(ObjectName name, String[] attributes)
                                                                             throws InstanceNotFoundException,
                                                                             ReflectionException {
-        return getProxy().getAttributes(name, attributes);
+        try {
+            return invoke(GET_ATTRIBUTES, name, attributes);
+        } catch (InstanceNotFoundException | ReflectionException
+                | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#getCachedAttribute(javax.management.ObjectName, javax.management.QueryExp, java.lang.String, long)
+     */
+    @Override
+    public <T> Map<ObjectName, OperationResult<T>> getCachedAttribute(ObjectName name,
+                                                                      QueryExp queryExpr,
+                                                                      String attribute,
+                                                                      long maxAge)
+                                                                                  throws MBeanException,
+                                                                                  AttributeNotFoundException,
+                                                                                  InstanceNotFoundException,
+                                                                                  ReflectionException,
+                                                                                  IOException {
+        try {
+            return invoke(GET_CACHED_ATTRIBUTE_QUERY, name, queryExpr, attribute,
+                          maxAge);
+        } catch (MBeanException | AttributeNotFoundException
+                | InstanceNotFoundException | ReflectionException | IOException
+                | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#getCachedAttribute(javax.management.ObjectName, java.lang.String, long)
+     */
+    @Override
+    public Object getCachedAttribute(ObjectName name, String attribute,
+                                     long maxAge)
+                                                 throws MBeanException,
+                                                 AttributeNotFoundException,
+                                                 InstanceNotFoundException,
+                                                 ReflectionException {
+        try {
+            return invoke(GET_CACHED_ATTRIBUTE, name, attribute, maxAge);
+        } catch (MBeanException | AttributeNotFoundException
+                | InstanceNotFoundException | ReflectionException
+                | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#getCachedAttributes(javax.management.ObjectName, javax.management.QueryExp, java.lang.String[], long)
+     */
+    @Override
+    public Map<ObjectName, OperationResult<AttributeList>> getCachedAttributes(ObjectName name,
+                                                                               QueryExp queryExpr,
+                                                                               String[] attributes,
+                                                                               long maxAge)
+                                                                                           throws InstanceNotFoundException,
+                                                                                           ReflectionException,
+                                                                                           IOException,
+                                                                                           MBeanException {
+        try {
+            return invoke(GET_CACHED_ATTRIBUTES_QUERY, name, queryExpr, attributes,
+                          maxAge);
+        } catch (InstanceNotFoundException | ReflectionException | IOException
+                | MBeanException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#getCachedAttributes(javax.management.ObjectName, java.lang.String[], long)
+     */
+    @Override
+    public AttributeList getCachedAttributes(ObjectName name,
+                                             String[] attributes, long maxAge)
+                                                                              throws InstanceNotFoundException,
+                                                                              ReflectionException {
+        try {
+            return invoke(GET_CACHED_ATTRIBUTES, name, attributes, maxAge);
+        } catch (InstanceNotFoundException | ReflectionException
+                | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -248,7 +687,13 @@ public class MbscNodeWrapper implements NodeMBean {
      */
     @Override
     public Integer getMBeanCount() {
-        return getProxy().getMBeanCount();
+        try {
+            return invoke(MBEAN_COUNT);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -259,7 +704,13 @@ public class MbscNodeWrapper implements NodeMBean {
      */
     @Override
     public int getMBeanCount(ObjectName filter, QueryExp queryExpr) {
-        return getProxy().getMBeanCount(filter, queryExpr);
+        try {
+            return invoke(GET_MBEAN_COUNT_QUERY, filter, queryExpr);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -275,7 +726,14 @@ public class MbscNodeWrapper implements NodeMBean {
                                                   throws InstanceNotFoundException,
                                                   IntrospectionException,
                                                   ReflectionException {
-        return getProxy().getMBeanInfo(name);
+        try {
+            return invoke(GET_MBEAN_INFO, name);
+        } catch (InstanceNotFoundException | IntrospectionException
+                | ReflectionException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -296,7 +754,13 @@ public class MbscNodeWrapper implements NodeMBean {
     @Override
     public ObjectInstance getObjectInstance(ObjectName name)
                                                             throws InstanceNotFoundException {
-        return getProxy().getObjectInstance(name);
+        try {
+            return invoke(GET_OBJECT_INSTANCE, name);
+        } catch (InstanceNotFoundException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -313,7 +777,27 @@ public class MbscNodeWrapper implements NodeMBean {
                                                   QueryExp queryExpr)
                                                                      throws InstanceNotFoundException,
                                                                      IOException {
-        return getProxy().getObjectInstances(name, queryExpr);
+        try {
+            return invoke(GET_OBJECT_INSTANCES, name, queryExpr);
+        } catch (InstanceNotFoundException | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#getStackTrace(long)
+     */
+    @Override
+    public String getStackTrace(long traceId) throws IOException {
+        try {
+            return invoke(GET_STACK_TRACE, traceId);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /* (non-Javadoc)
@@ -359,8 +843,41 @@ public class MbscNodeWrapper implements NodeMBean {
                                                                               MBeanException,
                                                                               ReflectionException,
                                                                               IOException {
-        return getProxy().invoke(name, queryExpr, operationName, params,
-                                 signature);
+        try {
+            return invoke(INVOKE_QUERY, name, queryExpr, operationName, params,
+                          signature);
+        } catch (InstanceNotFoundException | MBeanException
+                | ReflectionException | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#invoke(javax.management.ObjectName, javax.management.QueryExp, java.lang.String, java.lang.Object[], java.lang.String[], long, java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public <T> Map<ObjectName, OperationResult<T>> invoke(ObjectName name,
+                                                          QueryExp queryExpr,
+                                                          String operationName,
+                                                          Object[] params,
+                                                          String[] signature,
+                                                          long timeout,
+                                                          TimeUnit unit)
+                                                                        throws InstanceNotFoundException,
+                                                                        MBeanException,
+                                                                        ReflectionException,
+                                                                        IOException {
+        try {
+            return invoke(INVOKE_QUERY_TIMED, name, queryExpr, operationName,
+                          params, signature, timeout, unit);
+        } catch (InstanceNotFoundException | MBeanException
+                | ReflectionException | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -381,7 +898,50 @@ public class MbscNodeWrapper implements NodeMBean {
                                                              throws InstanceNotFoundException,
                                                              MBeanException,
                                                              ReflectionException {
-        return getProxy().invoke(name, operationName, params, signature);
+        try {
+            return invoke(INVOKE, name, operationName, params, signature);
+        } catch (InstanceNotFoundException | MBeanException
+                | ReflectionException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /**
+     * @param name
+     * @param queryExpr
+     * @param operationName
+     * @param params
+     * @param signature
+     * @return
+     * @throws InstanceNotFoundException
+     * @throws MBeanException
+     * @throws ReflectionException
+     * @throws IOException
+     * @see com.chiralBehaviors.groo.NodeMBean#invokeColumns(javax.management.ObjectName,
+     *      javax.management.QueryExp, java.lang.String, java.lang.Object[],
+     *      java.lang.String[])
+     */
+    @Override
+    public <T> ColumnarResult<T> invokeColumns(ObjectName name,
+                                               QueryExp queryExpr,
+                                               String operationName,
+                                               Object[] params,
+                                               String[] signature)
+                                                                  throws InstanceNotFoundException,
+                                                                  MBeanException,
+                                                                  ReflectionException,
+                                                                  IOException {
+        try {
+            return invoke(INVOKE_COLUMNS, name, queryExpr, operationName, params,
+                          signature);
+        } catch (InstanceNotFoundException | MBeanException
+                | ReflectionException | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -397,7 +957,13 @@ public class MbscNodeWrapper implements NodeMBean {
     public boolean isInstanceOf(ObjectName name, String className)
                                                                   throws InstanceNotFoundException,
                                                                   IOException {
-        return getProxy().isInstanceOf(name, className);
+        try {
+            return invoke(IS_INSTANCE_OF, name, className);
+        } catch (InstanceNotFoundException | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -408,7 +974,13 @@ public class MbscNodeWrapper implements NodeMBean {
      */
     @Override
     public boolean isRegistered(ObjectName name) throws IOException {
-        return getProxy().isRegistered(name);
+        try {
+            return invoke(IS_REGISTERED, name);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -422,7 +994,13 @@ public class MbscNodeWrapper implements NodeMBean {
     @Override
     public Set<ObjectInstance> queryMBeans(ObjectName name, QueryExp query)
                                                                            throws IOException {
-        return getProxy().queryMBeans(name, query);
+        try {
+            return invoke(QUERY_MBEANS, name, query);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -436,7 +1014,13 @@ public class MbscNodeWrapper implements NodeMBean {
     @Override
     public Set<ObjectName> queryNames(ObjectName name, QueryExp query)
                                                                       throws IOException {
-        return getProxy().queryNames(name, query);
+        try {
+            return invoke(QUERY_NAMES, name, query);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -454,7 +1038,14 @@ public class MbscNodeWrapper implements NodeMBean {
                                                                          throws InstanceNotFoundException,
                                                                          ListenerNotFoundException,
                                                                          IOException {
-        getProxy().removeNotificationListener(name, listener);
+        try {
+            invoke(REMOVE_LISTENER, name, listener);
+        } catch (InstanceNotFoundException | ListenerNotFoundException
+                | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -477,7 +1068,14 @@ public class MbscNodeWrapper implements NodeMBean {
                                                            throws InstanceNotFoundException,
                                                            ListenerNotFoundException,
                                                            IOException {
-        getProxy().removeNotificationListener(name, listener, filter, handback);
+        try {
+            invoke(REMOVE_LISTENER_FILTERED, name, listener, filter, handback);
+        } catch (InstanceNotFoundException | ListenerNotFoundException
+                | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -494,7 +1092,14 @@ public class MbscNodeWrapper implements NodeMBean {
                                                                                 throws InstanceNotFoundException,
                                                                                 ListenerNotFoundException,
                                                                                 IOException {
-        getProxy().removeNotificationListener(name, listener);
+        try {
+            invoke(REMOVE_LISTENER_NAME, name, listener);
+        } catch (InstanceNotFoundException | ListenerNotFoundException
+                | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -517,7 +1122,14 @@ public class MbscNodeWrapper implements NodeMBean {
                                                            throws InstanceNotFoundException,
                                                            ListenerNotFoundException,
                                                            IOException {
-        getProxy().removeNotificationListener(name, listener, filter, handback);
+        try {
+            invoke(REMOVE_LISTENER_NAME_FILTERED, name, listener, filter, handback);
+        } catch (InstanceNotFoundException | ListenerNotFoundException
+                | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -536,7 +1148,14 @@ public class MbscNodeWrapper implements NodeMBean {
                                                                          throws InstanceNotFoundException,
                                                                          ListenerNotFoundException,
                                                                          IOException {
-        getProxy().removeNotificationListener(name, queryExpr, listener);
+        try {
+            invoke(REMOVE_QUERY_LISTENER, name, queryExpr, listener);
+        } catch (InstanceNotFoundException | ListenerNotFoundException
+                | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -560,8 +1179,15 @@ public class MbscNodeWrapper implements NodeMBean {
                                                            throws InstanceNotFoundException,
                                                            ListenerNotFoundException,
                                                            IOException {
-        getProxy().removeNotificationListener(name, queryExpr, listener,
-                                              filter, handback);
+        try {
+            invoke(REMOVE_QUERY_LISTENER_FILTERED, name, queryExpr, listener,
+                   filter, handback);
+        } catch (InstanceNotFoundException | ListenerNotFoundException
+                | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -580,7 +1206,14 @@ public class MbscNodeWrapper implements NodeMBean {
                                                                throws InstanceNotFoundException,
                                                                ListenerNotFoundException,
                                                                IOException {
-        getProxy().removeNotificationListener(name, queryExpr, listener);
+        try {
+            invoke(REMOVE_QUERY_LISTENER_NAME, name, queryExpr, listener);
+        } catch (InstanceNotFoundException | ListenerNotFoundException
+                | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -604,8 +1237,15 @@ public class MbscNodeWrapper implements NodeMBean {
                                                            throws InstanceNotFoundException,
                                                            ListenerNotFoundException,
                                                            IOException {
-        getProxy().removeNotificationListener(name, queryExpr, listener,
-                                              filter, handback);
+        try {
+            invoke(REMOVE_QUERY_LISTENER_NAME_FILTERED, name, queryExpr, listener,
+                   filter, handback);
+        } catch (InstanceNotFoundException | ListenerNotFoundException
+                | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -628,7 +1268,15 @@ public class MbscNodeWrapper implements NodeMBean {
                                                                   MBeanException,
                                                                   ReflectionException,
                                                                   IOException {
-        getProxy().setAttribute(name, attribute);
+        try {
+            invoke(SET_ATTRIBUTE, name, attribute);
+        } catch (InstanceNotFoundException | AttributeNotFoundException
+                | InvalidAttributeValueException | MBeanException
+                | ReflectionException | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -653,7 +1301,15 @@ public class MbscNodeWrapper implements NodeMBean {
                                                  MBeanException,
                                                  ReflectionException,
                                                  IOException {
-        getProxy().setAttribute(name, queryExpr, attribute);
+        try {
+            invoke(SET_ATTRIBUTE_QUERY, name, queryExpr, attribute);
+        } catch (InstanceNotFoundException | AttributeNotFoundException
+                | InvalidAttributeValueException | MBeanException
+                | ReflectionException | IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -671,7 +1327,14 @@ public class MbscNodeWrapper implements NodeMBean {
                                                                                  throws InstanceNotFoundException,
                                                                                  ReflectionException,
                                                                                  IOException {
-        return getProxy().setAttributes(name, attributes);
+        try {
+            return invoke(SET_ATTRIBUTES, name, attributes);
+        } catch (InstanceNotFoundException | ReflectionException | IOException
+                | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /**
@@ -692,7 +1355,37 @@ public class MbscNodeWrapper implements NodeMBean {
                                                                                                   throws InstanceNotFoundException,
                                                                                                   ReflectionException,
                                                                                                   IOException {
-        return getProxy().setAttributes(name, queryExpr, attributes);
+        try {
+            return invoke(SET_ATTRIBUTES_QUERY, name, queryExpr, attributes);
+        } catch (InstanceNotFoundException | ReflectionException | IOException
+                | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#setAttributes(javax.management.ObjectName, javax.management.QueryExp, javax.management.AttributeList, long, java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public Map<ObjectName, OperationResult<AttributeList>> setAttributes(ObjectName name,
+                                                                         QueryExp queryExpr,
+                                                                         AttributeList attributes,
+                                                                         long timeout,
+                                                                         TimeUnit unit)
+                                                                                       throws InstanceNotFoundException,
+                                                                                       ReflectionException,
+                                                                                       IOException {
+        try {
+            return invoke(SET_ATTRIBUTES_QUERY_TIMED, name, queryExpr, attributes,
+                          timeout, unit);
+        } catch (InstanceNotFoundException | ReflectionException | IOException
+                | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
     }
 
     /* (non-Javadoc)
@@ -703,23 +1396,141 @@ public class MbscNodeWrapper implements NodeMBean {
         return "MbscNodeWrapper [source=" + source + "]";
     }
 
-    private MBeanServerConnection getConnection() {
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#top(javax.management.ObjectName, javax.management.QueryExp, java.lang.String, int, boolean)
+     */
+    @Override
+    public Map<ObjectName, Number> top(ObjectName name, QueryExp queryExpr,
+                                       String attribute, int k,
+                                       boolean highest)
+                                                       throws MBeanException,
+                                                       ReflectionException,
+                                                       IOException {
         try {
-            return connectionFactory.getMBeanServerConnection();
+            return invoke(TOP, name, queryExpr, attribute, k, highest);
+        } catch (MBeanException | ReflectionException | IOException
+                | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#nextBatch(long, long, java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public <T> Map<ObjectName, OperationResult<T>> nextBatch(long stream,
+                                                             long timeout,
+                                                             TimeUnit unit)
+                                                                           throws MBeanException,
+                                                                           ReflectionException,
+                                                                           IOException {
+        try {
+            return invoke(NEXT_BATCH, stream, timeout, unit);
+        } catch (MBeanException | ReflectionException | IOException
+                | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#openAttributeStream(javax.management.ObjectName, javax.management.QueryExp, java.lang.String)
+     */
+    @Override
+    public long openAttributeStream(ObjectName name, QueryExp queryExpr,
+                                    String attribute) throws IOException {
+        try {
+            return invoke(OPEN_ATTRIBUTE_STREAM, name, queryExpr, attribute);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#openAttributesStream(javax.management.ObjectName, javax.management.QueryExp, java.lang.String[])
+     */
+    @Override
+    public long openAttributesStream(ObjectName name, QueryExp queryExpr,
+                                     String[] attributes) throws IOException {
+        try {
+            return invoke(OPEN_ATTRIBUTES_STREAM, name, queryExpr, attributes);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#openInvokeStream(javax.management.ObjectName, javax.management.QueryExp, java.lang.String, java.lang.Object[], java.lang.String[])
+     */
+    @Override
+    public long openInvokeStream(ObjectName name, QueryExp queryExpr,
+                                 String operationName, Object[] params,
+                                 String[] signature) throws IOException {
+        try {
+            return invoke(OPEN_INVOKE_STREAM, name, queryExpr, operationName,
+                          params, signature);
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsyncAdapter#getDelegate()
+     */
+    @Override
+    protected NodeMBean getDelegate() {
+        return this;
+    }
+
+    private NodeChannel getChannel() {
+        long epoch = connectionFactory.getConnectionEpoch();
+        Handle current = handle;
+        if (current != null && current.epoch == epoch) {
+            return current.channel;
+        }
+        try {
+            current = new Handle(connectionFactory.getNodeChannel(), epoch);
         } catch (IOException e) {
             throw new IllegalStateException(
                                             String.format("Cannot get connection for: %s",
                                                           connectionFactory));
         }
+        handle = current;
+        return current.channel;
     }
 
     /**
-     * @return the proxy
+     * Invoke the operation on the remote node. The cached channel is dropped
+     * if the operation fails with an IOException, or with an exception caused
+     * by one
+     * 
+     * @param operation
+     * @param params
+     * @return the result of the operation
+     * @throws Exception
+     *             - the exception thrown by the remote node, unwrapped, for
+     *             the caller to rethrow if declared
      */
-    private NodeMBean getProxy() {
-        return MBeanServerInvocationHandler.newProxyInstance(getConnection(),
-                                                             source,
-                                                             NodeMBean.class,
-                                                             false);
+    @SuppressWarnings("unchecked")
+    private <V> V invoke(RemoteOperation operation, Object... params)
+                                                                    throws Exception {
+        NodeChannel channel = getChannel();
+        try {
+            return (V) operation.invoke(channel, source, params);
+        } catch (Exception e) {
+            if (e instanceof IOException || e.getCause() instanceof IOException) {
+                handle = null;
+            }
+            throw e;
+        }
     }
 }
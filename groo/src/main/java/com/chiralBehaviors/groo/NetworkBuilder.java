@@ -22,6 +22,7 @@ import java.util.Hashtable;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
 
 import javax.management.InstanceAlreadyExistsException;
 import javax.management.MBeanRegistrationException;
@@ -41,6 +42,7 @@ import org.slf4j.LoggerFactory;
 public class NetworkBuilder {
 
     private final static Logger      log     = LoggerFactory.getLogger(NetworkBuilder.class);
+    private final Executor           executor;
     private final RegistrationFilter filter;
     private final Groo               groo;
     private final Set<ObjectName>    managed = new CopyOnWriteArraySet<>();
@@ -54,9 +56,25 @@ public class NetworkBuilder {
      */
     public NetworkBuilder(Groo groo, ObjectName networkPattern,
                           QueryExp networkQuery, String[] parentProperties) {
+        this(groo, networkPattern, networkQuery, parentProperties,
+             NodeExecutors.executor());
+    }
+
+    /**
+     * @param groo
+     * @param networkPattern
+     * @param networkQuery
+     * @param parentProperties
+     * @param executor
+     *            - the executor for the parent nodes created by the builder
+     */
+    public NetworkBuilder(Groo groo, ObjectName networkPattern,
+                          QueryExp networkQuery, String[] parentProperties,
+                          Executor executor) {
         this.groo = groo;
         filter = new RegistrationFilter(networkPattern, networkQuery);
         this.parentProperties = parentProperties;
+        this.executor = executor;
     }
 
     /**
@@ -67,13 +85,13 @@ public class NetworkBuilder {
         if (nodeName == null) {
             return;
         }
-        Node parent = new Node(getChildSearchName(sourceName), null);
         if (!managed.add(nodeName)) {
             log.info(String.format("Already tracked %s on: %s", sourceName,
                                    this));
             return;
         }
         log.info(String.format("Adding %s on: %s", sourceName, this));
+        Node parent = new Node(getChildSearchName(sourceName), null, executor);
 
         MBeanServer mbs = groo.getMbs();
         if (mbs != null) {
@@ -0,0 +1,143 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.management.remote.JMXConnector;
+import javax.security.auth.Subject;
+
+/**
+ * An {@link MbscFactory} which invokes the operations of the remote nodes over
+ * the multiplexed transport of a {@link NioNodeServer}, rather than over the
+ * JMX connector. The JMX connector still carries discovery and the
+ * notifications of the remote MBean server.
+ * <p>
+ * The transport authenticates with a secret shared with the node server,
+ * and cannot apply a delegation subject: a factory with a delegation subject
+ * invokes the operations of the remote nodes over the JMX connector.
+ * 
+ * @author hhildebrand
+ * 
+ */
+public class NioMbscFactory extends BasicMbscFactory {
+
+    private final AtomicReference<NioNodeChannel> channel        = new AtomicReference<>();
+    private final Object                          connecting     = new Object();
+    private final boolean                         delegated;
+    private final InetSocketAddress               nodeAddress;
+    private volatile long                         requestTimeout = NioNodeChannel.DEFAULT_REQUEST_TIMEOUT;
+    private final byte[]                          secret;
+
+    /**
+     * @param groo
+     * @param connector
+     *            - the JMX connector to the remote MBean server
+     * @param delegationSubject
+     * @param nodeAddress
+     *            - the address of the {@link NioNodeServer} of the remote
+     *            MBean server
+     * @param secret
+     *            - the secret shared with the node server
+     */
+    public NioMbscFactory(Groo groo, JMXConnector connector,
+                          Subject delegationSubject,
+                          InetSocketAddress nodeAddress, byte[] secret) {
+        super(groo, connector, delegationSubject);
+        this.nodeAddress = nodeAddress;
+        this.secret = Arrays.copyOf(secret, secret.length);
+        delegated = delegationSubject != null;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.MbscFactory#deregisterListeners()
+     */
+    @Override
+    public void deregisterListeners() {
+        super.deregisterListeners();
+        NioNodeChannel current = channel.getAndSet(null);
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * @return the address of the node server
+     */
+    public InetSocketAddress getNodeAddress() {
+        return nodeAddress;
+    }
+
+    /**
+     * @return the bound, in milliseconds, on the wait for the response to a
+     *         request to the node server
+     */
+    public long getRequestTimeout() {
+        return requestTimeout;
+    }
+
+    /**
+     * @param requestTimeout
+     *            - the bound, in milliseconds, on the wait for the response
+     *            to a request to the node server. Applies to the channels
+     *            opened after it is set
+     */
+    public void setRequestTimeout(long requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.BasicMbscFactory#reconnect()
+     */
+    @Override
+    protected void reconnect() throws IOException {
+        super.reconnect();
+        NioNodeChannel current = channel.getAndSet(null);
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.MbscFactory#getNodeChannel()
+     */
+    @Override
+    NodeChannel getNodeChannel() throws IOException {
+        if (delegated) {
+            return super.getNodeChannel();
+        }
+        NioNodeChannel current = channel.get();
+        if (current != null && current.isOpen()) {
+            return current;
+        }
+        // one caller opens the channel, and the others wait to share it
+        synchronized (connecting) {
+            current = channel.get();
+            if (current != null && current.isOpen()) {
+                return current;
+            }
+            NioNodeChannel opened = NioNodeChannel.open(nodeAddress, secret,
+                                                        requestTimeout);
+            channel.set(opened);
+            return opened;
+        }
+    }
+}
@@ -0,0 +1,337 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.ObjectInputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanException;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * The client side of the multiplexed node transport. Requests are written as
+ * frames tagged with a request id, and any number of requests may be
+ * outstanding on the one connection; responses are matched to their requests
+ * by id, in whatever order they arrive. The bodies of the responses are
+ * decoded on the calling thread, not the reactor's.
+ * 
+ * @author hhildebrand
+ * 
+ */
+class NioNodeChannel extends FramedConnection implements NodeChannel {
+    private static class ClientReactor {
+        private static final Reactor INSTANCE;
+
+        static {
+            try {
+                INSTANCE = new Reactor("groo-nio-client");
+            } catch (IOException e) {
+                throw new IllegalStateException(
+                                                "Unable to open the client reactor",
+                                                e);
+            }
+        }
+    }
+
+    private static class Response {
+        private final byte[] body;
+        private final byte   kind;
+
+        private Response(byte kind, byte[] body) {
+            this.kind = kind;
+            this.body = body;
+        }
+    }
+
+    /**
+     * The bound, in milliseconds, on the wait for the connection to the server
+     */
+    static final long                 CONNECT_TIMEOUT         = 10000;
+
+    /**
+     * The default bound, in milliseconds, on the wait for the response to a
+     * request
+     */
+    static final long                 DEFAULT_REQUEST_TIMEOUT = 60000;
+
+    /**
+     * The bound, in milliseconds, on each wait of the handshake with the
+     * server
+     */
+    static final long                 HANDSHAKE_TIMEOUT       = 10000;
+
+    private static final SecureRandom RANDOM                  = new SecureRandom();
+
+    /**
+     * Connect to the node server at the address, answer its challenge and
+     * verify its answer to ours. The connections of the process share a
+     * single reactor
+     * 
+     * @param address
+     * @param secret
+     *            - the secret shared with the server
+     * @param requestTimeout
+     *            - the bound, in milliseconds, on the wait for the response
+     *            to a request
+     * @return the connected channel
+     * @throws IOException
+     */
+    static NioNodeChannel open(InetSocketAddress address, byte[] secret,
+                               long requestTimeout) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        try {
+            channel.socket().connect(address, (int) CONNECT_TIMEOUT);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.configureBlocking(false);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        NioNodeChannel node = new NioNodeChannel(channel,
+                                                 ClientReactor.INSTANCE,
+                                                 requestTimeout);
+        node.register();
+        try {
+            node.authenticate(secret);
+        } catch (IOException e) {
+            node.close();
+            throw e;
+        }
+        return node;
+    }
+
+    private final CompletableFuture<byte[]>                        challenge = new CompletableFuture<>();
+    private final AtomicLong                                       ids       = new AtomicLong();
+    private final ConcurrentMap<Long, CompletableFuture<Response>> pending   = new ConcurrentHashMap<>();
+    private final CompletableFuture<byte[]>                        proof     = new CompletableFuture<>();
+    private final long                                             requestTimeout;
+
+    private NioNodeChannel(SocketChannel channel, Reactor reactor,
+                           long requestTimeout) {
+        super(channel, reactor);
+        this.requestTimeout = requestTimeout;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeChannel#getAttribute(javax.management.ObjectName, java.lang.String)
+     */
+    @Override
+    public Object getAttribute(final ObjectName name, final String attribute)
+                                                                             throws MBeanException,
+                                                                             AttributeNotFoundException,
+                                                                             InstanceNotFoundException,
+                                                                             ReflectionException,
+                                                                             IOException {
+        try {
+            return call(GET_ATTRIBUTE, out -> {
+                new ObjectNames.Writer(out).write(name);
+                out.writeUTF(attribute);
+            });
+        } catch (MBeanException | AttributeNotFoundException
+                | InstanceNotFoundException | ReflectionException | IOException
+                | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IOException("Unexpected exception from node server", e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeChannel#invoke(javax.management.ObjectName, java.lang.String, java.lang.Object[], java.lang.String[])
+     */
+    @Override
+    public Object invoke(final ObjectName name, final String operationName,
+                         final Object[] params, final String[] signature)
+                                                                         throws InstanceNotFoundException,
+                                                                         MBeanException,
+                                                                         ReflectionException,
+                                                                         IOException {
+        try {
+            return call(INVOKE, out -> {
+                new ObjectNames.Writer(out).write(name);
+                out.writeUTF(operationName);
+                out.writeObject(params);
+                out.writeObject(signature);
+            });
+        } catch (InstanceNotFoundException | MBeanException
+                | ReflectionException | IOException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IOException("Unexpected exception from node server", e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "NioNodeChannel [" + channel + "]";
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.FramedConnection#closed(java.io.IOException)
+     */
+    @Override
+    protected void closed(IOException cause) {
+        challenge.completeExceptionally(cause);
+        proof.completeExceptionally(cause);
+        for (Long id : pending.keySet()) {
+            CompletableFuture<Response> response = pending.remove(id);
+            if (response != null) {
+                response.completeExceptionally(cause);
+            }
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.FramedConnection#received(long, byte, byte[])
+     */
+    @Override
+    protected void received(long id, byte kind, byte[] body) {
+        if (kind == CHALLENGE) {
+            challenge.complete(body);
+            return;
+        }
+        if (kind == AUTHENTICATED) {
+            proof.complete(body);
+            return;
+        }
+        CompletableFuture<Response> response = pending.remove(id);
+        if (response != null) {
+            response.complete(new Response(kind, body));
+        }
+    }
+
+    /**
+     * Answer the challenge of the server, and verify the server's answer to
+     * the challenge of the client before any request is sent
+     * 
+     * @param secret
+     * @throws IOException
+     */
+    private void authenticate(byte[] secret) throws IOException {
+        byte[] nonce = new byte[CHALLENGE_LENGTH];
+        try (ObjectInputStream in = decode(handshake(challenge, "challenge"))) {
+            in.readFully(nonce);
+        }
+        final byte[] answer = sign(secret, nonce);
+        final byte[] ours = new byte[CHALLENGE_LENGTH];
+        RANDOM.nextBytes(ours);
+        send(encode(0, AUTHENTICATE, out -> {
+            out.writeInt(answer.length);
+            out.write(answer);
+            out.write(ours);
+        }));
+        byte[] theirs = new byte[ANSWER_LENGTH];
+        try (ObjectInputStream in = decode(handshake(proof, "answer"))) {
+            in.readFully(theirs);
+        }
+        if (!MessageDigest.isEqual(sign(secret, ours, nonce), theirs)) {
+            throw new IOException(
+                                  String.format("The server of %s did not prove that it shares the secret",
+                                                this));
+        }
+    }
+
+    /**
+     * Send the request and wait, at most the request timeout, for its
+     * response
+     * 
+     * @return the result of the request
+     * @throws Throwable
+     *             - the exception answered by the server, or the failure of
+     *             the connection
+     */
+    private Object call(byte kind, Body request) throws Throwable {
+        long id = ids.incrementAndGet();
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        pending.put(id, future);
+        Response response;
+        try {
+            send(encode(id, kind, request));
+            response = future.get(requestTimeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new SocketTimeoutException(
+                                             String.format("No response to request %s within %s ms on %s",
+                                                           id, requestTimeout,
+                                                           this));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                                             String.format("Interrupted waiting for %s",
+                                                           this));
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        } finally {
+            pending.remove(id);
+        }
+        try (ObjectInputStream in = decode(response.body)) {
+            Object result = in.readObject();
+            if (response.kind == EXCEPTION) {
+                throw (Throwable) result;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * @param step
+     *            - the frame the handshake waits for
+     * @param description
+     * @return the body of the frame, received within the handshake timeout
+     * @throws IOException
+     */
+    private byte[] handshake(CompletableFuture<byte[]> step, String description)
+                                                                                throws IOException {
+        try {
+            return step.get(HANDSHAKE_TIMEOUT, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                                             String.format("Interrupted waiting for the %s of %s",
+                                                           description, this));
+        } catch (TimeoutException e) {
+            throw new IOException(
+                                  String.format("Timed out waiting for the %s of %s",
+                                                description, this));
+        } catch (ExecutionException e) {
+            throw new IOException(
+                                  String.format("Unable to receive the %s of %s",
+                                                description, this),
+                                  e.getCause());
+        }
+    }
+}
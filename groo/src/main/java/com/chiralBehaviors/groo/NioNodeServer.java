@@ -0,0 +1,441 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The server side of the multiplexed node transport: serves the operations of
+ * the nodes registered in the MBean server to the {@link NioMbscFactory}s of
+ * their parents. Requests are decoded and run on the executor, so a slow
+ * request does not hold up the others on its connection, and responses are
+ * written as they complete.
+ * <p>
+ * Connections must authenticate with the secret shared with the factories
+ * before their requests are served, and are closed if they do not
+ * authenticate within the authentication timeout. Only the attributes and operations of
+ * {@link NodeMBean}s are served. The requests run with the authority of the
+ * server, not of a delegation subject. By default the server listens on the
+ * loopback address.
+ * 
+ * @author hhildebrand
+ * 
+ */
+public class NioNodeServer {
+    private class Acceptor implements Reactor.Handler {
+        /* (non-Javadoc)
+         * @see com.chiralBehaviors.groo.Reactor.Handler#ready(java.nio.channels.SelectionKey)
+         */
+        @Override
+        public void ready(SelectionKey key) {
+            SocketChannel accepted;
+            try {
+                accepted = server.accept();
+                if (accepted == null) {
+                    return;
+                }
+                accepted.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                accepted.configureBlocking(false);
+            } catch (IOException e) {
+                log.warn(String.format("Error accepting connection on %s",
+                                       NioNodeServer.this), e);
+                return;
+            }
+            final Session session = new Session(accepted, reactor);
+            session.register();
+            session.challenge();
+            Timeouts.SCHEDULER.schedule(() -> {
+                if (!session.authenticated) {
+                    log.warn(String.format("Closing connection %s on %s, not authenticated within %s ms",
+                                           accepted, NioNodeServer.this,
+                                           authenticationTimeout));
+                    session.close();
+                }
+            }, authenticationTimeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private class Session extends FramedConnection {
+        private volatile boolean authenticated;
+        private final byte[] challenge = new byte[CHALLENGE_LENGTH];
+
+        private Session(SocketChannel channel, Reactor reactor) {
+            super(channel, reactor);
+            RANDOM.nextBytes(challenge);
+        }
+
+        private void challenge() {
+            try {
+                send(encode(0, CHALLENGE, out -> out.write(challenge)));
+            } catch (IOException e) {
+                close(e);
+            }
+        }
+
+        /* (non-Javadoc)
+         * @see com.chiralBehaviors.groo.FramedConnection#closed(java.io.IOException)
+         */
+        @Override
+        protected void closed(IOException cause) {
+            log.debug(String.format("Closed %s on %s", channel,
+                                    NioNodeServer.this), cause);
+        }
+
+        /* (non-Javadoc)
+         * @see com.chiralBehaviors.groo.FramedConnection#received(long, byte, byte[])
+         */
+        @Override
+        protected void received(final long id, final byte kind,
+                                final byte[] body) {
+            if (!isOpen()) {
+                return;
+            }
+            if (!authenticated) {
+                byte[] answer = authenticate(kind, body);
+                if (answer == null) {
+                    log.warn(String.format("Rejecting unauthenticated connection %s on %s",
+                                           channel, NioNodeServer.this));
+                    close();
+                    return;
+                }
+                authenticated = true;
+                prove(answer);
+                return;
+            }
+            try {
+                executor.execute(() -> respond(id, kind, body));
+            } catch (RejectedExecutionException e) {
+                answer(id, failure(id, e));
+            }
+        }
+
+        private void answer(long id, ByteBuffer response) {
+            try {
+                send(response);
+            } catch (IOException e) {
+                log.debug(String.format("Unable to answer request %s on %s",
+                                        id, this), e);
+            }
+        }
+
+        /* (non-Javadoc)
+         * @see com.chiralBehaviors.groo.FramedConnection#maxFrame()
+         */
+        @Override
+        protected int maxFrame() {
+            // an unauthenticated peer may only send the answer to the challenge
+            return authenticated ? MAX_FRAME : 1024;
+        }
+
+        /**
+         * @return the server's answer to the challenge of the client, or null
+         *         if the client did not answer the server's challenge
+         */
+        private byte[] authenticate(byte kind, byte[] body) {
+            if (kind != AUTHENTICATE) {
+                return null;
+            }
+            try (ObjectInputStream in = decode(body)) {
+                int length = in.readInt();
+                if (length != ANSWER_LENGTH) {
+                    return null;
+                }
+                byte[] answer = new byte[length];
+                in.readFully(answer);
+                if (!MessageDigest.isEqual(sign(secret, challenge), answer)) {
+                    return null;
+                }
+                byte[] nonce = new byte[CHALLENGE_LENGTH];
+                in.readFully(nonce);
+                return sign(secret, nonce, challenge);
+            } catch (IOException e) {
+                log.debug(String.format("Invalid answer to the challenge on %s",
+                                        channel), e);
+                return null;
+            }
+        }
+
+        private void prove(byte[] answer) {
+            try {
+                send(encode(0, AUTHENTICATED, out -> out.write(answer)));
+            } catch (IOException e) {
+                close(e);
+            }
+        }
+
+        private void respond(long id, byte kind, byte[] body) {
+            ByteBuffer response;
+            try {
+                Object result = dispatch(kind, body);
+                response = encode(id, RESULT, out -> out.writeObject(result));
+                served.incrementAndGet();
+            } catch (Throwable e) {
+                response = failure(id, e);
+            }
+            answer(id, response);
+        }
+    }
+
+    private static class Timeouts {
+        private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+                                                                    Thread thread = new Thread(
+                                                                                               r,
+                                                                                               "groo-nio-timeouts");
+                                                                    thread.setDaemon(true);
+                                                                    return thread;
+                                                                });
+    }
+
+    /**
+     * The default bound, in milliseconds, on the time a connection may take
+     * to authenticate
+     */
+    public static final long             DEFAULT_AUTHENTICATION_TIMEOUT = 10000;
+
+    private static final Logger          log                            = LoggerFactory.getLogger(NioNodeServer.class);
+    private static final SecureRandom    RANDOM                         = new SecureRandom();
+
+    private final InetSocketAddress      address;
+    private volatile long                authenticationTimeout          = DEFAULT_AUTHENTICATION_TIMEOUT;
+    private final Executor               executor;
+    private final MBeanServer            mbs;
+    private volatile Reactor             reactor;
+    private final byte[]                 secret;
+    private final AtomicLong             served                         = new AtomicLong();
+    private volatile ServerSocketChannel server;
+
+    /**
+     * Listen on an ephemeral port of the loopback address
+     * 
+     * @param mbs
+     *            - the MBean server the nodes are registered in
+     * @param secret
+     *            - the secret shared with the factories
+     */
+    public NioNodeServer(MBeanServer mbs, byte[] secret) {
+        this(mbs, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+             secret);
+    }
+
+    /**
+     * @param mbs
+     *            - the MBean server the nodes are registered in
+     * @param address
+     *            - the address to listen on. A port of 0 binds an ephemeral
+     *            port
+     * @param secret
+     *            - the secret shared with the factories
+     */
+    public NioNodeServer(MBeanServer mbs, InetSocketAddress address,
+                         byte[] secret) {
+        this(mbs, address, secret, NodeExecutors.executor());
+    }
+
+    /**
+     * @param mbs
+     *            - the MBean server the nodes are registered in
+     * @param address
+     *            - the address to listen on. A port of 0 binds an ephemeral
+     *            port
+     * @param secret
+     *            - the secret shared with the factories
+     * @param executor
+     *            - the executor the requests are run on
+     */
+    public NioNodeServer(MBeanServer mbs, InetSocketAddress address,
+                         byte[] secret, Executor executor) {
+        if (secret == null || secret.length == 0) {
+            throw new IllegalArgumentException("A secret is required");
+        }
+        this.mbs = mbs;
+        this.address = address;
+        this.secret = Arrays.copyOf(secret, secret.length);
+        this.executor = executor;
+    }
+
+    /**
+     * @return the address the server is listening on, or the configured
+     *         address if the server is not started
+     * @throws IOException
+     */
+    public InetSocketAddress getAddress() throws IOException {
+        ServerSocketChannel current = server;
+        return current == null ? address
+                              : (InetSocketAddress) current.getLocalAddress();
+    }
+
+    /**
+     * @return the bound, in milliseconds, on the time a connection may take
+     *         to authenticate
+     */
+    public long getAuthenticationTimeout() {
+        return authenticationTimeout;
+    }
+
+    /**
+     * @return the number of requests the server has answered with a result
+     */
+    public long getServed() {
+        return served.get();
+    }
+
+    /**
+     * @param authenticationTimeout
+     *            - the bound, in milliseconds, on the time a connection may
+     *            take to authenticate. Applies to the connections accepted
+     *            after it is set
+     */
+    public void setAuthenticationTimeout(long authenticationTimeout) {
+        this.authenticationTimeout = authenticationTimeout;
+    }
+
+    /**
+     * Start listening for connections
+     * 
+     * @throws IOException
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        final ServerSocketChannel opened = ServerSocketChannel.open();
+        try {
+            opened.bind(address);
+            opened.configureBlocking(false);
+            reactor = new Reactor(String.format("groo-nio-server[%s]",
+                                                opened.getLocalAddress()));
+        } catch (IOException e) {
+            opened.close();
+            throw e;
+        }
+        server = opened;
+        reactor.execute(() -> {
+            try {
+                opened.register(reactor.getSelector(), SelectionKey.OP_ACCEPT,
+                                new Acceptor());
+            } catch (IOException e) {
+                log.error(String.format("Unable to listen on %s", opened), e);
+            }
+        });
+        log.info(String.format("Started %s", this));
+    }
+
+    /**
+     * Stop the server, closing its connections
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        log.info(String.format("Stopping %s", this));
+        reactor.close();
+        server = null;
+        reactor = null;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        ServerSocketChannel current = server;
+        try {
+            return "NioNodeServer ["
+                   + (current == null ? address : current.getLocalAddress())
+                   + "]";
+        } catch (IOException e) {
+            return "NioNodeServer [" + address + "]";
+        }
+    }
+
+    private Object dispatch(byte kind, byte[] body) throws Exception {
+        try (ObjectInputStream in = FramedConnection.decode(body)) {
+            ObjectName name = new ObjectNames.Reader(in).read();
+            String member = in.readUTF();
+            if (!mbs.isInstanceOf(name, NodeMBean.class.getName())) {
+                throw new SecurityException(String.format("Not a node: %s",
+                                                          name));
+            }
+            switch (kind) {
+                case FramedConnection.GET_ATTRIBUTE:
+                    return mbs.getAttribute(name, member);
+                case FramedConnection.INVOKE:
+                    return mbs.invoke(name, member, (Object[]) in.readObject(),
+                                      (String[]) in.readObject());
+                default:
+                    throw new IOException(String.format("Unknown request kind: %s",
+                                                        kind));
+            }
+        }
+    }
+
+    /**
+     * @return the frame answering the failure of the request. The frame is
+     *         always produced: if not even the description of the failure
+     *         can be encoded, the body is empty, which the client reads as
+     *         a failure of its own
+     */
+    private ByteBuffer failure(long id, Throwable e) {
+        try {
+            return FramedConnection.encode(id, FramedConnection.EXCEPTION,
+                                           out -> out.writeObject(e));
+        } catch (NotSerializableException nse) {
+            log.debug(String.format("Unable to serialize %s", e), nse);
+        } catch (IOException ioe) {
+            log.debug(String.format("Unable to encode %s", e), ioe);
+        }
+        try {
+            return FramedConnection.encode(id,
+                                           FramedConnection.EXCEPTION,
+                                           out -> out.writeObject(new IOException(
+                                                                                  e.toString())));
+        } catch (IOException ioe) {
+            log.debug(String.format("Unable to encode the failure %s", e), ioe);
+        }
+        ByteBuffer empty = ByteBuffer.allocate(FramedConnection.HEADER);
+        empty.putInt(FramedConnection.HEADER - Integer.BYTES);
+        empty.putLong(id);
+        empty.put(FramedConnection.EXCEPTION);
+        empty.flip();
+        return empty;
+    }
+}
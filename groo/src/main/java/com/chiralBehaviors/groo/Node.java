@@ -17,33 +17,54 @@
 package com.chiralBehaviors.groo;
 
 import java.io.IOException;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
-import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
 
 import javax.management.Attribute;
 import javax.management.AttributeList;
 import javax.management.AttributeNotFoundException;
+import javax.management.InstanceAlreadyExistsException;
 import javax.management.InstanceNotFoundException;
 import javax.management.IntrospectionException;
 import javax.management.InvalidAttributeValueException;
+import javax.management.JMRuntimeException;
 import javax.management.ListenerNotFoundException;
 import javax.management.MBeanException;
 import javax.management.MBeanInfo;
 import javax.management.MBeanRegistration;
+import javax.management.MBeanRegistrationException;
 import javax.management.MBeanServer;
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerNotification;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.Notification;
 import javax.management.NotificationFilter;
 import javax.management.NotificationListener;
 import javax.management.ObjectInstance;
@@ -54,38 +75,306 @@ import javax.management.ReflectionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.chiralBehaviors.groo.OperationResult.Code;
+
 /**
  * @author hhildebrand
  *
  */
-public class Node implements NodeMBean, MBeanRegistration {
-    private static final Logger      log      = LoggerFactory.getLogger(Node.class);
+// the operations are timed by resources which are only closed
+@SuppressWarnings("try")
+public class Node implements NodeMBean, NodeAsync, MBeanRegistration {
+    /**
+     * The non blocking task generator, whose local tasks may be run in batches
+     */
+    private class AsyncTasks<V> implements AsyncTaskGenerator<V> {
+        private final Function<ObjectName, Callable<V>>       local;
+        private final Function<NodeMBean, CompletableFuture<V>> remote;
+
+        private AsyncTasks(Function<ObjectName, Callable<V>> local,
+                           Function<NodeMBean, CompletableFuture<V>> remote) {
+            this.local = local;
+            this.remote = remote;
+        }
+
+        @Override
+        public CompletableFuture<V> localTask(ObjectName objectName) {
+            return local(local.apply(objectName));
+        }
+
+        @Override
+        public CompletableFuture<V> remoteTask(NodeMBean child) {
+            return remote.apply(child);
+        }
+    }
+
+    /**
+     * A batch of streamed results, or the completion of a stream task
+     */
+    private static class StreamBatch<T> {
+        private final Throwable                           failure;
+        private final Map<ObjectName, OperationResult<T>> results;
+
+        private StreamBatch(Map<ObjectName, OperationResult<T>> results,
+                            Throwable failure) {
+            this.results = results;
+            this.failure = failure;
+        }
+    }
+
+    /**
+     * The message of the results marking the children skipped because their
+     * circuit is open
+     */
+    public static final String                         CIRCUIT_OPEN                 = "circuit open";
+
+    /**
+     * The default bound on the number of cached attribute values and pattern
+     * members
+     */
+    public static final int                            DEFAULT_ATTRIBUTE_CACHE_SIZE = 4096;
+
+    /**
+     * The default number of consecutive failures of a child which opens its
+     * circuit
+     */
+    public static final int                            DEFAULT_FAILURE_THRESHOLD    = 5;
+
+    /**
+     * The default time, in milliseconds, the circuit of a child stays open
+     * before the child is probed
+     */
+    public static final long                           DEFAULT_OPEN_INTERVAL        = 30000;
+
+    /**
+     * The default bound on the number of cached query results
+     */
+    public static final int                            DEFAULT_QUERY_CACHE_SIZE     = 256;
+
+    /**
+     * The default bound on the number of routes to the children which own
+     * remote names
+     */
+    public static final int                            DEFAULT_ROUTE_TABLE_SIZE     = 65536;
+
+    /**
+     * The format of the message of the numeric results of MBeans whose
+     * attribute is not a number
+     */
+    public static final String                         NOT_A_NUMBER                 = "not a number: %s";
+
+    /**
+     * The interval, in milliseconds, a child's stream is polled for the next
+     * batch
+     */
+    public static final long                           STREAM_POLL_INTERVAL         = 1000;
+
+    /**
+     * The message of the results marking the children and MBeans that did not
+     * answer before the deadline
+     */
+    public static final String                         TIMED_OUT                    = "timed out";
+
+    /**
+     * The domain of the names which key the results of children that have no
+     * name
+     */
+    public static final String                         UNNAMED_CHILD_DOMAIN         = "groo.unnamed-child";
+
+    private static final OperationResult<?>            CIRCUIT_OPEN_RESULT          = new OperationResult<>(Code.CIRCUIT_OPEN, CIRCUIT_OPEN);
+    private static final String                        GET_MBEAN_COUNT              = "getMBeanCount";
+    private static final Logger                        log                          = LoggerFactory.getLogger(Node.class);
+    private static final String                        QUERY_MBEANS                 = "queryMBeans";
+    private static final String                        QUERY_NAMES                  = "queryNames";
+    private static final OperationResult<?>            TIMED_OUT_RESULT             = new OperationResult<>(Code.TIMED_OUT, TIMED_OUT);
+
+    /**
+     * Answer the group of the name for a grouped aggregation: the
+     * comma-separated key=value pairs of the grouping properties, in order,
+     * omitting the properties the name does not have
+     * 
+     * @param objectName
+     * @param groupBy
+     *            - the key properties
+     * @return the group
+     */
+    public static String groupOf(ObjectName objectName, String[] groupBy) {
+        StringBuilder group = new StringBuilder();
+        for (String property : groupBy) {
+            String value = objectName.getKeyProperty(property);
+            if (value == null) {
+                continue;
+            }
+            if (group.length() > 0) {
+                group.append(',');
+            }
+            group.append(property).append('=').append(value);
+        }
+        return group.toString();
+    }
+
+    /**
+     * Pull the batches of the remote stream into the sink until the stream is
+     * exhausted
+     * 
+     * @param child
+     * @param stream
+     * @param sink
+     * @throws Exception
+     */
+    private static <T> void drain(NodeMBean child, long stream,
+                                  ResultHandler<T> sink) throws Exception {
+        try {
+            Map<ObjectName, OperationResult<T>> batch;
+            while ((batch = child.<T> nextBatch(stream, STREAM_POLL_INTERVAL,
+                                                TimeUnit.MILLISECONDS)) != null) {
+                if (!batch.isEmpty()) {
+                    sink.onResults(batch);
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            child.closeStream(stream);
+        }
+    }
+
+    /**
+     * Add the batch to the queue, waiting for the consumer to make room
+     * 
+     * @param batches
+     * @param batch
+     * @throws CancellationException
+     *             - if interrupted while waiting
+     */
+    private static <T> void enqueue(BlockingQueue<StreamBatch<T>> batches,
+                                    StreamBatch<T> batch) {
+        try {
+            batches.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * @return true if the failure is the fault of the operation itself, rather
+     *         than of the node it was directed to
+     */
+    private static boolean isFatal(Throwable cause) {
+        return cause instanceof ReflectionException
+               || cause instanceof MBeanException
+               || cause instanceof AttributeNotFoundException
+               || cause instanceof InvalidAttributeValueException;
+    }
+
+    /**
+     * @param value
+     * @return true if the value is an integral number which a long holds
+     *         exactly
+     */
+    private static boolean isLong(Object value) {
+        if (value instanceof Long || value instanceof Integer
+            || value instanceof Short || value instanceof Byte
+            || value instanceof AtomicLong || value instanceof AtomicInteger) {
+            return true;
+        }
+        return value instanceof BigInteger
+               && ((BigInteger) value).bitLength() < Long.SIZE;
+    }
+
+    /**
+     * Answer the name the results of the child are keyed by. A child which
+     * has no name, because it is not registered, is keyed by a name derived
+     * from its identity
+     * 
+     * @param child
+     * @return the name of the child
+     */
+    private static ObjectName keyOf(NodeMBean child) {
+        ObjectName name = child.getName();
+        if (name != null) {
+            return name;
+        }
+        try {
+            return ObjectName.getInstance(UNNAMED_CHILD_DOMAIN,
+                                          "id",
+                                          Integer.toHexString(System.identityHashCode(child)));
+        } catch (MalformedObjectNameException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Boolean registered(boolean registered, ObjectName objectName) {
+        if (!registered) {
+            throw new CompletionException(
+                                          new InstanceNotFoundException(
+                                                                        String.format("Instance not found: %s",
+                                                                                      objectName)));
+        }
+        return true;
+    }
+
+    private static Throwable unwrap(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException)
+               && e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e;
+    }
 
-    private final Set<NodeMBean>     children = new CopyOnWriteArraySet<>();
-    private final Executor           executor;
-    private final RegistrationFilter filter;
-    private MBeanServer              mbs;
-    private ObjectName               name;
+    private final AttributeCache                       attributeCache               = new AttributeCache(DEFAULT_ATTRIBUTE_CACHE_SIZE);
+    private final ChildSet                             children                     = new ChildSet();
+    private final ChildCircuits                        circuits                     = new ChildCircuits(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_INTERVAL, 0);
+    private final Executor                             executor;
+    private final RegistrationFilter                   filter;
+    private volatile int                               localBatchSize               = 64;
+    private volatile int                               localParallelism             = Runtime.getRuntime().availableProcessors();
+    private MBeanServer                                mbs;
+    private ObjectName                                 name;
+    private volatile boolean                           publishStatistics;
+    private final QueryCache                           queryCache                   = new QueryCache(0, DEFAULT_QUERY_CACHE_SIZE);
+    private final NotificationListener                 registrations                = (notification, handback) -> registrationChanged(notification);
+    private final RouteTable                           routes                       = new RouteTable(DEFAULT_ROUTE_TABLE_SIZE);
+    private final NodeStatistics                       statistics;
+    private final ResultStreams                        streams;
 
     public Node() {
         this(null, null);
     }
 
     public Node(ObjectName sourcePattern, QueryExp sourceQuery) {
-        this(sourcePattern, sourceQuery, Executors.newCachedThreadPool());
+        this(sourcePattern, sourceQuery, NodeExecutors.executor());
     }
 
     public Node(ObjectName sourcePattern, QueryExp sourceQuery,
                 Executor executor) {
         filter = new RegistrationFilter(sourcePattern, sourceQuery);
-        this.executor = executor;
+        statistics = new NodeStatistics(executor);
+        this.executor = statistics.getTrackedExecutor();
+        streams = new ResultStreams(this.executor);
     }
 
     /**
+     * Add the child. Children are held by identity rather than equality, as
+     * the equality of a node follows its name, which changes when the node is
+     * registered: a child equal to, but not the same instance as, one already
+     * added is added as well
+     * 
      * @param child
+     * @return true if the child was added, false if the same instance is
+     *         already a child
      */
     public boolean addChild(NodeMBean child) {
-        return children.add(child);
+        if (!children.add(child)) {
+            return false;
+        }
+        queryCache.invalidate();
+        if (child.getName() != null) {
+            routes.put(child.getName(), child);
+        }
+        return true;
     }
 
     /**
@@ -104,54 +393,56 @@ public class Node implements NodeMBean, MBeanRegistration {
                                         final NotificationFilter filter,
                                         final Object handback)
                                                               throws InstanceNotFoundException {
-        ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(
-                                                                                               executor);
-        TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
-            @Override
-            public Callable<Boolean> localTask(final ObjectName objectName) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        mbs.addNotificationListener(objectName, listener,
-                                                    filter, handback);
-                        return true;
-                    }
-                };
-            }
+        try (NodeStatistics.Timing timing = statistics.time("addNotificationListener")) {
+            BatchingCompletionService<Boolean> completionService = new BatchingCompletionService<>(
+                                                                                                   executor);
+            TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
+                @Override
+                public Callable<Boolean> localTask(final ObjectName objectName) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            mbs.addNotificationListener(objectName, listener,
+                                                        filter, handback);
+                            return true;
+                        }
+                    };
+                }
 
-            @Override
-            public Callable<Boolean> remoteTask(final NodeMBean child) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        child.addNotificationListener(objectName, listener,
-                                                      filter, handback);
-                        return true;
+                @Override
+                public Callable<Boolean> remoteTask(final NodeMBean child) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            child.addNotificationListener(objectName, listener,
+                                                          filter, handback);
+                            return true;
+                        }
+                    };
+                }
+            };
+            List<Future<Boolean>> futures = forAll(completionService, generator,
+                                                   objectName);
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        completionService.take().get();
+                    } catch (InterruptedException e) {
+                        return; // don't even log this ;)
+                    } catch (ExecutionException e) {
+                        log.warn(String.format("%s experienced exception when adding notification listener on %s for %s",
+                                               this, objectName, listener), e);
                     }
-                };
-            }
-        };
-        List<Future<Boolean>> futures = forAll(completionService, generator,
-                                               objectName);
-        try {
-            for (int i = 0; i < futures.size(); i++) {
-                try {
-                    completionService.take().get();
-                } catch (InterruptedException e) {
-                    return; // don't even log this ;)
-                } catch (ExecutionException e) {
-                    log.warn(String.format("%s experienced exception when adding notification listener on %s for %s",
-                                           this, objectName, listener), e);
+                }
+            } finally {
+                for (Future<Boolean> future : futures) {
+                    future.cancel(true);
                 }
             }
-        } finally {
-            for (Future<Boolean> future : futures) {
-                future.cancel(true);
-            }
+            throw new InstanceNotFoundException(
+                                                String.format("Instance not found: %s",
+                                                              objectName));
         }
-        throw new InstanceNotFoundException(
-                                            String.format("Instance not found: %s",
-                                                          objectName));
     }
 
     /**
@@ -170,54 +461,56 @@ public class Node implements NodeMBean, MBeanRegistration {
                                         final NotificationFilter filter,
                                         final Object handback)
                                                               throws InstanceNotFoundException {
-        ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(
-                                                                                               executor);
-        TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
-            @Override
-            public Callable<Boolean> localTask(final ObjectName objectName) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        mbs.addNotificationListener(objectName, listener,
-                                                    filter, handback);
-                        return true;
-                    }
-                };
-            }
+        try (NodeStatistics.Timing timing = statistics.time("addNotificationListener")) {
+            BatchingCompletionService<Boolean> completionService = new BatchingCompletionService<>(
+                                                                                                   executor);
+            TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
+                @Override
+                public Callable<Boolean> localTask(final ObjectName objectName) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            mbs.addNotificationListener(objectName, listener,
+                                                        filter, handback);
+                            return true;
+                        }
+                    };
+                }
 
-            @Override
-            public Callable<Boolean> remoteTask(final NodeMBean child) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        child.addNotificationListener(objectName, listener,
-                                                      filter, handback);
-                        return true;
+                @Override
+                public Callable<Boolean> remoteTask(final NodeMBean child) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            child.addNotificationListener(objectName, listener,
+                                                          filter, handback);
+                            return true;
+                        }
+                    };
+                }
+            };
+            List<Future<Boolean>> futures = forAll(completionService, generator,
+                                                   objectName);
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        completionService.take().get();
+                    } catch (InterruptedException e) {
+                        return; // don't even log this ;)
+                    } catch (ExecutionException e) {
+                        log.warn(String.format("%s experienced exception when adding notification listener on %s for %s",
+                                               this, objectName, listener), e);
                     }
-                };
-            }
-        };
-        List<Future<Boolean>> futures = forAll(completionService, generator,
-                                               objectName);
-        try {
-            for (int i = 0; i < futures.size(); i++) {
-                try {
-                    completionService.take().get();
-                } catch (InterruptedException e) {
-                    return; // don't even log this ;)
-                } catch (ExecutionException e) {
-                    log.warn(String.format("%s experienced exception when adding notification listener on %s for %s",
-                                           this, objectName, listener), e);
+                }
+            } finally {
+                for (Future<Boolean> future : futures) {
+                    future.cancel(true);
                 }
             }
-        } finally {
-            for (Future<Boolean> future : futures) {
-                future.cancel(true);
-            }
+            throw new InstanceNotFoundException(
+                                                String.format("Instance not found: %s",
+                                                              objectName));
         }
-        throw new InstanceNotFoundException(
-                                            String.format("Instance not found: %s",
-                                                          objectName));
     }
 
     /* (non-Javadoc)
@@ -230,53 +523,55 @@ public class Node implements NodeMBean, MBeanRegistration {
                                         final NotificationFilter filter,
                                         final Object handback)
                                                               throws InstanceNotFoundException {
-        ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(
-                                                                                               executor);
-        TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
-            @Override
-            public Callable<Boolean> localTask(final ObjectName objectName) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        mbs.addNotificationListener(objectName, listener,
-                                                    filter, handback);
-                        return true;
-                    }
-                };
-            }
+        try (NodeStatistics.Timing timing = statistics.time("addNotificationListener")) {
+            BatchingCompletionService<Boolean> completionService = new BatchingCompletionService<>(
+                                                                                                   executor);
+            TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
+                @Override
+                public Callable<Boolean> localTask(final ObjectName objectName) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            mbs.addNotificationListener(objectName, listener,
+                                                        filter, handback);
+                            return true;
+                        }
+                    };
+                }
 
-            @Override
-            public Callable<Boolean> remoteTask(final NodeMBean child) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        child.addNotificationListener(pattern, queryExpr,
-                                                      listener, filter,
-                                                      handback);
-                        return true;
-                    }
-                };
+                @Override
+                public Callable<Boolean> remoteTask(final NodeMBean child) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            child.addNotificationListener(pattern, queryExpr,
+                                                          listener, filter,
+                                                          handback);
+                            return true;
+                        }
+                    };
+                }
+            };
+            List<Future<Boolean>> futures = forAll(completionService, generator,
+                                                   pattern, queryExpr);
+            boolean success = false;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    success |= completionService.take().get();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (ExecutionException e) {
+                    log.warn(String.format("%s experienced exception when adding notification listener %s, %s",
+                                           this, pattern, queryExpr), e);
+                }
             }
-        };
-        List<Future<Boolean>> futures = forAll(completionService, generator,
-                                               pattern, queryExpr);
-        boolean success = false;
-        for (int i = 0; i < futures.size(); i++) {
-            try {
-                success |= completionService.take().get();
-            } catch (InterruptedException e) {
-                return;
-            } catch (ExecutionException e) {
-                log.warn(String.format("%s experienced exception when adding notification listener %s, %s",
-                                       this, pattern, queryExpr), e);
+            if (!success) {
+                throw new InstanceNotFoundException(
+                                                    String.format("Instance not found: %s, %s",
+                                                                  pattern,
+                                                                  queryExpr));
             }
         }
-        if (!success) {
-            throw new InstanceNotFoundException(
-                                                String.format("Instance not found: %s, %s",
-                                                              pattern,
-                                                              queryExpr));
-        }
     }
 
     /* (non-Javadoc)
@@ -290,133 +585,186 @@ public class Node implements NodeMBean, MBeanRegistration {
                                         final Object handback)
                                                               throws InstanceNotFoundException,
                                                               IOException {
-        ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(
-                                                                                               executor);
-        TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
-            @Override
-            public Callable<Boolean> localTask(final ObjectName objectName) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        mbs.addNotificationListener(objectName, listener,
-                                                    filter, handback);
-                        return true;
-                    }
-                };
-            }
+        try (NodeStatistics.Timing timing = statistics.time("addNotificationListener")) {
+            BatchingCompletionService<Boolean> completionService = new BatchingCompletionService<>(
+                                                                                                   executor);
+            TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
+                @Override
+                public Callable<Boolean> localTask(final ObjectName objectName) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            mbs.addNotificationListener(objectName, listener,
+                                                        filter, handback);
+                            return true;
+                        }
+                    };
+                }
 
-            @Override
-            public Callable<Boolean> remoteTask(final NodeMBean child) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        child.addNotificationListener(pattern, queryExpr,
-                                                      listener, filter,
-                                                      handback);
-                        return true;
-                    }
-                };
+                @Override
+                public Callable<Boolean> remoteTask(final NodeMBean child) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            child.addNotificationListener(pattern, queryExpr,
+                                                          listener, filter,
+                                                          handback);
+                            return true;
+                        }
+                    };
+                }
+            };
+            List<Future<Boolean>> futures = forAll(completionService, generator,
+                                                   pattern, queryExpr);
+            boolean success = false;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    success |= completionService.take().get();
+                } catch (InterruptedException e) {
+                    return;
+                } catch (ExecutionException e) {
+                    log.warn(String.format("%s experienced exception when adding notification listener %s, %s",
+                                           this, pattern, queryExpr), e);
+                }
             }
-        };
-        List<Future<Boolean>> futures = forAll(completionService, generator,
-                                               pattern, queryExpr);
-        boolean success = false;
-        for (int i = 0; i < futures.size(); i++) {
-            try {
-                success |= completionService.take().get();
-            } catch (InterruptedException e) {
-                return;
-            } catch (ExecutionException e) {
-                log.warn(String.format("%s experienced exception when adding notification listener %s, %s",
-                                       this, pattern, queryExpr), e);
+            if (!success) {
+                throw new InstanceNotFoundException(
+                                                    String.format("Instance not found: %s, %s",
+                                                                  name, queryExpr));
             }
         }
-        if (!success) {
-            throw new InstanceNotFoundException(
-                                                String.format("Instance not found: %s, %s",
-                                                              name, queryExpr));
-        }
     }
 
     /* (non-Javadoc)
-     * @see java.lang.Object#equals(java.lang.Object)
+     * @see com.chiralBehaviors.groo.NodeAsync#addNotificationListenerAsync(javax.management.ObjectName, javax.management.NotificationListener, javax.management.NotificationFilter, java.lang.Object)
      */
     @Override
-    public boolean equals(Object obj) {
-        if (this == obj) {
-            return true;
-        }
-        if (obj == null) {
-            return false;
-        }
-        if (getClass() != obj.getClass()) {
-            return false;
-        }
-        Node other = (Node) obj;
-        if (name == null) {
-            if (other.name != null) {
-                return false;
-            }
-        } else if (!name.equals(other.name)) {
-            return false;
-        }
-        return true;
+    public CompletableFuture<Void> addNotificationListenerAsync(final ObjectName objectName,
+                                                                final NotificationListener listener,
+                                                                final NotificationFilter filter,
+                                                                final Object handback) {
+        return firstAsync(this.<Void> generator(n -> () -> {
+                                                    mbs.addNotificationListener(n,
+                                                                          listener,
+                                                                          filter,
+                                                                          handback);
+                                                    return null;
+                                                },
+                                                child -> async(child).addNotificationListenerAsync(objectName,
+                                                                                                   listener,
+                                                                                                   filter,
+                                                                                                   handback)),
+                          objectName, "addNotificationListenerAsync");
     }
 
     /* (non-Javadoc)
-     * @see com.hellblazer.groo.NodeMXBean#getAttribute(javax.management.ObjectName, javax.management.QueryExp, java.lang.String)
+     * @see com.chiralBehaviors.groo.NodeAsync#addNotificationListenerAsync(javax.management.ObjectName, javax.management.ObjectName, javax.management.NotificationFilter, java.lang.Object)
+     */
+    @Override
+    public CompletableFuture<Void> addNotificationListenerAsync(final ObjectName objectName,
+                                                                final ObjectName listener,
+                                                                final NotificationFilter filter,
+                                                                final Object handback) {
+        return firstAsync(this.<Void> generator(n -> () -> {
+                                                    mbs.addNotificationListener(n,
+                                                                          listener,
+                                                                          filter,
+                                                                          handback);
+                                                    return null;
+                                                },
+                                                child -> async(child).addNotificationListenerAsync(objectName,
+                                                                                                   listener,
+                                                                                                   filter,
+                                                                                                   handback)),
+                          objectName, "addNotificationListenerAsync");
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#addNotificationListenerAsync(javax.management.ObjectName, javax.management.QueryExp, javax.management.NotificationListener, javax.management.NotificationFilter, java.lang.Object)
      */
     @Override
-    public <T> Map<ObjectName, OperationResult<T>> getAttribute(final ObjectName pattern,
+    public CompletableFuture<Void> addNotificationListenerAsync(final ObjectName pattern,
                                                                 final QueryExp queryExpr,
-                                                                final String attribute)
-                                                                                       throws MBeanException,
-                                                                                       AttributeNotFoundException,
-                                                                                       InstanceNotFoundException,
-                                                                                       ReflectionException,
-                                                                                       IOException {
-        Map<ObjectName, OperationResult<T>> attributes = new HashMap<>();
-        ExecutorCompletionService<Map<ObjectName, OperationResult<T>>> completionService = new ExecutorCompletionService<>(
-                                                                                                                           executor);
-        TaskGenerator<Map<ObjectName, OperationResult<T>>> generator = new TaskGenerator<Map<ObjectName, OperationResult<T>>>() {
-            @Override
-            public Callable<Map<ObjectName, OperationResult<T>>> localTask(final ObjectName objectName) {
-                return new Callable<Map<ObjectName, OperationResult<T>>>() {
-                    @SuppressWarnings("unchecked")
-                    @Override
-                    public Map<ObjectName, OperationResult<T>> call()
-                                                                     throws Exception {
-                        Map<ObjectName, OperationResult<T>> attributes = new HashMap<>();
-                        attributes.put(objectName,
-                                       new OperationResult<T>(
-                                                              (T) mbs.getAttribute(objectName,
-                                                                                   attribute)));
-                        return attributes;
-                    }
-                };
-            }
+                                                                final NotificationListener listener,
+                                                                final NotificationFilter filter,
+                                                                final Object handback) {
+        return any(gatherAsync(this.<Void> generator(n -> () -> {
+                                                         mbs.addNotificationListener(n,
+                                                                               listener,
+                                                                               filter,
+                                                                               handback);
+                                                         return null;
+                                                     },
+                                                     child -> async(child).addNotificationListenerAsync(pattern,
+                                                                                                        queryExpr,
+                                                                                                        listener,
+                                                                                                        filter,
+                                                                                                        handback)),
+                               pattern, queryExpr,
+                               "addNotificationListenerAsync"),
+                   pattern, queryExpr);
+    }
 
-            @Override
-            public Callable<Map<ObjectName, OperationResult<T>>> remoteTask(final NodeMBean child) {
-                return new Callable<Map<ObjectName, OperationResult<T>>>() {
-                    @Override
-                    public Map<ObjectName, OperationResult<T>> call()
-                                                                     throws Exception {
-                        return child.getAttribute(pattern, queryExpr, attribute);
-                    }
-                };
-            }
-        };
-        List<Future<Map<ObjectName, OperationResult<T>>>> futures = forAll(completionService,
-                                                                           generator,
-                                                                           pattern,
-                                                                           queryExpr);
-        try {
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#addNotificationListenerAsync(javax.management.ObjectName, javax.management.QueryExp, javax.management.ObjectName, javax.management.NotificationFilter, java.lang.Object)
+     */
+    @Override
+    public CompletableFuture<Void> addNotificationListenerAsync(final ObjectName pattern,
+                                                                final QueryExp queryExpr,
+                                                                final ObjectName listener,
+                                                                final NotificationFilter filter,
+                                                                final Object handback) {
+        return any(gatherAsync(this.<Void> generator(n -> () -> {
+                                                         mbs.addNotificationListener(n,
+                                                                               listener,
+                                                                               filter,
+                                                                               handback);
+                                                         return null;
+                                                     },
+                                                     child -> async(child).addNotificationListenerAsync(pattern,
+                                                                                                        queryExpr,
+                                                                                                        listener,
+                                                                                                        filter,
+                                                                                                        handback)),
+                               pattern, queryExpr,
+                               "addNotificationListenerAsync"),
+                   pattern, queryExpr);
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#aggregate(javax.management.ObjectName, javax.management.QueryExp, java.lang.String, com.chiralBehaviors.groo.Aggregation)
+     */
+    @Override
+    public Aggregate aggregate(final ObjectName pattern,
+                               final QueryExp queryExpr,
+                               final String attribute,
+                               final Aggregation aggregation)
+                                                             throws MBeanException,
+                                                             ReflectionException,
+                                                             IOException {
+        try (NodeStatistics.Timing timing = statistics.time("aggregate")) {
+            Aggregate aggregate = new Aggregate(aggregation);
+            BatchingCompletionService<Aggregate> completionService = new BatchingCompletionService<>(
+                                                                                                     executor);
+            List<Future<Aggregate>> futures = forAll(completionService,
+                                                     child -> () -> child.aggregate(pattern,
+                                                                                    queryExpr,
+                                                                                    attribute,
+                                                                                    aggregation),
+                                                     batch -> () -> {
+                                                         Aggregate value = new Aggregate(
+                                                                                         aggregation);
+                                                         foldLocal(batch,
+                                                                   attribute,
+                                                                   (n, v) -> value.add(v));
+                                                         return value;
+                                                     }, pattern, queryExpr);
             for (int i = 0; i < futures.size(); i++) {
                 try {
-                    attributes.putAll(completionService.take().get());
+                    aggregate.merge(completionService.take().get());
                 } catch (InterruptedException e) {
-                    return Collections.emptyMap();
+                    Thread.currentThread().interrupt();
+                    return aggregate;
                 } catch (ExecutionException e) {
                     if (e.getCause() instanceof ReflectionException) {
                         throw (ReflectionException) e.getCause();
@@ -424,71 +772,65 @@ public class Node implements NodeMBean, MBeanRegistration {
                     if (e.getCause() instanceof MBeanException) {
                         throw (MBeanException) e.getCause();
                     }
-                    if (!(e.getCause() instanceof InstanceNotFoundException)) {
-                        log.warn(String.format("%s experienced exception when collecting attributes %s, %s",
-                                               this, pattern, queryExpr), e);
+                    if (!(e.getCause() instanceof InstanceNotFoundException)
+                        && !(e.getCause() instanceof AttributeNotFoundException)) {
+                        log.warn(String.format("%s experienced exception when aggregating %s of %s, %s",
+                                               this, attribute, pattern,
+                                               queryExpr), e);
                     }
                 }
             }
-        } finally {
-            for (Future<?> future : futures) {
-                future.cancel(true);
-            }
+            return aggregate;
         }
-        return attributes;
     }
 
-    /**
-     * @param objectName
-     * @param attribute
-     * @return
-     * @throws MBeanException
-     * @throws AttributeNotFoundException
-     * @throws InstanceNotFoundException
-     * @throws ReflectionException
-     * @see javax.management.MBeanServer#getAttribute(javax.management.ObjectName,
-     *      java.lang.String)
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#aggregate(javax.management.ObjectName, javax.management.QueryExp, java.lang.String, com.chiralBehaviors.groo.Aggregation, java.lang.String[])
      */
     @Override
-    public Object getAttribute(final ObjectName objectName,
-                               final String attribute)
-                                                      throws MBeanException,
-                                                      AttributeNotFoundException,
-                                                      InstanceNotFoundException,
-                                                      ReflectionException {
-        ExecutorCompletionService<Object> completionService = new ExecutorCompletionService<>(
-                                                                                              executor);
-        TaskGenerator<Object> generator = new TaskGenerator<Object>() {
-            @Override
-            public Callable<Object> localTask(final ObjectName objectName) {
-                return new Callable<Object>() {
-                    @Override
-                    public Object call() throws Exception {
-                        return mbs.getAttribute(objectName, attribute);
-                    }
-                };
-            }
-
-            @Override
-            public Callable<Object> remoteTask(final NodeMBean child) {
-                return new Callable<Object>() {
-                    @Override
-                    public Object call() throws Exception {
-                        return child.getAttribute(objectName, attribute);
-                    }
-                };
-            }
-        };
-        List<Future<Object>> futures = forAll(completionService, generator,
-                                              objectName);
-
-        try {
+    public Map<String, Aggregate> aggregate(final ObjectName pattern,
+                                            final QueryExp queryExpr,
+                                            final String attribute,
+                                            final Aggregation aggregation,
+                                            final String[] groupBy)
+                                                                   throws MBeanException,
+                                                                   ReflectionException,
+                                                                   IOException {
+        try (NodeStatistics.Timing timing = statistics.time("aggregate")) {
+            Map<String, Aggregate> groups = new HashMap<>();
+            BatchingCompletionService<Map<String, Aggregate>> completionService = new BatchingCompletionService<>(
+                                                                                                                  executor);
+            List<Future<Map<String, Aggregate>>> futures = forAll(completionService,
+                                                                  child -> () -> child.aggregate(pattern,
+                                                                                                 queryExpr,
+                                                                                                 attribute,
+                                                                                                 aggregation,
+                                                                                                 groupBy),
+                                                                  batch -> () -> {
+                                                                      Map<String, Aggregate> values = new HashMap<>();
+                                                                      foldLocal(batch,
+                                                                                attribute,
+                                                                                (n, v) -> values.computeIfAbsent(groupOf(n,
+                                                                                                                         groupBy),
+                                                                                                                 g -> new Aggregate(
+                                                                                                                                    aggregation)).add(v));
+                                                                      return values;
+                                                                  },
+                                                                  pattern,
+                                                                  queryExpr);
             for (int i = 0; i < futures.size(); i++) {
                 try {
-                    Object attributeValue = completionService.take().get();
-                    return attributeValue;
+                    for (Map.Entry<String, Aggregate> entry : completionService.take().get().entrySet()) {
+                        Aggregate group = groups.get(entry.getKey());
+                        if (group == null) {
+                            group = new Aggregate(aggregation);
+                            groups.put(entry.getKey(), group);
+                        }
+                        group.merge(entry.getValue());
+                    }
                 } catch (InterruptedException e) {
-                    return Collections.emptyMap();
+                    Thread.currentThread().interrupt();
+                    return groups;
                 } catch (ExecutionException e) {
                     if (e.getCause() instanceof ReflectionException) {
                         throw (ReflectionException) e.getCause();
@@ -496,1719 +838,4756 @@ public class Node implements NodeMBean, MBeanRegistration {
                     if (e.getCause() instanceof MBeanException) {
                         throw (MBeanException) e.getCause();
                     }
-                    if (e.getCause() instanceof AttributeNotFoundException) {
-                        throw (AttributeNotFoundException) e.getCause();
-                    } else if (!(e.getCause() instanceof InstanceNotFoundException)) {
-                        log.warn(String.format("%s experienced exception when retriving attribute %s, %s",
-                                               this, objectName, attribute), e);
+                    if (!(e.getCause() instanceof InstanceNotFoundException)
+                        && !(e.getCause() instanceof AttributeNotFoundException)) {
+                        log.warn(String.format("%s experienced exception when aggregating %s of %s, %s by %s",
+                                               this, attribute, pattern,
+                                               queryExpr, Arrays.toString(groupBy)),
+                                 e);
                     }
                 }
             }
-        } finally {
-            for (Future<Object> future : futures) {
-                future.cancel(true);
-            }
+            return groups;
         }
-        throw new InstanceNotFoundException(
-                                            String.format("Instance not found: %s",
-                                                          objectName));
     }
 
     /* (non-Javadoc)
-     * @see com.hellblazer.groo.NodeMXBean#getAttributes(javax.management.ObjectName, javax.management.QueryExp, java.lang.String[])
+     * @see com.chiralBehaviors.groo.NodeMBean#closeStream(long)
      */
     @Override
-    public Map<ObjectName, OperationResult<AttributeList>> getAttributes(final ObjectName pattern,
-                                                                         final QueryExp queryExpr,
-                                                                         final String[] attributes)
-                                                                                                   throws InstanceNotFoundException,
-                                                                                                   ReflectionException,
-                                                                                                   IOException,
-                                                                                                   MBeanException {
-        Map<ObjectName, OperationResult<AttributeList>> attrs = new HashMap<>();
-        ExecutorCompletionService<Map<ObjectName, OperationResult<AttributeList>>> completionService = new ExecutorCompletionService<>(
-                                                                                                                                       executor);
-        TaskGenerator<Map<ObjectName, OperationResult<AttributeList>>> generator = new TaskGenerator<Map<ObjectName, OperationResult<AttributeList>>>() {
-            @Override
-            public Callable<Map<ObjectName, OperationResult<AttributeList>>> localTask(final ObjectName objectName) {
-                return new Callable<Map<ObjectName, OperationResult<AttributeList>>>() {
-                    @Override
-                    public Map<ObjectName, OperationResult<AttributeList>> call()
-                                                                                 throws Exception {
-                        Map<ObjectName, OperationResult<AttributeList>> attrs = new HashMap<>();
-                        attrs.put(objectName,
-                                  new OperationResult<AttributeList>(
-                                                                     mbs.getAttributes(objectName,
-                                                                                       attributes)));
-                        return attrs;
-                    }
-                };
-            }
+    public void closeStream(long stream) {
+        streams.close(stream);
+    }
 
-            @Override
-            public Callable<Map<ObjectName, OperationResult<AttributeList>>> remoteTask(final NodeMBean child) {
-                return new Callable<Map<ObjectName, OperationResult<AttributeList>>>() {
-                    @Override
-                    public Map<ObjectName, OperationResult<AttributeList>> call()
-                                                                                 throws Exception {
-                        return child.getAttributes(pattern, queryExpr,
-                                                   attributes);
-                    }
-                };
-            }
-        };
-        List<Future<Map<ObjectName, OperationResult<AttributeList>>>> futures = forAll(completionService,
-                                                                                       generator,
-                                                                                       pattern,
-                                                                                       queryExpr);
-        for (int i = 0; i < futures.size(); i++) {
-            try {
-                attrs.putAll(completionService.take().get());
-            } catch (InterruptedException e) {
-                return Collections.emptyMap();
-            } catch (ExecutionException e) {
-                if (e.getCause() instanceof ReflectionException) {
-                    throw (ReflectionException) e.getCause();
-                }
-                if (e.getCause() instanceof MBeanException) {
-                    throw (MBeanException) e.getCause();
-                }
-                if (!(e.getCause() instanceof InstanceNotFoundException)) {
-                    log.warn(String.format("%s experienced exception when retriving attributes %s, %s, %s",
-                                           this, pattern, queryExpr,
-                                           Arrays.asList(attributes)), e);
-                }
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        Node other = (Node) obj;
+        if (name == null) {
+            if (other.name != null) {
+                return false;
             }
+        } else if (!name.equals(other.name)) {
+            return false;
         }
-        return attrs;
+        return true;
+    }
+
+    /* (non-Javadoc)
+     * @see com.hellblazer.groo.NodeMXBean#getAttribute(javax.management.ObjectName, javax.management.QueryExp, java.lang.String)
+     */
+    @Override
+    public <T> Map<ObjectName, OperationResult<T>> getAttribute(ObjectName pattern,
+                                                                QueryExp queryExpr,
+                                                                String attribute)
+                                                                                 throws MBeanException,
+                                                                                 AttributeNotFoundException,
+                                                                                 InstanceNotFoundException,
+                                                                                 ReflectionException,
+                                                                                 IOException {
+        return getAttribute(pattern, queryExpr, attribute, Deadline.NONE, 0);
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#getAttribute(javax.management.ObjectName, javax.management.QueryExp, java.lang.String, long, java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public <T> Map<ObjectName, OperationResult<T>> getAttribute(ObjectName pattern,
+                                                                QueryExp queryExpr,
+                                                                String attribute,
+                                                                long timeout,
+                                                                TimeUnit unit)
+                                                                              throws MBeanException,
+                                                                              AttributeNotFoundException,
+                                                                              InstanceNotFoundException,
+                                                                              ReflectionException,
+                                                                              IOException {
+        return getAttribute(pattern, queryExpr, attribute,
+                            Deadline.after(timeout, unit), 0);
     }
 
     /**
-     * @param name
-     * @param attributes
+     * @param objectName
+     * @param attribute
      * @return
+     * @throws MBeanException
+     * @throws AttributeNotFoundException
      * @throws InstanceNotFoundException
      * @throws ReflectionException
-     * @see javax.management.MBeanServer#getAttributes(javax.management.ObjectName,
-     *      java.lang.String[])
+     * @see javax.management.MBeanServer#getAttribute(javax.management.ObjectName,
+     *      java.lang.String)
      */
     @Override
-    public AttributeList getAttributes(final ObjectName objectName,
-                                       final String[] attributes)
-                                                                 throws InstanceNotFoundException,
-                                                                 ReflectionException {
-        ExecutorCompletionService<AttributeList> completionService = new ExecutorCompletionService<>(
-                                                                                                     executor);
-        TaskGenerator<AttributeList> generator = new TaskGenerator<AttributeList>() {
-            @Override
-            public Callable<AttributeList> localTask(final ObjectName objectName) {
-                return new Callable<AttributeList>() {
-                    @Override
-                    public AttributeList call() throws Exception {
-                        return mbs.getAttributes(objectName, attributes);
-                    }
-                };
-            }
+    public Object getAttribute(ObjectName objectName, String attribute)
+                                                                       throws MBeanException,
+                                                                       AttributeNotFoundException,
+                                                                       InstanceNotFoundException,
+                                                                       ReflectionException {
+        return getAttribute(objectName, attribute, 0);
+    }
 
-            @Override
-            public Callable<AttributeList> remoteTask(final NodeMBean child) {
-                return new Callable<AttributeList>() {
-                    @Override
-                    public AttributeList call() throws Exception {
-                        return child.getAttributes(objectName, attributes);
-                    }
-                };
-            }
-        };
-        List<Future<AttributeList>> futures = forAll(completionService,
-                                                     generator, objectName);
-        try {
-            for (int i = 0; i < futures.size(); i++) {
-                try {
-                    AttributeList attrs = completionService.take().get();
-                    return attrs;
-                } catch (InterruptedException e) {
-                    return new AttributeList();
-                } catch (ExecutionException e) {
-                    if (e.getCause() instanceof ReflectionException) {
-                        throw (ReflectionException) e.getCause();
-                    }
-                    if (!(e.getCause() instanceof InstanceNotFoundException)) {
-                        log.warn(String.format("%s experienced exception when retriving attributes %s, %s",
-                                               this, objectName,
-                                               Arrays.asList(attributes)), e);
-                    }
-                }
-            }
-        } finally {
-            for (Future<AttributeList> future : futures) {
-                future.cancel(true);
-            }
-        }
-        throw new InstanceNotFoundException(
-                                            String.format("Instance not found: %s",
-                                                          objectName));
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#getAttributeAsync(javax.management.ObjectName, javax.management.QueryExp, java.lang.String)
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> CompletableFuture<Map<ObjectName, OperationResult<T>>> getAttributeAsync(final ObjectName pattern,
+                                                                                        final QueryExp queryExpr,
+                                                                                        final String attribute) {
+        return merge(gatherAsync(this.<Map<ObjectName, OperationResult<T>>> generator(n -> () -> Collections.singletonMap(n,
+                                                                                                                        new OperationResult<T>(
+                                                                                                                                               (T) mbs.getAttribute(n,
+                                                                                                                                                                    attribute))),
+                                                                                      child -> learning(child,
+                                                                                                        async(child).<T> getAttributeAsync(pattern,
+                                                                                                                                           queryExpr,
+                                                                                                                                           attribute))),
+                                 pattern, queryExpr, "getAttributeAsync"));
     }
 
-    public Set<NodeMBean> getChildren() {
-        return Collections.unmodifiableSet(children);
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#getAttributeAsync(javax.management.ObjectName, java.lang.String)
+     */
+    @Override
+    public CompletableFuture<Object> getAttributeAsync(final ObjectName objectName,
+                                                       final String attribute) {
+        return firstAsync(this.<Object> generator(n -> () -> mbs.getAttribute(n,
+                                                                              attribute),
+                                                  child -> async(child).getAttributeAsync(objectName,
+                                                                                          attribute)),
+                          objectName, "getAttributeAsync");
     }
 
     /**
-     * @return the filter
+     * @return the bound on the number of cached attribute values and pattern
+     *         members
      */
-    public RegistrationFilter getFilter() {
-        return filter;
+    public int getAttributeCacheSize() {
+        return attributeCache.getMaxEntries();
     }
 
-    /**
-     * @return
-     * @see javax.management.MBeanServer#getMBeanCount()
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#getAttributeColumns(javax.management.ObjectName, javax.management.QueryExp, java.lang.String)
      */
     @Override
-    public Integer getMBeanCount() {
-        ExecutorCompletionService<Integer> completionService = new ExecutorCompletionService<>(
-                                                                                               executor);
-        TaskGenerator<Integer> generator = new TaskGenerator<Integer>() {
+    public <T> ColumnarResult<T> getAttributeColumns(final ObjectName pattern,
+                                                     final QueryExp queryExpr,
+                                                     final String attribute)
+                                                                            throws MBeanException,
+                                                                            AttributeNotFoundException,
+                                                                            InstanceNotFoundException,
+                                                                            ReflectionException,
+                                                                            IOException {
+        ColumnsTaskGenerator<ColumnarResult<T>> generator = new ColumnsTaskGenerator<ColumnarResult<T>>() {
+            @SuppressWarnings("unchecked")
             @Override
-            public Callable<Integer> localTask(final ObjectName objectName) {
-                return new Callable<Integer>() {
-                    @Override
-                    public Integer call() throws Exception {
-                        return mbs.getMBeanCount();
-                    }
-                };
+            public void localTask(ObjectName objectName,
+                                  ColumnarResult<T> columns) throws Exception {
+                columns.add(objectName,
+                            (T) mbs.getAttribute(objectName, attribute));
             }
 
             @Override
-            public Callable<Integer> remoteTask(final NodeMBean child) {
-                return new Callable<Integer>() {
+            public Callable<ColumnarResult<T>> remoteTask(final NodeMBean child) {
+                return new Callable<ColumnarResult<T>>() {
                     @Override
-                    public Integer call() throws Exception {
-                        return child.getMBeanCount();
+                    public ColumnarResult<T> call() throws Exception {
+                        ColumnarResult<T> result = child.<T> getAttributeColumns(pattern,
+                                                                                 queryExpr,
+                                                                                 attribute);
+                        learn(child, result.getNames());
+                        return result;
                     }
                 };
             }
         };
-        List<Future<Integer>> futures = forAll(completionService, generator,
-                                               null);
-        int count = 0;
-        for (int i = 0; i < futures.size(); i++) {
-            try {
-                count += completionService.take().get();
-            } catch (InterruptedException e) {
-                return 0;
-            } catch (ExecutionException e) {
-                log.warn(String.format("%s experienced exception when retriving mbean count %s",
-                                       this), e);
-            }
-        }
-        return count;
+        return columns(ColumnarResult<T>::new, generator, pattern, queryExpr,
+                       "getAttributeColumns");
     }
 
     /* (non-Javadoc)
-     * @see com.hellblazer.groo.NodeMXBean#getMBeanCount(javax.management.ObjectName)
+     * @see com.hellblazer.groo.NodeMXBean#getAttributes(javax.management.ObjectName, javax.management.QueryExp, java.lang.String[])
      */
     @Override
-    public int getMBeanCount(final ObjectName filter, final QueryExp queryExp) {
-        ExecutorCompletionService<Integer> completionService = new ExecutorCompletionService<>(
-                                                                                               executor);
-        TaskGenerator<Integer> generator = new TaskGenerator<Integer>() {
-            @Override
-            public Callable<Integer> localTask(final ObjectName objectName) {
-                return new Callable<Integer>() {
-                    @Override
-                    public Integer call() throws Exception {
-                        return mbs.queryNames(filter, queryExp).size();
-                    }
-                };
-            }
+    public Map<ObjectName, OperationResult<AttributeList>> getAttributes(ObjectName pattern,
+                                                                         QueryExp queryExpr,
+                                                                         String[] attributes)
+                                                                                             throws InstanceNotFoundException,
+                                                                                             ReflectionException,
+                                                                                             IOException,
+                                                                                             MBeanException {
+        return getAttributes(pattern, queryExpr, attributes, Deadline.NONE, 0);
+    }
 
-            @Override
-            public Callable<Integer> remoteTask(final NodeMBean child) {
-                return new Callable<Integer>() {
-                    @Override
-                    public Integer call() throws Exception {
-                        return child.getMBeanCount(filter, queryExp);
-                    }
-                };
-            }
-        };
-        List<Future<Integer>> futures = forAll(completionService, generator,
-                                               null);
-        int count = 0;
-        for (int i = 0; i < futures.size(); i++) {
-            try {
-                count += completionService.take().get();
-            } catch (InterruptedException e) {
-                return 0;
-            } catch (ExecutionException e) {
-                log.warn(String.format("%s experienced exception when retriving mbean count %s, %s, %s",
-                                       this, filter, queryExp), e);
-            }
-        }
-        return count;
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#getAttributes(javax.management.ObjectName, javax.management.QueryExp, java.lang.String[], long, java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public Map<ObjectName, OperationResult<AttributeList>> getAttributes(ObjectName pattern,
+                                                                         QueryExp queryExpr,
+                                                                         String[] attributes,
+                                                                         long timeout,
+                                                                         TimeUnit unit)
+                                                                                       throws InstanceNotFoundException,
+                                                                                       ReflectionException,
+                                                                                       IOException,
+                                                                                       MBeanException {
+        return getAttributes(pattern, queryExpr, attributes,
+                             Deadline.after(timeout, unit), 0);
     }
 
     /**
-     * @param objectName
+     * @param name
+     * @param attributes
      * @return
      * @throws InstanceNotFoundException
-     * @throws IntrospectionException
      * @throws ReflectionException
-     * @see javax.management.MBeanServer#getMBeanInfo(javax.management.ObjectName)
+     * @see javax.management.MBeanServer#getAttributes(javax.management.ObjectName,
+     *      java.lang.String[])
      */
     @Override
-    public MBeanInfo getMBeanInfo(final ObjectName objectName)
-                                                              throws InstanceNotFoundException,
-                                                              IntrospectionException,
-                                                              ReflectionException {
-        ExecutorCompletionService<MBeanInfo> completionService = new ExecutorCompletionService<>(
-                                                                                                 executor);
-        TaskGenerator<MBeanInfo> generator = new TaskGenerator<MBeanInfo>() {
-            @Override
-            public Callable<MBeanInfo> localTask(final ObjectName objectName) {
-                return new Callable<MBeanInfo>() {
-                    @Override
-                    public MBeanInfo call() throws Exception {
-                        return mbs.getMBeanInfo(objectName);
-                    }
-                };
-            }
+    public AttributeList getAttributes(ObjectName objectName,
+                                       String[] attributes)
+                                                           throws InstanceNotFoundException,
+                                                           ReflectionException {
+        return getAttributes(objectName, attributes, 0);
+    }
 
-            @Override
-            public Callable<MBeanInfo> remoteTask(final NodeMBean child) {
-                return new Callable<MBeanInfo>() {
-                    @Override
-                    public MBeanInfo call() throws Exception {
-                        return child.getMBeanInfo(objectName);
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#getAttributesAsync(javax.management.ObjectName, javax.management.QueryExp, java.lang.String[])
+     */
+    @Override
+    public CompletableFuture<Map<ObjectName, OperationResult<AttributeList>>> getAttributesAsync(final ObjectName pattern,
+                                                                                                 final QueryExp queryExpr,
+                                                                                                 final String[] attributes) {
+        return merge(gatherAsync(this.<Map<ObjectName, OperationResult<AttributeList>>> generator(n -> () -> Collections.singletonMap(n,
+                                                                                                                                    new OperationResult<>(
+                                                                                                                                                          mbs.getAttributes(n,
+                                                                                                                                                                            attributes))),
+                                                                                                  child -> learning(child,
+                                                                                                                    async(child).getAttributesAsync(pattern,
+                                                                                                                                                    queryExpr,
+                                                                                                                                                    attributes))),
+                                 pattern, queryExpr, "getAttributesAsync"));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#getAttributesAsync(javax.management.ObjectName, java.lang.String[])
+     */
+    @Override
+    public CompletableFuture<AttributeList> getAttributesAsync(final ObjectName objectName,
+                                                               final String[] attributes) {
+        return firstAsync(this.<AttributeList> generator(n -> () -> mbs.getAttributes(n,
+                                                                                      attributes),
+                                                         child -> async(child).getAttributesAsync(objectName,
+                                                                                                  attributes)),
+                          objectName, "getAttributesAsync");
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#getCachedAttribute(javax.management.ObjectName, javax.management.QueryExp, java.lang.String, long)
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> Map<ObjectName, OperationResult<T>> getCachedAttribute(ObjectName pattern,
+                                                                      QueryExp queryExpr,
+                                                                      String attribute,
+                                                                      long maxAge)
+                                                                                  throws MBeanException,
+                                                                                  AttributeNotFoundException,
+                                                                                  InstanceNotFoundException,
+                                                                                  ReflectionException,
+                                                                                  IOException {
+        try (NodeStatistics.Timing timing = statistics.time("getCachedAttribute")) {
+            List<Object> membersKey = Arrays.<Object> asList(pattern,
+                                                             QueryCache.queryKey(queryExpr));
+            AttributeCache.Entry members = attributeCache.get(membersKey, maxAge);
+            if (members != null) {
+                Map<ObjectName, OperationResult<T>> results = new HashMap<>();
+                List<ObjectName> missing = new ArrayList<>();
+                for (ObjectName name : (Set<ObjectName>) members.getValue()) {
+                    AttributeCache.Entry cached = attributeCache.get(Arrays.<Object> asList(name,
+                                                                                            attribute),
+                                                                     maxAge);
+                    if (cached == null) {
+                        missing.add(name);
+                    } else {
+                        results.put(name,
+                                    new OperationResult<T>((T) cached.getValue()));
                     }
-                };
+                }
+                // read only the misses, unless most of the members missed
+                if (missing.size() <= results.size()) {
+                    long read = System.nanoTime();
+                    Map<ObjectName, CompletableFuture<Object>> reads = new HashMap<>();
+                    for (ObjectName name : missing) {
+                        reads.put(name, getAttributeAsync(name, attribute));
+                    }
+                    for (Map.Entry<ObjectName, CompletableFuture<Object>> entry : reads.entrySet()) {
+                        try {
+                            Object value = entry.getValue().get();
+                            results.put(entry.getKey(),
+                                        new OperationResult<T>((T) value));
+                            attributeCache.put(Arrays.<Object> asList(entry.getKey(),
+                                                                      attribute),
+                                               value, read);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return Collections.emptyMap();
+                        } catch (ExecutionException e) {
+                            Throwable cause = unwrap(e);
+                            if (cause instanceof ReflectionException) {
+                                throw (ReflectionException) cause;
+                            }
+                            if (cause instanceof MBeanException) {
+                                throw (MBeanException) cause;
+                            }
+                            if (!(cause instanceof InstanceNotFoundException)) {
+                                log.warn(String.format("%s experienced exception when retrieving attribute %s, %s",
+                                                       this, entry.getKey(),
+                                                       attribute), cause);
+                            }
+                        }
+                    }
+                    return results;
+                }
             }
-        };
-        List<Future<MBeanInfo>> futures = forAll(completionService, generator,
-                                                 objectName);
-        try {
-            for (int i = 0; i < futures.size(); i++) {
-                try {
-                    MBeanInfo info = completionService.take().get();
-                    return info;
-                } catch (InterruptedException e) {
-                    return null;
-                } catch (ExecutionException e) {
-                    log.warn(String.format("%s experienced exception when retriving mbean info %s, %s",
-                                           this, objectName), e);
+            long read = System.nanoTime();
+            Map<ObjectName, OperationResult<T>> results = getAttribute(pattern,
+                                                                       queryExpr,
+                                                                       attribute,
+                                                                       Deadline.NONE,
+                                                                       maxAge);
+            boolean complete = true;
+            for (Map.Entry<ObjectName, OperationResult<T>> entry : results.entrySet()) {
+                if (entry.getValue().isSuccess()) {
+                    attributeCache.put(Arrays.<Object> asList(entry.getKey(),
+                                                              attribute),
+                                       entry.getValue().getResult(), read);
+                } else {
+                    complete = false;
                 }
             }
-        } finally {
-            for (Future<MBeanInfo> future : futures) {
-                future.cancel(true);
+            if (complete) {
+                attributeCache.put(membersKey,
+                                   Collections.unmodifiableSet(new HashSet<>(
+                                                                             results.keySet())),
+                                   read, Math.max(1, results.size()));
             }
+            return results;
         }
-        throw new InstanceNotFoundException(
-                                            String.format("Instance not found: %s",
-                                                          objectName));
     }
 
-    /**
-     * @return the name
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#getCachedAttribute(javax.management.ObjectName, java.lang.String, long)
      */
     @Override
-    public ObjectName getName() {
-        return name;
+    public Object getCachedAttribute(ObjectName objectName, String attribute,
+                                     long maxAge)
+                                                 throws MBeanException,
+                                                 AttributeNotFoundException,
+                                                 InstanceNotFoundException,
+                                                 ReflectionException {
+        try (NodeStatistics.Timing timing = statistics.time("getCachedAttribute")) {
+            List<Object> key = Arrays.<Object> asList(objectName, attribute);
+            AttributeCache.Entry cached = attributeCache.get(key, maxAge);
+            if (cached != null) {
+                return cached.getValue();
+            }
+            long read = System.nanoTime();
+            Object value = getAttribute(objectName, attribute, maxAge);
+            attributeCache.put(key, value, read);
+            return value;
+        }
     }
 
     /* (non-Javadoc)
-     * @see com.hellblazer.groo.NodeMBean#getObjectInstance(javax.management.ObjectName)
+     * @see com.chiralBehaviors.groo.NodeMBean#getCachedAttributes(javax.management.ObjectName, javax.management.QueryExp, java.lang.String[], long)
      */
     @Override
-    public ObjectInstance getObjectInstance(final ObjectName objectName)
-                                                                        throws InstanceNotFoundException {
-        ExecutorCompletionService<ObjectInstance> completionService = new ExecutorCompletionService<>(
-                                                                                                      executor);
-        TaskGenerator<ObjectInstance> generator = new TaskGenerator<ObjectInstance>() {
-            @Override
-            public Callable<ObjectInstance> localTask(final ObjectName objectName) {
-                return new Callable<ObjectInstance>() {
-                    @Override
-                    public ObjectInstance call() throws Exception {
-                        return mbs.getObjectInstance(objectName);
-                    }
-                };
-            }
-
-            @Override
-            public Callable<ObjectInstance> remoteTask(final NodeMBean child) {
-                return new Callable<ObjectInstance>() {
-                    @Override
-                    public ObjectInstance call() throws Exception {
-                        return child.getObjectInstance(objectName);
+    @SuppressWarnings("unchecked")
+    public Map<ObjectName, OperationResult<AttributeList>> getCachedAttributes(ObjectName pattern,
+                                                                               QueryExp queryExpr,
+                                                                               String[] attributes,
+                                                                               long maxAge)
+                                                                                           throws InstanceNotFoundException,
+                                                                                           ReflectionException,
+                                                                                           IOException,
+                                                                                           MBeanException {
+        try (NodeStatistics.Timing timing = statistics.time("getCachedAttributes")) {
+            List<Object> membersKey = Arrays.<Object> asList(pattern,
+                                                             QueryCache.queryKey(queryExpr));
+            AttributeCache.Entry members = attributeCache.get(membersKey, maxAge);
+            if (members != null) {
+                Map<ObjectName, Map<String, Object>> values = new HashMap<>();
+                Map<ObjectName, List<String>> missing = new HashMap<>();
+                for (ObjectName name : (Set<ObjectName>) members.getValue()) {
+                    Map<String, Object> cached = new HashMap<>();
+                    for (String attribute : attributes) {
+                        AttributeCache.Entry entry = attributeCache.get(Arrays.<Object> asList(name,
+                                                                                               attribute),
+                                                                        maxAge);
+                        if (entry == null) {
+                            List<String> names = missing.get(name);
+                            if (names == null) {
+                                names = new ArrayList<>();
+                                missing.put(name, names);
+                            }
+                            names.add(attribute);
+                        } else {
+                            cached.put(attribute, entry.getValue());
+                        }
                     }
-                };
+                    values.put(name, cached);
+                }
+                // read only the misses, unless most of the members missed
+                if (missing.size() * 2 <= values.size()) {
+                    long read = System.nanoTime();
+                    Map<ObjectName, CompletableFuture<AttributeList>> reads = new HashMap<>();
+                    for (Map.Entry<ObjectName, List<String>> entry : missing.entrySet()) {
+                        reads.put(entry.getKey(),
+                                  getAttributesAsync(entry.getKey(),
+                                                     entry.getValue().toArray(new String[entry.getValue().size()])));
+                    }
+                    for (Map.Entry<ObjectName, CompletableFuture<AttributeList>> entry : reads.entrySet()) {
+                        try {
+                            for (Attribute attribute : entry.getValue().get().asList()) {
+                                values.get(entry.getKey()).put(attribute.getName(),
+                                                               attribute.getValue());
+                                attributeCache.put(Arrays.<Object> asList(entry.getKey(),
+                                                                          attribute.getName()),
+                                                   attribute.getValue(), read);
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return Collections.emptyMap();
+                        } catch (ExecutionException e) {
+                            Throwable cause = unwrap(e);
+                            if (cause instanceof ReflectionException) {
+                                throw (ReflectionException) cause;
+                            }
+                            if (!(cause instanceof InstanceNotFoundException)) {
+                                log.warn(String.format("%s experienced exception when retrieving attributes %s, %s",
+                                                       this, entry.getKey(),
+                                                       Arrays.asList(attributes)),
+                                         cause);
+                            }
+                            values.remove(entry.getKey());
+                        }
+                    }
+                    Map<ObjectName, OperationResult<AttributeList>> results = new HashMap<>();
+                    for (Map.Entry<ObjectName, Map<String, Object>> entry : values.entrySet()) {
+                        AttributeList list = new AttributeList();
+                        for (String attribute : attributes) {
+                            if (entry.getValue().containsKey(attribute)) {
+                                list.add(new Attribute(attribute,
+                                                       entry.getValue().get(attribute)));
+                            }
+                        }
+                        results.put(entry.getKey(),
+                                    new OperationResult<AttributeList>(list));
+                    }
+                    return results;
+                }
             }
-        };
-        List<Future<ObjectInstance>> futures = forAll(completionService,
-                                                      generator, objectName);
-        try {
-            for (int i = 0; i < futures.size(); i++) {
-                try {
-                    ObjectInstance instance = completionService.take().get();
-                    return instance;
-                } catch (InterruptedException e) {
-                    return null;
-                } catch (ExecutionException e) {
-                    log.warn(String.format("%s experienced exception when retriving object instance %s, %s",
-                                           this, objectName), e);
+            long read = System.nanoTime();
+            Map<ObjectName, OperationResult<AttributeList>> results = getAttributes(pattern,
+                                                                                    queryExpr,
+                                                                                    attributes,
+                                                                                    Deadline.NONE,
+                                                                                    maxAge);
+            boolean complete = true;
+            for (Map.Entry<ObjectName, OperationResult<AttributeList>> entry : results.entrySet()) {
+                if (entry.getValue().isSuccess()) {
+                    for (Attribute attribute : entry.getValue().getResult().asList()) {
+                        attributeCache.put(Arrays.<Object> asList(entry.getKey(),
+                                                                  attribute.getName()),
+                                           attribute.getValue(), read);
+                    }
+                } else {
+                    complete = false;
                 }
             }
-        } finally {
-            for (Future<ObjectInstance> future : futures) {
-                future.cancel(true);
+            if (complete) {
+                attributeCache.put(membersKey,
+                                   Collections.unmodifiableSet(new HashSet<>(
+                                                                             results.keySet())),
+                                   read, Math.max(1, results.size()));
             }
+            return results;
         }
-        throw new InstanceNotFoundException(
-                                            String.format("Instance not found: %s",
-                                                          objectName));
     }
 
     /* (non-Javadoc)
-     * @see com.hellblazer.groo.NodeMXBean#getObjectInstance(javax.management.ObjectName, javax.management.QueryExp)
+     * @see com.chiralBehaviors.groo.NodeMBean#getCachedAttributes(javax.management.ObjectName, java.lang.String[], long)
      */
     @Override
-    public Set<ObjectInstance> getObjectInstances(final ObjectName filter,
-                                                  final QueryExp queryExpr)
-                                                                           throws InstanceNotFoundException,
-                                                                           IOException {
-        ExecutorCompletionService<Set<ObjectInstance>> completionService = new ExecutorCompletionService<>(
-                                                                                                           executor);
-        TaskGenerator<Set<ObjectInstance>> generator = new TaskGenerator<Set<ObjectInstance>>() {
-            @Override
-            public Callable<Set<ObjectInstance>> localTask(final ObjectName objectName) {
-                return new Callable<Set<ObjectInstance>>() {
-                    @Override
-                    public Set<ObjectInstance> call() throws Exception {
-                        return mbs.queryMBeans(objectName, queryExpr);
-                    }
-                };
+    public AttributeList getCachedAttributes(ObjectName objectName,
+                                             String[] attributes, long maxAge)
+                                                                              throws InstanceNotFoundException,
+                                                                              ReflectionException {
+        try (NodeStatistics.Timing timing = statistics.time("getCachedAttributes")) {
+            Map<String, Object> values = new HashMap<>();
+            List<String> missing = new ArrayList<>();
+            for (String attribute : attributes) {
+                AttributeCache.Entry cached = attributeCache.get(Arrays.<Object> asList(objectName,
+                                                                                        attribute),
+                                                                 maxAge);
+                if (cached == null) {
+                    missing.add(attribute);
+                } else {
+                    values.put(attribute, cached.getValue());
+                }
             }
-
-            @Override
-            public Callable<Set<ObjectInstance>> remoteTask(final NodeMBean child) {
-                return new Callable<Set<ObjectInstance>>() {
-                    @Override
-                    public Set<ObjectInstance> call() throws Exception {
-                        return child.getObjectInstances(filter, queryExpr);
-                    }
-                };
+            if (!missing.isEmpty()) {
+                long read = System.nanoTime();
+                for (Attribute attribute : getAttributes(objectName,
+                                                         missing.toArray(new String[missing.size()]),
+                                                         maxAge).asList()) {
+                    values.put(attribute.getName(), attribute.getValue());
+                    attributeCache.put(Arrays.<Object> asList(objectName,
+                                                              attribute.getName()),
+                                       attribute.getValue(), read);
+                }
             }
-        };
-        List<Future<Set<ObjectInstance>>> futures = forAll(completionService,
-                                                           generator, filter);
-        Set<ObjectInstance> instances = new HashSet<>();
-        for (int i = 0; i < futures.size(); i++) {
-            try {
-                instances.addAll(completionService.take().get());
-            } catch (InterruptedException e) {
-                return instances;
-            } catch (ExecutionException e) {
-                log.warn(String.format("%s experienced exception when retreiving object instances %s, %s, %s",
-                                       this, filter, queryExpr), e);
+            AttributeList result = new AttributeList();
+            for (String attribute : attributes) {
+                if (values.containsKey(attribute)) {
+                    result.add(new Attribute(attribute, values.get(attribute)));
+                }
             }
+            return result;
         }
-        if (instances.size() == 0) {
-            throw new InstanceNotFoundException(
-                                                String.format("Instance not found: %s, %s",
-                                                              filter, queryExpr));
-        }
-        return instances;
     }
 
-    /* (non-Javadoc)
-     * @see java.lang.Object#hashCode()
-     */
-    @Override
-    public int hashCode() {
-        final int prime = 31;
-        int result = 1;
-        result = prime * result + (name == null ? 0 : name.hashCode());
-        return result;
+    public Set<NodeMBean> getChildren() {
+        return children.asSet();
     }
 
     /* (non-Javadoc)
-     * @see com.hellblazer.groo.NodeMXBean#invoke(javax.management.ObjectName, javax.management.Query, java.lang.String, java.lang.Object[], java.lang.String[])
+     * @see com.chiralBehaviors.groo.NodeMBean#getDoubleAttribute(javax.management.ObjectName, javax.management.QueryExp, java.lang.String)
      */
     @Override
-    public <T> Map<ObjectName, OperationResult<T>> invoke(final ObjectName filter,
-                                                          final QueryExp queryExpr,
-                                                          final String operationName,
-                                                          final Object[] params,
-                                                          final String[] signature)
-                                                                                   throws InstanceNotFoundException,
-                                                                                   MBeanException,
-                                                                                   ReflectionException,
-                                                                                   IOException {
-        ExecutorCompletionService<Map<ObjectName, OperationResult<T>>> completionService = new ExecutorCompletionService<>(
-                                                                                                                           executor);
-        TaskGenerator<Map<ObjectName, OperationResult<T>>> generator = new TaskGenerator<Map<ObjectName, OperationResult<T>>>() {
+    public DoubleColumns getDoubleAttribute(final ObjectName pattern,
+                                            final QueryExp queryExpr,
+                                            final String attribute)
+                                                                   throws MBeanException,
+                                                                   AttributeNotFoundException,
+                                                                   InstanceNotFoundException,
+                                                                   ReflectionException,
+                                                                   IOException {
+        ColumnsTaskGenerator<DoubleColumns> generator = new ColumnsTaskGenerator<DoubleColumns>() {
             @Override
-            public Callable<Map<ObjectName, OperationResult<T>>> localTask(final ObjectName objectName) {
-                return new Callable<Map<ObjectName, OperationResult<T>>>() {
-                    @SuppressWarnings("unchecked")
-                    @Override
-                    public Map<ObjectName, OperationResult<T>> call()
-                                                                     throws Exception {
-                        Map<ObjectName, OperationResult<T>> result = new HashMap<>();
-                        result.put(objectName,
-                                   new OperationResult<T>(
-                                                          (T) mbs.invoke(objectName,
-                                                                         operationName,
-                                                                         params,
-                                                                         signature)));
-                        return result;
-                    }
-                };
+            public void localTask(ObjectName objectName, DoubleColumns columns)
+                                                                               throws Exception {
+                Object value = mbs.getAttribute(objectName, attribute);
+                if (value instanceof Number) {
+                    columns.add(objectName, ((Number) value).doubleValue());
+                } else {
+                    columns.addFailure(objectName,
+                                       String.format(NOT_A_NUMBER, value));
+                }
             }
 
             @Override
-            public Callable<Map<ObjectName, OperationResult<T>>> remoteTask(final NodeMBean child) {
-                return new Callable<Map<ObjectName, OperationResult<T>>>() {
+            public Callable<DoubleColumns> remoteTask(final NodeMBean child) {
+                return new Callable<DoubleColumns>() {
                     @Override
-                    public Map<ObjectName, OperationResult<T>> call()
-                                                                     throws Exception {
-                        return child.invoke(filter, queryExpr, operationName,
-                                            params, signature);
+                    public DoubleColumns call() throws Exception {
+                        DoubleColumns result = child.getDoubleAttribute(pattern,
+                                                                        queryExpr,
+                                                                        attribute);
+                        learn(child, result.getNames());
+                        return result;
                     }
                 };
             }
         };
-        List<Future<Map<ObjectName, OperationResult<T>>>> futures = forAll(completionService,
-                                                                           generator,
-                                                                           filter,
-                                                                           queryExpr);
-        Map<ObjectName, OperationResult<T>> results = new HashMap<>();
-        try {
-            for (int i = 0; i < futures.size(); i++) {
-                try {
-                    results.putAll(completionService.take().get());
-                } catch (InterruptedException e) {
-                    return results;
-                } catch (ExecutionException e) {
-                    if (e.getCause() instanceof ReflectionException) {
-                        throw (ReflectionException) e.getCause();
-                    }
-                    if (e.getCause() instanceof MBeanException) {
-                        throw (MBeanException) e.getCause();
-                    }
-                    if (!(e.getCause() instanceof InstanceNotFoundException)) {
-                        log.warn(String.format("%s experienced exception when invoking %s, %s, %s, %s, %s",
-                                               this,
-                                               filter,
-                                               queryExpr,
-                                               operationName,
-                                               params != null ? Arrays.asList(params)
-                                                             : null,
-                                               signature != null ? Arrays.asList(signature)
-                                                                : null),
-                                 e.getCause());
-                    }
-                }
-            }
-        } finally {
-            for (Future<?> future : futures) {
-                future.cancel(true);
-            }
-        }
-        return results;
+        return columns(DoubleColumns::new, generator, pattern, queryExpr,
+                       "getDoubleAttribute");
     }
 
     /**
-     * @param objectName
-     * @param operationName
-     * @param params
-     * @param signature
-     * @return
-     * @throws InstanceNotFoundException
-     * @throws MBeanException
-     * @throws ReflectionException
-     * @see javax.management.MBeanServer#invoke(javax.management.ObjectName,
-     *      java.lang.String, java.lang.Object[], java.lang.String[])
+     * @return the executor the operations of this node are run on
+     */
+    public Executor getExecutor() {
+        return statistics.getExecutor();
+    }
+
+    /**
+     * @return the number of consecutive failures of a child which opens its
+     *         circuit
+     */
+    public int getFailureThreshold() {
+        return circuits.getFailureThreshold();
+    }
+
+    /**
+     * @return the filter
+     */
+    public RegistrationFilter getFilter() {
+        return filter;
+    }
+
+    /**
+     * @return the number of local MBean tasks run inline on the calling
+     *         thread, rather than dispatched to the executor
+     */
+    public int getLocalBatchSize() {
+        return localBatchSize;
+    }
+
+    /**
+     * @return the maximum number of executor tasks the local MBean tasks of
+     *         an operation are divided between
+     */
+    public int getLocalParallelism() {
+        return localParallelism;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#getLongAttribute(javax.management.ObjectName, javax.management.QueryExp, java.lang.String)
      */
     @Override
-    public Object invoke(final ObjectName objectName,
-                         final String operationName, final Object[] params,
-                         final String[] signature)
-                                                  throws InstanceNotFoundException,
-                                                  MBeanException,
-                                                  ReflectionException {
-        ExecutorCompletionService<Object> completionService = new ExecutorCompletionService<>(
-                                                                                              executor);
-        TaskGenerator<Object> generator = new TaskGenerator<Object>() {
+    public LongColumns getLongAttribute(final ObjectName pattern,
+                                        final QueryExp queryExpr,
+                                        final String attribute)
+                                                               throws MBeanException,
+                                                               AttributeNotFoundException,
+                                                               InstanceNotFoundException,
+                                                               ReflectionException,
+                                                               IOException {
+        ColumnsTaskGenerator<LongColumns> generator = new ColumnsTaskGenerator<LongColumns>() {
             @Override
-            public Callable<Object> localTask(final ObjectName objectName) {
-                return new Callable<Object>() {
-                    @Override
-                    public Object call() throws Exception {
-                        return mbs.invoke(objectName, operationName, params,
-                                          signature);
-                    }
-                };
+            public void localTask(ObjectName objectName, LongColumns columns)
+                                                                             throws Exception {
+                Object value = mbs.getAttribute(objectName, attribute);
+                if (isLong(value)) {
+                    columns.add(objectName, ((Number) value).longValue());
+                } else {
+                    columns.addFailure(objectName,
+                                       String.format(NOT_A_NUMBER, value));
+                }
             }
 
             @Override
-            public Callable<Object> remoteTask(final NodeMBean child) {
-                return new Callable<Object>() {
+            public Callable<LongColumns> remoteTask(final NodeMBean child) {
+                return new Callable<LongColumns>() {
                     @Override
-                    public Object call() throws Exception {
-                        return child.invoke(objectName, operationName, params,
-                                            signature);
+                    public LongColumns call() throws Exception {
+                        LongColumns result = child.getLongAttribute(pattern,
+                                                                    queryExpr,
+                                                                    attribute);
+                        learn(child, result.getNames());
+                        return result;
                     }
                 };
             }
         };
-        List<Future<Object>> futures = forAll(completionService, generator,
-                                              objectName);
-        try {
-            for (int i = 0; i < futures.size(); i++) {
-                try {
-                    return completionService.take().get();
-                } catch (InterruptedException e) {
-                    return null;
-                } catch (ExecutionException e) {
-                    if (e.getCause() instanceof ReflectionException) {
-                        throw (ReflectionException) e.getCause();
-                    }
-                    if (e.getCause() instanceof MBeanException) {
-                        throw (MBeanException) e.getCause();
-                    }
-                    if (!(e.getCause() instanceof InstanceNotFoundException)) {
-                        log.warn(String.format("%s experienced exception when invoking %s, %s, %s, %s",
-                                               this,
-                                               objectName,
-                                               operationName,
-                                               params != null ? Arrays.asList(params)
-                                                             : null,
-                                               signature != null ? Arrays.asList(signature)
-                                                                : null), e);
-                    }
-                }
-            }
-        } finally {
-            for (Future<Object> future : futures) {
-                future.cancel(true);
-            }
-        }
-        throw new InstanceNotFoundException(
-                                            String.format("Instance not found: %s",
-                                                          objectName));
+        return columns(LongColumns::new, generator, pattern, queryExpr,
+                       "getLongAttribute");
     }
 
     /**
-     * @param objectName
-     * @param className
      * @return
-     * @throws InstanceNotFoundException
-     * @throws IOException
-     * @see javax.management.MBeanServer#isInstanceOf(javax.management.ObjectName,
-     *      java.lang.String)
+     * @see javax.management.MBeanServer#getMBeanCount()
      */
     @Override
-    public boolean isInstanceOf(final ObjectName objectName,
-                                final String className)
-                                                       throws InstanceNotFoundException,
-                                                       IOException {
-        ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(
-                                                                                               executor);
-        TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
-            @Override
-            public Callable<Boolean> localTask(final ObjectName objectName) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        return mbs.isInstanceOf(objectName, className);
-                    }
-                };
+    public Integer getMBeanCount() {
+        try (NodeStatistics.Timing timing = statistics.time(GET_MBEAN_COUNT)) {
+            Integer cached = queryCache.get(GET_MBEAN_COUNT, null, null);
+            if (cached != null) {
+                return cached;
             }
+            long generation = queryCache.generation();
+            BatchingCompletionService<Integer> completionService = new BatchingCompletionService<>(
+                                                                                                   executor);
+            TaskGenerator<Integer> generator = new TaskGenerator<Integer>() {
+                @Override
+                public Callable<Integer> localTask(final ObjectName objectName) {
+                    return new Callable<Integer>() {
+                        @Override
+                        public Integer call() throws Exception {
+                            return mbs.getMBeanCount();
+                        }
+                    };
+                }
 
-            @Override
-            public Callable<Boolean> remoteTask(final NodeMBean child) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        return child.isInstanceOf(objectName, className);
-                    }
-                };
-            }
-        };
-        List<Future<Boolean>> futures = forAll(completionService, generator,
-                                               objectName);
-        boolean isInstOf = false;
-        try {
+                @Override
+                public Callable<Integer> remoteTask(final NodeMBean child) {
+                    return new Callable<Integer>() {
+                        @Override
+                        public Integer call() throws Exception {
+                            return child.getMBeanCount();
+                        }
+                    };
+                }
+            };
+            List<Future<Integer>> futures = forAll(completionService, generator,
+                                                   null);
+            int count = 0;
+            boolean complete = true;
             for (int i = 0; i < futures.size(); i++) {
                 try {
-                    isInstOf |= completionService.take().get();
+                    count += completionService.take().get();
                 } catch (InterruptedException e) {
-                    return false;
+                    return 0;
                 } catch (ExecutionException e) {
-                    log.warn(String.format("%s experienced exception when determining instance of %s, %s",
-                                           this, objectName, className), e);
+                    complete = false;
+                    log.warn(String.format("%s experienced exception when retriving mbean count %s",
+                                           this), e);
                 }
             }
-        } finally {
-            for (Future<Boolean> future : futures) {
-                future.cancel(true);
+            if (complete) {
+                queryCache.put(GET_MBEAN_COUNT, null, null, count, generation);
             }
+            return count;
         }
-        return isInstOf;
     }
 
-    /**
-     * @param objectName
-     * @return
-     * @throws IOException
-     * @see javax.management.MBeanServer#isRegistered(javax.management.ObjectName)
+    /* (non-Javadoc)
+     * @see com.hellblazer.groo.NodeMXBean#getMBeanCount(javax.management.ObjectName)
      */
     @Override
-    public boolean isRegistered(final ObjectName objectName) throws IOException {
-        ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(
-                                                                                               executor);
-        TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
-            @Override
-            public Callable<Boolean> localTask(final ObjectName objectName) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        return mbs.isRegistered(objectName);
-                    }
-                };
+    public int getMBeanCount(final ObjectName filter, final QueryExp queryExp) {
+        try (NodeStatistics.Timing timing = statistics.time(GET_MBEAN_COUNT)) {
+            Integer cached = queryCache.get(GET_MBEAN_COUNT, filter, queryExp);
+            if (cached != null) {
+                return cached;
             }
+            long generation = queryCache.generation();
+            BatchingCompletionService<Integer> completionService = new BatchingCompletionService<>(
+                                                                                                   executor);
+            TaskGenerator<Integer> generator = new TaskGenerator<Integer>() {
+                @Override
+                public Callable<Integer> localTask(final ObjectName objectName) {
+                    return new Callable<Integer>() {
+                        @Override
+                        public Integer call() throws Exception {
+                            return mbs.queryNames(filter, queryExp).size();
+                        }
+                    };
+                }
 
-            @Override
-            public Callable<Boolean> remoteTask(final NodeMBean child) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        return child.isRegistered(objectName);
-                    }
-                };
-            }
-        };
-        List<Future<Boolean>> futures = forAll(completionService, generator,
-                                               objectName);
-        boolean registered = false;
-        try {
+                @Override
+                public Callable<Integer> remoteTask(final NodeMBean child) {
+                    return new Callable<Integer>() {
+                        @Override
+                        public Integer call() throws Exception {
+                            return child.getMBeanCount(filter, queryExp);
+                        }
+                    };
+                }
+            };
+            List<Future<Integer>> futures = forAll(completionService, generator,
+                                                   null);
+            int count = 0;
+            boolean complete = true;
             for (int i = 0; i < futures.size(); i++) {
                 try {
-                    registered |= completionService.take().get();
+                    count += completionService.take().get();
                 } catch (InterruptedException e) {
-                    return false;
+                    return 0;
                 } catch (ExecutionException e) {
-                    log.warn(String.format("%s experienced exception when determining is registered %s",
-                                           this, objectName), e);
+                    complete = false;
+                    log.warn(String.format("%s experienced exception when retriving mbean count %s, %s, %s",
+                                           this, filter, queryExp), e);
                 }
             }
-        } finally {
-            for (Future<Boolean> future : futures) {
-                future.cancel(true);
+            if (complete) {
+                queryCache.put(GET_MBEAN_COUNT, filter, queryExp, count,
+                               generation);
             }
+            return count;
         }
-        return registered;
     }
 
     /* (non-Javadoc)
-     * @see javax.management.MBeanRegistration#postDeregister()
+     * @see com.chiralBehaviors.groo.NodeAsync#getMBeanCountAsync()
      */
     @Override
-    public void postDeregister() {
+    public CompletableFuture<Integer> getMBeanCountAsync() {
+        return sum(gatherAsync(this.<Integer> generator(n -> () -> mbs.getMBeanCount(),
+                                                        child -> async(child).getMBeanCountAsync()),
+                               null, "getMBeanCountAsync"));
     }
 
     /* (non-Javadoc)
-     * @see javax.management.MBeanRegistration#postRegister(java.lang.Boolean)
+     * @see com.chiralBehaviors.groo.NodeAsync#getMBeanCountAsync(javax.management.ObjectName, javax.management.QueryExp)
      */
     @Override
-    public void postRegister(Boolean registrationDone) {
+    public CompletableFuture<Integer> getMBeanCountAsync(final ObjectName filter,
+                                                         final QueryExp queryExpr) {
+        return sum(gatherAsync(this.<Integer> generator(n -> () -> mbs.queryNames(filter,
+                                                                                  queryExpr).size(),
+                                                        child -> async(child).getMBeanCountAsync(filter,
+                                                                                                 queryExpr)),
+                               null, "getMBeanCountAsync"));
     }
 
-    /* (non-Javadoc)
-     * @see javax.management.MBeanRegistration#preDeregister()
+    /**
+     * @param objectName
+     * @return
+     * @throws InstanceNotFoundException
+     * @throws IntrospectionException
+     * @throws ReflectionException
+     * @see javax.management.MBeanServer#getMBeanInfo(javax.management.ObjectName)
      */
     @Override
-    public void preDeregister() throws Exception {
+    public MBeanInfo getMBeanInfo(final ObjectName objectName)
+                                                              throws InstanceNotFoundException,
+                                                              IntrospectionException,
+                                                              ReflectionException {
+        try (NodeStatistics.Timing timing = statistics.time("getMBeanInfo")) {
+            BatchingCompletionService<MBeanInfo> completionService = new BatchingCompletionService<>(
+                                                                                                     executor);
+            TaskGenerator<MBeanInfo> generator = new TaskGenerator<MBeanInfo>() {
+                @Override
+                public Callable<MBeanInfo> localTask(final ObjectName objectName) {
+                    return new Callable<MBeanInfo>() {
+                        @Override
+                        public MBeanInfo call() throws Exception {
+                            return mbs.getMBeanInfo(objectName);
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<MBeanInfo> remoteTask(final NodeMBean child) {
+                    return new Callable<MBeanInfo>() {
+                        @Override
+                        public MBeanInfo call() throws Exception {
+                            return child.getMBeanInfo(objectName);
+                        }
+                    };
+                }
+            };
+            List<Future<MBeanInfo>> futures = forAll(completionService, generator,
+                                                     objectName);
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        MBeanInfo info = completionService.take().get();
+                        return info;
+                    } catch (InterruptedException e) {
+                        return null;
+                    } catch (ExecutionException e) {
+                        log.warn(String.format("%s experienced exception when retriving mbean info %s, %s",
+                                               this, objectName), e);
+                    }
+                }
+            } finally {
+                for (Future<MBeanInfo> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            throw new InstanceNotFoundException(
+                                                String.format("Instance not found: %s",
+                                                              objectName));
+        }
     }
 
     /* (non-Javadoc)
-     * @see javax.management.MBeanRegistration#preRegister(javax.management.MBeanServer, javax.management.ObjectName)
+     * @see com.chiralBehaviors.groo.NodeAsync#getMBeanInfoAsync(javax.management.ObjectName)
      */
     @Override
-    public ObjectName preRegister(MBeanServer server, ObjectName name)
-                                                                      throws Exception {
-        mbs = server;
-        this.name = name;
-        return name;
+    public CompletableFuture<MBeanInfo> getMBeanInfoAsync(final ObjectName objectName) {
+        return firstAsync(this.<MBeanInfo> generator(n -> () -> mbs.getMBeanInfo(n),
+                                                     child -> async(child).getMBeanInfoAsync(objectName)),
+                          objectName, "getMBeanInfoAsync");
     }
 
     /**
-     * @param filter
-     * @param query
-     * @return
-     * @throws IOException
-     * @see javax.management.MBeanServer#queryMBeans(javax.management.ObjectName,
-     *      javax.management.QueryExp)
+     * @return the name
      */
     @Override
-    public Set<ObjectInstance> queryMBeans(final ObjectName filter,
-                                           final QueryExp query)
-                                                                throws IOException {
-        ExecutorCompletionService<Set<ObjectInstance>> completionService = new ExecutorCompletionService<>(
-                                                                                                           executor);
-        TaskGenerator<Set<ObjectInstance>> generator = new TaskGenerator<Set<ObjectInstance>>() {
-            @Override
-            public Callable<Set<ObjectInstance>> localTask(final ObjectName objectName) {
-                return new Callable<Set<ObjectInstance>>() {
-                    @Override
-                    public Set<ObjectInstance> call() throws Exception {
-                        return mbs.queryMBeans(filter, query);
-                    }
-                };
-            }
-
-            @Override
-            public Callable<Set<ObjectInstance>> remoteTask(final NodeMBean child) {
-                return new Callable<Set<ObjectInstance>>() {
-                    @Override
-                    public Set<ObjectInstance> call() throws Exception {
-                        return child.queryMBeans(filter, query);
-                    }
-                };
-            }
-        };
-        Set<ObjectInstance> instances = new HashSet<>();
-        List<Future<Set<ObjectInstance>>> futures = forAll(completionService,
-                                                           generator, filter,
-                                                           query);
-        for (int i = 0; i < futures.size(); i++) {
-            try {
-                instances.addAll(completionService.take().get());
-            } catch (InterruptedException e) {
-                return instances;
-            } catch (ExecutionException e) {
-                log.warn(String.format("%s experienced exception when querying mbeans %s, %s",
-                                       this, filter, query), e);
-            }
-        }
-        return instances;
+    public ObjectName getName() {
+        return name;
     }
 
-    /**
-     * @param name
-     * @param query
-     * @return
-     * @throws IOException
-     * @see javax.management.MBeanServer#queryNames(javax.management.ObjectName,
-     *      javax.management.QueryExp)
+    /* (non-Javadoc)
+     * @see com.hellblazer.groo.NodeMBean#getObjectInstance(javax.management.ObjectName)
      */
     @Override
-    public Set<ObjectName> queryNames(final ObjectName filter,
-                                      final QueryExp query) throws IOException {
-        ExecutorCompletionService<Set<ObjectName>> completionService = new ExecutorCompletionService<>(
-                                                                                                       executor);
-        TaskGenerator<Set<ObjectName>> generator = new TaskGenerator<Set<ObjectName>>() {
-            @Override
-            public Callable<Set<ObjectName>> localTask(final ObjectName objectName) {
-                return new Callable<Set<ObjectName>>() {
-                    @Override
-                    public Set<ObjectName> call() throws Exception {
-                        return mbs.queryNames(filter, query);
-                    }
-                };
-            }
+    public ObjectInstance getObjectInstance(final ObjectName objectName)
+                                                                        throws InstanceNotFoundException {
+        try (NodeStatistics.Timing timing = statistics.time("getObjectInstance")) {
+            BatchingCompletionService<ObjectInstance> completionService = new BatchingCompletionService<>(
+                                                                                                          executor);
+            TaskGenerator<ObjectInstance> generator = new TaskGenerator<ObjectInstance>() {
+                @Override
+                public Callable<ObjectInstance> localTask(final ObjectName objectName) {
+                    return new Callable<ObjectInstance>() {
+                        @Override
+                        public ObjectInstance call() throws Exception {
+                            return mbs.getObjectInstance(objectName);
+                        }
+                    };
+                }
 
-            @Override
-            public Callable<Set<ObjectName>> remoteTask(final NodeMBean child) {
-                return new Callable<Set<ObjectName>>() {
-                    @Override
-                    public Set<ObjectName> call() throws Exception {
-                        return child.queryNames(filter, query);
-                    }
-                };
-            }
-        };
-        Set<ObjectName> names = new HashSet<>();
-        List<Future<Set<ObjectName>>> futures = forAll(completionService,
-                                                       generator, filter, query);
-        for (int i = 0; i < futures.size(); i++) {
+                @Override
+                public Callable<ObjectInstance> remoteTask(final NodeMBean child) {
+                    return new Callable<ObjectInstance>() {
+                        @Override
+                        public ObjectInstance call() throws Exception {
+                            return child.getObjectInstance(objectName);
+                        }
+                    };
+                }
+            };
+            List<Future<ObjectInstance>> futures = forAll(completionService,
+                                                          generator, objectName);
             try {
-                names.addAll(completionService.take().get());
-            } catch (InterruptedException e) {
-                return names;
-            } catch (ExecutionException e) {
-                log.warn(String.format("%s experienced exception when querying names %s, %s",
-                                       this, filter, query), e);
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        ObjectInstance instance = completionService.take().get();
+                        return instance;
+                    } catch (InterruptedException e) {
+                        return null;
+                    } catch (ExecutionException e) {
+                        log.warn(String.format("%s experienced exception when retriving object instance %s, %s",
+                                               this, objectName), e);
+                    }
+                }
+            } finally {
+                for (Future<ObjectInstance> future : futures) {
+                    future.cancel(true);
+                }
             }
+            throw new InstanceNotFoundException(
+                                                String.format("Instance not found: %s",
+                                                              objectName));
         }
-        return names;
     }
 
-    /**
-     * @param child
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#getObjectInstanceAsync(javax.management.ObjectName)
      */
-    public void removeChild(NodeMBean child) {
-        children.remove(child);
+    @Override
+    public CompletableFuture<ObjectInstance> getObjectInstanceAsync(final ObjectName objectName) {
+        return firstAsync(this.<ObjectInstance> generator(n -> () -> mbs.getObjectInstance(n),
+                                                          child -> async(child).getObjectInstanceAsync(objectName)),
+                          objectName, "getObjectInstanceAsync");
     }
 
-    /**
-     * @param name
-     * @param listener
-     * @throws InstanceNotFoundException
-     * @throws ListenerNotFoundException
-     * @throws IOException
-     * @see javax.management.MBeanServer#removeNotificationListener(javax.management.ObjectName,
-     *      javax.management.NotificationListener)
+    /* (non-Javadoc)
+     * @see com.hellblazer.groo.NodeMXBean#getObjectInstance(javax.management.ObjectName, javax.management.QueryExp)
      */
     @Override
-    public void removeNotificationListener(final ObjectName objectName,
-                                           final NotificationListener listener)
-                                                                               throws InstanceNotFoundException,
-                                                                               ListenerNotFoundException,
-                                                                               IOException {
-        ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(
-                                                                                               executor);
-        TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
-            @Override
-            public Callable<Boolean> localTask(final ObjectName objectName) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        mbs.removeNotificationListener(objectName, listener);
-                        return true;
-                    }
-                };
-            }
+    public Set<ObjectInstance> getObjectInstances(final ObjectName filter,
+                                                  final QueryExp queryExpr)
+                                                                           throws InstanceNotFoundException,
+                                                                           IOException {
+        try (NodeStatistics.Timing timing = statistics.time("getObjectInstances")) {
+            BatchingCompletionService<Set<ObjectInstance>> completionService = new BatchingCompletionService<>(
+                                                                                                               executor);
+            TaskGenerator<Set<ObjectInstance>> generator = new TaskGenerator<Set<ObjectInstance>>() {
+                @Override
+                public Callable<Set<ObjectInstance>> localTask(final ObjectName objectName) {
+                    return new Callable<Set<ObjectInstance>>() {
+                        @Override
+                        public Set<ObjectInstance> call() throws Exception {
+                            return mbs.queryMBeans(objectName, queryExpr);
+                        }
+                    };
+                }
 
-            @Override
-            public Callable<Boolean> remoteTask(final NodeMBean child) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        child.removeNotificationListener(objectName, listener);
-                        return true;
-                    }
-                };
-            }
-        };
-        List<Future<Boolean>> futures = forAll(completionService, generator,
-                                               objectName);
-        try {
+                @Override
+                public Callable<Set<ObjectInstance>> remoteTask(final NodeMBean child) {
+                    return new Callable<Set<ObjectInstance>>() {
+                        @Override
+                        public Set<ObjectInstance> call() throws Exception {
+                            Set<ObjectInstance> instances = child.getObjectInstances(filter,
+                                                                                     queryExpr);
+                            learnInstances(child, instances);
+                            return instances;
+                        }
+                    };
+                }
+            };
+            List<Future<Set<ObjectInstance>>> futures = forAll(completionService,
+                                                               generator, filter);
+            Set<ObjectInstance> instances = new HashSet<>();
             for (int i = 0; i < futures.size(); i++) {
                 try {
-                    completionService.take().get();
+                    instances.addAll(completionService.take().get());
                 } catch (InterruptedException e) {
-                    return; // don't even log this ;)
+                    return instances;
                 } catch (ExecutionException e) {
-                    log.warn(String.format("%s experienced exception when removing notification listener on %s for %s",
-                                           this, objectName, listener), e);
+                    log.warn(String.format("%s experienced exception when retreiving object instances %s, %s, %s",
+                                           this, filter, queryExpr), e);
                 }
             }
-        } finally {
-            for (Future<Boolean> future : futures) {
-                future.cancel(true);
+            if (instances.size() == 0) {
+                throw new InstanceNotFoundException(
+                                                    String.format("Instance not found: %s, %s",
+                                                                  filter, queryExpr));
             }
+            return instances;
         }
-        throw new InstanceNotFoundException(
-                                            String.format("Instance not found: %s",
-                                                          objectName));
     }
 
-    /**
-     * @param objectName
-     * @param listener
-     * @param filter
-     * @param handback
-     * @throws InstanceNotFoundException
-     * @throws ListenerNotFoundException
-     * @throws IOException
-     * @see javax.management.MBeanServer#removeNotificationListener(javax.management.ObjectName,
-     *      javax.management.NotificationListener,
-     *      javax.management.NotificationFilter, java.lang.Object)
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#getObjectInstancesAsync(javax.management.ObjectName, javax.management.QueryExp)
      */
     @Override
-    public void removeNotificationListener(final ObjectName objectName,
-                                           final NotificationListener listener,
-                                           final NotificationFilter filter,
-                                           final Object handback)
-                                                                 throws InstanceNotFoundException,
-                                                                 ListenerNotFoundException,
-                                                                 IOException {
-        ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(
-                                                                                               executor);
-        TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
-            @Override
-            public Callable<Boolean> localTask(final ObjectName objectName) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        mbs.removeNotificationListener(objectName, listener,
-                                                       filter, handback);
-                        return true;
-                    }
-                };
+    public CompletableFuture<Set<ObjectInstance>> getObjectInstancesAsync(final ObjectName filter,
+                                                                          final QueryExp queryExpr) {
+        return union(gatherAsync(this.<Set<ObjectInstance>> generator(n -> () -> mbs.queryMBeans(filter,
+                                                                                                 queryExpr),
+                                                                      child -> learningInstances(child,
+                                                                                                 async(child).getObjectInstancesAsync(filter,
+                                                                                                                                      queryExpr))),
+                                 null,
+                                 "getObjectInstancesAsync")).thenApply(instances -> {
+            if (instances.isEmpty()) {
+                throw new CompletionException(
+                                              new InstanceNotFoundException(
+                                                                            String.format("Instance not found: %s, %s",
+                                                                                          filter,
+                                                                                          queryExpr)));
             }
+            return instances;
+        });
+    }
 
-            @Override
-            public Callable<Boolean> remoteTask(final NodeMBean child) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        child.removeNotificationListener(objectName, listener,
-                                                         filter, handback);
-                        return true;
-                    }
-                };
-            }
-        };
-        List<Future<Boolean>> futures = forAll(completionService, generator,
-                                               objectName);
-        try {
-            for (int i = 0; i < futures.size(); i++) {
-                try {
-                    completionService.take().get();
-                } catch (InterruptedException e) {
-                    return; // don't even log this ;)
-                } catch (ExecutionException e) {
-                    log.warn(String.format("%s experienced exception when removing notification listener on %s for %s, %s",
-                                           this, objectName, listener, filter),
-                             e);
-                }
-            }
-        } finally {
-            for (Future<Boolean> future : futures) {
-                future.cancel(true);
-            }
-        }
-        throw new InstanceNotFoundException(
-                                            String.format("Instance not found: %s",
-                                                          objectName));
+    /**
+     * @return the time, in milliseconds, the circuit of a child stays open
+     *         before the child is probed
+     */
+    public long getOpenInterval() {
+        return circuits.getOpenInterval();
     }
 
     /**
-     * @param objectName
-     * @param listener
-     * @throws InstanceNotFoundException
-     * @throws ListenerNotFoundException
-     * @throws IOException
-     * @see javax.management.MBeanServer#removeNotificationListener(javax.management.ObjectName,
-     *      javax.management.ObjectName)
+     * @return the bound on the number of cached query results
      */
-    @Override
-    public void removeNotificationListener(final ObjectName objectName,
-                                           final ObjectName listener)
-                                                                     throws InstanceNotFoundException,
-                                                                     ListenerNotFoundException,
-                                                                     IOException {
-        ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(
-                                                                                               executor);
-        TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
-            @Override
-            public Callable<Boolean> localTask(final ObjectName objectName) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        mbs.removeNotificationListener(objectName, listener);
-                        return true;
-                    }
-                };
-            }
+    public int getQueryCacheSize() {
+        return queryCache.getMaxEntries();
+    }
 
-            @Override
-            public Callable<Boolean> remoteTask(final NodeMBean child) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        child.removeNotificationListener(objectName, listener);
-                        return true;
-                    }
-                };
-            }
-        };
-        List<Future<Boolean>> futures = forAll(completionService, generator,
-                                               objectName);
-        try {
-            for (int i = 0; i < futures.size(); i++) {
-                try {
-                    completionService.take().get();
-                } catch (InterruptedException e) {
-                    return; // don't even log this ;)
-                } catch (ExecutionException e) {
-                    log.warn(String.format("%s experienced exception when removing notification listener on %s for %s",
-                                           this, objectName, listener), e);
-                }
-            }
-        } finally {
-            for (Future<Boolean> future : futures) {
-                future.cancel(true);
-            }
-        }
-        throw new InstanceNotFoundException(
-                                            String.format("Instance not found: %s",
-                                                          objectName));
+    /**
+     * @return the time to live, in milliseconds, of the cached query results.
+     *         0 if the results are not cached
+     */
+    public long getQueryCacheTtl() {
+        return queryCache.getTtl();
     }
 
     /**
-     * @param name
-     * @param listener
-     * @param filter
-     * @param handback
-     * @throws InstanceNotFoundException
-     * @throws ListenerNotFoundException
-     * @throws IOException
-     * @see javax.management.MBeanServer#removeNotificationListener(javax.management.ObjectName,
-     *      javax.management.ObjectName, javax.management.NotificationFilter,
-     *      java.lang.Object)
+     * @return the routing table of ObjectName to the child that owns it
      */
-    @Override
-    public void removeNotificationListener(final ObjectName objectName,
-                                           final ObjectName listener,
-                                           final NotificationFilter filter,
-                                           final Object handback)
-                                                                 throws InstanceNotFoundException,
-                                                                 ListenerNotFoundException,
-                                                                 IOException {
-        ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(
-                                                                                               executor);
-        TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
-            @Override
-            public Callable<Boolean> localTask(final ObjectName objectName) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        mbs.removeNotificationListener(objectName, listener,
-                                                       filter, handback);
-                        return true;
-                    }
-                };
-            }
+    public Map<ObjectName, NodeMBean> getRoutes() {
+        return routes.snapshot();
+    }
 
-            @Override
-            public Callable<Boolean> remoteTask(final NodeMBean child) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        child.removeNotificationListener(objectName, listener,
-                                                         filter, handback);
-                        return true;
+    /**
+     * @return the bound on the number of routes to the children which own
+     *         remote names
+     */
+    public int getRouteTableSize() {
+        return routes.getMaxEntries();
+    }
+
+    /**
+     * @return the time, in milliseconds, after which the answer of a child
+     *         counts as a failure. 0 if the latency of children is not checked
+     */
+    public long getSlowCallThreshold() {
+        return circuits.getSlowCallThreshold();
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#getStackTrace(long)
+     */
+    @Override
+    public String getStackTrace(final long traceId) {
+        String trace = StackTraces.get(traceId);
+        if (trace != null) {
+            return trace;
+        }
+        try (NodeStatistics.Timing timing = statistics.time("getStackTrace")) {
+            // the trace is not recorded locally, so only the children are asked
+            BatchingCompletionService<String> completionService = new BatchingCompletionService<>(
+                                                                                                  executor);
+            List<Future<String>> futures = new ArrayList<>();
+            for (final NodeMBean child : children.snapshot()) {
+                if (!circuits.allow(child)) {
+                    continue;
+                }
+                Callable<String> task = () -> {
+                    String found = child.getStackTrace(traceId);
+                    if (found == null) {
+                        throw new InstanceNotFoundException(
+                                                            String.format("No stack trace: %s",
+                                                                          traceId));
                     }
+                    return found;
                 };
+                futures.add(completionService.submit(circuits.guard(child,
+                                                                    statistics.child(child,
+                                                                                     task))));
             }
-        };
-        List<Future<Boolean>> futures = forAll(completionService, generator,
-                                               objectName);
-        try {
-            for (int i = 0; i < futures.size(); i++) {
-                try {
-                    completionService.take().get();
-                } catch (InterruptedException e) {
-                    return; // don't even log this ;)
-                } catch (ExecutionException e) {
-                    log.warn(String.format("%s experienced exception when removing notification listener on %s for %s, %s, %s",
-                                           this, objectName, listener, filter,
-                                           handback), e);
-                }
-            }
-        } finally {
-            for (Future<Boolean> future : futures) {
-                future.cancel(true);
-            }
+            statistics.fannedOut(futures.size());
+            return first(completionService, futures, null);
+        } catch (InstanceNotFoundException e) {
+            return null;
+        } catch (Exception e) {
+            log.warn(String.format("%s experienced exception when retrieving stack trace %s",
+                                   this, traceId), e);
+            return null;
         }
-        throw new InstanceNotFoundException(
-                                            String.format("Instance not found: %s",
-                                                          objectName));
     }
 
-    /* (non-Javadoc)
-     * @see com.hellblazer.groo.NodeMXBean#removeNotificationListener(javax.management.ObjectName, javax.management.QueryExp, javax.management.NotificationListener)
+    /**
+     * @return the operational statistics of this node
+     */
+    public NodeStatistics getStatistics() {
+        return statistics;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
      */
     @Override
-    public void removeNotificationListener(final ObjectName pattern,
-                                           final QueryExp queryExpr,
-                                           final NotificationListener listener)
-                                                                               throws InstanceNotFoundException,
-                                                                               ListenerNotFoundException,
-                                                                               IOException {
-        ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(
-                                                                                               executor);
-        TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
-            @Override
-            public Callable<Boolean> localTask(final ObjectName objectName) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        mbs.removeNotificationListener(objectName, listener);
-                        return true;
-                    }
-                };
-            }
+    public int hashCode() {
+        final int prime = 31;
+        int result = 1;
+        result = prime * result + (name == null ? 0 : name.hashCode());
+        return result;
+    }
 
-            @Override
-            public Callable<Boolean> remoteTask(final NodeMBean child) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        child.removeNotificationListener(pattern, queryExpr,
-                                                         listener);
-                        return true;
-                    }
-                };
-            }
-        };
-        List<Future<Boolean>> futures = forAll(completionService, generator,
-                                               pattern, queryExpr);
-        boolean success = false;
-        for (int i = 0; i < futures.size(); i++) {
+    /**
+     * Discard the cached results of the topology queries
+     */
+    public void invalidateQueries() {
+        queryCache.invalidate();
+    }
+
+    /* (non-Javadoc)
+     * @see com.hellblazer.groo.NodeMXBean#invoke(javax.management.ObjectName, javax.management.Query, java.lang.String, java.lang.Object[], java.lang.String[])
+     */
+    @Override
+    public <T> Map<ObjectName, OperationResult<T>> invoke(ObjectName filter,
+                                                          QueryExp queryExpr,
+                                                          String operationName,
+                                                          Object[] params,
+                                                          String[] signature)
+                                                                             throws InstanceNotFoundException,
+                                                                             MBeanException,
+                                                                             ReflectionException,
+                                                                             IOException {
+        return invoke(filter, queryExpr, operationName, params, signature, Deadline.NONE);
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#invoke(javax.management.ObjectName, javax.management.QueryExp, java.lang.String, java.lang.Object[], java.lang.String[], long, java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public <T> Map<ObjectName, OperationResult<T>> invoke(ObjectName filter,
+                                                          QueryExp queryExpr,
+                                                          String operationName,
+                                                          Object[] params,
+                                                          String[] signature,
+                                                          long timeout,
+                                                          TimeUnit unit)
+                                                                        throws InstanceNotFoundException,
+                                                                        MBeanException,
+                                                                        ReflectionException,
+                                                                        IOException {
+        return invoke(filter, queryExpr, operationName, params, signature,
+                      Deadline.after(timeout, unit));
+    }
+
+    /**
+     * @param objectName
+     * @param operationName
+     * @param params
+     * @param signature
+     * @return
+     * @throws InstanceNotFoundException
+     * @throws MBeanException
+     * @throws ReflectionException
+     * @see javax.management.MBeanServer#invoke(javax.management.ObjectName,
+     *      java.lang.String, java.lang.Object[], java.lang.String[])
+     */
+    @Override
+    public Object invoke(final ObjectName objectName,
+                         final String operationName, final Object[] params,
+                         final String[] signature)
+                                                  throws InstanceNotFoundException,
+                                                  MBeanException,
+                                                  ReflectionException {
+        try (NodeStatistics.Timing timing = statistics.time("invoke")) {
+            BatchingCompletionService<Object> completionService = new BatchingCompletionService<>(
+                                                                                                  executor);
+            TaskGenerator<Object> generator = new TaskGenerator<Object>() {
+                @Override
+                public Callable<Object> localTask(final ObjectName objectName) {
+                    return new Callable<Object>() {
+                        @Override
+                        public Object call() throws Exception {
+                            return mbs.invoke(objectName, operationName, params,
+                                              signature);
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Object> remoteTask(final NodeMBean child) {
+                    return new Callable<Object>() {
+                        @Override
+                        public Object call() throws Exception {
+                            return child.invoke(objectName, operationName, params,
+                                                signature);
+                        }
+                    };
+                }
+            };
+            List<Future<Object>> futures = forAll(completionService, generator,
+                                                  objectName);
             try {
-                completionService.take().get();
-                success = true;
-            } catch (InterruptedException e) {
-                return;
-            } catch (ExecutionException e) {
-                log.warn(String.format("%s experienced exception when adding notification listener %s, %s",
-                                       this, pattern, queryExpr), e);
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        return completionService.take().get();
+                    } catch (InterruptedException e) {
+                        return null;
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof ReflectionException) {
+                            throw (ReflectionException) e.getCause();
+                        }
+                        if (e.getCause() instanceof MBeanException) {
+                            throw (MBeanException) e.getCause();
+                        }
+                        if (!(e.getCause() instanceof InstanceNotFoundException)) {
+                            log.warn(String.format("%s experienced exception when invoking %s, %s, %s, %s",
+                                                   this,
+                                                   objectName,
+                                                   operationName,
+                                                   params != null ? Arrays.asList(params)
+                                                                 : null,
+                                                   signature != null ? Arrays.asList(signature)
+                                                                    : null), e);
+                        }
+                    }
+                }
+            } finally {
+                for (Future<Object> future : futures) {
+                    future.cancel(true);
+                }
             }
-        }
-        if (!success) {
             throw new InstanceNotFoundException(
-                                                String.format("Instance not found: %s, %s",
-                                                              pattern,
-                                                              queryExpr));
+                                                String.format("Instance not found: %s",
+                                                              objectName));
         }
     }
 
     /* (non-Javadoc)
-     * @see com.hellblazer.groo.NodeMXBean#removeNotificationListener(javax.management.ObjectName, javax.management.QueryExp, javax.management.NotificationListener, javax.management.NotificationFilter, java.lang.Object)
+     * @see com.chiralBehaviors.groo.NodeAsync#invokeAsync(javax.management.ObjectName, javax.management.QueryExp, java.lang.String, java.lang.Object[], java.lang.String[])
      */
+    @SuppressWarnings("unchecked")
     @Override
-    public void removeNotificationListener(final ObjectName pattern,
-                                           final QueryExp queryExpr,
-                                           final NotificationListener listener,
-                                           final NotificationFilter filter,
-                                           final Object handback)
-                                                                 throws InstanceNotFoundException,
-                                                                 ListenerNotFoundException,
-                                                                 IOException {
-        ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(
-                                                                                               executor);
-        TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
+    public <T> CompletableFuture<Map<ObjectName, OperationResult<T>>> invokeAsync(final ObjectName pattern,
+                                                                                  final QueryExp queryExpr,
+                                                                                  final String operationName,
+                                                                                  final Object[] params,
+                                                                                  final String[] signature) {
+        return merge(gatherAsync(this.<Map<ObjectName, OperationResult<T>>> generator(n -> () -> Collections.singletonMap(n,
+                                                                                                                        new OperationResult<T>(
+                                                                                                                                               (T) mbs.invoke(n,
+                                                                                                                                                              operationName,
+                                                                                                                                                              params,
+                                                                                                                                                              signature))),
+                                                                                      child -> learning(child,
+                                                                                                        async(child).<T> invokeAsync(pattern,
+                                                                                                                                     queryExpr,
+                                                                                                                                     operationName,
+                                                                                                                                     params,
+                                                                                                                                     signature))),
+                                 pattern, queryExpr, "invokeAsync"));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#invokeAsync(javax.management.ObjectName, java.lang.String, java.lang.Object[], java.lang.String[])
+     */
+    @Override
+    public CompletableFuture<Object> invokeAsync(final ObjectName objectName,
+                                                 final String operationName,
+                                                 final Object[] params,
+                                                 final String[] signature) {
+        return firstAsync(this.<Object> generator(n -> () -> mbs.invoke(n,
+                                                                        operationName,
+                                                                        params,
+                                                                        signature),
+                                                  child -> async(child).invokeAsync(objectName,
+                                                                                    operationName,
+                                                                                    params,
+                                                                                    signature)),
+                          objectName, "invokeAsync");
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#invokeColumns(javax.management.ObjectName, javax.management.QueryExp, java.lang.String, java.lang.Object[], java.lang.String[])
+     */
+    @Override
+    public <T> ColumnarResult<T> invokeColumns(final ObjectName filter,
+                                               final QueryExp queryExpr,
+                                               final String operationName,
+                                               final Object[] params,
+                                               final String[] signature)
+                                                                        throws InstanceNotFoundException,
+                                                                        MBeanException,
+                                                                        ReflectionException,
+                                                                        IOException {
+        ColumnsTaskGenerator<ColumnarResult<T>> generator = new ColumnsTaskGenerator<ColumnarResult<T>>() {
+            @SuppressWarnings("unchecked")
             @Override
-            public Callable<Boolean> localTask(final ObjectName objectName) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        mbs.removeNotificationListener(objectName, listener,
-                                                       filter, handback);
-                        return true;
-                    }
-                };
+            public void localTask(ObjectName objectName,
+                                  ColumnarResult<T> columns) throws Exception {
+                columns.add(objectName,
+                            (T) mbs.invoke(objectName, operationName, params,
+                                           signature));
             }
 
             @Override
-            public Callable<Boolean> remoteTask(final NodeMBean child) {
-                return new Callable<Boolean>() {
+            public Callable<ColumnarResult<T>> remoteTask(final NodeMBean child) {
+                return new Callable<ColumnarResult<T>>() {
                     @Override
-                    public Boolean call() throws Exception {
-                        child.removeNotificationListener(pattern, queryExpr,
-                                                         listener, filter,
-                                                         handback);
-                        return true;
+                    public ColumnarResult<T> call() throws Exception {
+                        ColumnarResult<T> result = child.<T> invokeColumns(filter,
+                                                                           queryExpr,
+                                                                           operationName,
+                                                                           params,
+                                                                           signature);
+                        learn(child, result.getNames());
+                        return result;
                     }
                 };
             }
         };
-        List<Future<Boolean>> futures = forAll(completionService, generator,
-                                               pattern, queryExpr);
-        try {
-            for (int i = 0; i < futures.size(); i++) {
-                try {
-                    completionService.take().get();
-                } catch (InterruptedException e) {
-                    return;
-                } catch (ExecutionException e) {
-                    log.warn(String.format("%s experienced exception when removing notification listener %s, %s, %s, %s, %s",
-                                           this, pattern, queryExpr, listener,
-                                           filter, handback), e);
+        return columns(ColumnarResult<T>::new, generator, filter, queryExpr,
+                       "invokeColumns");
+    }
+
+    /**
+     * @param child
+     * @return true if the circuit of the child is open, and the child is
+     *         skipped by the operations of this node
+     */
+    public boolean isCircuitOpen(NodeMBean child) {
+        return circuits.isOpen(child);
+    }
+
+    /**
+     * @param objectName
+     * @param className
+     * @return
+     * @throws InstanceNotFoundException
+     * @throws IOException
+     * @see javax.management.MBeanServer#isInstanceOf(javax.management.ObjectName,
+     *      java.lang.String)
+     */
+    @Override
+    public boolean isInstanceOf(final ObjectName objectName,
+                                final String className)
+                                                       throws InstanceNotFoundException,
+                                                       IOException {
+        try (NodeStatistics.Timing timing = statistics.time("isInstanceOf")) {
+            BatchingCompletionService<Boolean> completionService = new BatchingCompletionService<>(
+                                                                                                   executor);
+            TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
+                @Override
+                public Callable<Boolean> localTask(final ObjectName objectName) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            return mbs.isInstanceOf(objectName, className);
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Boolean> remoteTask(final NodeMBean child) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            return child.isInstanceOf(objectName, className);
+                        }
+                    };
+                }
+            };
+            List<Future<Boolean>> futures = forAll(completionService, generator,
+                                                   objectName);
+            boolean found = false;
+            boolean isInstOf = false;
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        isInstOf |= completionService.take().get();
+                        found = true;
+                    } catch (InterruptedException e) {
+                        return false;
+                    } catch (ExecutionException e) {
+                        if (!(e.getCause() instanceof InstanceNotFoundException)) {
+                            log.warn(String.format("%s experienced exception when determining instance of %s, %s",
+                                                   this, objectName, className),
+                                     e);
+                        }
+                    }
+                }
+            } finally {
+                for (Future<Boolean> future : futures) {
+                    future.cancel(true);
                 }
             }
-        } finally {
-            for (Future<Boolean> future : futures) {
-                future.cancel(true);
+            if (!found) {
+                // as the MBeanServer does, so that a parent learns the route only from the owner
+                throw new InstanceNotFoundException(
+                                                    String.format("Instance not found: %s",
+                                                                  objectName));
             }
+            return isInstOf;
         }
     }
 
     /* (non-Javadoc)
-     * @see com.hellblazer.groo.NodeMXBean#removeNotificationListener(javax.management.ObjectName, javax.management.QueryExp, javax.management.ObjectName)
+     * @see com.chiralBehaviors.groo.NodeAsync#isInstanceOfAsync(javax.management.ObjectName, java.lang.String)
      */
     @Override
-    public void removeNotificationListener(final ObjectName pattern,
-                                           final QueryExp queryExpr,
-                                           final ObjectName listener)
-                                                                     throws InstanceNotFoundException,
-                                                                     ListenerNotFoundException,
-                                                                     IOException {
-        ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(
-                                                                                               executor);
-        TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
-            @Override
-            public Callable<Boolean> localTask(final ObjectName objectName) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        mbs.removeNotificationListener(objectName, listener);
-                        return true;
-                    }
-                };
-            }
+    public CompletableFuture<Boolean> isInstanceOfAsync(final ObjectName objectName,
+                                                        final String className) {
+        return firstAsync(this.<Boolean> generator(n -> () -> mbs.isInstanceOf(n,
+                                                                               className),
+                                                   child -> async(child).isInstanceOfAsync(objectName,
+                                                                                           className)),
+                          objectName, "isInstanceOfAsync");
+    }
 
-            @Override
-            public Callable<Boolean> remoteTask(final NodeMBean child) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        child.removeNotificationListener(pattern, queryExpr,
-                                                         listener);
-                        return true;
+    /**
+     * @return true if the statistics are registered next to the node
+     */
+    public boolean isPublishStatistics() {
+        return publishStatistics;
+    }
+
+    /**
+     * @param objectName
+     * @return
+     * @throws IOException
+     * @see javax.management.MBeanServer#isRegistered(javax.management.ObjectName)
+     */
+    @Override
+    public boolean isRegistered(final ObjectName objectName) throws IOException {
+        try (NodeStatistics.Timing timing = statistics.time("isRegistered")) {
+            BatchingCompletionService<Boolean> completionService = new BatchingCompletionService<>(
+                                                                                                   executor);
+            TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
+                @Override
+                public Callable<Boolean> localTask(final ObjectName objectName) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            return mbs.isRegistered(objectName);
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Boolean> remoteTask(final NodeMBean child) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            if (!child.isRegistered(objectName)) {
+                                throw new InstanceNotFoundException(
+                                                                    String.format("Instance not found: %s",
+                                                                                  objectName));
+                            }
+                            return true;
+                        }
+                    };
+                }
+            };
+            List<Future<Boolean>> futures = forAll(completionService, generator,
+                                                   objectName);
+            boolean registered = false;
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        registered |= completionService.take().get();
+                    } catch (InterruptedException e) {
+                        return false;
+                    } catch (ExecutionException e) {
+                        if (!(e.getCause() instanceof InstanceNotFoundException)) {
+                            log.warn(String.format("%s experienced exception when determining is registered %s",
+                                                   this, objectName), e);
+                        }
                     }
-                };
-            }
-        };
-        List<Future<Boolean>> futures = forAll(completionService, generator,
-                                               pattern, queryExpr);
-        try {
-            for (int i = 0; i < futures.size(); i++) {
-                try {
-                    completionService.take().get();
-                } catch (InterruptedException e) {
-                    return;
-                } catch (ExecutionException e) {
-                    log.warn(String.format("%s experienced exception when removing notification listener %s, %s, %s",
-                                           this, pattern, queryExpr, listener),
-                             e);
+                }
+            } finally {
+                for (Future<Boolean> future : futures) {
+                    future.cancel(true);
                 }
             }
-        } finally {
-            for (Future<Boolean> future : futures) {
-                future.cancel(true);
-            }
+            return registered;
         }
+    }
 
-        throw new InstanceNotFoundException(
-                                            String.format("Instance not found: %s, %s",
-                                                          name, queryExpr));
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#isRegisteredAsync(javax.management.ObjectName)
+     */
+    @Override
+    public CompletableFuture<Boolean> isRegisteredAsync(final ObjectName objectName) {
+        return firstAsync(this.<Boolean> generator(n -> () -> registered(mbs.isRegistered(n),
+                                                                         n),
+                                                   child -> async(child).isRegisteredAsync(objectName).thenApply(registered -> registered(registered,
+                                                                                                                                          objectName))),
+                          objectName, "isRegisteredAsync").exceptionally(e -> {
+            Throwable cause = unwrap(e);
+            if (!(cause instanceof InstanceNotFoundException)) {
+                log.warn(String.format("%s experienced exception when determining is registered %s",
+                                       this, objectName), cause);
+            }
+            return false;
+        });
+    }
 
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#nextBatch(long, long, java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public <T> Map<ObjectName, OperationResult<T>> nextBatch(long stream,
+                                                             long timeout,
+                                                             TimeUnit unit)
+                                                                           throws MBeanException,
+                                                                           ReflectionException,
+                                                                           IOException {
+        try {
+            return streams.next(stream, timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyMap();
+        }
     }
 
     /* (non-Javadoc)
-     * @see com.hellblazer.groo.NodeMXBean#removeNotificationListener(javax.management.ObjectName, javax.management.QueryExp, javax.management.ObjectName, javax.management.NotificationFilter, java.lang.Object)
+     * @see com.chiralBehaviors.groo.NodeMBean#openAttributesStream(javax.management.ObjectName, javax.management.QueryExp, java.lang.String[])
      */
     @Override
-    public void removeNotificationListener(final ObjectName pattern,
-                                           final QueryExp queryExpr,
-                                           final ObjectName listener,
-                                           final NotificationFilter filter,
-                                           final Object handback)
-                                                                 throws InstanceNotFoundException,
-                                                                 ListenerNotFoundException,
-                                                                 IOException {
-        ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(
-                                                                                               executor);
-        TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
+    public long openAttributesStream(final ObjectName pattern,
+                                     final QueryExp queryExpr,
+                                     final String[] attributes) {
+        return streams.open(new ResultStreams.Producer<AttributeList>() {
             @Override
-            public Callable<Boolean> localTask(final ObjectName objectName) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        mbs.removeNotificationListener(objectName, listener,
-                                                       filter, handback);
-                        return true;
-                    }
-                };
+            public void produce(ResultHandler<AttributeList> sink)
+                                                                  throws Exception {
+                streamAttributes(pattern, queryExpr, attributes, sink);
             }
+        });
+    }
 
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#openAttributeStream(javax.management.ObjectName, javax.management.QueryExp, java.lang.String)
+     */
+    @Override
+    public long openAttributeStream(final ObjectName pattern,
+                                    final QueryExp queryExpr,
+                                    final String attribute) {
+        return streams.open(new ResultStreams.Producer<Object>() {
             @Override
-            public Callable<Boolean> remoteTask(final NodeMBean child) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        child.removeNotificationListener(pattern, queryExpr,
-                                                         listener, filter,
-                                                         handback);
-                        return true;
-                    }
-                };
+            public void produce(ResultHandler<Object> sink) throws Exception {
+                streamAttribute(pattern, queryExpr, attribute, sink);
             }
-        };
-        List<Future<Boolean>> futures = forAll(completionService, generator,
-                                               pattern, queryExpr);
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#openInvokeStream(javax.management.ObjectName, javax.management.QueryExp, java.lang.String, java.lang.Object[], java.lang.String[])
+     */
+    @Override
+    public long openInvokeStream(final ObjectName pattern,
+                                 final QueryExp queryExpr,
+                                 final String operationName,
+                                 final Object[] params,
+                                 final String[] signature) {
+        return streams.open(new ResultStreams.Producer<Object>() {
+            @Override
+            public void produce(ResultHandler<Object> sink) throws Exception {
+                streamInvoke(pattern, queryExpr, operationName, params,
+                             signature, sink);
+            }
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see javax.management.MBeanRegistration#postDeregister()
+     */
+    @Override
+    public void postDeregister() {
+        streams.closeAll();
+    }
+
+    /* (non-Javadoc)
+     * @see javax.management.MBeanRegistration#postRegister(java.lang.Boolean)
+     */
+    @Override
+    public void postRegister(Boolean registrationDone) {
+        if (!Boolean.TRUE.equals(registrationDone)) {
+            return;
+        }
         try {
-            for (int i = 0; i < futures.size(); i++) {
-                try {
-                    completionService.take().get();
-                } catch (InterruptedException e) {
-                    return;
-                } catch (ExecutionException e) {
-                    log.warn(String.format("%s experienced exception when removing notification listener %s, %s, %s, %s, %s",
-                                           this, pattern, queryExpr, listener,
-                                           filter, handback), e);
+            mbs.addNotificationListener(MBeanServerDelegate.DELEGATE_NAME,
+                                        registrations, null, null);
+        } catch (InstanceNotFoundException e) {
+            log.warn(String.format("%s unable to track registrations, query results will not be cached",
+                                   this), e);
+            queryCache.setTtl(0);
+        }
+        if (!publishStatistics) {
+            return;
+        }
+        try {
+            mbs.registerMBean(statistics, NodeStatistics.nameFor(name));
+        } catch (InstanceAlreadyExistsException | MBeanRegistrationException
+                | NotCompliantMBeanException | MalformedObjectNameException e) {
+            log.warn(String.format("%s unable to register its statistics",
+                                   this), e);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see javax.management.MBeanRegistration#preDeregister()
+     */
+    @Override
+    public void preDeregister() throws Exception {
+        try {
+            mbs.removeNotificationListener(MBeanServerDelegate.DELEGATE_NAME,
+                                           registrations);
+        } catch (InstanceNotFoundException | ListenerNotFoundException e) {
+            // not tracking registrations
+        }
+        try {
+            mbs.unregisterMBean(NodeStatistics.nameFor(name));
+        } catch (InstanceNotFoundException e) {
+            // statistics were not registered
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see javax.management.MBeanRegistration#preRegister(javax.management.MBeanServer, javax.management.ObjectName)
+     */
+    @Override
+    public ObjectName preRegister(MBeanServer server, ObjectName name)
+                                                                      throws Exception {
+        mbs = server;
+        this.name = name;
+        return name;
+    }
+
+    /**
+     * @param filter
+     * @param query
+     * @return
+     * @throws IOException
+     * @see javax.management.MBeanServer#queryMBeans(javax.management.ObjectName,
+     *      javax.management.QueryExp)
+     */
+    @Override
+    public Set<ObjectInstance> queryMBeans(final ObjectName filter,
+                                           final QueryExp query)
+                                                                throws IOException {
+        try (NodeStatistics.Timing timing = statistics.time(QUERY_MBEANS)) {
+            Set<ObjectInstance> cached = queryCache.get(QUERY_MBEANS, filter,
+                                                        query);
+            if (cached != null) {
+                return new HashSet<>(cached);
+            }
+            long generation = queryCache.generation();
+            BatchingCompletionService<Set<ObjectInstance>> completionService = new BatchingCompletionService<>(
+                                                                                                               executor);
+            TaskGenerator<Set<ObjectInstance>> generator = new TaskGenerator<Set<ObjectInstance>>() {
+                @Override
+                public Callable<Set<ObjectInstance>> localTask(final ObjectName objectName) {
+                    return new Callable<Set<ObjectInstance>>() {
+                        @Override
+                        public Set<ObjectInstance> call() throws Exception {
+                            return mbs.queryMBeans(filter, query);
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Set<ObjectInstance>> remoteTask(final NodeMBean child) {
+                    return new Callable<Set<ObjectInstance>>() {
+                        @Override
+                        public Set<ObjectInstance> call() throws Exception {
+                            Set<ObjectInstance> instances = child.queryMBeans(filter,
+                                                                              query);
+                            learnInstances(child, instances);
+                            return instances;
+                        }
+                    };
+                }
+            };
+            Set<ObjectInstance> instances = new HashSet<>();
+            List<Future<Set<ObjectInstance>>> futures = forAll(completionService,
+                                                               generator, filter,
+                                                               query);
+            boolean complete = true;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    instances.addAll(completionService.take().get());
+                } catch (InterruptedException e) {
+                    return instances;
+                } catch (ExecutionException e) {
+                    complete = false;
+                    log.warn(String.format("%s experienced exception when querying mbeans %s, %s",
+                                           this, filter, query), e);
+                }
+            }
+            if (complete) {
+                queryCache.put(QUERY_MBEANS, filter, query,
+                               Collections.unmodifiableSet(new HashSet<>(instances)),
+                               generation);
+            }
+            return instances;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#queryMBeansAsync(javax.management.ObjectName, javax.management.QueryExp)
+     */
+    @Override
+    public CompletableFuture<Set<ObjectInstance>> queryMBeansAsync(final ObjectName filter,
+                                                                   final QueryExp query) {
+        return union(gatherAsync(this.<Set<ObjectInstance>> generator(n -> () -> mbs.queryMBeans(filter,
+                                                                                                 query),
+                                                                      child -> learningInstances(child,
+                                                                                                 async(child).queryMBeansAsync(filter,
+                                                                                                                               query))),
+                                 null, "queryMBeansAsync"));
+    }
+
+    /**
+     * @param name
+     * @param query
+     * @return
+     * @throws IOException
+     * @see javax.management.MBeanServer#queryNames(javax.management.ObjectName,
+     *      javax.management.QueryExp)
+     */
+    @Override
+    public Set<ObjectName> queryNames(final ObjectName filter,
+                                      final QueryExp query) throws IOException {
+        try (NodeStatistics.Timing timing = statistics.time(QUERY_NAMES)) {
+            Set<ObjectName> cached = queryCache.get(QUERY_NAMES, filter, query);
+            if (cached != null) {
+                return new HashSet<>(cached);
+            }
+            long generation = queryCache.generation();
+            BatchingCompletionService<Set<ObjectName>> completionService = new BatchingCompletionService<>(
+                                                                                                           executor);
+            TaskGenerator<Set<ObjectName>> generator = new TaskGenerator<Set<ObjectName>>() {
+                @Override
+                public Callable<Set<ObjectName>> localTask(final ObjectName objectName) {
+                    return new Callable<Set<ObjectName>>() {
+                        @Override
+                        public Set<ObjectName> call() throws Exception {
+                            return mbs.queryNames(filter, query);
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Set<ObjectName>> remoteTask(final NodeMBean child) {
+                    return new Callable<Set<ObjectName>>() {
+                        @Override
+                        public Set<ObjectName> call() throws Exception {
+                            Set<ObjectName> names = child.queryNames(filter, query);
+                            learn(child, names);
+                            return names;
+                        }
+                    };
+                }
+            };
+            Set<ObjectName> names = new HashSet<>();
+            List<Future<Set<ObjectName>>> futures = forAll(completionService,
+                                                           generator, filter, query);
+            boolean complete = true;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    names.addAll(completionService.take().get());
+                } catch (InterruptedException e) {
+                    return names;
+                } catch (ExecutionException e) {
+                    complete = false;
+                    log.warn(String.format("%s experienced exception when querying names %s, %s",
+                                           this, filter, query), e);
+                }
+            }
+            if (complete) {
+                queryCache.put(QUERY_NAMES, filter, query,
+                               Collections.unmodifiableSet(new HashSet<>(names)),
+                               generation);
+            }
+            return names;
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#queryNamesAsync(javax.management.ObjectName, javax.management.QueryExp)
+     */
+    @Override
+    public CompletableFuture<Set<ObjectName>> queryNamesAsync(final ObjectName filter,
+                                                              final QueryExp query) {
+        return union(gatherAsync(this.<Set<ObjectName>> generator(n -> () -> mbs.queryNames(filter,
+                                                                                            query),
+                                                                  child -> async(child).queryNamesAsync(filter,
+                                                                                                        query).thenApply(names -> {
+                                                                      learn(child,
+                                                                            names);
+                                                                      return names;
+                                                                  })),
+                                 null, "queryNamesAsync"));
+    }
+
+    /**
+     * Remove the child. As children are held by identity, only the instance
+     * which was added is removed; an equal instance, such as another wrapper
+     * of the same remote node, is silently ignored
+     * 
+     * @param child
+     */
+    public void removeChild(NodeMBean child) {
+        if (!children.remove(child)) {
+            return;
+        }
+        circuits.remove(child);
+        routes.removeAll(child);
+        statistics.remove(keyOf(child));
+        queryCache.invalidate();
+    }
+
+    /**
+     * @param name
+     * @param listener
+     * @throws InstanceNotFoundException
+     * @throws ListenerNotFoundException
+     * @throws IOException
+     * @see javax.management.MBeanServer#removeNotificationListener(javax.management.ObjectName,
+     *      javax.management.NotificationListener)
+     */
+    @Override
+    public void removeNotificationListener(final ObjectName objectName,
+                                           final NotificationListener listener)
+                                                                               throws InstanceNotFoundException,
+                                                                               ListenerNotFoundException,
+                                                                               IOException {
+        try (NodeStatistics.Timing timing = statistics.time("removeNotificationListener")) {
+            BatchingCompletionService<Boolean> completionService = new BatchingCompletionService<>(
+                                                                                                   executor);
+            TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
+                @Override
+                public Callable<Boolean> localTask(final ObjectName objectName) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            mbs.removeNotificationListener(objectName, listener);
+                            return true;
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Boolean> remoteTask(final NodeMBean child) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            child.removeNotificationListener(objectName, listener);
+                            return true;
+                        }
+                    };
+                }
+            };
+            List<Future<Boolean>> futures = forAll(completionService, generator,
+                                                   objectName);
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        completionService.take().get();
+                    } catch (InterruptedException e) {
+                        return; // don't even log this ;)
+                    } catch (ExecutionException e) {
+                        log.warn(String.format("%s experienced exception when removing notification listener on %s for %s",
+                                               this, objectName, listener), e);
+                    }
+                }
+            } finally {
+                for (Future<Boolean> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            throw new InstanceNotFoundException(
+                                                String.format("Instance not found: %s",
+                                                              objectName));
+        }
+    }
+
+    /**
+     * @param objectName
+     * @param listener
+     * @param filter
+     * @param handback
+     * @throws InstanceNotFoundException
+     * @throws ListenerNotFoundException
+     * @throws IOException
+     * @see javax.management.MBeanServer#removeNotificationListener(javax.management.ObjectName,
+     *      javax.management.NotificationListener,
+     *      javax.management.NotificationFilter, java.lang.Object)
+     */
+    @Override
+    public void removeNotificationListener(final ObjectName objectName,
+                                           final NotificationListener listener,
+                                           final NotificationFilter filter,
+                                           final Object handback)
+                                                                 throws InstanceNotFoundException,
+                                                                 ListenerNotFoundException,
+                                                                 IOException {
+        try (NodeStatistics.Timing timing = statistics.time("removeNotificationListener")) {
+            BatchingCompletionService<Boolean> completionService = new BatchingCompletionService<>(
+                                                                                                   executor);
+            TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
+                @Override
+                public Callable<Boolean> localTask(final ObjectName objectName) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            mbs.removeNotificationListener(objectName, listener,
+                                                           filter, handback);
+                            return true;
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Boolean> remoteTask(final NodeMBean child) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            child.removeNotificationListener(objectName, listener,
+                                                             filter, handback);
+                            return true;
+                        }
+                    };
+                }
+            };
+            List<Future<Boolean>> futures = forAll(completionService, generator,
+                                                   objectName);
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        completionService.take().get();
+                    } catch (InterruptedException e) {
+                        return; // don't even log this ;)
+                    } catch (ExecutionException e) {
+                        log.warn(String.format("%s experienced exception when removing notification listener on %s for %s, %s",
+                                               this, objectName, listener, filter),
+                                 e);
+                    }
+                }
+            } finally {
+                for (Future<Boolean> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            throw new InstanceNotFoundException(
+                                                String.format("Instance not found: %s",
+                                                              objectName));
+        }
+    }
+
+    /**
+     * @param objectName
+     * @param listener
+     * @throws InstanceNotFoundException
+     * @throws ListenerNotFoundException
+     * @throws IOException
+     * @see javax.management.MBeanServer#removeNotificationListener(javax.management.ObjectName,
+     *      javax.management.ObjectName)
+     */
+    @Override
+    public void removeNotificationListener(final ObjectName objectName,
+                                           final ObjectName listener)
+                                                                     throws InstanceNotFoundException,
+                                                                     ListenerNotFoundException,
+                                                                     IOException {
+        try (NodeStatistics.Timing timing = statistics.time("removeNotificationListener")) {
+            BatchingCompletionService<Boolean> completionService = new BatchingCompletionService<>(
+                                                                                                   executor);
+            TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
+                @Override
+                public Callable<Boolean> localTask(final ObjectName objectName) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            mbs.removeNotificationListener(objectName, listener);
+                            return true;
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Boolean> remoteTask(final NodeMBean child) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            child.removeNotificationListener(objectName, listener);
+                            return true;
+                        }
+                    };
+                }
+            };
+            List<Future<Boolean>> futures = forAll(completionService, generator,
+                                                   objectName);
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        completionService.take().get();
+                    } catch (InterruptedException e) {
+                        return; // don't even log this ;)
+                    } catch (ExecutionException e) {
+                        log.warn(String.format("%s experienced exception when removing notification listener on %s for %s",
+                                               this, objectName, listener), e);
+                    }
+                }
+            } finally {
+                for (Future<Boolean> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            throw new InstanceNotFoundException(
+                                                String.format("Instance not found: %s",
+                                                              objectName));
+        }
+    }
+
+    /**
+     * @param name
+     * @param listener
+     * @param filter
+     * @param handback
+     * @throws InstanceNotFoundException
+     * @throws ListenerNotFoundException
+     * @throws IOException
+     * @see javax.management.MBeanServer#removeNotificationListener(javax.management.ObjectName,
+     *      javax.management.ObjectName, javax.management.NotificationFilter,
+     *      java.lang.Object)
+     */
+    @Override
+    public void removeNotificationListener(final ObjectName objectName,
+                                           final ObjectName listener,
+                                           final NotificationFilter filter,
+                                           final Object handback)
+                                                                 throws InstanceNotFoundException,
+                                                                 ListenerNotFoundException,
+                                                                 IOException {
+        try (NodeStatistics.Timing timing = statistics.time("removeNotificationListener")) {
+            BatchingCompletionService<Boolean> completionService = new BatchingCompletionService<>(
+                                                                                                   executor);
+            TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
+                @Override
+                public Callable<Boolean> localTask(final ObjectName objectName) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            mbs.removeNotificationListener(objectName, listener,
+                                                           filter, handback);
+                            return true;
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Boolean> remoteTask(final NodeMBean child) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            child.removeNotificationListener(objectName, listener,
+                                                             filter, handback);
+                            return true;
+                        }
+                    };
+                }
+            };
+            List<Future<Boolean>> futures = forAll(completionService, generator,
+                                                   objectName);
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        completionService.take().get();
+                    } catch (InterruptedException e) {
+                        return; // don't even log this ;)
+                    } catch (ExecutionException e) {
+                        log.warn(String.format("%s experienced exception when removing notification listener on %s for %s, %s, %s",
+                                               this, objectName, listener, filter,
+                                               handback), e);
+                    }
+                }
+            } finally {
+                for (Future<Boolean> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            throw new InstanceNotFoundException(
+                                                String.format("Instance not found: %s",
+                                                              objectName));
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.hellblazer.groo.NodeMXBean#removeNotificationListener(javax.management.ObjectName, javax.management.QueryExp, javax.management.NotificationListener)
+     */
+    @Override
+    public void removeNotificationListener(final ObjectName pattern,
+                                           final QueryExp queryExpr,
+                                           final NotificationListener listener)
+                                                                               throws InstanceNotFoundException,
+                                                                               ListenerNotFoundException,
+                                                                               IOException {
+        try (NodeStatistics.Timing timing = statistics.time("removeNotificationListener")) {
+            BatchingCompletionService<Boolean> completionService = new BatchingCompletionService<>(
+                                                                                                   executor);
+            TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
+                @Override
+                public Callable<Boolean> localTask(final ObjectName objectName) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            mbs.removeNotificationListener(objectName, listener);
+                            return true;
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Boolean> remoteTask(final NodeMBean child) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            child.removeNotificationListener(pattern, queryExpr,
+                                                             listener);
+                            return true;
+                        }
+                    };
+                }
+            };
+            List<Future<Boolean>> futures = forAll(completionService, generator,
+                                                   pattern, queryExpr);
+            boolean success = false;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    completionService.take().get();
+                    success = true;
+                } catch (InterruptedException e) {
+                    return;
+                } catch (ExecutionException e) {
+                    log.warn(String.format("%s experienced exception when adding notification listener %s, %s",
+                                           this, pattern, queryExpr), e);
+                }
+            }
+            if (!success) {
+                throw new InstanceNotFoundException(
+                                                    String.format("Instance not found: %s, %s",
+                                                                  pattern,
+                                                                  queryExpr));
+            }
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.hellblazer.groo.NodeMXBean#removeNotificationListener(javax.management.ObjectName, javax.management.QueryExp, javax.management.NotificationListener, javax.management.NotificationFilter, java.lang.Object)
+     */
+    @Override
+    public void removeNotificationListener(final ObjectName pattern,
+                                           final QueryExp queryExpr,
+                                           final NotificationListener listener,
+                                           final NotificationFilter filter,
+                                           final Object handback)
+                                                                 throws InstanceNotFoundException,
+                                                                 ListenerNotFoundException,
+                                                                 IOException {
+        try (NodeStatistics.Timing timing = statistics.time("removeNotificationListener")) {
+            BatchingCompletionService<Boolean> completionService = new BatchingCompletionService<>(
+                                                                                                   executor);
+            TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
+                @Override
+                public Callable<Boolean> localTask(final ObjectName objectName) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            mbs.removeNotificationListener(objectName, listener,
+                                                           filter, handback);
+                            return true;
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Boolean> remoteTask(final NodeMBean child) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            child.removeNotificationListener(pattern, queryExpr,
+                                                             listener, filter,
+                                                             handback);
+                            return true;
+                        }
+                    };
+                }
+            };
+            List<Future<Boolean>> futures = forAll(completionService, generator,
+                                                   pattern, queryExpr);
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        completionService.take().get();
+                    } catch (InterruptedException e) {
+                        return;
+                    } catch (ExecutionException e) {
+                        log.warn(String.format("%s experienced exception when removing notification listener %s, %s, %s, %s, %s",
+                                               this, pattern, queryExpr, listener,
+                                               filter, handback), e);
+                    }
+                }
+            } finally {
+                for (Future<Boolean> future : futures) {
+                    future.cancel(true);
+                }
+            }
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.hellblazer.groo.NodeMXBean#removeNotificationListener(javax.management.ObjectName, javax.management.QueryExp, javax.management.ObjectName)
+     */
+    @Override
+    public void removeNotificationListener(final ObjectName pattern,
+                                           final QueryExp queryExpr,
+                                           final ObjectName listener)
+                                                                     throws InstanceNotFoundException,
+                                                                     ListenerNotFoundException,
+                                                                     IOException {
+        try (NodeStatistics.Timing timing = statistics.time("removeNotificationListener")) {
+            BatchingCompletionService<Boolean> completionService = new BatchingCompletionService<>(
+                                                                                                   executor);
+            TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
+                @Override
+                public Callable<Boolean> localTask(final ObjectName objectName) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            mbs.removeNotificationListener(objectName, listener);
+                            return true;
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Boolean> remoteTask(final NodeMBean child) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            child.removeNotificationListener(pattern, queryExpr,
+                                                             listener);
+                            return true;
+                        }
+                    };
+                }
+            };
+            List<Future<Boolean>> futures = forAll(completionService, generator,
+                                                   pattern, queryExpr);
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        completionService.take().get();
+                    } catch (InterruptedException e) {
+                        return;
+                    } catch (ExecutionException e) {
+                        log.warn(String.format("%s experienced exception when removing notification listener %s, %s, %s",
+                                               this, pattern, queryExpr, listener),
+                                 e);
+                    }
+                }
+            } finally {
+                for (Future<Boolean> future : futures) {
+                    future.cancel(true);
+                }
+            }
+
+            throw new InstanceNotFoundException(
+                                                String.format("Instance not found: %s, %s",
+                                                              name, queryExpr));
+
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.hellblazer.groo.NodeMXBean#removeNotificationListener(javax.management.ObjectName, javax.management.QueryExp, javax.management.ObjectName, javax.management.NotificationFilter, java.lang.Object)
+     */
+    @Override
+    public void removeNotificationListener(final ObjectName pattern,
+                                           final QueryExp queryExpr,
+                                           final ObjectName listener,
+                                           final NotificationFilter filter,
+                                           final Object handback)
+                                                                 throws InstanceNotFoundException,
+                                                                 ListenerNotFoundException,
+                                                                 IOException {
+        try (NodeStatistics.Timing timing = statistics.time("removeNotificationListener")) {
+            BatchingCompletionService<Boolean> completionService = new BatchingCompletionService<>(
+                                                                                                   executor);
+            TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
+                @Override
+                public Callable<Boolean> localTask(final ObjectName objectName) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            mbs.removeNotificationListener(objectName, listener,
+                                                           filter, handback);
+                            return true;
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Boolean> remoteTask(final NodeMBean child) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            child.removeNotificationListener(pattern, queryExpr,
+                                                             listener, filter,
+                                                             handback);
+                            return true;
+                        }
+                    };
+                }
+            };
+            List<Future<Boolean>> futures = forAll(completionService, generator,
+                                                   pattern, queryExpr);
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        completionService.take().get();
+                    } catch (InterruptedException e) {
+                        return;
+                    } catch (ExecutionException e) {
+                        log.warn(String.format("%s experienced exception when removing notification listener %s, %s, %s, %s, %s",
+                                               this, pattern, queryExpr, listener,
+                                               filter, handback), e);
+                    }
+                }
+            } finally {
+                for (Future<Boolean> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            throw new InstanceNotFoundException(
+                                                String.format("Instance not found: %s, %s",
+                                                              name, queryExpr));
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#removeNotificationListenerAsync(javax.management.ObjectName, javax.management.NotificationListener)
+     */
+    @Override
+    public CompletableFuture<Void> removeNotificationListenerAsync(final ObjectName objectName,
+                                                                   final NotificationListener listener) {
+        return firstAsync(this.<Void> generator(n -> () -> {
+                                                    mbs.removeNotificationListener(n,
+                                                                             listener);
+                                                    return null;
+                                                },
+                                                child -> async(child).removeNotificationListenerAsync(objectName,
+                                                                                                      listener)),
+                          objectName, "removeNotificationListenerAsync");
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#removeNotificationListenerAsync(javax.management.ObjectName, javax.management.NotificationListener, javax.management.NotificationFilter, java.lang.Object)
+     */
+    @Override
+    public CompletableFuture<Void> removeNotificationListenerAsync(final ObjectName objectName,
+                                                                   final NotificationListener listener,
+                                                                   final NotificationFilter filter,
+                                                                   final Object handback) {
+        return firstAsync(this.<Void> generator(n -> () -> {
+                                                    mbs.removeNotificationListener(n,
+                                                                             listener,
+                                                                             filter,
+                                                                             handback);
+                                                    return null;
+                                                },
+                                                child -> async(child).removeNotificationListenerAsync(objectName,
+                                                                                                      listener,
+                                                                                                      filter,
+                                                                                                      handback)),
+                          objectName, "removeNotificationListenerAsync");
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#removeNotificationListenerAsync(javax.management.ObjectName, javax.management.ObjectName)
+     */
+    @Override
+    public CompletableFuture<Void> removeNotificationListenerAsync(final ObjectName objectName,
+                                                                   final ObjectName listener) {
+        return firstAsync(this.<Void> generator(n -> () -> {
+                                                    mbs.removeNotificationListener(n,
+                                                                             listener);
+                                                    return null;
+                                                },
+                                                child -> async(child).removeNotificationListenerAsync(objectName,
+                                                                                                      listener)),
+                          objectName, "removeNotificationListenerAsync");
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#removeNotificationListenerAsync(javax.management.ObjectName, javax.management.ObjectName, javax.management.NotificationFilter, java.lang.Object)
+     */
+    @Override
+    public CompletableFuture<Void> removeNotificationListenerAsync(final ObjectName objectName,
+                                                                   final ObjectName listener,
+                                                                   final NotificationFilter filter,
+                                                                   final Object handback) {
+        return firstAsync(this.<Void> generator(n -> () -> {
+                                                    mbs.removeNotificationListener(n,
+                                                                             listener,
+                                                                             filter,
+                                                                             handback);
+                                                    return null;
+                                                },
+                                                child -> async(child).removeNotificationListenerAsync(objectName,
+                                                                                                      listener,
+                                                                                                      filter,
+                                                                                                      handback)),
+                          objectName, "removeNotificationListenerAsync");
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#removeNotificationListenerAsync(javax.management.ObjectName, javax.management.QueryExp, javax.management.NotificationListener)
+     */
+    @Override
+    public CompletableFuture<Void> removeNotificationListenerAsync(final ObjectName pattern,
+                                                                   final QueryExp queryExpr,
+                                                                   final NotificationListener listener) {
+        return any(gatherAsync(this.<Void> generator(n -> () -> {
+                                                         mbs.removeNotificationListener(n,
+                                                                                  listener);
+                                                         return null;
+                                                     },
+                                                     child -> async(child).removeNotificationListenerAsync(pattern,
+                                                                                                           queryExpr,
+                                                                                                           listener)),
+                               pattern, queryExpr,
+                               "removeNotificationListenerAsync"),
+                   pattern, queryExpr);
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#removeNotificationListenerAsync(javax.management.ObjectName, javax.management.QueryExp, javax.management.NotificationListener, javax.management.NotificationFilter, java.lang.Object)
+     */
+    @Override
+    public CompletableFuture<Void> removeNotificationListenerAsync(final ObjectName pattern,
+                                                                   final QueryExp queryExpr,
+                                                                   final NotificationListener listener,
+                                                                   final NotificationFilter filter,
+                                                                   final Object handback) {
+        return any(gatherAsync(this.<Void> generator(n -> () -> {
+                                                         mbs.removeNotificationListener(n,
+                                                                                  listener,
+                                                                                  filter,
+                                                                                  handback);
+                                                         return null;
+                                                     },
+                                                     child -> async(child).removeNotificationListenerAsync(pattern,
+                                                                                                           queryExpr,
+                                                                                                           listener,
+                                                                                                           filter,
+                                                                                                           handback)),
+                               pattern, queryExpr,
+                               "removeNotificationListenerAsync"),
+                   pattern, queryExpr);
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#removeNotificationListenerAsync(javax.management.ObjectName, javax.management.QueryExp, javax.management.ObjectName)
+     */
+    @Override
+    public CompletableFuture<Void> removeNotificationListenerAsync(final ObjectName pattern,
+                                                                   final QueryExp queryExpr,
+                                                                   final ObjectName listener) {
+        return any(gatherAsync(this.<Void> generator(n -> () -> {
+                                                         mbs.removeNotificationListener(n,
+                                                                                  listener);
+                                                         return null;
+                                                     },
+                                                     child -> async(child).removeNotificationListenerAsync(pattern,
+                                                                                                           queryExpr,
+                                                                                                           listener)),
+                               pattern, queryExpr,
+                               "removeNotificationListenerAsync"),
+                   pattern, queryExpr);
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#removeNotificationListenerAsync(javax.management.ObjectName, javax.management.QueryExp, javax.management.ObjectName, javax.management.NotificationFilter, java.lang.Object)
+     */
+    @Override
+    public CompletableFuture<Void> removeNotificationListenerAsync(final ObjectName pattern,
+                                                                   final QueryExp queryExpr,
+                                                                   final ObjectName listener,
+                                                                   final NotificationFilter filter,
+                                                                   final Object handback) {
+        return any(gatherAsync(this.<Void> generator(n -> () -> {
+                                                         mbs.removeNotificationListener(n,
+                                                                                  listener,
+                                                                                  filter,
+                                                                                  handback);
+                                                         return null;
+                                                     },
+                                                     child -> async(child).removeNotificationListenerAsync(pattern,
+                                                                                                           queryExpr,
+                                                                                                           listener,
+                                                                                                           filter,
+                                                                                                           handback)),
+                               pattern, queryExpr,
+                               "removeNotificationListenerAsync"),
+                   pattern, queryExpr);
+    }
+
+    /**
+     * @param name
+     * @param attribute
+     * @throws InstanceNotFoundException
+     * @throws AttributeNotFoundException
+     * @throws InvalidAttributeValueException
+     * @throws MBeanException
+     * @throws ReflectionException
+     * @throws IOException
+     * @see javax.management.MBeanServer#setAttribute(javax.management.ObjectName,
+     *      javax.management.Attribute)
+     */
+    @Override
+    public void setAttribute(final ObjectName objectName,
+                             final Attribute attribute)
+                                                       throws InstanceNotFoundException,
+                                                       AttributeNotFoundException,
+                                                       InvalidAttributeValueException,
+                                                       MBeanException,
+                                                       ReflectionException,
+                                                       IOException {
+        try (NodeStatistics.Timing timing = statistics.time("setAttribute")) {
+            attributeCache.invalidate();
+            BatchingCompletionService<Void> completionService = new BatchingCompletionService<>(
+                                                                                                executor);
+            TaskGenerator<Void> generator = new TaskGenerator<Void>() {
+                @Override
+                public Callable<Void> localTask(final ObjectName objectName) {
+                    return new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            mbs.setAttribute(objectName, attribute);
+                            return null;
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Void> remoteTask(final NodeMBean child) {
+                    return new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            child.setAttribute(objectName, attribute);
+                            return null;
+                        }
+                    };
+                }
+            };
+            List<Future<Void>> futures = forAll(completionService, generator,
+                                                objectName);
+
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        completionService.take().get();
+                        return;
+                    } catch (InterruptedException e) {
+                        return;
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof ReflectionException) {
+                            throw (ReflectionException) e.getCause();
+                        }
+                        if (e.getCause() instanceof MBeanException) {
+                            throw (MBeanException) e.getCause();
+                        }
+                        if (e.getCause() instanceof InvalidAttributeValueException) {
+                            throw (InvalidAttributeValueException) e.getCause();
+                        }
+                        if (e.getCause() instanceof AttributeNotFoundException) {
+                            throw (AttributeNotFoundException) e.getCause();
+                        }
+                        if (!(e.getCause() instanceof InstanceNotFoundException)) {
+                            log.warn(String.format("%s experienced exception when setting attribute %s, %s",
+                                                   this, objectName, attribute), e);
+
+                        }
+                    }
+                }
+            } finally {
+                for (Future<Void> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            throw new InstanceNotFoundException(
+                                                String.format("Instance not found: %s",
+                                                              objectName));
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.hellblazer.groo.NodeMXBean#setAttribute(javax.management.ObjectName, javax.management.QueryExp, javax.management.Attribute)
+     */
+    @Override
+    public void setAttribute(final ObjectName pattern,
+                             final QueryExp queryExpr, final Attribute attribute)
+                                                                                 throws InstanceNotFoundException,
+                                                                                 AttributeNotFoundException,
+                                                                                 InvalidAttributeValueException,
+                                                                                 MBeanException,
+                                                                                 ReflectionException,
+                                                                                 IOException {
+        try (NodeStatistics.Timing timing = statistics.time("setAttribute")) {
+            attributeCache.invalidate();
+            BatchingCompletionService<Boolean> completionService = new BatchingCompletionService<>(
+                                                                                                   executor);
+            TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
+                @Override
+                public Callable<Boolean> localTask(final ObjectName objectName) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            try {
+                                mbs.setAttribute(objectName, attribute);
+                                return true;
+                            } catch (Exception e) {
+                                if (e instanceof InstanceNotFoundException) {
+                                    return false;
+                                } else {
+                                    throw e;
+                                }
+                            }
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Boolean> remoteTask(final NodeMBean child) {
+                    return new Callable<Boolean>() {
+                        @Override
+                        public Boolean call() throws Exception {
+                            child.setAttribute(pattern, queryExpr, attribute);
+                            return true;
+                        }
+                    };
+                }
+            };
+            List<Future<Boolean>> futures = forAll(completionService, generator,
+                                                   pattern, queryExpr);
+            boolean found = false;
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        found |= completionService.take().get();
+                    } catch (InterruptedException e) {
+                        return;
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof ReflectionException) {
+                            throw (ReflectionException) e.getCause();
+                        }
+                        if (e.getCause() instanceof MBeanException) {
+                            throw (MBeanException) e.getCause();
+                        }
+                        if (e.getCause() instanceof InvalidAttributeValueException) {
+                            throw (InvalidAttributeValueException) e.getCause();
+                        }
+                        if (e.getCause() instanceof AttributeNotFoundException) {
+                            throw (AttributeNotFoundException) e.getCause();
+                        }
+                        if (!(e.getCause() instanceof InstanceNotFoundException)) {
+                            log.warn(String.format("%s experienced exception when setting attribute %s, %s, %s, %s",
+                                                   this, pattern, queryExpr,
+                                                   attribute), e);
+                        }
+                    }
+                }
+            } finally {
+                for (Future<Boolean> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            if (!found) {
+                throw new InstanceNotFoundException(
+                                                    String.format("Instance not found: %s, %s",
+                                                                  pattern,
+                                                                  queryExpr));
+            }
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#setAttributeAsync(javax.management.ObjectName, javax.management.Attribute)
+     */
+    @Override
+    public CompletableFuture<Void> setAttributeAsync(final ObjectName objectName,
+                                                     final Attribute attribute) {
+        attributeCache.invalidate();
+        return firstAsync(this.<Void> generator(n -> () -> {
+                                                    mbs.setAttribute(n,
+                                                               attribute);
+                                                    return null;
+                                                },
+                                                child -> async(child).setAttributeAsync(objectName,
+                                                                                        attribute)),
+                          objectName, "setAttributeAsync");
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#setAttributeAsync(javax.management.ObjectName, javax.management.QueryExp, javax.management.Attribute)
+     */
+    @Override
+    public CompletableFuture<Void> setAttributeAsync(final ObjectName pattern,
+                                                     final QueryExp queryExpr,
+                                                     final Attribute attribute) {
+        attributeCache.invalidate();
+        return any(gatherAsync(this.<Void> generator(n -> () -> {
+                                                         mbs.setAttribute(n,
+                                                                    attribute);
+                                                         return null;
+                                                     },
+                                                     child -> async(child).setAttributeAsync(pattern,
+                                                                                             queryExpr,
+                                                                                             attribute)),
+                               pattern, queryExpr,
+                               "setAttributeAsync"),
+                   pattern, queryExpr);
+    }
+
+    /**
+     * @param attributeCacheSize
+     *            the bound on the number of cached attribute values and
+     *            pattern members, the least recently used of which are
+     *            evicted
+     */
+    public void setAttributeCacheSize(int attributeCacheSize) {
+        attributeCache.setMaxEntries(attributeCacheSize);
+    }
+
+    /**
+     * @param name
+     * @param attributes
+     * @return
+     * @throws InstanceNotFoundException
+     * @throws ReflectionException
+     * @throws IOException
+     * @see javax.management.MBeanServer#setAttributes(javax.management.ObjectName,
+     *      javax.management.AttributeList)
+     */
+    @Override
+    public AttributeList setAttributes(final ObjectName objectName,
+                                       final AttributeList attributes)
+                                                                      throws InstanceNotFoundException,
+                                                                      ReflectionException,
+                                                                      IOException {
+        try (NodeStatistics.Timing timing = statistics.time("setAttributes")) {
+            attributeCache.invalidate();
+            BatchingCompletionService<AttributeList> completionService = new BatchingCompletionService<>(
+                                                                                                         executor);
+            TaskGenerator<AttributeList> generator = new TaskGenerator<AttributeList>() {
+                @Override
+                public Callable<AttributeList> localTask(final ObjectName objectName) {
+                    return new Callable<AttributeList>() {
+                        @Override
+                        public AttributeList call() throws Exception {
+                            return mbs.setAttributes(objectName, attributes);
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<AttributeList> remoteTask(final NodeMBean child) {
+                    return new Callable<AttributeList>() {
+                        @Override
+                        public AttributeList call() throws Exception {
+                            return child.setAttributes(objectName, attributes);
+                        }
+                    };
+                }
+            };
+            List<Future<AttributeList>> futures = forAll(completionService,
+                                                         generator, objectName);
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        AttributeList attrs = completionService.take().get();
+                        return attrs;
+                    } catch (InterruptedException e) {
+                        return new AttributeList();
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof ReflectionException) {
+                            throw (ReflectionException) e.getCause();
+                        }
+                        if (!(e.getCause() instanceof InstanceNotFoundException)) {
+                            log.warn(String.format("%s experienced exception when setting attributes %s, %s",
+                                                   this, objectName, attributes), e);
+                        }
+                    }
+                }
+            } finally {
+                for (Future<AttributeList> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            throw new InstanceNotFoundException(
+                                                String.format("Instance not found: %s",
+                                                              objectName));
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.hellblazer.groo.NodeMXBean#setAttributes(javax.management.ObjectName, javax.management.QueryExp, javax.management.AttributeList)
+     */
+    @Override
+    public Map<ObjectName, OperationResult<AttributeList>> setAttributes(ObjectName pattern,
+                                                                         QueryExp queryExpr,
+                                                                         AttributeList attributes)
+                                                                                                  throws InstanceNotFoundException,
+                                                                                                  ReflectionException,
+                                                                                                  IOException {
+        return setAttributes(pattern, queryExpr, attributes, Deadline.NONE);
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#setAttributes(javax.management.ObjectName, javax.management.QueryExp, javax.management.AttributeList, long, java.util.concurrent.TimeUnit)
+     */
+    @Override
+    public Map<ObjectName, OperationResult<AttributeList>> setAttributes(ObjectName pattern,
+                                                                         QueryExp queryExpr,
+                                                                         AttributeList attributes,
+                                                                         long timeout,
+                                                                         TimeUnit unit)
+                                                                                       throws InstanceNotFoundException,
+                                                                                       ReflectionException,
+                                                                                       IOException {
+        return setAttributes(pattern, queryExpr, attributes,
+                             Deadline.after(timeout, unit));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#setAttributesAsync(javax.management.ObjectName, javax.management.AttributeList)
+     */
+    @Override
+    public CompletableFuture<AttributeList> setAttributesAsync(final ObjectName objectName,
+                                                               final AttributeList attributes) {
+        attributeCache.invalidate();
+        return firstAsync(this.<AttributeList> generator(n -> () -> mbs.setAttributes(n,
+                                                                                      attributes),
+                                                         child -> async(child).setAttributesAsync(objectName,
+                                                                                                  attributes)),
+                          objectName, "setAttributesAsync");
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#setAttributesAsync(javax.management.ObjectName, javax.management.QueryExp, javax.management.AttributeList)
+     */
+    @Override
+    public CompletableFuture<Map<ObjectName, OperationResult<AttributeList>>> setAttributesAsync(final ObjectName pattern,
+                                                                                                 final QueryExp queryExpr,
+                                                                                                 final AttributeList attributes) {
+        attributeCache.invalidate();
+        return merge(gatherAsync(this.<Map<ObjectName, OperationResult<AttributeList>>> generator(n -> () -> Collections.singletonMap(n,
+                                                                                                                                    new OperationResult<>(
+                                                                                                                                                          mbs.setAttributes(n,
+                                                                                                                                                                            attributes))),
+                                                                                                  child -> learning(child,
+                                                                                                                    async(child).setAttributesAsync(pattern,
+                                                                                                                                                    queryExpr,
+                                                                                                                                                    attributes))),
+                                 pattern, queryExpr, "setAttributesAsync"));
+    }
+
+    /**
+     * @param failureThreshold
+     *            - the number of consecutive failures of a child which opens
+     *            its circuit
+     */
+    public void setFailureThreshold(int failureThreshold) {
+        circuits.setFailureThreshold(failureThreshold);
+    }
+
+    /**
+     * @param localBatchSize
+     *            the number of local MBean tasks run inline on the calling
+     *            thread, rather than dispatched to the executor
+     */
+    public void setLocalBatchSize(int localBatchSize) {
+        if (localBatchSize < 1) {
+            throw new IllegalArgumentException(
+                                               String.format("Local batch size must be positive: %s",
+                                                             localBatchSize));
+        }
+        this.localBatchSize = localBatchSize;
+    }
+
+    /**
+     * @param localParallelism
+     *            the maximum number of executor tasks the local MBean tasks of
+     *            an operation are divided between
+     */
+    public void setLocalParallelism(int localParallelism) {
+        if (localParallelism < 1) {
+            throw new IllegalArgumentException(
+                                               String.format("Local parallelism must be positive: %s",
+                                                             localParallelism));
+        }
+        this.localParallelism = localParallelism;
+    }
+
+    /**
+     * @param openInterval
+     *            - the time, in milliseconds, the circuit of a child stays
+     *            open before the child is probed
+     */
+    public void setOpenInterval(long openInterval) {
+        circuits.setOpenInterval(openInterval);
+    }
+
+    /**
+     * @param publishStatistics
+     *            true if the statistics are to be registered as an MBean in
+     *            the "&lt;domain&gt;.statistics" domain when the node is
+     *            registered. Off by default, as the statistics MBean is counted
+     *            and queried like any other MBean of the node's MBeanServer
+     */
+    public void setPublishStatistics(boolean publishStatistics) {
+        this.publishStatistics = publishStatistics;
+    }
+
+    /**
+     * @param queryCacheSize
+     *            the bound on the number of cached query results
+     */
+    public void setQueryCacheSize(int queryCacheSize) {
+        queryCache.setMaxEntries(queryCacheSize);
+    }
+
+    /**
+     * Cache the results of queryNames, queryMBeans and getMBeanCount for the
+     * time to live. The cache is invalidated when children are added or
+     * removed and when MBeans are registered or unregistered with this node's
+     * MBeanServer; changes deeper in the hierarchy are seen once the entries
+     * expire
+     * 
+     * @param ttl
+     *            the time to live, in milliseconds, of the cached query
+     *            results. 0 disables the cache
+     */
+    public void setQueryCacheTtl(long ttl) {
+        queryCache.setTtl(ttl);
+    }
+
+    /**
+     * @param routeTableSize
+     *            the bound on the number of routes to the children which own
+     *            remote names. The bound is approximate: the table may
+     *            exceed it by a sixteenth before the least recently used
+     *            routes are evicted
+     */
+    public void setRouteTableSize(int routeTableSize) {
+        routes.setMaxEntries(routeTableSize);
+    }
+
+    /**
+     * @param slowCallThreshold
+     *            - the time, in milliseconds, after which the answer of a
+     *            child counts as a failure. 0 disables the check
+     */
+    public void setSlowCallThreshold(long slowCallThreshold) {
+        circuits.setSlowCallThreshold(slowCallThreshold);
+    }
+
+    /**
+     * Stream the attribute of the MBeans matching the pattern and query. The
+     * handler receives the results of each child and local MBean as they
+     * arrive, on the calling thread; the method returns when all have answered
+     * 
+     * @param pattern
+     * @param queryExpr
+     * @param attribute
+     * @param handler
+     * @throws MBeanException
+     * @throws ReflectionException
+     */
+    public <T> void streamAttribute(final ObjectName pattern,
+                                    final QueryExp queryExpr,
+                                    final String attribute,
+                                    ResultHandler<T> handler)
+                                                             throws MBeanException,
+                                                             ReflectionException {
+        try (NodeStatistics.Timing timing = statistics.time("streamAttribute")) {
+            stream(new StreamTaskGenerator<T>() {
+                @Override
+                public Callable<Map<ObjectName, OperationResult<T>>> localTask(final ObjectName objectName) {
+                    return new Callable<Map<ObjectName, OperationResult<T>>>() {
+                        @SuppressWarnings("unchecked")
+                        @Override
+                        public Map<ObjectName, OperationResult<T>> call()
+                                                                         throws Exception {
+                            return Collections.singletonMap(objectName,
+                                                            new OperationResult<T>(
+                                                                                   (T) mbs.getAttribute(objectName,
+                                                                                                        attribute)));
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Void> remoteTask(final NodeMBean child,
+                                                 final ResultHandler<T> sink) {
+                    return new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            if (child instanceof Node) {
+                                ((Node) child).streamAttribute(pattern, queryExpr,
+                                                               attribute, sink);
+                            } else {
+                                drain(child,
+                                      child.openAttributeStream(pattern, queryExpr,
+                                                                attribute), sink);
+                            }
+                            return null;
+                        }
+                    };
+                }
+            }, pattern, queryExpr, handler);
+        }
+    }
+
+    /**
+     * Stream the attributes of the MBeans matching the pattern and query. The
+     * handler receives the results of each child and local MBean as they
+     * arrive, on the calling thread; the method returns when all have answered
+     * 
+     * @param pattern
+     * @param queryExpr
+     * @param attributes
+     * @param handler
+     * @throws MBeanException
+     * @throws ReflectionException
+     */
+    public void streamAttributes(final ObjectName pattern,
+                                 final QueryExp queryExpr,
+                                 final String[] attributes,
+                                 ResultHandler<AttributeList> handler)
+                                                                      throws MBeanException,
+                                                                      ReflectionException {
+        try (NodeStatistics.Timing timing = statistics.time("streamAttributes")) {
+            stream(new StreamTaskGenerator<AttributeList>() {
+                @Override
+                public Callable<Map<ObjectName, OperationResult<AttributeList>>> localTask(final ObjectName objectName) {
+                    return new Callable<Map<ObjectName, OperationResult<AttributeList>>>() {
+                        @Override
+                        public Map<ObjectName, OperationResult<AttributeList>> call()
+                                                                                     throws Exception {
+                            return Collections.singletonMap(objectName,
+                                                            new OperationResult<AttributeList>(
+                                                                                               mbs.getAttributes(objectName,
+                                                                                                                 attributes)));
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Void> remoteTask(final NodeMBean child,
+                                                 final ResultHandler<AttributeList> sink) {
+                    return new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            if (child instanceof Node) {
+                                ((Node) child).streamAttributes(pattern, queryExpr,
+                                                                attributes, sink);
+                            } else {
+                                drain(child,
+                                      child.openAttributesStream(pattern,
+                                                                 queryExpr,
+                                                                 attributes), sink);
+                            }
+                            return null;
+                        }
+                    };
+                }
+            }, pattern, queryExpr, handler);
+        }
+    }
+
+    /**
+     * Stream the results of invoking the operation on the MBeans matching the
+     * pattern and query. The handler receives the results of each child and
+     * local MBean as they arrive, on the calling thread; the method returns
+     * when all have answered
+     * 
+     * @param pattern
+     * @param queryExpr
+     * @param operationName
+     * @param params
+     * @param signature
+     * @param handler
+     * @throws MBeanException
+     * @throws ReflectionException
+     */
+    public <T> void streamInvoke(final ObjectName pattern,
+                                 final QueryExp queryExpr,
+                                 final String operationName,
+                                 final Object[] params,
+                                 final String[] signature,
+                                 ResultHandler<T> handler)
+                                                          throws MBeanException,
+                                                          ReflectionException {
+        try (NodeStatistics.Timing timing = statistics.time("streamInvoke")) {
+            stream(new StreamTaskGenerator<T>() {
+                @Override
+                public Callable<Map<ObjectName, OperationResult<T>>> localTask(final ObjectName objectName) {
+                    return new Callable<Map<ObjectName, OperationResult<T>>>() {
+                        @SuppressWarnings("unchecked")
+                        @Override
+                        public Map<ObjectName, OperationResult<T>> call()
+                                                                         throws Exception {
+                            return Collections.singletonMap(objectName,
+                                                            new OperationResult<T>(
+                                                                                   (T) mbs.invoke(objectName,
+                                                                                                  operationName,
+                                                                                                  params,
+                                                                                                  signature)));
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Void> remoteTask(final NodeMBean child,
+                                                 final ResultHandler<T> sink) {
+                    return new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            if (child instanceof Node) {
+                                ((Node) child).streamInvoke(pattern, queryExpr,
+                                                            operationName, params,
+                                                            signature, sink);
+                            } else {
+                                drain(child,
+                                      child.openInvokeStream(pattern, queryExpr,
+                                                             operationName,
+                                                             params, signature),
+                                      sink);
+                            }
+                            return null;
+                        }
+                    };
+                }
+            }, pattern, queryExpr, handler);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeMBean#top(javax.management.ObjectName, javax.management.QueryExp, java.lang.String, int, boolean)
+     */
+    @Override
+    public Map<ObjectName, Number> top(final ObjectName pattern,
+                                       final QueryExp queryExpr,
+                                       final String attribute, final int k,
+                                       final boolean highest)
+                                                             throws MBeanException,
+                                                             ReflectionException,
+                                                             IOException {
+        try (NodeStatistics.Timing timing = statistics.time("top")) {
+            TopK top = new TopK(k, highest);
+            BatchingCompletionService<Map<ObjectName, Number>> completionService = new BatchingCompletionService<>(
+                                                                                                                   executor);
+            TaskGenerator<Map<ObjectName, Number>> generator = new TaskGenerator<Map<ObjectName, Number>>() {
+                @Override
+                public Callable<Map<ObjectName, Number>> localTask(final ObjectName objectName) {
+                    return new Callable<Map<ObjectName, Number>>() {
+                        @Override
+                        public Map<ObjectName, Number> call() throws Exception {
+                            Object value = mbs.getAttribute(objectName, attribute);
+                            if (!(value instanceof Number)) {
+                                return Collections.emptyMap();
+                            }
+                            return Collections.singletonMap(objectName,
+                                                            (Number) value);
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Map<ObjectName, Number>> remoteTask(final NodeMBean child) {
+                    return new Callable<Map<ObjectName, Number>>() {
+                        @Override
+                        public Map<ObjectName, Number> call() throws Exception {
+                            Map<ObjectName, Number> ranked = child.top(pattern,
+                                                                       queryExpr,
+                                                                       attribute,
+                                                                       k, highest);
+                            learn(child, ranked.keySet());
+                            return ranked;
+                        }
+                    };
+                }
+            };
+            List<Future<Map<ObjectName, Number>>> futures = forAll(completionService,
+                                                                   generator,
+                                                                   pattern,
+                                                                   queryExpr);
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    top.offerAll(completionService.take().get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return top.ranked();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof ReflectionException) {
+                        throw (ReflectionException) e.getCause();
+                    }
+                    if (e.getCause() instanceof MBeanException) {
+                        throw (MBeanException) e.getCause();
+                    }
+                    if (!(e.getCause() instanceof InstanceNotFoundException)
+                        && !(e.getCause() instanceof AttributeNotFoundException)) {
+                        log.warn(String.format("%s experienced exception when ranking %s of %s, %s",
+                                               this, attribute, pattern,
+                                               queryExpr), e);
+                    }
+                }
+            }
+            return top.ranked();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "Node [" + name + ", " + filter + "]";
+    }
+
+    /**
+     * Discard the route of a name which has been unregistered by one of the
+     * children. Groo reports only the unregistration of the child nodes it
+     * discovered; the route of a leaf MBean which is unregistered is
+     * discarded when the child answers that it no longer has the MBean
+     * 
+     * @param objectName
+     */
+    void unregistered(ObjectName objectName) {
+        routes.remove(objectName);
+    }
+
+    private CompletableFuture<Void> any(CompletableFuture<List<Void>> results,
+                                        final ObjectName pattern,
+                                        final QueryExp queryExpr) {
+        return results.thenApply(successes -> {
+            if (successes.isEmpty()) {
+                throw new CompletionException(
+                                              new InstanceNotFoundException(
+                                                                            String.format("Instance not found: %s, %s",
+                                                                                          pattern,
+                                                                                          queryExpr)));
+            }
+            return null;
+        });
+    }
+
+    private NodeAsync async(NodeMBean child) {
+        return NodeAsyncAdapter.adapt(child, executor);
+    }
+
+    /**
+     * Divide the local work of an operation into at most localParallelism
+     * batches of at least localBatchSize items
+     * 
+     * @param items
+     * @return the batches, as views of the items
+     */
+    private <T> List<List<T>> batches(List<T> items) {
+        int size = items.size();
+        int batchSize = localBatchSize;
+        int batches = Math.min(localParallelism,
+                               (size + batchSize - 1) / batchSize);
+        int perBatch = (size + batches - 1) / batches;
+        List<List<T>> result = new ArrayList<>(batches);
+        for (int from = 0; from < size; from += perBatch) {
+            result.add(items.subList(from, Math.min(size, from + perBatch)));
+        }
+        return result;
+    }
+
+    /**
+     * Fan out a task to every child as well as the local MBeanServer
+     * 
+     * @param completionService
+     * @param generator
+     * @param objectName
+     * @return
+     */
+    private <V> List<Future<V>> broadcast(BatchingCompletionService<V> completionService,
+                                          TaskGenerator<V> generator,
+                                          ObjectName objectName) {
+        boolean learn = objectName != null && !objectName.isPattern();
+        List<Future<V>> futures = new ArrayList<>();
+        for (NodeMBean child : children.snapshot()) {
+            if (!circuits.allow(child)) {
+                continue;
+            }
+            futures.add(completionService.submit(learn ? learningTask(generator,
+                                                                      objectName,
+                                                                      child)
+                                                      : remoteTask(generator,
+                                                                   child)));
+        }
+        futures.add(completionService.submit(generator.localTask(objectName)));
+        statistics.fannedOut(futures.size());
+        return futures;
+    }
+
+    private <V> List<CompletableFuture<V>> broadcastAsync(AsyncTaskGenerator<V> generator,
+                                                          final ObjectName objectName) {
+        boolean learn = objectName != null && !objectName.isPattern();
+        List<CompletableFuture<V>> futures = new ArrayList<>();
+        for (final NodeMBean child : children.snapshot()) {
+            if (!circuits.allow(child)) {
+                continue;
+            }
+            CompletableFuture<V> future = circuits.guard(child,
+                                                         generator.remoteTask(child));
+            if (learn) {
+                future = future.thenApply(result -> {
+                    routes.putIfAbsent(objectName, child);
+                    return result;
+                });
+            }
+            futures.add(future);
+        }
+        futures.add(generator.localTask(objectName));
+        return futures;
+    }
+
+    /**
+     * Collect the successful results of the futures. Instances which are not
+     * found are skipped, other failures are logged and skipped, unless the
+     * failure is fatal to the operation
+     * 
+     * @param futures
+     * @return
+     */
+    private <V> CompletableFuture<List<V>> collect(List<CompletableFuture<V>> futures) {
+        final CompletableFuture<List<V>> result = new CompletableFuture<>();
+        if (futures.isEmpty()) {
+            result.complete(Collections.<V> emptyList());
+            return result;
+        }
+        final List<V> values = new ArrayList<>();
+        final AtomicInteger remaining = new AtomicInteger(futures.size());
+        for (CompletableFuture<V> future : futures) {
+            future.whenComplete((value, e) -> {
+                if (e == null) {
+                    synchronized (values) {
+                        values.add(value);
+                    }
+                } else {
+                    Throwable cause = unwrap(e);
+                    if (isFatal(cause)) {
+                        result.completeExceptionally(cause);
+                    } else if (!(cause instanceof InstanceNotFoundException)) {
+                        log.warn(String.format("%s experienced exception when collecting results",
+                                               this), cause);
+                    }
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    synchronized (values) {
+                        result.complete(new ArrayList<>(values));
+                    }
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Collect the columnar results of the pattern operation. The results of
+     * the children are appended as they complete, and the children skipped
+     * because their circuit is open are added as failures. The local MBeans
+     * are read in batches, each into a single columns
+     * 
+     * @param columns
+     *            - the constructor of the columns of the given capacity
+     * @param generator
+     * @param pattern
+     * @param queryExpr
+     * @param operation
+     *            - the name of the operation, for the statistics
+     * @return the merged results
+     * @throws MBeanException
+     * @throws ReflectionException
+     */
+    private <C extends Columns<C>> C columns(IntFunction<C> columns,
+                                             ColumnsTaskGenerator<C> generator,
+                                             ObjectName pattern,
+                                             QueryExp queryExpr,
+                                             String operation)
+                                                              throws MBeanException,
+                                                              ReflectionException {
+        try (NodeStatistics.Timing timing = statistics.time(operation)) {
+            BatchingCompletionService<C> completionService = new BatchingCompletionService<>(
+                                                                                             executor);
+            Map<Future<C>, ObjectName> pending = new LinkedHashMap<>();
+            for (NodeMBean child : children.snapshot()) {
+                if (circuits.allow(child)) {
+                    pending.put(completionService.submit(remoteTask(generator,
+                                                                    child)),
+                                keyOf(child));
+                }
+            }
+            List<ObjectName> local = new ArrayList<>(mbs.queryNames(pattern,
+                                                                    queryExpr));
+            statistics.fannedOut(pending.size() + local.size());
+            C results;
+            if (local.size() <= localBatchSize) {
+                results = localColumns(columns, generator, local);
+            } else {
+                results = columns.apply(local.size());
+                for (final List<ObjectName> batch : batches(local)) {
+                    FutureTask<C> future = completionService.localTask(() -> localColumns(columns,
+                                                                                          generator,
+                                                                                          batch));
+                    pending.put(future, batch.get(0));
+                    executor.execute(future);
+                }
+            }
+            try {
+                while (!pending.isEmpty()) {
+                    try {
+                        Future<C> future = completionService.take();
+                        pending.remove(future);
+                        results.addAll(future.get());
+                    } catch (InterruptedException e) {
+                        return results;
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof ReflectionException) {
+                            throw (ReflectionException) e.getCause();
+                        }
+                        if (e.getCause() instanceof MBeanException) {
+                            throw (MBeanException) e.getCause();
+                        }
+                        if (!(e.getCause() instanceof InstanceNotFoundException)) {
+                            log.warn(String.format("%s experienced exception when collecting %s, %s, %s",
+                                                   this, operation, pattern,
+                                                   queryExpr), e.getCause());
+                        }
+                    }
+                }
+            } finally {
+                for (Future<?> future : pending.keySet()) {
+                    future.cancel(true);
+                }
+            }
+            for (NodeMBean child : children.snapshot()) {
+                if (circuits.isOpen(child)) {
+                    results.addFailure(keyOf(child), CIRCUIT_OPEN);
+                }
+            }
+            return results;
+        }
+    }
+
+    /**
+     * Broadcast the task and answer the first successful result
+     * 
+     * @param generator
+     * @param objectName
+     * @return
+     * @throws Exception
+     */
+    private <V> V first(TaskGenerator<V> generator, ObjectName objectName)
+                                                                          throws Exception {
+        BatchingCompletionService<V> completionService = new BatchingCompletionService<>(
+                                                                                         executor);
+        return first(completionService,
+                     broadcast(completionService, generator, objectName),
+                     objectName);
+    }
+
+    /**
+     * Answer the first successful result of the futures
+     * 
+     * @param completionService
+     *            - the service the futures were submitted to
+     * @param futures
+     * @param objectName
+     * @return
+     * @throws Exception
+     */
+    private <V> V first(BatchingCompletionService<V> completionService,
+                        List<Future<V>> futures, ObjectName objectName)
+                                                                       throws Exception {
+        Exception failure = null;
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    return completionService.take().get();
+                } catch (ExecutionException e) {
+                    if (failure == null
+                        && e.getCause() instanceof Exception
+                        && !(e.getCause() instanceof InstanceNotFoundException)) {
+                        failure = (Exception) e.getCause();
+                    }
+                }
+            }
+        } finally {
+            for (Future<V> future : futures) {
+                future.cancel(true);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        throw new InstanceNotFoundException(
+                                            String.format("Instance not found: %s",
+                                                          objectName));
+    }
+
+    /**
+     * Route the task for the object name. If the MBean is local, the task is
+     * only run locally. If the routing table knows the child which owns the
+     * name, only that child is asked. Otherwise, the task is broadcast to all
+     * children and the local MBeanServer, answering the first successful
+     * result
+     * 
+     * @param generator
+     * @param objectName
+     * @return
+     */
+    private <V> CompletableFuture<V> firstAsync(final AsyncTaskGenerator<V> generator,
+                                                final ObjectName objectName) {
+        if (objectName != null && !objectName.isPattern()) {
+            if (mbs.isRegistered(objectName)) {
+                return generator.localTask(objectName);
+            }
+            final NodeMBean owner = routes.get(objectName);
+            if (owner != null) {
+                if (children.contains(owner)) {
+                    final CompletableFuture<V> result = new CompletableFuture<>();
+                    generator.remoteTask(owner).whenComplete((value, e) -> {
+                        if (e == null) {
+                            result.complete(value);
+                            return;
+                        }
+                        Throwable cause = unwrap(e);
+                        if (!(cause instanceof InstanceNotFoundException)) {
+                            result.completeExceptionally(cause);
+                            return;
+                        }
+                        routes.remove(objectName, owner);
+                        if (log.isDebugEnabled()) {
+                            log.debug(String.format("%s stale route for %s to %s",
+                                                    this, objectName, owner));
+                        }
+                        firstOf(broadcastAsync(generator, objectName),
+                                objectName).whenComplete((v, t) -> {
+                            if (t == null) {
+                                result.complete(v);
+                            } else {
+                                result.completeExceptionally(unwrap(t));
+                            }
+                        });
+                    });
+                    return result;
+                }
+                routes.remove(objectName, owner);
+            }
+        }
+        return firstOf(broadcastAsync(generator, objectName), objectName);
+    }
+
+    /**
+     * Route the task for the object name, recording the statistics of the
+     * operation when the answer completes
+     * 
+     * @param generator
+     * @param objectName
+     * @param operation
+     * @return
+     */
+    private <V> CompletableFuture<V> firstAsync(AsyncTaskGenerator<V> generator,
+                                                ObjectName objectName,
+                                                String operation) {
+        long start = statistics.begin();
+        return statistics.end(operation, start,
+                              firstAsync(generator, objectName));
+    }
+
+    /**
+     * Answer the first successful result of the futures. If none succeed, the
+     * first failure other than the instance not being found is the result
+     * 
+     * @param futures
+     * @param objectName
+     * @return
+     */
+    private <V> CompletableFuture<V> firstOf(List<CompletableFuture<V>> futures,
+                                             final ObjectName objectName) {
+        final CompletableFuture<V> result = new CompletableFuture<>();
+        final AtomicInteger remaining = new AtomicInteger(futures.size());
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (CompletableFuture<V> future : futures) {
+            future.whenComplete((value, e) -> {
+                if (e == null) {
+                    result.complete(value);
+                } else {
+                    Throwable cause = unwrap(e);
+                    if (!(cause instanceof InstanceNotFoundException)) {
+                        failure.compareAndSet(null, cause);
+                    }
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    Throwable cause = failure.get();
+                    result.completeExceptionally(cause != null ? cause
+                                                              : new InstanceNotFoundException(
+                                                                                              String.format("Instance not found: %s",
+                                                                                                            objectName)));
+                }
+            });
+        }
+        return result;
+    }
+
+    /**
+     * Read the attribute of the local MBeans, handing each value to the fold.
+     * An MBean which is no longer registered, or does not have the attribute,
+     * is skipped, as is one whose getter fails at runtime
+     * 
+     * @param names
+     * @param attribute
+     * @param fold
+     * @throws MBeanException
+     * @throws ReflectionException
+     */
+    private void foldLocal(List<ObjectName> names, String attribute,
+                           BiConsumer<ObjectName, Object> fold)
+                                                               throws MBeanException,
+                                                               ReflectionException {
+        for (ObjectName n : names) {
+            try {
+                fold.accept(n, mbs.getAttribute(n, attribute));
+            } catch (InstanceNotFoundException | AttributeNotFoundException e) {
+                // unregistered since the query, or not an MBean of the kind
+            } catch (JMRuntimeException e) {
+                log.warn(String.format("%s experienced exception when reading %s of %s",
+                                       this, attribute, n), e);
+            }
+        }
+    }
+
+    /**
+     * Route the task for the object name. If the MBean is local, the task is
+     * only run locally. If the routing table knows the child which owns the
+     * name, only that child is asked. Otherwise, the task is broadcast to all
+     * children and the local MBeanServer.
+     * 
+     * @param completionService
+     * @param generator
+     * @param objectName
+     * @return
+     */
+    private <V> List<Future<V>> forAll(BatchingCompletionService<V> completionService,
+                                       TaskGenerator<V> generator,
+                                       ObjectName objectName) {
+        if (objectName != null && !objectName.isPattern()) {
+            List<Future<V>> futures = new ArrayList<>();
+            if (mbs.isRegistered(objectName)) {
+                futures.add(completionService.submit(generator.localTask(objectName)));
+                statistics.fannedOut(1);
+                return futures;
+            }
+            NodeMBean owner = routes.get(objectName);
+            if (owner != null) {
+                if (!children.contains(owner)) {
+                    routes.remove(objectName, owner);
+                } else if (circuits.allow(owner)) {
+                    futures.add(completionService.submit(routedTask(generator,
+                                                                    objectName,
+                                                                    owner)));
+                    statistics.fannedOut(1);
+                    return futures;
+                }
+            }
+        }
+        return broadcast(completionService, generator, objectName);
+    }
+
+    private <V> List<Future<V>> forAll(BatchingCompletionService<V> completionService,
+                                       TaskGenerator<V> generator,
+                                       ObjectName pattern, QueryExp queryExpr) {
+        return new ArrayList<>(submit(completionService, generator, pattern,
+                                      queryExpr, Deadline.NONE).keySet());
+    }
+
+    /**
+     * Submit the remote task to the children and the local task to the
+     * batches of the local MBeans matching the pattern and query. As with
+     * {@link #localColumns(IntFunction, ColumnsTaskGenerator, List)}, a small
+     * set of local MBeans is a single batch run on the calling thread; larger
+     * sets are divided by {@link #batches(List)}, each batch run by a single
+     * executor task
+     * 
+     * @param completionService
+     * @param remote
+     *            - the task of the child
+     * @param local
+     *            - the task of a batch of local MBeans
+     * @param pattern
+     * @param queryExpr
+     * @return the submitted futures
+     */
+    private <V> List<Future<V>> forAll(BatchingCompletionService<V> completionService,
+                                       Function<NodeMBean, Callable<V>> remote,
+                                       Function<List<ObjectName>, Callable<V>> local,
+                                       ObjectName pattern, QueryExp queryExpr) {
+        List<Future<V>> futures = new ArrayList<>();
+        for (NodeMBean child : children.snapshot()) {
+            if (circuits.allow(child)) {
+                futures.add(completionService.submit(circuits.guard(child,
+                                                                    statistics.child(child,
+                                                                                     remote.apply(child)))));
+            }
+        }
+        List<ObjectName> names = new ArrayList<>(mbs.queryNames(pattern,
+                                                                queryExpr));
+        statistics.fannedOut(futures.size() + names.size());
+        if (names.isEmpty()) {
+            return futures;
+        }
+        if (names.size() <= localBatchSize) {
+            FutureTask<V> future = completionService.localTask(local.apply(names));
+            futures.add(future);
+            future.run();
+            return futures;
+        }
+        for (List<ObjectName> batch : batches(names)) {
+            FutureTask<V> future = completionService.localTask(local.apply(batch));
+            futures.add(future);
+            executor.execute(future);
+        }
+        return futures;
+    }
+
+    private <V> CompletableFuture<List<V>> gatherAsync(AsyncTaskGenerator<V> generator,
+                                                       ObjectName objectName) {
+        return collect(broadcastAsync(generator, objectName));
+    }
+
+    private <V> CompletableFuture<List<V>> gatherAsync(AsyncTaskGenerator<V> generator,
+                                                       ObjectName objectName,
+                                                       String operation) {
+        long start = statistics.begin();
+        return statistics.end(operation, start,
+                              gatherAsync(generator, objectName));
+    }
+
+    private <V> CompletableFuture<List<V>> gatherAsync(AsyncTasks<V> generator,
+                                                       ObjectName pattern,
+                                                       QueryExp queryExpr) {
+        List<CompletableFuture<V>> futures = new ArrayList<>();
+        for (NodeMBean child : children.snapshot()) {
+            if (circuits.allow(child)) {
+                futures.add(circuits.guard(child, generator.remoteTask(child)));
+            }
+        }
+        List<Runnable> local = new ArrayList<>();
+        for (ObjectName n : mbs.queryNames(pattern, queryExpr)) {
+            final Callable<V> task = generator.local.apply(n);
+            final CompletableFuture<V> future = new CompletableFuture<>();
+            futures.add(future);
+            local.add(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        }
+        runLocal(local, true);
+        return collect(futures);
+    }
+
+    private <V> CompletableFuture<List<V>> gatherAsync(AsyncTasks<V> generator,
+                                                       ObjectName pattern,
+                                                       QueryExp queryExpr,
+                                                       String operation) {
+        long start = statistics.begin();
+        return statistics.end(operation, start,
+                              gatherAsync(generator, pattern, queryExpr));
+    }
+
+    private <V> AsyncTasks<V> generator(Function<ObjectName, Callable<V>> local,
+                                        Function<NodeMBean, CompletableFuture<V>> remote) {
+        return new AsyncTasks<>(local, remote);
+    }
+
+    /**
+     * @param maxAge
+     *            - if positive, the maximum age, in milliseconds, of the
+     *            values the children may answer from their caches
+     */
+    private <T> Map<ObjectName, OperationResult<T>> getAttribute(final ObjectName pattern,
+                                                                 final QueryExp queryExpr,
+                                                                 final String attribute,
+                                                                 final Deadline deadline,
+                                                                 final long maxAge)
+                                                                                   throws MBeanException,
+                                                                                   AttributeNotFoundException,
+                                                                                   InstanceNotFoundException,
+                                                                                   ReflectionException,
+                                                                                   IOException {
+        try (NodeStatistics.Timing timing = statistics.time("getAttribute")) {
+            Map<ObjectName, OperationResult<T>> attributes = new HashMap<>();
+            BatchingCompletionService<Map<ObjectName, OperationResult<T>>> completionService = new BatchingCompletionService<>(
+                                                                                                                               executor);
+            TaskGenerator<Map<ObjectName, OperationResult<T>>> generator = new TaskGenerator<Map<ObjectName, OperationResult<T>>>() {
+                @Override
+                public Callable<Map<ObjectName, OperationResult<T>>> localTask(final ObjectName objectName) {
+                    return new Callable<Map<ObjectName, OperationResult<T>>>() {
+                        @SuppressWarnings("unchecked")
+                        @Override
+                        public Map<ObjectName, OperationResult<T>> call()
+                                                                         throws Exception {
+                            Map<ObjectName, OperationResult<T>> attributes = new HashMap<>();
+                            attributes.put(objectName,
+                                           new OperationResult<T>(
+                                                                  (T) mbs.getAttribute(objectName,
+                                                                                       attribute)));
+                            return attributes;
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Map<ObjectName, OperationResult<T>>> remoteTask(final NodeMBean child) {
+                    return new Callable<Map<ObjectName, OperationResult<T>>>() {
+                        @Override
+                        public Map<ObjectName, OperationResult<T>> call()
+                                                                         throws Exception {
+                            Map<ObjectName, OperationResult<T>> result;
+                            if (maxAge > 0) {
+                                result = child.<T> getCachedAttribute(pattern,
+                                                                      queryExpr,
+                                                                      attribute,
+                                                                      maxAge);
+                            } else if (deadline.isBounded()) {
+                                result = child.<T> getAttribute(pattern,
+                                                                queryExpr,
+                                                                attribute,
+                                                                deadline.forChild(TimeUnit.MILLISECONDS),
+                                                                TimeUnit.MILLISECONDS);
+                            } else {
+                                result = child.<T> getAttribute(pattern,
+                                                                queryExpr,
+                                                                attribute);
+                            }
+                            learn(child, result.keySet());
+                            return result;
+                        }
+                    };
+                }
+            };
+            Map<Future<Map<ObjectName, OperationResult<T>>>, ObjectName> pending = submit(completionService,
+                                                                                          generator,
+                                                                                          pattern,
+                                                                                          queryExpr,
+                                                                                          deadline);
+            try {
+                while (!pending.isEmpty()) {
+                    try {
+                        Future<Map<ObjectName, OperationResult<T>>> future = deadline.poll(completionService);
+                        if (future == null) {
+                            break;
+                        }
+                        pending.remove(future);
+                        attributes.putAll(future.get());
+                    } catch (InterruptedException e) {
+                        return Collections.emptyMap();
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof ReflectionException) {
+                            throw (ReflectionException) e.getCause();
+                        }
+                        if (e.getCause() instanceof MBeanException) {
+                            throw (MBeanException) e.getCause();
+                        }
+                        if (!(e.getCause() instanceof InstanceNotFoundException)) {
+                            log.warn(String.format("%s experienced exception when collecting attributes %s, %s",
+                                                   this, pattern, queryExpr), e);
+                        }
+                    }
+                }
+            } finally {
+                for (Future<?> future : pending.keySet()) {
+                    future.cancel(true);
+                }
+            }
+            timedOut(attributes, pending.values(), deadline);
+            return attributes;
+        }
+    }
+
+    /**
+     * @param maxAge
+     *            - if positive, the maximum age, in milliseconds, of the
+     *            value the owning child may answer from its cache
+     */
+    private Object getAttribute(final ObjectName objectName,
+                                final String attribute, final long maxAge)
+                                                                          throws MBeanException,
+                                                                          AttributeNotFoundException,
+                                                                          InstanceNotFoundException,
+                                                                          ReflectionException {
+        try (NodeStatistics.Timing timing = statistics.time("getAttribute")) {
+            BatchingCompletionService<Object> completionService = new BatchingCompletionService<>(
+                                                                                                  executor);
+            TaskGenerator<Object> generator = new TaskGenerator<Object>() {
+                @Override
+                public Callable<Object> localTask(final ObjectName objectName) {
+                    return new Callable<Object>() {
+                        @Override
+                        public Object call() throws Exception {
+                            return mbs.getAttribute(objectName, attribute);
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Object> remoteTask(final NodeMBean child) {
+                    return new Callable<Object>() {
+                        @Override
+                        public Object call() throws Exception {
+                            return maxAge > 0 ? child.getCachedAttribute(objectName,
+                                                                         attribute,
+                                                                         maxAge)
+                                             : child.getAttribute(objectName,
+                                                                  attribute);
+                        }
+                    };
+                }
+            };
+            List<Future<Object>> futures = forAll(completionService, generator,
+                                                  objectName);
+
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        Object attributeValue = completionService.take().get();
+                        return attributeValue;
+                    } catch (InterruptedException e) {
+                        return Collections.emptyMap();
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof ReflectionException) {
+                            throw (ReflectionException) e.getCause();
+                        }
+                        if (e.getCause() instanceof MBeanException) {
+                            throw (MBeanException) e.getCause();
+                        }
+                        if (e.getCause() instanceof AttributeNotFoundException) {
+                            throw (AttributeNotFoundException) e.getCause();
+                        } else if (!(e.getCause() instanceof InstanceNotFoundException)) {
+                            log.warn(String.format("%s experienced exception when retriving attribute %s, %s",
+                                                   this, objectName, attribute), e);
+                        }
+                    }
+                }
+            } finally {
+                for (Future<Object> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            throw new InstanceNotFoundException(
+                                                String.format("Instance not found: %s",
+                                                              objectName));
+        }
+    }
+
+    /**
+     * @param maxAge
+     *            - if positive, the maximum age, in milliseconds, of the
+     *            values the children may answer from their caches
+     */
+    private Map<ObjectName, OperationResult<AttributeList>> getAttributes(final ObjectName pattern,
+                                                                          final QueryExp queryExpr,
+                                                                          final String[] attributes,
+                                                                          final Deadline deadline,
+                                                                          final long maxAge)
+                                                                                            throws InstanceNotFoundException,
+                                                                                            ReflectionException,
+                                                                                            IOException,
+                                                                                            MBeanException {
+        try (NodeStatistics.Timing timing = statistics.time("getAttributes")) {
+            Map<ObjectName, OperationResult<AttributeList>> attrs = new HashMap<>();
+            BatchingCompletionService<Map<ObjectName, OperationResult<AttributeList>>> completionService = new BatchingCompletionService<>(
+                                                                                                                                           executor);
+            TaskGenerator<Map<ObjectName, OperationResult<AttributeList>>> generator = new TaskGenerator<Map<ObjectName, OperationResult<AttributeList>>>() {
+                @Override
+                public Callable<Map<ObjectName, OperationResult<AttributeList>>> localTask(final ObjectName objectName) {
+                    return new Callable<Map<ObjectName, OperationResult<AttributeList>>>() {
+                        @Override
+                        public Map<ObjectName, OperationResult<AttributeList>> call()
+                                                                                     throws Exception {
+                            Map<ObjectName, OperationResult<AttributeList>> attrs = new HashMap<>();
+                            attrs.put(objectName,
+                                      new OperationResult<AttributeList>(
+                                                                         mbs.getAttributes(objectName,
+                                                                                           attributes)));
+                            return attrs;
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Map<ObjectName, OperationResult<AttributeList>>> remoteTask(final NodeMBean child) {
+                    return new Callable<Map<ObjectName, OperationResult<AttributeList>>>() {
+                        @Override
+                        public Map<ObjectName, OperationResult<AttributeList>> call()
+                                                                                     throws Exception {
+                            Map<ObjectName, OperationResult<AttributeList>> result;
+                            if (maxAge > 0) {
+                                result = child.getCachedAttributes(pattern,
+                                                                   queryExpr,
+                                                                   attributes,
+                                                                   maxAge);
+                            } else if (deadline.isBounded()) {
+                                result = child.getAttributes(pattern,
+                                                             queryExpr,
+                                                             attributes,
+                                                             deadline.forChild(TimeUnit.MILLISECONDS),
+                                                             TimeUnit.MILLISECONDS);
+                            } else {
+                                result = child.getAttributes(pattern,
+                                                             queryExpr,
+                                                             attributes);
+                            }
+                            learn(child, result.keySet());
+                            return result;
+                        }
+                    };
+                }
+            };
+            Map<Future<Map<ObjectName, OperationResult<AttributeList>>>, ObjectName> pending = submit(completionService,
+                                                                                                      generator,
+                                                                                                      pattern,
+                                                                                                      queryExpr,
+                                                                                                      deadline);
+            try {
+                while (!pending.isEmpty()) {
+                    try {
+                        Future<Map<ObjectName, OperationResult<AttributeList>>> future = deadline.poll(completionService);
+                        if (future == null) {
+                            break;
+                        }
+                        pending.remove(future);
+                        attrs.putAll(future.get());
+                    } catch (InterruptedException e) {
+                        return Collections.emptyMap();
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof ReflectionException) {
+                            throw (ReflectionException) e.getCause();
+                        }
+                        if (e.getCause() instanceof MBeanException) {
+                            throw (MBeanException) e.getCause();
+                        }
+                        if (!(e.getCause() instanceof InstanceNotFoundException)) {
+                            log.warn(String.format("%s experienced exception when retriving attributes %s, %s, %s",
+                                                   this, pattern, queryExpr,
+                                                   Arrays.asList(attributes)), e);
+                        }
+                    }
+                }
+            } finally {
+                for (Future<?> future : pending.keySet()) {
+                    future.cancel(true);
+                }
+            }
+            timedOut(attrs, pending.values(), deadline);
+            return attrs;
+        }
+    }
+
+    /**
+     * @param maxAge
+     *            - if positive, the maximum age, in milliseconds, of the
+     *            values the owning child may answer from its cache
+     */
+    private AttributeList getAttributes(final ObjectName objectName,
+                                        final String[] attributes,
+                                        final long maxAge)
+                                                          throws InstanceNotFoundException,
+                                                          ReflectionException {
+        try (NodeStatistics.Timing timing = statistics.time("getAttributes")) {
+            BatchingCompletionService<AttributeList> completionService = new BatchingCompletionService<>(
+                                                                                                         executor);
+            TaskGenerator<AttributeList> generator = new TaskGenerator<AttributeList>() {
+                @Override
+                public Callable<AttributeList> localTask(final ObjectName objectName) {
+                    return new Callable<AttributeList>() {
+                        @Override
+                        public AttributeList call() throws Exception {
+                            return mbs.getAttributes(objectName, attributes);
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<AttributeList> remoteTask(final NodeMBean child) {
+                    return new Callable<AttributeList>() {
+                        @Override
+                        public AttributeList call() throws Exception {
+                            return maxAge > 0 ? child.getCachedAttributes(objectName,
+                                                                          attributes,
+                                                                          maxAge)
+                                             : child.getAttributes(objectName,
+                                                                   attributes);
+                        }
+                    };
+                }
+            };
+            List<Future<AttributeList>> futures = forAll(completionService,
+                                                         generator, objectName);
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    try {
+                        AttributeList attrs = completionService.take().get();
+                        return attrs;
+                    } catch (InterruptedException e) {
+                        return new AttributeList();
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof ReflectionException) {
+                            throw (ReflectionException) e.getCause();
+                        }
+                        if (!(e.getCause() instanceof InstanceNotFoundException)) {
+                            log.warn(String.format("%s experienced exception when retriving attributes %s, %s",
+                                                   this, objectName,
+                                                   Arrays.asList(attributes)), e);
+                        }
+                    }
+                }
+            } finally {
+                for (Future<AttributeList> future : futures) {
+                    future.cancel(true);
+                }
+            }
+            throw new InstanceNotFoundException(
+                                                String.format("Instance not found: %s",
+                                                              objectName));
+        }
+    }
+
+    private <T> Map<ObjectName, OperationResult<T>> invoke(final ObjectName filter,
+                                                           final QueryExp queryExpr,
+                                                           final String operationName,
+                                                           final Object[] params,
+                                                           final String[] signature,
+                                                           final Deadline deadline)
+                                                                                   throws InstanceNotFoundException,
+                                                                                   MBeanException,
+                                                                                   ReflectionException,
+                                                                                   IOException {
+        try (NodeStatistics.Timing timing = statistics.time("invoke")) {
+            BatchingCompletionService<Map<ObjectName, OperationResult<T>>> completionService = new BatchingCompletionService<>(
+                                                                                                                               executor);
+            TaskGenerator<Map<ObjectName, OperationResult<T>>> generator = new TaskGenerator<Map<ObjectName, OperationResult<T>>>() {
+                @Override
+                public Callable<Map<ObjectName, OperationResult<T>>> localTask(final ObjectName objectName) {
+                    return new Callable<Map<ObjectName, OperationResult<T>>>() {
+                        @SuppressWarnings("unchecked")
+                        @Override
+                        public Map<ObjectName, OperationResult<T>> call()
+                                                                         throws Exception {
+                            Map<ObjectName, OperationResult<T>> result = new HashMap<>();
+                            result.put(objectName,
+                                       new OperationResult<T>(
+                                                              (T) mbs.invoke(objectName,
+                                                                             operationName,
+                                                                             params,
+                                                                             signature)));
+                            return result;
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Map<ObjectName, OperationResult<T>>> remoteTask(final NodeMBean child) {
+                    return new Callable<Map<ObjectName, OperationResult<T>>>() {
+                        @Override
+                        public Map<ObjectName, OperationResult<T>> call()
+                                                                         throws Exception {
+                            Map<ObjectName, OperationResult<T>> result = deadline.isBounded() ? child.<T> invoke(filter,
+                                                                                                                 queryExpr,
+                                                                                                                 operationName,
+                                                                                                                 params,
+                                                                                                                 signature,
+                                                                                                                 deadline.forChild(TimeUnit.MILLISECONDS),
+                                                                                                                 TimeUnit.MILLISECONDS)
+                                                                                              : child.<T> invoke(filter,
+                                                                                                                 queryExpr,
+                                                                                                                 operationName,
+                                                                                                                 params,
+                                                                                                                 signature);
+                            learn(child, result.keySet());
+                            return result;
+                        }
+                    };
+                }
+            };
+            Map<Future<Map<ObjectName, OperationResult<T>>>, ObjectName> pending = submit(completionService,
+                                                                                          generator,
+                                                                                          filter,
+                                                                                          queryExpr,
+                                                                                          deadline);
+            Map<ObjectName, OperationResult<T>> results = new HashMap<>();
+            try {
+                while (!pending.isEmpty()) {
+                    try {
+                        Future<Map<ObjectName, OperationResult<T>>> future = deadline.poll(completionService);
+                        if (future == null) {
+                            break;
+                        }
+                        pending.remove(future);
+                        results.putAll(future.get());
+                    } catch (InterruptedException e) {
+                        return results;
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof ReflectionException) {
+                            throw (ReflectionException) e.getCause();
+                        }
+                        if (e.getCause() instanceof MBeanException) {
+                            throw (MBeanException) e.getCause();
+                        }
+                        if (!(e.getCause() instanceof InstanceNotFoundException)) {
+                            log.warn(String.format("%s experienced exception when invoking %s, %s, %s, %s, %s",
+                                                   this,
+                                                   filter,
+                                                   queryExpr,
+                                                   operationName,
+                                                   params != null ? Arrays.asList(params)
+                                                                 : null,
+                                                   signature != null ? Arrays.asList(signature)
+                                                                    : null),
+                                     e.getCause());
+                        }
+                    }
+                }
+            } finally {
+                for (Future<?> future : pending.keySet()) {
+                    future.cancel(true);
                 }
             }
-        } finally {
-            for (Future<Boolean> future : futures) {
-                future.cancel(true);
-            }
+            timedOut(results, pending.values(), deadline);
+            return results;
         }
-        throw new InstanceNotFoundException(
-                                            String.format("Instance not found: %s, %s",
-                                                          name, queryExpr));
     }
 
     /**
-     * @param name
-     * @param attribute
-     * @throws InstanceNotFoundException
-     * @throws AttributeNotFoundException
-     * @throws InvalidAttributeValueException
-     * @throws MBeanException
-     * @throws ReflectionException
-     * @throws IOException
-     * @see javax.management.MBeanServer#setAttribute(javax.management.ObjectName,
-     *      javax.management.Attribute)
+     * Record the child as the owner of the names
+     * 
+     * @param child
+     * @param names
      */
-    @Override
-    public void setAttribute(final ObjectName objectName,
-                             final Attribute attribute)
-                                                       throws InstanceNotFoundException,
-                                                       AttributeNotFoundException,
-                                                       InvalidAttributeValueException,
-                                                       MBeanException,
-                                                       ReflectionException,
-                                                       IOException {
-        ExecutorCompletionService<Void> completionService = new ExecutorCompletionService<>(
-                                                                                            executor);
-        TaskGenerator<Void> generator = new TaskGenerator<Void>() {
-            @Override
-            public Callable<Void> localTask(final ObjectName objectName) {
-                return new Callable<Void>() {
-                    @Override
-                    public Void call() throws Exception {
-                        mbs.setAttribute(objectName, attribute);
-                        return null;
-                    }
-                };
-            }
+    private void learn(NodeMBean child, Collection<ObjectName> names) {
+        for (ObjectName n : names) {
+            routes.put(ObjectNames.intern(n), child);
+        }
+    }
 
+    private <V> CompletableFuture<Map<ObjectName, V>> learning(final NodeMBean child,
+                                                               CompletableFuture<Map<ObjectName, V>> future) {
+        return future.thenApply(result -> {
+            learn(child, result.keySet());
+            return result;
+        });
+    }
+
+    private CompletableFuture<Set<ObjectInstance>> learningInstances(final NodeMBean child,
+                                                                     CompletableFuture<Set<ObjectInstance>> future) {
+        return future.thenApply(instances -> {
+            learnInstances(child, instances);
+            return instances;
+        });
+    }
+
+    private <V> Callable<V> learningTask(TaskGenerator<V> generator,
+                                         final ObjectName objectName,
+                                         final NodeMBean child) {
+        final Callable<V> task = remoteTask(generator, child);
+        return new Callable<V>() {
             @Override
-            public Callable<Void> remoteTask(final NodeMBean child) {
-                return new Callable<Void>() {
-                    @Override
-                    public Void call() throws Exception {
-                        child.setAttribute(objectName, attribute);
-                        return null;
-                    }
-                };
+            public V call() throws Exception {
+                V result = task.call();
+                // first responder wins; losers may answer spuriously once cancelled
+                routes.putIfAbsent(objectName, child);
+                return result;
             }
         };
-        List<Future<Void>> futures = forAll(completionService, generator,
-                                            objectName);
+    }
 
-        try {
-            for (int i = 0; i < futures.size(); i++) {
-                try {
-                    completionService.take().get();
-                    return;
-                } catch (InterruptedException e) {
-                    return;
-                } catch (ExecutionException e) {
-                    if (e.getCause() instanceof ReflectionException) {
-                        throw (ReflectionException) e.getCause();
-                    }
-                    if (e.getCause() instanceof MBeanException) {
-                        throw (MBeanException) e.getCause();
-                    }
-                    if (e.getCause() instanceof InvalidAttributeValueException) {
-                        throw (InvalidAttributeValueException) e.getCause();
-                    }
-                    if (e.getCause() instanceof AttributeNotFoundException) {
-                        throw (AttributeNotFoundException) e.getCause();
-                    }
-                    if (!(e.getCause() instanceof InstanceNotFoundException)) {
-                        log.warn(String.format("%s experienced exception when setting attribute %s, %s",
-                                               this, objectName, attribute), e);
+    private void learnInstances(NodeMBean child, Set<ObjectInstance> instances) {
+        for (ObjectInstance instance : instances) {
+            routes.put(ObjectNames.intern(instance.getObjectName()), child);
+        }
+    }
 
-                    }
-                }
+    private <V> CompletableFuture<V> local(Callable<V> task) {
+        return NodeAsyncAdapter.call(task, executor);
+    }
+
+    /**
+     * Read a batch of local MBeans into a single columns. An MBean which
+     * fails is added as a failure; one which is no longer registered is
+     * skipped
+     * 
+     * @param columns
+     * @param generator
+     * @param names
+     * @return the columns of the batch
+     */
+    private <C extends Columns<C>> C localColumns(IntFunction<C> columns,
+                                                  ColumnsTaskGenerator<C> generator,
+                                                  List<ObjectName> names) {
+        C batch = columns.apply(names.size());
+        for (ObjectName n : names) {
+            try {
+                generator.localTask(n, batch);
+            } catch (InstanceNotFoundException e) {
+                // unregistered since the query
+            } catch (Exception e) {
+                batch.addFailure(n, e.toString());
             }
-        } finally {
-            for (Future<Void> future : futures) {
-                future.cancel(true);
+        }
+        return batch;
+    }
+
+    private <V> CompletableFuture<Map<ObjectName, V>> merge(CompletableFuture<List<Map<ObjectName, V>>> results) {
+        return results.thenApply(maps -> {
+            Map<ObjectName, V> merged = new HashMap<>();
+            for (Map<ObjectName, V> map : maps) {
+                merged.putAll(map);
             }
+            return merged;
+        });
+    }
+
+    /**
+     * The registrations of this node's MBeanServer change the answers of the
+     * topology queries, and a name registered here shadows the route to the
+     * child which owned it
+     * 
+     * @param notification
+     */
+    private void registrationChanged(Notification notification) {
+        invalidateQueries();
+        if (notification instanceof MBeanServerNotification) {
+            routes.remove(((MBeanServerNotification) notification).getMBeanName());
         }
-        throw new InstanceNotFoundException(
-                                            String.format("Instance not found: %s",
-                                                          objectName));
     }
 
-    /* (non-Javadoc)
-     * @see com.hellblazer.groo.NodeMXBean#setAttribute(javax.management.ObjectName, javax.management.QueryExp, javax.management.Attribute)
+    /**
+     * Answer the remote task of the generator for the child, recording its
+     * outcome in the circuit and statistics of the child
+     * 
+     * @param generator
+     * @param child
+     * @return
      */
-    @Override
-    public void setAttribute(final ObjectName pattern,
-                             final QueryExp queryExpr, final Attribute attribute)
-                                                                                 throws InstanceNotFoundException,
-                                                                                 AttributeNotFoundException,
-                                                                                 InvalidAttributeValueException,
-                                                                                 MBeanException,
-                                                                                 ReflectionException,
-                                                                                 IOException {
-        ExecutorCompletionService<Boolean> completionService = new ExecutorCompletionService<>(
-                                                                                               executor);
-        TaskGenerator<Boolean> generator = new TaskGenerator<Boolean>() {
-            @Override
-            public Callable<Boolean> localTask(final ObjectName objectName) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        try {
-                            mbs.setAttribute(objectName, attribute);
-                            return true;
-                        } catch (Exception e) {
-                            if (e instanceof InstanceNotFoundException) {
-                                return false;
-                            } else {
-                                throw e;
-                            }
-                        }
-                    }
-                };
-            }
+    private <V> Callable<V> remoteTask(TaskGenerator<V> generator,
+                                       NodeMBean child) {
+        return circuits.guard(child,
+                              statistics.child(child,
+                                               generator.remoteTask(child)));
+    }
+
+    private <C extends Columns<C>> Callable<C> remoteTask(ColumnsTaskGenerator<C> generator,
+                                                          NodeMBean child) {
+        return circuits.guard(child,
+                              statistics.child(child,
+                                               generator.remoteTask(child)));
+    }
 
+    private <V> Callable<V> routedTask(final TaskGenerator<V> generator,
+                                       final ObjectName objectName,
+                                       final NodeMBean owner) {
+        return new Callable<V>() {
             @Override
-            public Callable<Boolean> remoteTask(final NodeMBean child) {
-                return new Callable<Boolean>() {
-                    @Override
-                    public Boolean call() throws Exception {
-                        child.setAttribute(pattern, queryExpr, attribute);
-                        return true;
-                    }
-                };
-            }
-        };
-        List<Future<Boolean>> futures = forAll(completionService, generator,
-                                               pattern, queryExpr);
-        boolean found = false;
-        try {
-            for (int i = 0; i < futures.size(); i++) {
+            public V call() throws Exception {
                 try {
-                    found |= completionService.take().get();
-                } catch (InterruptedException e) {
-                    return;
-                } catch (ExecutionException e) {
-                    if (e.getCause() instanceof ReflectionException) {
-                        throw (ReflectionException) e.getCause();
-                    }
-                    if (e.getCause() instanceof MBeanException) {
-                        throw (MBeanException) e.getCause();
-                    }
-                    if (e.getCause() instanceof InvalidAttributeValueException) {
-                        throw (InvalidAttributeValueException) e.getCause();
-                    }
-                    if (e.getCause() instanceof AttributeNotFoundException) {
-                        throw (AttributeNotFoundException) e.getCause();
-                    }
-                    if (!(e.getCause() instanceof InstanceNotFoundException)) {
-                        log.warn(String.format("%s experienced exception when setting attribute %s, %s, %s, %s",
-                                               this, pattern, queryExpr,
-                                               attribute), e);
+                    return remoteTask(generator, owner).call();
+                } catch (InstanceNotFoundException e) {
+                    routes.remove(objectName, owner);
+                    if (log.isDebugEnabled()) {
+                        log.debug(String.format("%s stale route for %s to %s",
+                                                Node.this, objectName, owner));
                     }
                 }
+                return first(generator, objectName);
             }
-        } finally {
-            for (Future<Boolean> future : futures) {
-                future.cancel(true);
+        };
+    }
+
+    /**
+     * Run the local MBean tasks of an operation. Small sets are run inline on
+     * the calling thread, avoiding a hand off per MBean; larger sets are
+     * divided into at most localParallelism batches, each run sequentially by
+     * a single executor task
+     * 
+     * @param tasks
+     * @param inline
+     *            - whether small sets may be run on the calling thread
+     */
+    private void runLocal(List<? extends Runnable> tasks, boolean inline) {
+        int size = tasks.size();
+        if (size == 0) {
+            return;
+        }
+        if (inline && size <= localBatchSize) {
+            for (Runnable task : tasks) {
+                task.run();
             }
+            return;
         }
-        if (!found) {
-            throw new InstanceNotFoundException(
-                                                String.format("Instance not found: %s, %s",
-                                                              pattern,
-                                                              queryExpr));
+        for (final List<? extends Runnable> batch : batches(tasks)) {
+            executor.execute(() -> {
+                for (Runnable task : batch) {
+                    task.run();
+                }
+            });
         }
     }
 
-    /**
-     * @param name
-     * @param attributes
-     * @return
-     * @throws InstanceNotFoundException
-     * @throws ReflectionException
-     * @throws IOException
-     * @see javax.management.MBeanServer#setAttributes(javax.management.ObjectName,
-     *      javax.management.AttributeList)
-     */
-    @Override
-    public AttributeList setAttributes(final ObjectName objectName,
-                                       final AttributeList attributes)
-                                                                      throws InstanceNotFoundException,
-                                                                      ReflectionException,
-                                                                      IOException {
-        ExecutorCompletionService<AttributeList> completionService = new ExecutorCompletionService<>(
-                                                                                                     executor);
-        TaskGenerator<AttributeList> generator = new TaskGenerator<AttributeList>() {
-            @Override
-            public Callable<AttributeList> localTask(final ObjectName objectName) {
-                return new Callable<AttributeList>() {
-                    @Override
-                    public AttributeList call() throws Exception {
-                        return mbs.setAttributes(objectName, attributes);
+    private Map<ObjectName, OperationResult<AttributeList>> setAttributes(final ObjectName pattern,
+                                                                          final QueryExp queryExpr,
+                                                                          final AttributeList attributes,
+                                                                          final Deadline deadline)
+                                                                                                  throws InstanceNotFoundException,
+                                                                                                  ReflectionException,
+                                                                                                  IOException {
+        try (NodeStatistics.Timing timing = statistics.time("setAttributes")) {
+            attributeCache.invalidate();
+            Map<ObjectName, OperationResult<AttributeList>> attrs = new HashMap<>();
+            BatchingCompletionService<Map<ObjectName, OperationResult<AttributeList>>> completionService = new BatchingCompletionService<>(
+                                                                                                                                           executor);
+            TaskGenerator<Map<ObjectName, OperationResult<AttributeList>>> generator = new TaskGenerator<Map<ObjectName, OperationResult<AttributeList>>>() {
+                @Override
+                public Callable<Map<ObjectName, OperationResult<AttributeList>>> localTask(final ObjectName objectName) {
+                    return new Callable<Map<ObjectName, OperationResult<AttributeList>>>() {
+                        @Override
+                        public Map<ObjectName, OperationResult<AttributeList>> call()
+                                                                                     throws Exception {
+                            Map<ObjectName, OperationResult<AttributeList>> attrs = new HashMap<>();
+                            attrs.put(objectName,
+                                      new OperationResult<AttributeList>(
+                                                                         mbs.setAttributes(objectName,
+                                                                                           attributes)));
+                            return attrs;
+                        }
+                    };
+                }
+
+                @Override
+                public Callable<Map<ObjectName, OperationResult<AttributeList>>> remoteTask(final NodeMBean child) {
+                    return new Callable<Map<ObjectName, OperationResult<AttributeList>>>() {
+                        @Override
+                        public Map<ObjectName, OperationResult<AttributeList>> call()
+                                                                                     throws Exception {
+                            Map<ObjectName, OperationResult<AttributeList>> result = deadline.isBounded() ? child.setAttributes(pattern,
+                                                                                                                                queryExpr,
+                                                                                                                                attributes,
+                                                                                                                                deadline.forChild(TimeUnit.MILLISECONDS),
+                                                                                                                                TimeUnit.MILLISECONDS)
+                                                                                                          : child.setAttributes(pattern,
+                                                                                                                                queryExpr,
+                                                                                                                                attributes);
+                            learn(child, result.keySet());
+                            return result;
+                        }
+                    };
+                }
+            };
+            Map<Future<Map<ObjectName, OperationResult<AttributeList>>>, ObjectName> pending = submit(completionService,
+                                                                                                      generator,
+                                                                                                      pattern,
+                                                                                                      queryExpr,
+                                                                                                      deadline);
+            try {
+                while (!pending.isEmpty()) {
+                    try {
+                        Future<Map<ObjectName, OperationResult<AttributeList>>> future = deadline.poll(completionService);
+                        if (future == null) {
+                            break;
+                        }
+                        pending.remove(future);
+                        attrs.putAll(future.get());
+                    } catch (InterruptedException e) {
+                        return Collections.emptyMap();
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof ReflectionException) {
+                            throw (ReflectionException) e.getCause();
+                        }
+                        if (!(e.getCause() instanceof InstanceNotFoundException)) {
+                            log.warn(String.format("%s experienced exception when setting attributes %s, %s, %s",
+                                                   this, pattern, queryExpr,
+                                                   Arrays.asList(attributes)), e);
+                        }
                     }
-                };
+                }
+            } finally {
+                for (Future<?> future : pending.keySet()) {
+                    future.cancel(true);
+                }
             }
+            timedOut(attrs, pending.values(), deadline);
+            return attrs;
+        }
+    }
 
-            @Override
-            public Callable<AttributeList> remoteTask(final NodeMBean child) {
-                return new Callable<AttributeList>() {
-                    @Override
-                    public AttributeList call() throws Exception {
-                        return child.setAttributes(objectName, attributes);
-                    }
-                };
+    /**
+     * Run the stream tasks for the children and the local MBeans matching the
+     * pattern and query, handing their results to the handler as they arrive
+     * 
+     * @param generator
+     * @param pattern
+     * @param queryExpr
+     * @param handler
+     * @throws MBeanException
+     * @throws ReflectionException
+     */
+    private <T> void stream(StreamTaskGenerator<T> generator,
+                            ObjectName pattern, QueryExp queryExpr,
+                            ResultHandler<T> handler) throws MBeanException,
+                                                     ReflectionException {
+        // bounded, so that children which answer faster than the handler
+        // consumes are paused rather than buffered
+        final BlockingQueue<StreamBatch<T>> batches = new ArrayBlockingQueue<>(
+                                                                               ResultStreams.CAPACITY);
+        List<FutureTask<Void>> futures = new ArrayList<>();
+        for (final NodeMBean child : children.snapshot()) {
+            if (!circuits.allow(child)) {
+                continue;
             }
-        };
-        List<Future<AttributeList>> futures = forAll(completionService,
-                                                     generator, objectName);
+            Callable<Void> task = generator.remoteTask(child,
+                                                       new ResultHandler<T>() {
+                                                           @Override
+                                                           public void onResults(Map<ObjectName, OperationResult<T>> results) {
+                                                               learn(child,
+                                                                     results.keySet());
+                                                               enqueue(batches,
+                                                                       new StreamBatch<>(
+                                                                                         results,
+                                                                                         null));
+                                                           }
+                                                       });
+            futures.add(streamTask(circuits.guard(child, task), batches));
+        }
+        for (FutureTask<Void> future : futures) {
+            executor.execute(future);
+        }
+        List<FutureTask<Void>> local = new ArrayList<>();
+        for (ObjectName n : mbs.queryNames(pattern, queryExpr)) {
+            final Callable<Map<ObjectName, OperationResult<T>>> task = generator.localTask(n);
+            local.add(streamTask(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    enqueue(batches, new StreamBatch<>(task.call(), null));
+                    return null;
+                }
+            }, batches));
+        }
+        futures.addAll(local);
+        // never inline, the calling thread is the consumer of the batches
+        runLocal(local, false);
         try {
-            for (int i = 0; i < futures.size(); i++) {
-                try {
-                    AttributeList attrs = completionService.take().get();
-                    return attrs;
-                } catch (InterruptedException e) {
-                    return new AttributeList();
-                } catch (ExecutionException e) {
-                    if (e.getCause() instanceof ReflectionException) {
-                        throw (ReflectionException) e.getCause();
-                    }
-                    if (!(e.getCause() instanceof InstanceNotFoundException)) {
-                        log.warn(String.format("%s experienced exception when setting attributes %s, %s",
-                                               this, objectName, attributes), e);
-                    }
+            int remaining = futures.size();
+            while (remaining > 0) {
+                StreamBatch<T> batch = batches.take();
+                if (batch.results != null) {
+                    handler.onResults(batch.results);
+                    continue;
+                }
+                remaining--;
+                if (batch.failure instanceof ReflectionException) {
+                    throw (ReflectionException) batch.failure;
+                }
+                if (batch.failure instanceof MBeanException) {
+                    throw (MBeanException) batch.failure;
+                }
+                if (batch.failure != null
+                    && !(batch.failure instanceof InstanceNotFoundException)) {
+                    log.warn(String.format("%s experienced exception when streaming %s, %s",
+                                           this, pattern, queryExpr),
+                             batch.failure);
                 }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } finally {
-            for (Future<AttributeList> future : futures) {
+            for (Future<?> future : futures) {
                 future.cancel(true);
             }
         }
-        throw new InstanceNotFoundException(
-                                            String.format("Instance not found: %s",
-                                                          objectName));
     }
 
-    /* (non-Javadoc)
-     * @see com.hellblazer.groo.NodeMXBean#setAttributes(javax.management.ObjectName, javax.management.QueryExp, javax.management.AttributeList)
+    /**
+     * Answer the future that runs the task, marking its completion on the
+     * queue of batches
+     * 
+     * @param task
+     * @param batches
+     * @return
      */
-    @Override
-    public Map<ObjectName, OperationResult<AttributeList>> setAttributes(final ObjectName pattern,
-                                                                         final QueryExp queryExpr,
-                                                                         final AttributeList attributes)
-                                                                                                        throws InstanceNotFoundException,
-                                                                                                        ReflectionException,
-                                                                                                        IOException {
-        Map<ObjectName, OperationResult<AttributeList>> attrs = new HashMap<>();
-        ExecutorCompletionService<Map<ObjectName, OperationResult<AttributeList>>> completionService = new ExecutorCompletionService<>(
-                                                                                                                                       executor);
-        TaskGenerator<Map<ObjectName, OperationResult<AttributeList>>> generator = new TaskGenerator<Map<ObjectName, OperationResult<AttributeList>>>() {
-            @Override
-            public Callable<Map<ObjectName, OperationResult<AttributeList>>> localTask(final ObjectName objectName) {
-                return new Callable<Map<ObjectName, OperationResult<AttributeList>>>() {
-                    @Override
-                    public Map<ObjectName, OperationResult<AttributeList>> call()
-                                                                                 throws Exception {
-                        Map<ObjectName, OperationResult<AttributeList>> attrs = new HashMap<>();
-                        attrs.put(objectName,
-                                  new OperationResult<AttributeList>(
-                                                                     mbs.setAttributes(objectName,
-                                                                                       attributes)));
-                        return attrs;
-                    }
-                };
-            }
-
+    private <T> FutureTask<Void> streamTask(final Callable<Void> task,
+                                            final BlockingQueue<StreamBatch<T>> batches) {
+        FutureTask<Void> future = new FutureTask<>(new Callable<Void>() {
             @Override
-            public Callable<Map<ObjectName, OperationResult<AttributeList>>> remoteTask(final NodeMBean child) {
-                return new Callable<Map<ObjectName, OperationResult<AttributeList>>>() {
-                    @Override
-                    public Map<ObjectName, OperationResult<AttributeList>> call()
-                                                                                 throws Exception {
-                        return child.setAttributes(pattern, queryExpr,
-                                                   attributes);
-                    }
-                };
-            }
-        };
-        List<Future<Map<ObjectName, OperationResult<AttributeList>>>> futures = forAll(completionService,
-                                                                                       generator,
-                                                                                       pattern,
-                                                                                       queryExpr);
-        for (int i = 0; i < futures.size(); i++) {
-            try {
-                attrs.putAll(completionService.take().get());
-            } catch (InterruptedException e) {
-                return Collections.emptyMap();
-            } catch (ExecutionException e) {
-                if (e.getCause() instanceof ReflectionException) {
-                    throw (ReflectionException) e.getCause();
+            public Void call() throws Exception {
+                Throwable failure = null;
+                try {
+                    task.call();
+                } catch (Throwable e) {
+                    failure = e;
                 }
-                if (!(e.getCause() instanceof InstanceNotFoundException)) {
-                    log.warn(String.format("%s experienced exception when setting attributes %s, %s, %s, %s",
-                                           this, pattern, queryExpr,
-                                           Arrays.asList(attributes)), e);
+                try {
+                    batches.put(new StreamBatch<T>(null, failure));
+                } catch (InterruptedException e) {
+                    // cancelled, the stream is no longer consumed
+                    Thread.currentThread().interrupt();
                 }
+                return null;
             }
-        }
-        return attrs;
-    }
-
-    /* (non-Javadoc)
-     * @see java.lang.Object#toString()
-     */
-    @Override
-    public String toString() {
-        return "Node [" + name + ", " + filter + "]";
+        });
+        return future;
     }
 
     /**
+     * Submit the task to the children and to the local MBeans matching the
+     * pattern and query
+     * 
      * @param completionService
      * @param generator
-     * @param objectName
-     * @return
+     * @param pattern
+     * @param queryExpr
+     * @param deadline
+     *            - the local MBeans are read on the executor when bounded, so
+     *            that the caller can stop waiting for them
+     * @return the submitted futures, mapped to the name of the child or local
+     *         MBean the future is answering for
      */
-    private <V> List<Future<V>> forAll(ExecutorCompletionService<V> completionService,
-                                       TaskGenerator<V> generator,
-                                       ObjectName objectName) {
-        List<Future<V>> futures = new ArrayList<>();
-        for (NodeMBean child : children) {
-            futures.add(completionService.submit(generator.remoteTask(child)));
+    private <V> Map<Future<V>, ObjectName> submit(BatchingCompletionService<V> completionService,
+                                                  TaskGenerator<V> generator,
+                                                  ObjectName pattern,
+                                                  QueryExp queryExpr,
+                                                  Deadline deadline) {
+        Map<Future<V>, ObjectName> futures = new LinkedHashMap<>();
+        for (NodeMBean child : children.snapshot()) {
+            if (circuits.allow(child)) {
+                futures.put(completionService.submit(remoteTask(generator,
+                                                                child)),
+                            keyOf(child));
+            }
         }
-        futures.add(completionService.submit(generator.localTask(objectName)));
+        List<FutureTask<V>> local = new ArrayList<>();
+        for (ObjectName n : mbs.queryNames(pattern, queryExpr)) {
+            FutureTask<V> future = completionService.localTask(generator.localTask(n));
+            futures.put(future, n);
+            local.add(future);
+        }
+        runLocal(local, !deadline.isBounded());
+        statistics.fannedOut(futures.size());
         return futures;
     }
 
-    private <V> List<Future<V>> forAll(ExecutorCompletionService<V> completionService,
-                                       TaskGenerator<V> generator,
-                                       ObjectName pattern, QueryExp queryExpr) {
-        List<Future<V>> futures = new ArrayList<>();
-        for (NodeMBean child : children) {
-            futures.add(completionService.submit(generator.remoteTask(child)));
+    private CompletableFuture<Integer> sum(CompletableFuture<List<Integer>> results) {
+        return results.thenApply(counts -> {
+            int sum = 0;
+            for (Integer count : counts) {
+                sum += count;
+            }
+            return sum;
+        });
+    }
+
+    /**
+     * Mark the children and local MBeans which did not answer before the
+     * deadline, and the children skipped because their circuit is open
+     * 
+     * @param results
+     * @param missing
+     * @param deadline
+     */
+    @SuppressWarnings("unchecked")
+    private <T> void timedOut(Map<ObjectName, OperationResult<T>> results,
+                              Collection<ObjectName> missing, Deadline deadline) {
+        for (ObjectName n : missing) {
+            if (!results.containsKey(n)) {
+                results.put(n, (OperationResult<T>) TIMED_OUT_RESULT);
+            }
         }
-        for (ObjectName n : mbs.queryNames(pattern, queryExpr)) {
-            futures.add(completionService.submit(generator.localTask(n)));
+        for (NodeMBean child : children.snapshot()) {
+            ObjectName childName = keyOf(child);
+            if (missing.contains(childName)) {
+                statistics.timedOut(childName);
+            } else if (circuits.isOpen(child)
+                       && !results.containsKey(childName)) {
+                results.put(childName,
+                            (OperationResult<T>) CIRCUIT_OPEN_RESULT);
+            }
         }
-        return futures;
+        if (!missing.isEmpty() && log.isDebugEnabled()) {
+            log.debug(String.format("%s timed out waiting for %s", this,
+                                    missing));
+        }
+    }
+
+    private <E> CompletableFuture<Set<E>> union(CompletableFuture<List<Set<E>>> results) {
+        return results.thenApply(sets -> {
+            Set<E> union = new HashSet<>();
+            for (Set<E> set : sets) {
+                union.addAll(set);
+            }
+            return union;
+        });
     }
 }
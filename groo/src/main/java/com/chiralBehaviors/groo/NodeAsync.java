@@ -0,0 +1,164 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.MBeanInfo;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+import javax.management.QueryExp;
+
+/**
+ * The non blocking companion of the {@link NodeMBean}. Each operation answers
+ * a future which is completed with the result of the corresponding
+ * {@link NodeMBean} operation, or completed exceptionally with the exception
+ * that operation would have thrown.
+ * <p>
+ * A {@link Node} composes the futures of its children without waiting on
+ * them. Remote children are adapted by the {@link NodeAsyncAdapter}, so each
+ * of their pending operations still blocks an executor thread.
+ * 
+ * @author hhildebrand
+ * 
+ */
+public interface NodeAsync {
+    CompletableFuture<Void> addNotificationListenerAsync(ObjectName name,
+                                                         NotificationListener listener,
+                                                         NotificationFilter filter,
+                                                         Object handback);
+
+    CompletableFuture<Void> addNotificationListenerAsync(ObjectName name,
+                                                         ObjectName listener,
+                                                         NotificationFilter filter,
+                                                         Object handback);
+
+    CompletableFuture<Void> addNotificationListenerAsync(ObjectName name,
+                                                         QueryExp queryExpr,
+                                                         NotificationListener listener,
+                                                         NotificationFilter filter,
+                                                         Object handback);
+
+    CompletableFuture<Void> addNotificationListenerAsync(ObjectName name,
+                                                         QueryExp queryExpr,
+                                                         ObjectName listener,
+                                                         NotificationFilter filter,
+                                                         Object handback);
+
+    <T> CompletableFuture<Map<ObjectName, OperationResult<T>>> getAttributeAsync(ObjectName name,
+                                                                                 QueryExp queryExpr,
+                                                                                 String attribute);
+
+    CompletableFuture<Object> getAttributeAsync(ObjectName name,
+                                                String attribute);
+
+    CompletableFuture<Map<ObjectName, OperationResult<AttributeList>>> getAttributesAsync(ObjectName name,
+                                                                                          QueryExp queryExpr,
+                                                                                          String[] attributes);
+
+    CompletableFuture<AttributeList> getAttributesAsync(ObjectName name,
+                                                        String[] attributes);
+
+    CompletableFuture<Integer> getMBeanCountAsync();
+
+    CompletableFuture<Integer> getMBeanCountAsync(ObjectName filter,
+                                                  QueryExp queryExpr);
+
+    CompletableFuture<MBeanInfo> getMBeanInfoAsync(ObjectName name);
+
+    CompletableFuture<ObjectInstance> getObjectInstanceAsync(ObjectName name);
+
+    CompletableFuture<Set<ObjectInstance>> getObjectInstancesAsync(ObjectName name,
+                                                                   QueryExp queryExpr);
+
+    <T> CompletableFuture<Map<ObjectName, OperationResult<T>>> invokeAsync(ObjectName name,
+                                                                           QueryExp queryExpr,
+                                                                           String operationName,
+                                                                           Object params[],
+                                                                           String signature[]);
+
+    CompletableFuture<Object> invokeAsync(ObjectName name,
+                                          String operationName,
+                                          Object[] params, String[] signature);
+
+    CompletableFuture<Boolean> isInstanceOfAsync(ObjectName name,
+                                                 String className);
+
+    CompletableFuture<Boolean> isRegisteredAsync(ObjectName name);
+
+    CompletableFuture<Set<ObjectInstance>> queryMBeansAsync(ObjectName name,
+                                                            QueryExp query);
+
+    CompletableFuture<Set<ObjectName>> queryNamesAsync(ObjectName name,
+                                                       QueryExp query);
+
+    CompletableFuture<Void> removeNotificationListenerAsync(ObjectName name,
+                                                            NotificationListener listener);
+
+    CompletableFuture<Void> removeNotificationListenerAsync(ObjectName name,
+                                                            NotificationListener listener,
+                                                            NotificationFilter filter,
+                                                            Object handback);
+
+    CompletableFuture<Void> removeNotificationListenerAsync(ObjectName name,
+                                                            ObjectName listener);
+
+    CompletableFuture<Void> removeNotificationListenerAsync(ObjectName name,
+                                                            ObjectName listener,
+                                                            NotificationFilter filter,
+                                                            Object handback);
+
+    CompletableFuture<Void> removeNotificationListenerAsync(ObjectName name,
+                                                            QueryExp queryExpr,
+                                                            NotificationListener listener);
+
+    CompletableFuture<Void> removeNotificationListenerAsync(ObjectName name,
+                                                            QueryExp queryExpr,
+                                                            NotificationListener listener,
+                                                            NotificationFilter filter,
+                                                            Object handback);
+
+    CompletableFuture<Void> removeNotificationListenerAsync(ObjectName name,
+                                                            QueryExp queryExpr,
+                                                            ObjectName listener);
+
+    CompletableFuture<Void> removeNotificationListenerAsync(ObjectName name,
+                                                            QueryExp queryExpr,
+                                                            ObjectName listener,
+                                                            NotificationFilter filter,
+                                                            Object handback);
+
+    CompletableFuture<Void> setAttributeAsync(ObjectName name,
+                                              Attribute attribute);
+
+    CompletableFuture<Void> setAttributeAsync(ObjectName name,
+                                              QueryExp queryExpr,
+                                              Attribute attribute);
+
+    CompletableFuture<AttributeList> setAttributesAsync(ObjectName name,
+                                                        AttributeList attributes);
+
+    CompletableFuture<Map<ObjectName, OperationResult<AttributeList>>> setAttributesAsync(ObjectName name,
+                                                                                          QueryExp queryExpr,
+                                                                                          AttributeList attributes);
+}
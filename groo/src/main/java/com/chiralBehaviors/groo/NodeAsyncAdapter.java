@@ -0,0 +1,458 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.MBeanInfo;
+import javax.management.NotificationFilter;
+import javax.management.NotificationListener;
+import javax.management.ObjectInstance;
+import javax.management.ObjectName;
+import javax.management.QueryExp;
+
+/**
+ * Adapts the blocking operations of a {@link NodeMBean} to the
+ * {@link NodeAsync} api by running them on an executor. The adaptation does
+ * not make the operations non blocking: each pending operation still occupies
+ * an executor thread until the delegate answers. Running the adapter on the
+ * {@link ExecutionMode#VIRTUAL} executor only makes those waiting threads
+ * cheaper.
+ * 
+ * @author hhildebrand
+ * 
+ */
+abstract public class NodeAsyncAdapter implements NodeAsync {
+
+    /**
+     * Answer the async view of the node, adapting it if necessary
+     */
+    public static NodeAsync adapt(final NodeMBean node, Executor executor) {
+        if (node instanceof NodeAsync) {
+            return (NodeAsync) node;
+        }
+        return new NodeAsyncAdapter(executor) {
+            @Override
+            protected NodeMBean getDelegate() {
+                return node;
+            }
+        };
+    }
+
+    /**
+     * Run the task on the executor, answering the future result
+     */
+    public static <V> CompletableFuture<V> call(final Callable<V> task,
+                                                Executor executor) {
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(task.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    protected final Executor executor;
+
+    public NodeAsyncAdapter(Executor executor) {
+        this.executor = executor;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#addNotificationListenerAsync(javax.management.ObjectName, javax.management.NotificationListener, javax.management.NotificationFilter, java.lang.Object)
+     */
+    @Override
+    public CompletableFuture<Void> addNotificationListenerAsync(ObjectName name,
+                                                                NotificationListener listener,
+                                                                NotificationFilter filter,
+                                                                Object handback) {
+        return call(() -> {
+            getDelegate().addNotificationListener(name, listener, filter,
+                                                  handback);
+            return null;
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#addNotificationListenerAsync(javax.management.ObjectName, javax.management.ObjectName, javax.management.NotificationFilter, java.lang.Object)
+     */
+    @Override
+    public CompletableFuture<Void> addNotificationListenerAsync(ObjectName name,
+                                                                ObjectName listener,
+                                                                NotificationFilter filter,
+                                                                Object handback) {
+        return call(() -> {
+            getDelegate().addNotificationListener(name, listener, filter,
+                                                  handback);
+            return null;
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#addNotificationListenerAsync(javax.management.ObjectName, javax.management.QueryExp, javax.management.NotificationListener, javax.management.NotificationFilter, java.lang.Object)
+     */
+    @Override
+    public CompletableFuture<Void> addNotificationListenerAsync(ObjectName name,
+                                                                QueryExp queryExpr,
+                                                                NotificationListener listener,
+                                                                NotificationFilter filter,
+                                                                Object handback) {
+        return call(() -> {
+            getDelegate().addNotificationListener(name, queryExpr, listener,
+                                                  filter, handback);
+            return null;
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#addNotificationListenerAsync(javax.management.ObjectName, javax.management.QueryExp, javax.management.ObjectName, javax.management.NotificationFilter, java.lang.Object)
+     */
+    @Override
+    public CompletableFuture<Void> addNotificationListenerAsync(ObjectName name,
+                                                                QueryExp queryExpr,
+                                                                ObjectName listener,
+                                                                NotificationFilter filter,
+                                                                Object handback) {
+        return call(() -> {
+            getDelegate().addNotificationListener(name, queryExpr, listener,
+                                                  filter, handback);
+            return null;
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#getAttributeAsync(javax.management.ObjectName, javax.management.QueryExp, java.lang.String)
+     */
+    @Override
+    public <T> CompletableFuture<Map<ObjectName, OperationResult<T>>> getAttributeAsync(ObjectName name,
+                                                                                        QueryExp queryExpr,
+                                                                                        String attribute) {
+        return call(() -> getDelegate().<T> getAttribute(name, queryExpr,
+                                                         attribute));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#getAttributeAsync(javax.management.ObjectName, java.lang.String)
+     */
+    @Override
+    public CompletableFuture<Object> getAttributeAsync(ObjectName name,
+                                                       String attribute) {
+        return call(() -> getDelegate().getAttribute(name, attribute));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#getAttributesAsync(javax.management.ObjectName, javax.management.QueryExp, java.lang.String[])
+     */
+    @Override
+    public CompletableFuture<Map<ObjectName, OperationResult<AttributeList>>> getAttributesAsync(ObjectName name,
+                                                                                                 QueryExp queryExpr,
+                                                                                                 String[] attributes) {
+        return call(() -> getDelegate().getAttributes(name, queryExpr,
+                                                      attributes));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#getAttributesAsync(javax.management.ObjectName, java.lang.String[])
+     */
+    @Override
+    public CompletableFuture<AttributeList> getAttributesAsync(ObjectName name,
+                                                               String[] attributes) {
+        return call(() -> getDelegate().getAttributes(name, attributes));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#getMBeanCountAsync()
+     */
+    @Override
+    public CompletableFuture<Integer> getMBeanCountAsync() {
+        return call(() -> getDelegate().getMBeanCount());
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#getMBeanCountAsync(javax.management.ObjectName, javax.management.QueryExp)
+     */
+    @Override
+    public CompletableFuture<Integer> getMBeanCountAsync(ObjectName filter,
+                                                         QueryExp queryExpr) {
+        return call(() -> getDelegate().getMBeanCount(filter, queryExpr));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#getMBeanInfoAsync(javax.management.ObjectName)
+     */
+    @Override
+    public CompletableFuture<MBeanInfo> getMBeanInfoAsync(ObjectName name) {
+        return call(() -> getDelegate().getMBeanInfo(name));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#getObjectInstanceAsync(javax.management.ObjectName)
+     */
+    @Override
+    public CompletableFuture<ObjectInstance> getObjectInstanceAsync(ObjectName name) {
+        return call(() -> getDelegate().getObjectInstance(name));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#getObjectInstancesAsync(javax.management.ObjectName, javax.management.QueryExp)
+     */
+    @Override
+    public CompletableFuture<Set<ObjectInstance>> getObjectInstancesAsync(ObjectName name,
+                                                                          QueryExp queryExpr) {
+        return call(() -> getDelegate().getObjectInstances(name, queryExpr));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#invokeAsync(javax.management.ObjectName, javax.management.QueryExp, java.lang.String, java.lang.Object[], java.lang.String[])
+     */
+    @Override
+    public <T> CompletableFuture<Map<ObjectName, OperationResult<T>>> invokeAsync(ObjectName name,
+                                                                                  QueryExp queryExpr,
+                                                                                  String operationName,
+                                                                                  Object[] params,
+                                                                                  String[] signature) {
+        return call(() -> getDelegate().<T> invoke(name, queryExpr,
+                                                   operationName, params,
+                                                   signature));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#invokeAsync(javax.management.ObjectName, java.lang.String, java.lang.Object[], java.lang.String[])
+     */
+    @Override
+    public CompletableFuture<Object> invokeAsync(ObjectName name,
+                                                 String operationName,
+                                                 Object[] params,
+                                                 String[] signature) {
+        return call(() -> getDelegate().invoke(name, operationName, params,
+                                               signature));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#isInstanceOfAsync(javax.management.ObjectName, java.lang.String)
+     */
+    @Override
+    public CompletableFuture<Boolean> isInstanceOfAsync(ObjectName name,
+                                                        String className) {
+        return call(() -> getDelegate().isInstanceOf(name, className));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#isRegisteredAsync(javax.management.ObjectName)
+     */
+    @Override
+    public CompletableFuture<Boolean> isRegisteredAsync(ObjectName name) {
+        return call(() -> getDelegate().isRegistered(name));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#queryMBeansAsync(javax.management.ObjectName, javax.management.QueryExp)
+     */
+    @Override
+    public CompletableFuture<Set<ObjectInstance>> queryMBeansAsync(ObjectName name,
+                                                                   QueryExp query) {
+        return call(() -> getDelegate().queryMBeans(name, query));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#queryNamesAsync(javax.management.ObjectName, javax.management.QueryExp)
+     */
+    @Override
+    public CompletableFuture<Set<ObjectName>> queryNamesAsync(ObjectName name,
+                                                              QueryExp query) {
+        return call(() -> getDelegate().queryNames(name, query));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#removeNotificationListenerAsync(javax.management.ObjectName, javax.management.NotificationListener)
+     */
+    @Override
+    public CompletableFuture<Void> removeNotificationListenerAsync(ObjectName name,
+                                                                   NotificationListener listener) {
+        return call(() -> {
+            getDelegate().removeNotificationListener(name, listener);
+            return null;
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#removeNotificationListenerAsync(javax.management.ObjectName, javax.management.NotificationListener, javax.management.NotificationFilter, java.lang.Object)
+     */
+    @Override
+    public CompletableFuture<Void> removeNotificationListenerAsync(ObjectName name,
+                                                                   NotificationListener listener,
+                                                                   NotificationFilter filter,
+                                                                   Object handback) {
+        return call(() -> {
+            getDelegate().removeNotificationListener(name, listener, filter,
+                                                     handback);
+            return null;
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#removeNotificationListenerAsync(javax.management.ObjectName, javax.management.ObjectName)
+     */
+    @Override
+    public CompletableFuture<Void> removeNotificationListenerAsync(ObjectName name,
+                                                                   ObjectName listener) {
+        return call(() -> {
+            getDelegate().removeNotificationListener(name, listener);
+            return null;
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#removeNotificationListenerAsync(javax.management.ObjectName, javax.management.ObjectName, javax.management.NotificationFilter, java.lang.Object)
+     */
+    @Override
+    public CompletableFuture<Void> removeNotificationListenerAsync(ObjectName name,
+                                                                   ObjectName listener,
+                                                                   NotificationFilter filter,
+                                                                   Object handback) {
+        return call(() -> {
+            getDelegate().removeNotificationListener(name, listener, filter,
+                                                     handback);
+            return null;
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#removeNotificationListenerAsync(javax.management.ObjectName, javax.management.QueryExp, javax.management.NotificationListener)
+     */
+    @Override
+    public CompletableFuture<Void> removeNotificationListenerAsync(ObjectName name,
+                                                                   QueryExp queryExpr,
+                                                                   NotificationListener listener) {
+        return call(() -> {
+            getDelegate().removeNotificationListener(name, queryExpr, listener);
+            return null;
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#removeNotificationListenerAsync(javax.management.ObjectName, javax.management.QueryExp, javax.management.NotificationListener, javax.management.NotificationFilter, java.lang.Object)
+     */
+    @Override
+    public CompletableFuture<Void> removeNotificationListenerAsync(ObjectName name,
+                                                                   QueryExp queryExpr,
+                                                                   NotificationListener listener,
+                                                                   NotificationFilter filter,
+                                                                   Object handback) {
+        return call(() -> {
+            getDelegate().removeNotificationListener(name, queryExpr, listener,
+                                                     filter, handback);
+            return null;
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#removeNotificationListenerAsync(javax.management.ObjectName, javax.management.QueryExp, javax.management.ObjectName)
+     */
+    @Override
+    public CompletableFuture<Void> removeNotificationListenerAsync(ObjectName name,
+                                                                   QueryExp queryExpr,
+                                                                   ObjectName listener) {
+        return call(() -> {
+            getDelegate().removeNotificationListener(name, queryExpr, listener);
+            return null;
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#removeNotificationListenerAsync(javax.management.ObjectName, javax.management.QueryExp, javax.management.ObjectName, javax.management.NotificationFilter, java.lang.Object)
+     */
+    @Override
+    public CompletableFuture<Void> removeNotificationListenerAsync(ObjectName name,
+                                                                   QueryExp queryExpr,
+                                                                   ObjectName listener,
+                                                                   NotificationFilter filter,
+                                                                   Object handback) {
+        return call(() -> {
+            getDelegate().removeNotificationListener(name, queryExpr, listener,
+                                                     filter, handback);
+            return null;
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#setAttributeAsync(javax.management.ObjectName, javax.management.Attribute)
+     */
+    @Override
+    public CompletableFuture<Void> setAttributeAsync(ObjectName name,
+                                                     Attribute attribute) {
+        return call(() -> {
+            getDelegate().setAttribute(name, attribute);
+            return null;
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#setAttributeAsync(javax.management.ObjectName, javax.management.QueryExp, javax.management.Attribute)
+     */
+    @Override
+    public CompletableFuture<Void> setAttributeAsync(ObjectName name,
+                                                     QueryExp queryExpr,
+                                                     Attribute attribute) {
+        return call(() -> {
+            getDelegate().setAttribute(name, queryExpr, attribute);
+            return null;
+        });
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#setAttributesAsync(javax.management.ObjectName, javax.management.AttributeList)
+     */
+    @Override
+    public CompletableFuture<AttributeList> setAttributesAsync(ObjectName name,
+                                                               AttributeList attributes) {
+        return call(() -> getDelegate().setAttributes(name, attributes));
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeAsync#setAttributesAsync(javax.management.ObjectName, javax.management.QueryExp, javax.management.AttributeList)
+     */
+    @Override
+    public CompletableFuture<Map<ObjectName, OperationResult<AttributeList>>> setAttributesAsync(ObjectName name,
+                                                                                                 QueryExp queryExpr,
+                                                                                                 AttributeList attributes) {
+        return call(() -> getDelegate().setAttributes(name, queryExpr,
+                                                      attributes));
+    }
+
+    protected <V> CompletableFuture<V> call(Callable<V> task) {
+        return call(task, executor);
+    }
+
+    /**
+     * @return the blocking node the operations are delegated to
+     */
+    abstract protected NodeMBean getDelegate();
+}
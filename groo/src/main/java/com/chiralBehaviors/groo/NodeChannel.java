@@ -0,0 +1,84 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.io.IOException;
+
+import javax.management.AttributeNotFoundException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanException;
+import javax.management.MBeanServerConnection;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+/**
+ * The channel the operations of a remote node are invoked over. The channel
+ * of a JMX connection invokes the operations on the connection; other
+ * transports supply their own.
+ * 
+ * @author hhildebrand
+ * 
+ */
+interface NodeChannel {
+    /**
+     * @param connection
+     * @return the channel invoking the operations on the connection
+     */
+    static NodeChannel of(final MBeanServerConnection connection) {
+        return new NodeChannel() {
+            @Override
+            public Object getAttribute(ObjectName name, String attribute)
+                                                                         throws MBeanException,
+                                                                         AttributeNotFoundException,
+                                                                         InstanceNotFoundException,
+                                                                         ReflectionException,
+                                                                         IOException {
+                return connection.getAttribute(name, attribute);
+            }
+
+            @Override
+            public Object invoke(ObjectName name, String operationName,
+                                 Object[] params, String[] signature)
+                                                                     throws InstanceNotFoundException,
+                                                                     MBeanException,
+                                                                     ReflectionException,
+                                                                     IOException {
+                return connection.invoke(name, operationName, params,
+                                         signature);
+            }
+        };
+    }
+
+    /**
+     * @see MBeanServerConnection#getAttribute(ObjectName, String)
+     */
+    Object getAttribute(ObjectName name, String attribute)
+                                                          throws MBeanException,
+                                                          AttributeNotFoundException,
+                                                          InstanceNotFoundException,
+                                                          ReflectionException,
+                                                          IOException;
+
+    /**
+     * @see MBeanServerConnection#invoke(ObjectName, String, Object[], String[])
+     */
+    Object invoke(ObjectName name, String operationName, Object[] params,
+                  String[] signature) throws InstanceNotFoundException,
+                                     MBeanException, ReflectionException,
+                                     IOException;
+}
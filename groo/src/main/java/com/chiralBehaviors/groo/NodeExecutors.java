@@ -0,0 +1,142 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The process wide executors used by nodes and their children to run fan out
+ * tasks. Rather than each node owning a thread pool, all nodes share the
+ * executor of the current {@link ExecutionMode}.
+ * 
+ * @author hhildebrand
+ * 
+ */
+public final class NodeExecutors {
+    private static class Shared {
+        private static final ExecutorService INSTANCE = Executors.newCachedThreadPool(new ThreadFactory() {
+                                                          private final AtomicInteger count = new AtomicInteger();
+
+                                                          @Override
+                                                          public Thread newThread(Runnable r) {
+                                                              Thread thread = new Thread(
+                                                                                         r,
+                                                                                         String.format("groo-node-%s",
+                                                                                                       count.incrementAndGet()));
+                                                              thread.setDaemon(true);
+                                                              return thread;
+                                                          }
+                                                      });
+    }
+
+    private static class Virtual {
+        private static final ExecutorService INSTANCE = newVirtualThreadPerTaskExecutor();
+    }
+
+    private static final Executor         CURRENT = new Executor() {
+                                                      @Override
+                                                      public void execute(Runnable command) {
+                                                          executorFor(mode).execute(command);
+                                                      }
+                                                  };
+    private static final Logger           log     = LoggerFactory.getLogger(NodeExecutors.class);
+    private static volatile ExecutionMode mode    = ExecutionMode.SHARED;
+
+    /**
+     * @return the executor which runs tasks according to the current process
+     *         wide execution mode
+     */
+    public static Executor executor() {
+        return CURRENT;
+    }
+
+    /**
+     * @param mode
+     * @return the executor for the execution mode, or the executor following
+     *         the process wide mode if null
+     */
+    public static Executor executor(ExecutionMode mode) {
+        return mode == null ? CURRENT : executorFor(mode);
+    }
+
+    /**
+     * @return the process wide execution mode
+     */
+    public static ExecutionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return true if the runtime supports virtual threads
+     */
+    public static boolean isVirtualAvailable() {
+        return Virtual.INSTANCE != null;
+    }
+
+    /**
+     * Set the process wide execution mode. Nodes that run on the executor
+     * answered by {@link #executor()} follow the change.
+     * 
+     * @param mode
+     */
+    public static void setMode(ExecutionMode mode) {
+        if (mode == null) {
+            throw new IllegalArgumentException("Execution mode must not be null");
+        }
+        if (mode == ExecutionMode.VIRTUAL && !isVirtualAvailable()) {
+            log.warn(String.format("Virtual threads are not available on %s, falling back to %s",
+                                   System.getProperty("java.version"),
+                                   ExecutionMode.SHARED));
+        }
+        NodeExecutors.mode = mode;
+    }
+
+    private static Executor executorFor(ExecutionMode mode) {
+        switch (mode) {
+            case VIRTUAL:
+                if (Virtual.INSTANCE != null) {
+                    return Virtual.INSTANCE;
+                }
+                return Shared.INSTANCE;
+            default:
+                return Shared.INSTANCE;
+        }
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            return null;
+        } catch (Exception e) {
+            log.warn("Unable to create virtual thread executor", e);
+            return null;
+        }
+    }
+
+    private NodeExecutors() {
+    }
+}
@@ -19,6 +19,7 @@ package com.chiralBehaviors.groo;
 import java.io.IOException;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import javax.management.Attribute;
 import javax.management.AttributeList;
@@ -65,6 +66,39 @@ public interface NodeMBean {
                                                         throws InstanceNotFoundException,
                                                         IOException;
 
+    /**
+     * Reduce the attribute of the matching MBeans. Each node reduces its local
+     * MBeans and merges the partial aggregates of its children, so a single
+     * aggregate, rather than a result per MBean, is answered by each child
+     */
+    public Aggregate aggregate(ObjectName name, QueryExp queryExpr,
+                               String attribute, Aggregation aggregation)
+                                                                         throws MBeanException,
+                                                                         ReflectionException,
+                                                                         IOException;
+
+    /**
+     * Reduce the attribute of the matching MBeans, grouped by the values of
+     * the key properties of their names. Each node answers a partial
+     * aggregate per group, so the result scales with the number of groups
+     * rather than the number of MBeans
+     * 
+     * @see Node#groupOf(ObjectName, String[])
+     */
+    public Map<String, Aggregate> aggregate(ObjectName name,
+                                            QueryExp queryExpr,
+                                            String attribute,
+                                            Aggregation aggregation,
+                                            String[] groupBy)
+                                                             throws MBeanException,
+                                                             ReflectionException,
+                                                             IOException;
+
+    /**
+     * Close the stream, abandoning any results not yet read
+     */
+    public void closeStream(long stream) throws IOException;
+
     public <T> Map<ObjectName, OperationResult<T>> getAttribute(ObjectName name,
                                                                 QueryExp queryExpr,
                                                                 String attribute)
@@ -74,12 +108,69 @@ public interface NodeMBean {
                                                                                  ReflectionException,
                                                                                  IOException;
 
+    /**
+     * Get the attribute of the matching MBeans, answering what has arrived
+     * when the timeout expires. Children and MBeans which have not answered
+     * are marked with a failed result with the message {@link Node#TIMED_OUT}
+     */
+    public <T> Map<ObjectName, OperationResult<T>> getAttribute(ObjectName name,
+                                                                QueryExp queryExpr,
+                                                                String attribute,
+                                                                long timeout,
+                                                                TimeUnit unit)
+                                                                              throws MBeanException,
+                                                                              AttributeNotFoundException,
+                                                                              InstanceNotFoundException,
+                                                                              ReflectionException,
+                                                                              IOException;
+
     public Object getAttribute(ObjectName name, String attribute)
                                                                  throws MBeanException,
                                                                  AttributeNotFoundException,
                                                                  InstanceNotFoundException,
                                                                  ReflectionException;
 
+    /**
+     * Get the attribute of the matching MBeans as columns: the names of the
+     * MBeans, their values and which of them succeeded. Children answer in the
+     * same form, so merging their results is an array copy
+     */
+    public <T> ColumnarResult<T> getAttributeColumns(ObjectName name,
+                                                     QueryExp queryExpr,
+                                                     String attribute)
+                                                                      throws MBeanException,
+                                                                      AttributeNotFoundException,
+                                                                      InstanceNotFoundException,
+                                                                      ReflectionException,
+                                                                      IOException;
+
+    /**
+     * Get the numeric attribute of the matching MBeans as doubles, held in a
+     * primitive array parallel to the names of the MBeans. MBeans whose
+     * attribute is not a number answer a failed result
+     */
+    public DoubleColumns getDoubleAttribute(ObjectName name, QueryExp queryExpr,
+                                            String attribute)
+                                                             throws MBeanException,
+                                                             AttributeNotFoundException,
+                                                             InstanceNotFoundException,
+                                                             ReflectionException,
+                                                             IOException;
+
+    /**
+     * Get the integral attribute of the matching MBeans as longs, held in a
+     * primitive array parallel to the names of the MBeans. MBeans whose
+     * attribute is not an integral number within the range of a long answer a
+     * failed result, rather than a truncated value
+     */
+    public LongColumns getLongAttribute(ObjectName name, QueryExp queryExpr,
+                                        String attribute)
+                                                         throws MBeanException,
+                                                         AttributeNotFoundException,
+                                                         InstanceNotFoundException,
+                                                         ReflectionException,
+                                                         IOException;
+
     public Map<ObjectName, OperationResult<AttributeList>> getAttributes(ObjectName name,
                                                                          QueryExp queryExpr,
                                                                          String[] attributes)
@@ -87,10 +178,76 @@ public interface NodeMBean {
                                                                                              ReflectionException,
                                                                                              IOException, MBeanException;
 
+    /**
+     * Get the attributes of the matching MBeans, answering what has arrived
+     * when the timeout expires. Children and MBeans which have not answered
+     * are marked with a failed result with the message {@link Node#TIMED_OUT}
+     */
+    public Map<ObjectName, OperationResult<AttributeList>> getAttributes(ObjectName name,
+                                                                         QueryExp queryExpr,
+                                                                         String[] attributes,
+                                                                         long timeout,
+                                                                         TimeUnit unit)
+                                                                                       throws InstanceNotFoundException,
+                                                                                       ReflectionException,
+                                                                                       IOException,
+                                                                                       MBeanException;
+
     public AttributeList getAttributes(ObjectName name, String[] attributes)
                                                                             throws InstanceNotFoundException,
                                                                             ReflectionException;
 
+    /**
+     * Get the attribute of the matching MBeans, answering the values of
+     * previous reads no older than maxAge milliseconds. If the members of
+     * the pattern were read no more than maxAge ago, only the values which
+     * are not cached are read
+     */
+    public <T> Map<ObjectName, OperationResult<T>> getCachedAttribute(ObjectName name,
+                                                                      QueryExp queryExpr,
+                                                                      String attribute,
+                                                                      long maxAge)
+                                                                                  throws MBeanException,
+                                                                                  AttributeNotFoundException,
+                                                                                  InstanceNotFoundException,
+                                                                                  ReflectionException,
+                                                                                  IOException;
+
+    /**
+     * Get the attribute, answering the value of a previous read if it is no
+     * older than maxAge milliseconds
+     */
+    public Object getCachedAttribute(ObjectName name, String attribute,
+                                     long maxAge)
+                                                 throws MBeanException,
+                                                 AttributeNotFoundException,
+                                                 InstanceNotFoundException,
+                                                 ReflectionException;
+
+    /**
+     * Get the attributes of the matching MBeans, answering the values of
+     * previous reads no older than maxAge milliseconds. If the members of
+     * the pattern were read no more than maxAge ago, only the values which
+     * are not cached are read
+     */
+    public Map<ObjectName, OperationResult<AttributeList>> getCachedAttributes(ObjectName name,
+                                                                               QueryExp queryExpr,
+                                                                               String[] attributes,
+                                                                               long maxAge)
+                                                                                           throws InstanceNotFoundException,
+                                                                                           ReflectionException,
+                                                                                           IOException,
+                                                                                           MBeanException;
+
+    /**
+     * Get the attributes, answering the values of previous reads no older than
+     * maxAge milliseconds, and reading only the rest
+     */
+    public AttributeList getCachedAttributes(ObjectName name,
+                                             String[] attributes, long maxAge)
+                                                                              throws InstanceNotFoundException,
+                                                                              ReflectionException;
+
     public Integer getMBeanCount();
 
     public MBeanInfo getMBeanInfo(ObjectName name)
@@ -114,12 +271,70 @@ public interface NodeMBean {
                                                              MBeanException,
                                                              ReflectionException;
 
+    /**
+     * Invoke the operation on the matching MBeans, answering the results as
+     * columns
+     * 
+     * @see #getAttributeColumns(ObjectName, QueryExp, String)
+     */
+    public <T> ColumnarResult<T> invokeColumns(ObjectName name,
+                                               QueryExp queryExpr,
+                                               String operationName,
+                                               Object[] params,
+                                               String[] signature)
+                                                                  throws InstanceNotFoundException,
+                                                                  MBeanException,
+                                                                  ReflectionException,
+                                                                  IOException;
+
     public boolean isInstanceOf(ObjectName name, String className)
                                                                   throws InstanceNotFoundException,
                                                                   IOException;
 
     public boolean isRegistered(ObjectName name) throws IOException;
 
+    /**
+     * Answer the results of the stream which have arrived, waiting up to the
+     * timeout for the first
+     * 
+     * @return the batch of results, empty if none arrived in time, or null
+     *         when the stream is exhausted
+     */
+    public <T> Map<ObjectName, OperationResult<T>> nextBatch(long stream,
+                                                             long timeout,
+                                                             TimeUnit unit)
+                                                                           throws MBeanException,
+                                                                           ReflectionException,
+                                                                           IOException;
+
+    /**
+     * Open a stream of the attribute of the matching MBeans, read with
+     * {@link #nextBatch(long, long, TimeUnit)}
+     * 
+     * @return the id of the stream
+     */
+    public long openAttributeStream(ObjectName name, QueryExp queryExpr,
+                                    String attribute) throws IOException;
+
+    /**
+     * Open a stream of the attributes of the matching MBeans, read with
+     * {@link #nextBatch(long, long, TimeUnit)}
+     * 
+     * @return the id of the stream
+     */
+    public long openAttributesStream(ObjectName name, QueryExp queryExpr,
+                                     String[] attributes) throws IOException;
+
+    /**
+     * Open a stream of the results of invoking the operation on the matching
+     * MBeans, read with {@link #nextBatch(long, long, TimeUnit)}
+     * 
+     * @return the id of the stream
+     */
+    public long openInvokeStream(ObjectName name, QueryExp queryExpr,
+                                 String operationName, Object params[],
+                                 String signature[]) throws IOException;
+
     public Set<ObjectInstance> queryMBeans(ObjectName name, QueryExp query)
                                                                            throws IOException;
 
@@ -210,6 +425,20 @@ public interface NodeMBean {
                                                                                                   ReflectionException,
                                                                                                   IOException;
 
+    /**
+     * Set the attributes of the matching MBeans, answering what has arrived
+     * when the timeout expires. Children and MBeans which have not answered
+     * are marked with a failed result with the message {@link Node#TIMED_OUT}
+     */
+    public Map<ObjectName, OperationResult<AttributeList>> setAttributes(ObjectName name,
+                                                                         QueryExp queryExpr,
+                                                                         AttributeList attributes,
+                                                                         long timeout,
+                                                                         TimeUnit unit)
+                                                                                       throws InstanceNotFoundException,
+                                                                                       ReflectionException,
+                                                                                       IOException;
+
     int getMBeanCount(ObjectName filter, QueryExp queryExpr);
 
     <T> Map<ObjectName, OperationResult<T>> invoke(ObjectName name,
@@ -221,4 +450,44 @@ public interface NodeMBean {
                                                                       MBeanException,
                                                                       ReflectionException,
                                                                       IOException;
+
+    /**
+     * Invoke the operation on the matching MBeans, answering what has arrived
+     * when the timeout expires. Children and MBeans which have not answered
+     * are marked with a failed result with the message {@link Node#TIMED_OUT}
+     */
+    <T> Map<ObjectName, OperationResult<T>> invoke(ObjectName name,
+                                                   QueryExp queryExpr,
+                                                   String operationName,
+                                                   Object params[],
+                                                   String signature[],
+                                                   long timeout, TimeUnit unit)
+                                                                               throws InstanceNotFoundException,
+                                                                               MBeanException,
+                                                                               ReflectionException,
+                                                                               IOException;
+
+    /**
+     * Answer the k matching MBeans with the highest (or lowest) numeric value
+     * of the attribute, best first. Each node retains only its k best, so at
+     * most k entries are answered by each child
+     */
+    public Map<ObjectName, Number> top(ObjectName name, QueryExp queryExpr,
+                                       String attribute, int k,
+                                       boolean highest)
+                                                       throws MBeanException,
+                                                       ReflectionException,
+                                                       IOException;
+
+    /**
+     * Answer the stack trace recorded for a failed {@link OperationResult},
+     * searching this node and its children. Each process retains the traces
+     * of its 1024 most recently seen distinct failures, within 4M characters
+     * in total, so the trace of an old failure may no longer be available
+     * 
+     * @param traceId
+     *            - the trace id of the result
+     * @return the stack trace, or null if no node in the tree recorded it
+     */
+    public String getStackTrace(long traceId) throws IOException;
 }
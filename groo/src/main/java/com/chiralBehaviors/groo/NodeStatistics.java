@@ -0,0 +1,433 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * The operational statistics of a node. Recording is done on the hot path of
+ * the node's operations, so all counters are striped adders and nothing is
+ * locked; the readings are therefore not an atomic snapshot.
+ * 
+ * @author hhildebrand
+ * 
+ */
+public class NodeStatistics implements NodeStatisticsMBean {
+    private static class ChildStatistics {
+        private final LongAdder errors   = new LongAdder();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+    }
+
+    private static class OperationStatistics {
+        private final LongAdder[] buckets = new LongAdder[BUCKETS];
+        private final LongAdder   count   = new LongAdder();
+        private final LongAdder   nanos   = new LongAdder();
+
+        private OperationStatistics() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        private void record(long elapsed) {
+            count.increment();
+            nanos.add(elapsed);
+            buckets[bucket(TimeUnit.NANOSECONDS.toMicros(elapsed))].increment();
+        }
+    }
+
+    /**
+     * The timing of a synchronous operation, recorded when closed
+     */
+    final class Timing implements AutoCloseable {
+        private final String operation;
+        private final long   start;
+
+        private Timing(String operation) {
+            this.operation = operation;
+            start = begin();
+        }
+
+        /* (non-Javadoc)
+         * @see java.lang.AutoCloseable#close()
+         */
+        @Override
+        public void close() {
+            end(operation, start);
+        }
+    }
+
+    /**
+     * The suffix appended to the domain of a node to form the domain of its
+     * statistics
+     */
+    public static final String                              DOMAIN_SUFFIX = ".statistics";
+
+    private static final int                                 BUCKETS       = 40;
+
+    /**
+     * @param node
+     *            - the name of the node
+     * @return the name the statistics of the node are registered under
+     * @throws MalformedObjectNameException
+     */
+    public static ObjectName nameFor(ObjectName node)
+                                                     throws MalformedObjectNameException {
+        return new ObjectName(node.getDomain() + DOMAIN_SUFFIX,
+                              node.getKeyPropertyList());
+    }
+
+    private static int bucket(long micros) {
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    private final ConcurrentMap<ObjectName, ChildStatistics> children   = new ConcurrentHashMap<>();
+    private final Executor                                   executor;
+    private final LongAdder                                  fanOut     = new LongAdder();
+    private final LongAdder                                  fanOuts    = new LongAdder();
+    private final LongAdder                                  inFlight   = new LongAdder();
+    private final LongAccumulator                            maxFanOut  = new LongAccumulator(Math::max, 0);
+    private final ConcurrentMap<String, OperationStatistics> operations = new ConcurrentHashMap<>();
+    private final LongAdder                                  queued     = new LongAdder();
+    private final Executor                                   tracked;
+
+    /**
+     * @param executor
+     *            - the executor of the node, whose queue depth is tracked
+     */
+    public NodeStatistics(final Executor executor) {
+        this.executor = executor;
+        tracked = new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                queued.increment();
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        queued.decrement();
+                        command.run();
+                    }
+                });
+            }
+        };
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeStatisticsMBean#getChildErrors()
+     */
+    @Override
+    public Map<String, Long> getChildErrors() {
+        Map<String, Long> errors = new TreeMap<>();
+        for (Map.Entry<ObjectName, ChildStatistics> entry : children.entrySet()) {
+            errors.put(entry.getKey().toString(), entry.getValue().errors.sum());
+        }
+        return errors;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeStatisticsMBean#getChildRequests()
+     */
+    @Override
+    public Map<String, Long> getChildRequests() {
+        Map<String, Long> requests = new TreeMap<>();
+        for (Map.Entry<ObjectName, ChildStatistics> entry : children.entrySet()) {
+            requests.put(entry.getKey().toString(),
+                         entry.getValue().requests.sum());
+        }
+        return requests;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeStatisticsMBean#getChildTimeouts()
+     */
+    @Override
+    public Map<String, Long> getChildTimeouts() {
+        Map<String, Long> timeouts = new TreeMap<>();
+        for (Map.Entry<ObjectName, ChildStatistics> entry : children.entrySet()) {
+            timeouts.put(entry.getKey().toString(),
+                         entry.getValue().timeouts.sum());
+        }
+        return timeouts;
+    }
+
+    /**
+     * @return the executor the statistics were created with
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeStatisticsMBean#getExecutorQueueDepth()
+     */
+    @Override
+    public long getExecutorQueueDepth() {
+        return queued.sum();
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeStatisticsMBean#getInFlight()
+     */
+    @Override
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeStatisticsMBean#getMaxFanOut()
+     */
+    @Override
+    public long getMaxFanOut() {
+        return maxFanOut.get();
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeStatisticsMBean#getMeanFanOut()
+     */
+    @Override
+    public double getMeanFanOut() {
+        long count = fanOuts.sum();
+        return count == 0 ? 0.0 : (double) fanOut.sum() / count;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeStatisticsMBean#getMeanLatencies()
+     */
+    @Override
+    public Map<String, Double> getMeanLatencies() {
+        Map<String, Double> latencies = new TreeMap<>();
+        for (Map.Entry<String, OperationStatistics> entry : operations.entrySet()) {
+            long count = entry.getValue().count.sum();
+            if (count != 0) {
+                latencies.put(entry.getKey(),
+                              entry.getValue().nanos.sum() / 1000.0 / count);
+            }
+        }
+        return latencies;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeStatisticsMBean#getOperationCounts()
+     */
+    @Override
+    public Map<String, Long> getOperationCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (Map.Entry<String, OperationStatistics> entry : operations.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().count.sum());
+        }
+        return counts;
+    }
+
+    /**
+     * @return the executor to run the node's tasks on, tracking the tasks
+     *         which have yet to start
+     */
+    public Executor getTrackedExecutor() {
+        return tracked;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeStatisticsMBean#latencyHistogram(java.lang.String)
+     */
+    @Override
+    public long[] latencyHistogram(String operation) {
+        long[] histogram = new long[BUCKETS];
+        OperationStatistics stats = operations.get(operation);
+        if (stats != null) {
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram[i] = stats.buckets[i].sum();
+            }
+        }
+        return histogram;
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeStatisticsMBean#latencyQuantile(java.lang.String, double)
+     */
+    @Override
+    public long latencyQuantile(String operation, double quantile) {
+        if (quantile < 0.0 || quantile > 1.0) {
+            throw new IllegalArgumentException(
+                                               String.format("Quantile must be between 0 and 1: %s",
+                                                             quantile));
+        }
+        long[] histogram = latencyHistogram(operation);
+        long total = 0;
+        for (long count : histogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return -1;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                return 1L << i;
+            }
+        }
+        return 1L << (BUCKETS - 1);
+    }
+
+    /* (non-Javadoc)
+     * @see com.chiralBehaviors.groo.NodeStatisticsMBean#reset()
+     */
+    @Override
+    public void reset() {
+        children.clear();
+        operations.clear();
+        fanOut.reset();
+        fanOuts.reset();
+        maxFanOut.reset();
+    }
+
+    /**
+     * Mark the start of an operation
+     * 
+     * @return the start time to pass to {@link #end(String, long)}
+     */
+    long begin() {
+        inFlight.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Answer the task which records the request of the child and its failure
+     * 
+     * @param child
+     * @param task
+     * @return
+     */
+    <V> Callable<V> child(final NodeMBean child, final Callable<V> task) {
+        ObjectName name = child.getName();
+        if (name == null) {
+            return task;
+        }
+        final ChildStatistics stats = childStatistics(name);
+        return new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                stats.requests.increment();
+                try {
+                    return task.call();
+                } catch (InstanceNotFoundException | InterruptedException e) {
+                    throw e;
+                } catch (Exception e) {
+                    stats.errors.increment();
+                    throw e;
+                }
+            }
+        };
+    }
+
+    /**
+     * Mark the end of an operation
+     * 
+     * @param operation
+     * @param start
+     *            - the time answered by {@link #begin()}
+     */
+    void end(String operation, long start) {
+        long elapsed = System.nanoTime() - start;
+        inFlight.decrement();
+        OperationStatistics stats = operations.get(operation);
+        if (stats == null) {
+            stats = operations.computeIfAbsent(operation,
+                                               o -> new OperationStatistics());
+        }
+        stats.record(elapsed);
+    }
+
+    /**
+     * Mark the end of an asynchronous operation, when its answer completes
+     * 
+     * @param operation
+     * @param start
+     *            - the time answered by {@link #begin()}
+     * @param answer
+     *            - the answer of the operation
+     * @return the answer, completing once the operation is recorded
+     */
+    <V> CompletableFuture<V> end(final String operation, final long start,
+                                 CompletableFuture<V> answer) {
+        return answer.whenComplete((value, e) -> end(operation, start));
+    }
+
+    /**
+     * Record the number of tasks an operation fanned out to
+     * 
+     * @param width
+     */
+    void fannedOut(int width) {
+        fanOut.add(width);
+        fanOuts.increment();
+        maxFanOut.accumulate(width);
+    }
+
+    /**
+     * Discard the statistics of the child
+     * 
+     * @param child
+     */
+    void remove(ObjectName child) {
+        children.remove(child);
+    }
+
+    /**
+     * Time a synchronous operation, recording it when the answered timing is
+     * closed
+     * 
+     * @param operation
+     * @return the timing of the operation
+     */
+    Timing time(String operation) {
+        return new Timing(operation);
+    }
+
+    /**
+     * Record the timeout of a request of the child
+     * 
+     * @param child
+     */
+    void timedOut(ObjectName child) {
+        childStatistics(child).timeouts.increment();
+    }
+
+    private ChildStatistics childStatistics(ObjectName child) {
+        ChildStatistics stats = children.get(child);
+        if (stats == null) {
+            stats = children.computeIfAbsent(child, c -> new ChildStatistics());
+        }
+        return stats;
+    }
+}
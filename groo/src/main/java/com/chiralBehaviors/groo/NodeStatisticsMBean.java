@@ -0,0 +1,100 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.util.Map;
+
+/**
+ * The operational statistics of a node. When the node publishes them, they
+ * are registered next to the node so that the statistics of a whole tree may
+ * be gathered through the tree itself. Latencies are in microseconds.
+ * 
+ * @author hhildebrand
+ * 
+ */
+public interface NodeStatisticsMBean {
+
+    /**
+     * @return the number of child requests which failed, by child name
+     */
+    public Map<String, Long> getChildErrors();
+
+    /**
+     * @return the number of requests made of each child, by child name
+     */
+    public Map<String, Long> getChildRequests();
+
+    /**
+     * @return the number of requests which timed out, by child name
+     */
+    public Map<String, Long> getChildTimeouts();
+
+    /**
+     * @return the number of tasks handed to the executor by the node which
+     *         have not yet started
+     */
+    public long getExecutorQueueDepth();
+
+    /**
+     * @return the number of operations in progress on the node
+     */
+    public long getInFlight();
+
+    /**
+     * @return the largest number of tasks an operation has fanned out to
+     */
+    public long getMaxFanOut();
+
+    /**
+     * @return the mean number of tasks an operation fans out to
+     */
+    public double getMeanFanOut();
+
+    /**
+     * @return the mean latency of each operation
+     */
+    public Map<String, Double> getMeanLatencies();
+
+    /**
+     * @return the number of completed invocations, by operation
+     */
+    public Map<String, Long> getOperationCounts();
+
+    /**
+     * @param operation
+     * @return the latency histogram of the operation. Bucket 0 counts the
+     *         latencies under 1 microsecond, bucket i the latencies from
+     *         2^(i-1) up to 2^i microseconds
+     */
+    public long[] latencyHistogram(String operation);
+
+    /**
+     * @param operation
+     * @param quantile
+     *            - the quantile, between 0 and 1
+     * @return the upper bound of the histogram bucket holding the quantile
+     *         of the operation's latency, or -1 if the operation has not been
+     *         invoked
+     */
+    public long latencyQuantile(String operation, double quantile);
+
+    /**
+     * Clear the statistics
+     */
+    public void reset();
+}
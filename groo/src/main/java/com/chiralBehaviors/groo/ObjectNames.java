@@ -0,0 +1,258 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * The process wide intern pool of ObjectNames, and the dictionary encoding of
+ * names on the wire. Identical names share a single instance, and a name
+ * decoded from the wire which is already in the pool is not parsed again.
+ * <p>
+ * Interning does not lock. The pool may exceed its bound by a sixteenth
+ * before a single sweep evicts the least recently used names, so the
+ * eviction is approximately least recently used. The dictionary encoding is
+ * used by the columnar results and the requests of the node transport.
+ * 
+ * @author hhildebrand
+ * 
+ */
+final class ObjectNames {
+    private static class Pooled {
+        private final ObjectName name;
+        // racy by design: the eviction only needs an approximate recency
+        private long             used = System.nanoTime();
+
+        private Pooled(ObjectName name) {
+            this.name = name;
+        }
+    }
+
+    /**
+     * Decodes the names written by a {@link Writer}
+     */
+    static class Reader {
+        private final StringBuilder builder = new StringBuilder();
+        private final ObjectInput   in;
+        private final List<String>  tokens  = new ArrayList<>();
+
+        Reader(ObjectInput in) {
+            this.in = in;
+        }
+
+        ObjectName read() throws IOException {
+            int properties = in.readInt();
+            if (properties == NULL) {
+                return null;
+            }
+            try {
+                if (properties == CANONICAL) {
+                    return intern(token());
+                }
+                builder.setLength(0);
+                builder.append(token()).append(':');
+                for (int i = 0; i < properties; i++) {
+                    if (i > 0) {
+                        builder.append(',');
+                    }
+                    builder.append(token()).append('=').append(token());
+                }
+                return intern(builder.toString());
+            } catch (MalformedObjectNameException e) {
+                InvalidObjectException ioe = new InvalidObjectException(
+                                                                        e.getMessage());
+                ioe.initCause(e);
+                throw ioe;
+            }
+        }
+
+        private String token() throws IOException {
+            int index = in.readInt();
+            if (index != NEW_TOKEN) {
+                return tokens.get(index);
+            }
+            String token = in.readUTF();
+            tokens.add(token);
+            return token;
+        }
+    }
+
+    /**
+     * Encodes names as their domain and key properties, written once per
+     * stream and referenced by index thereafter
+     */
+    static class Writer {
+        private final ObjectOutput         out;
+        private final Map<String, Integer> tokens = new HashMap<>();
+
+        Writer(ObjectOutput out) {
+            this.out = out;
+        }
+
+        void write(ObjectName name) throws IOException {
+            if (name == null) {
+                out.writeInt(NULL);
+                return;
+            }
+            String canonical = name.getCanonicalName();
+            int colon = canonical.indexOf(':');
+            if (name.isPattern() || canonical.indexOf('"', colon) >= 0) {
+                out.writeInt(CANONICAL);
+                token(canonical);
+                return;
+            }
+            String[] properties = canonical.substring(colon + 1).split(",");
+            out.writeInt(properties.length);
+            token(name.getDomain());
+            for (String property : properties) {
+                int equals = property.indexOf('=');
+                token(property.substring(0, equals));
+                token(property.substring(equals + 1));
+            }
+        }
+
+        private void token(String token) throws IOException {
+            Integer index = tokens.get(token);
+            if (index != null) {
+                out.writeInt(index);
+                return;
+            }
+            tokens.put(token, tokens.size());
+            out.writeInt(NEW_TOKEN);
+            out.writeUTF(token);
+        }
+    }
+
+    /**
+     * The bound on the number of pooled names
+     */
+    static final int                                   MAX_NAMES = 1 << 16;
+
+    private static final int                           CANONICAL = -1;
+    private static final int                           NEW_TOKEN = -1;
+    private static final int                           NULL      = -2;
+    private static final ConcurrentMap<String, Pooled> pool      = new ConcurrentHashMap<>();
+    private static final AtomicBoolean                 sweeping  = new AtomicBoolean();
+
+    /**
+     * @param name
+     * @return the pooled instance of the name
+     */
+    static ObjectName intern(ObjectName name) {
+        if (name == null) {
+            return null;
+        }
+        String canonical = name.getCanonicalName();
+        ObjectName interned = pooled(canonical);
+        if (interned != null) {
+            return interned;
+        }
+        Pooled existing = pool.putIfAbsent(canonical, new Pooled(name));
+        if (existing != null) {
+            existing.used = System.nanoTime();
+            return existing.name;
+        }
+        if (pool.size() > MAX_NAMES + (MAX_NAMES >> 4)) {
+            sweep();
+        }
+        return name;
+    }
+
+    /**
+     * @param canonicalName
+     * @return the pooled instance of the name, parsing the name only if it is
+     *         not pooled
+     * @throws MalformedObjectNameException
+     */
+    static ObjectName intern(String canonicalName)
+                                                  throws MalformedObjectNameException {
+        ObjectName interned = pooled(canonicalName);
+        return interned != null ? interned
+                               : intern(ObjectName.getInstance(canonicalName));
+    }
+
+    /**
+     * @param canonicalName
+     * @return the pooled instance of the name, or null if it is not pooled
+     */
+    private static ObjectName pooled(String canonicalName) {
+        Pooled pooled = pool.get(canonicalName);
+        if (pooled == null) {
+            return null;
+        }
+        pooled.used = System.nanoTime();
+        return pooled.name;
+    }
+
+    /**
+     * Evict the least recently used names until the pool is within its
+     * bound. Only one thread sweeps at a time; the others carry on
+     */
+    private static void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int excess = pool.size() - MAX_NAMES;
+            if (excess <= 0) {
+                return;
+            }
+            long[] used = new long[pool.size()];
+            int count = 0;
+            for (Pooled pooled : pool.values()) {
+                if (count == used.length) {
+                    break;
+                }
+                used[count++] = pooled.used;
+            }
+            if (count == 0) {
+                return;
+            }
+            Arrays.sort(used, 0, count);
+            long cutoff = used[Math.min(excess, count) - 1];
+            for (Map.Entry<String, Pooled> entry : pool.entrySet()) {
+                if (excess <= 0) {
+                    break;
+                }
+                if (entry.getValue().used <= cutoff
+                    && pool.remove(entry.getKey(), entry.getValue())) {
+                    excess--;
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private ObjectNames() {
+    }
+}
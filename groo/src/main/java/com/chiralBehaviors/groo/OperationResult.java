@@ -21,10 +21,49 @@ import java.io.Serializable;
 import java.io.StringWriter;
 
 /**
+ * The result of an operation on a single MBean. Results are compact on the
+ * wire: successes without a value share a single instance, and a failure
+ * caused by an exception carries the class of the exception and the id of
+ * its stack trace rather than the trace itself. The trace is held by the
+ * process in which the failure occurred, and may be fetched on demand
+ * through {@link NodeMBean#getStackTrace(long)}.
+ * 
  * @author hhildebrand
  * 
  */
 public class OperationResult<T> implements Serializable {
+    /**
+     * The outcome of the operation
+     */
+    public enum Code {
+        CIRCUIT_OPEN, EXCEPTION, FAILURE, SUCCESS, TIMED_OUT;
+    }
+
+    private static final long               serialVersionUID = 1L;
+
+    private static final String             SUCCESS          = "success";
+    private static final OperationResult<?> SUCCEEDED        = new OperationResult<>(Code.SUCCESS, null, null, null, null, 0L);
+
+    /**
+     * @param message
+     * @return a failed result
+     */
+    public static <T> OperationResult<T> failure(String message) {
+        return new OperationResult<>(Code.FAILURE, null, message, null, null,
+                                     0L);
+    }
+
+    /**
+     * @param e
+     * @return the failed result caused by the exception. The stack trace of
+     *         the exception is recorded in this process and referenced by id
+     */
+    public static <T> OperationResult<T> failure(Throwable e) {
+        return new OperationResult<>(Code.EXCEPTION, null, e.getMessage(),
+                                     null, e.getClass().getName(),
+                                     StackTraces.record(e));
+    }
+
     public static String getStackTrace(Throwable e) {
         StringWriter out = new StringWriter();
         PrintWriter s = new PrintWriter(out);
@@ -33,17 +72,24 @@ public class OperationResult<T> implements Serializable {
         return out.toString();
     }
 
-    private static final long   serialVersionUID = 1L;
-
-    private static final String SUCCESS          = "success";
+    /**
+     * @return the shared, successful result without a value
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> OperationResult<T> success() {
+        return (OperationResult<T>) SUCCEEDED;
+    }
 
-    private final boolean       success;
-    private final T             result;
-    private final String        message;
-    private final String        stackTrace;
+    private final Code    code;
+    private final String  exceptionClass;
+    private final String  message;
+    private final T       result;
+    private final String  stackTrace;
+    private final boolean success;
+    private final long    traceId;
 
     public OperationResult() {
-        this(true, SUCCESS);
+        this(Code.SUCCESS, null, null, null, null, 0L);
     }
 
     /**
@@ -54,18 +100,26 @@ public class OperationResult<T> implements Serializable {
     @ConstructorProperties({ "success", "result", "message", "stackTrace" })
     public OperationResult(boolean success, T result, String message,
                            String stackTrace) {
-        this.success = success;
-        this.message = message;
-        this.stackTrace = stackTrace;
-        this.result = result;
+        this(success ? Code.SUCCESS : stackTrace == null ? Code.FAILURE
+                                                        : Code.EXCEPTION,
+             result, message, stackTrace, null, 0L);
     }
 
     public OperationResult(T result) {
-        this(true, result, "success", (String) null);
+        this(Code.SUCCESS, result, null, null, null, 0L);
     }
 
+    /**
+     * @param b
+     *            - true if the operation succeeded, in which case the
+     *            exception is not recorded
+     * @param result
+     * @param msg
+     * @param e
+     */
     public OperationResult(boolean b, T result, String msg, Throwable e) {
-        this(b, result, msg, getStackTrace(e));
+        this(b ? Code.SUCCESS : Code.EXCEPTION, result, msg, null,
+             b ? null : e.getClass().getName(), b ? 0L : StackTraces.record(e));
     }
 
     /**
@@ -77,14 +131,54 @@ public class OperationResult<T> implements Serializable {
     }
 
     public OperationResult(String msg, Throwable e) {
-        this(false, null, msg, getStackTrace(e));
+        this(false, null, msg, e);
+    }
+
+    /**
+     * @param code
+     * @param message
+     */
+    OperationResult(Code code, String message) {
+        this(code, null, message, null, null, 0L);
+    }
+
+    private OperationResult(Code code, T result, String message,
+                            String stackTrace, String exceptionClass,
+                            long traceId) {
+        this.code = code;
+        success = code == Code.SUCCESS;
+        this.result = result;
+        this.message = message;
+        this.stackTrace = stackTrace;
+        this.exceptionClass = exceptionClass;
+        this.traceId = traceId;
+    }
+
+    /**
+     * @return the outcome of the operation
+     */
+    public Code getCode() {
+        if (code == null) {
+            // serialized by a version without codes
+            return success ? Code.SUCCESS : stackTrace == null ? Code.FAILURE
+                                                               : Code.EXCEPTION;
+        }
+        return code;
+    }
+
+    /**
+     * @return the class name of the exception which caused the failure, or
+     *         null
+     */
+    public String getExceptionClass() {
+        return exceptionClass;
     }
 
     /**
      * @return the message
      */
     public String getMessage() {
-        return message;
+        return message == null && success ? SUCCESS : message;
     }
 
     public T getResult() {
@@ -92,10 +186,21 @@ public class OperationResult<T> implements Serializable {
     }
 
     /**
-     * @return the stackTrace
+     * @return the stackTrace, if carried by the result or recorded in this
+     *         process
      */
     public String getStackTrace() {
-        return stackTrace;
+        if (stackTrace != null || traceId == 0L) {
+            return stackTrace;
+        }
+        return StackTraces.get(traceId);
+    }
+
+    /**
+     * @return the id of the recorded stack trace of the failure, or 0
+     */
+    public long getTraceId() {
+        return traceId;
     }
 
     /**
@@ -110,8 +215,15 @@ public class OperationResult<T> implements Serializable {
      */
     @Override
     public String toString() {
-        return "OperationResult [success=" + success + ", message=" + message
-               + ", stackTrace=" + stackTrace + "]";
+        return "OperationResult [success=" + success + ", message="
+               + getMessage() + ", exceptionClass=" + exceptionClass
+               + ", traceId=" + traceId + ", stackTrace=" + stackTrace + "]";
     }
 
+    private Object readResolve() {
+        if (success && result == null && message == null) {
+            return SUCCEEDED;
+        }
+        return this;
+    }
 }
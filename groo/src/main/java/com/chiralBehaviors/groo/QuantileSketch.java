@@ -0,0 +1,241 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+import java.io.Serializable;
+
+/**
+ * A mergeable sketch of the distribution of a set of values, answering
+ * quantiles to within a fixed relative accuracy. Values are counted in
+ * logarithmically sized buckets, so the sketch of any number of values is a
+ * few kilobytes at most, and two sketches of the same accuracy merge exactly
+ * by adding their bucket counts. This is the DDSketch construction; the
+ * number of buckets is bounded by collapsing the buckets of the smallest
+ * magnitudes.
+ * 
+ * @author hhildebrand
+ * 
+ */
+public class QuantileSketch implements Serializable {
+    /**
+     * The counts of a contiguous range of bucket indexes
+     */
+    private static class Bins implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private long[]            counts           = new long[0];
+        private int               offset;
+
+        private void add(int index, long count, int maxBins) {
+            if (counts.length == 0) {
+                counts = new long[1];
+                offset = index;
+            } else if (index < offset) {
+                int high = offset + counts.length - 1;
+                index = Math.max(index, high - maxBins + 1);
+                resize(index, high);
+            } else if (index >= offset + counts.length) {
+                resize(Math.max(offset, index - maxBins + 1), index);
+            }
+            counts[index - offset] += count;
+        }
+
+        /**
+         * Resize the bins to cover the range of indexes, folding the counts
+         * of any lower indexes into the lowest bin
+         */
+        private void resize(int low, int high) {
+            long[] resized = new long[high - low + 1];
+            for (int i = 0; i < counts.length; i++) {
+                resized[Math.max(offset + i, low) - low] += counts[i];
+            }
+            counts = resized;
+            offset = low;
+        }
+
+        private void merge(Bins bins, int maxBins) {
+            for (int i = 0; i < bins.counts.length; i++) {
+                if (bins.counts[i] != 0) {
+                    add(bins.offset + i, bins.counts[i], maxBins);
+                }
+            }
+        }
+    }
+
+    /**
+     * The default bound on the number of buckets of each sign
+     */
+    public static final int    DEFAULT_MAX_BINS          = 2048;
+
+    /**
+     * The default relative accuracy of the answered quantiles
+     */
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+
+    private static final long  serialVersionUID          = 1L;
+
+    private long               count;
+    private final double       gamma;
+    private final double       logGamma;
+    private final int          maxBins;
+    private final Bins         negative                  = new Bins();
+    private final Bins         positive                  = new Bins();
+    private final double       relativeAccuracy;
+    private long               zeros;
+
+    public QuantileSketch() {
+        this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MAX_BINS);
+    }
+
+    /**
+     * @param relativeAccuracy
+     *            - the relative error bound of the answered quantiles,
+     *            between 0 and 1
+     * @param maxBins
+     *            - the bound on the number of buckets of each sign
+     */
+    public QuantileSketch(double relativeAccuracy, int maxBins) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException(
+                                               String.format("Relative accuracy must be between 0 and 1: %s",
+                                                             relativeAccuracy));
+        }
+        if (maxBins < 1) {
+            throw new IllegalArgumentException(
+                                               String.format("Max bins must be positive: %s",
+                                                             maxBins));
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.maxBins = maxBins;
+        gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        logGamma = Math.log(gamma);
+    }
+
+    /**
+     * Add the value to the sketch. NaN is ignored
+     * 
+     * @param value
+     */
+    public void add(double value) {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        if (value > Double.MIN_NORMAL) {
+            positive.add(index(value), 1, maxBins);
+        } else if (value < -Double.MIN_NORMAL) {
+            negative.add(index(-value), 1, maxBins);
+        } else {
+            zeros++;
+        }
+        count++;
+    }
+
+    /**
+     * @return the number of values added to the sketch
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Answer the estimate of the quantile of the values
+     * 
+     * @param quantile
+     *            - between 0 and 1, i.e. 0.99 for the 99th percentile
+     * @return the estimate, within the relative accuracy of the sketch, or
+     *         NaN if the sketch is empty
+     */
+    public double getQuantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException(
+                                               String.format("Quantile must be between 0 and 1: %s",
+                                                             quantile));
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) (quantile * (count - 1));
+        long seen = 0;
+        for (int i = negative.counts.length - 1; i >= 0; i--) {
+            seen += negative.counts[i];
+            if (seen > rank) {
+                return -value(negative.offset + i);
+            }
+        }
+        seen += zeros;
+        if (seen > rank) {
+            return 0;
+        }
+        for (int i = 0; i < positive.counts.length; i++) {
+            seen += positive.counts[i];
+            if (seen > rank) {
+                return value(positive.offset + i);
+            }
+        }
+        return value(positive.offset + positive.counts.length - 1);
+    }
+
+    /**
+     * @return the relative error bound of the answered quantiles
+     */
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Merge the sketch into the receiver
+     * 
+     * @param sketch
+     *            - a sketch of the same relative accuracy
+     */
+    public void merge(QuantileSketch sketch) {
+        if (sketch == null || sketch.count == 0) {
+            return;
+        }
+        if (sketch.gamma != gamma) {
+            throw new IllegalArgumentException(
+                                               String.format("Cannot merge sketches of relative accuracy %s and %s",
+                                                             relativeAccuracy,
+                                                             sketch.relativeAccuracy));
+        }
+        positive.merge(sketch.positive, maxBins);
+        negative.merge(sketch.negative, maxBins);
+        zeros += sketch.zeros;
+        count += sketch.count;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "QuantileSketch [count=" + count + ", relativeAccuracy="
+               + relativeAccuracy + "]";
+    }
+
+    private int index(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / logGamma);
+    }
+
+    /**
+     * @return the estimate of the values of the bucket, equidistant in
+     *         relative terms from its bounds
+     */
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+}
@@ -0,0 +1,206 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+import javax.management.QueryExp;
+
+/**
+ * A bounded cache of the results of the topology queries of a node, keyed on
+ * the operation, pattern and query. Entries expire after the time to live,
+ * and the whole cache is invalidated when the topology is known to change.
+ * Each invalidation advances the generation of the cache, so a result
+ * computed across an invalidation is never cached.
+ * 
+ * @author hhildebrand
+ * 
+ */
+class QueryCache {
+    private static class Entry {
+        private final long   expires;
+        private final Object value;
+
+        private Entry(Object value, long expires) {
+            this.value = value;
+            this.expires = expires;
+        }
+    }
+
+    private final ConcurrentMap<List<Object>, Entry> entries    = new ConcurrentHashMap<>();
+    private final AtomicLong                         generation = new AtomicLong();
+    private volatile int                             maxEntries;
+    private volatile long                            ttl;
+
+    /**
+     * @param ttl
+     *            - the time to live of the entries, in milliseconds. 0
+     *            disables the cache
+     * @param maxEntries
+     *            - the bound on the number of entries
+     */
+    QueryCache(long ttl, int maxEntries) {
+        setTtl(ttl);
+        setMaxEntries(maxEntries);
+    }
+
+    /**
+     * @return the generation to pass to
+     *         {@link #put(String, ObjectName, QueryExp, Object, long)} for a
+     *         result about to be computed
+     */
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * @return the unexpired result of the operation, or null
+     */
+    @SuppressWarnings("unchecked")
+    <T> T get(String operation, ObjectName pattern, QueryExp query) {
+        if (ttl == 0) {
+            return null;
+        }
+        List<Object> key = key(operation, pattern, query);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expires - System.nanoTime() <= 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return (T) entry.value;
+    }
+
+    int getMaxEntries() {
+        return maxEntries;
+    }
+
+    long getTtl() {
+        return ttl;
+    }
+
+    /**
+     * Discard all the entries
+     */
+    void invalidate() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Cache the result of the operation, unless the cache has been
+     * invalidated since the generation
+     */
+    void put(String operation, ObjectName pattern, QueryExp query,
+             Object value, long generation) {
+        long timeToLive = ttl;
+        if (timeToLive == 0 || this.generation.get() != generation) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (entries.size() >= maxEntries) {
+            evict(now);
+        }
+        long expires = now + TimeUnit.MILLISECONDS.toNanos(timeToLive);
+        entries.put(key(operation, pattern, query), new Entry(value, expires));
+        if (this.generation.get() != generation) {
+            entries.clear();
+        }
+    }
+
+    void setMaxEntries(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException(
+                                               String.format("Max entries must be positive: %s",
+                                                             maxEntries));
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    void setTtl(long ttl) {
+        if (ttl < 0) {
+            throw new IllegalArgumentException(
+                                               String.format("Time to live must not be negative: %s",
+                                                             ttl));
+        }
+        this.ttl = ttl;
+        if (ttl == 0) {
+            invalidate();
+        }
+    }
+
+    /**
+     * Make room for an entry, removing the expired entries or, failing that,
+     * the entry closest to expiring
+     */
+    private void evict(long now) {
+        Map.Entry<List<Object>, Entry> oldest = null;
+        for (Iterator<Map.Entry<List<Object>, Entry>> i = entries.entrySet().iterator(); i.hasNext();) {
+            Map.Entry<List<Object>, Entry> entry = i.next();
+            if (entry.getValue().expires - now <= 0) {
+                i.remove();
+            } else if (oldest == null
+                       || entry.getValue().expires - oldest.getValue().expires < 0) {
+                oldest = entry;
+            }
+        }
+        if (oldest != null && entries.size() >= maxEntries) {
+            entries.remove(oldest.getKey(), oldest.getValue());
+        }
+    }
+
+    /**
+     * QueryExp does not define equality, and the rendering of a query does
+     * not distinguish the queries of other classes or state. A query is
+     * keyed by its serialized form instead, and a query which cannot be
+     * serialized by its identity
+     * 
+     * @param query
+     * @return the key of the query
+     */
+    static Object queryKey(QueryExp query) {
+        if (query == null) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(query);
+        } catch (IOException e) {
+            return query;
+        }
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private List<Object> key(String operation, ObjectName pattern,
+                             QueryExp query) {
+        return Arrays.<Object> asList(operation, pattern, queryKey(query));
+    }
+}
@@ -0,0 +1,152 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A selector and the daemon thread which dispatches its ready keys. Channels
+ * are registered, and their interest changed, only on the reactor's thread,
+ * through {@link #execute(Runnable)}.
+ * 
+ * @author hhildebrand
+ * 
+ */
+final class Reactor implements Runnable {
+    /**
+     * The attachment of the keys registered with the reactor
+     */
+    interface Handler {
+        /**
+         * The key is ready. Called on the reactor's thread
+         */
+        void ready(SelectionKey key);
+    }
+
+    private static final Logger   log     = LoggerFactory.getLogger(Reactor.class);
+
+    private final Queue<Runnable> actions = new ConcurrentLinkedQueue<>();
+    private volatile boolean      running = true;
+    private final Selector        selector;
+    private final Thread          thread;
+
+    /**
+     * @param name
+     *            - the name of the reactor's thread
+     * @throws IOException
+     */
+    Reactor(String name) throws IOException {
+        selector = Selector.open();
+        thread = new Thread(this, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stop the reactor, closing the channels registered with it
+     */
+    void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Run the action on the reactor's thread
+     * 
+     * @param action
+     */
+    void execute(Runnable action) {
+        actions.add(action);
+        selector.wakeup();
+    }
+
+    /**
+     * @return the selector of the reactor. Register only on the reactor's
+     *         thread
+     */
+    Selector getSelector() {
+        return selector;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Runnable#run()
+     */
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+                Runnable action;
+                while ((action = actions.poll()) != null) {
+                    try {
+                        action.run();
+                    } catch (Throwable e) {
+                        log.warn(String.format("Error running action on %s",
+                                               thread.getName()), e);
+                    }
+                }
+                Iterator<SelectionKey> ready = selector.selectedKeys().iterator();
+                while (ready.hasNext()) {
+                    SelectionKey key = ready.next();
+                    ready.remove();
+                    try {
+                        if (key.isValid()) {
+                            ((Handler) key.attachment()).ready(key);
+                        }
+                    } catch (CancelledKeyException e) {
+                        // the channel was closed concurrently
+                    } catch (Throwable e) {
+                        log.warn(String.format("Error servicing %s on %s",
+                                               key.channel(), thread.getName()),
+                                 e);
+                        try {
+                            key.channel().close();
+                        } catch (IOException ioe) {
+                            // ignored
+                        }
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            log.warn(String.format("%s terminated", thread.getName()), e);
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                try {
+                    key.channel().close();
+                } catch (IOException e) {
+                    // ignored
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                // ignored
+            }
+        }
+    }
+}
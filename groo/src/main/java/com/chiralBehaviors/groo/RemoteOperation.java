@@ -0,0 +1,125 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.lang.reflect.UndeclaredThrowableException;
+
+import javax.management.MBeanException;
+import javax.management.ObjectName;
+import javax.management.RuntimeErrorException;
+import javax.management.RuntimeMBeanException;
+
+/**
+ * An operation of the {@link NodeMBean} interface, invoked directly on the
+ * channel to a remote node rather than through a dynamic proxy. The
+ * signature of the operation is computed, and checked against the
+ * interface, once, when the operation is created.
+ * <p>
+ * The exceptions thrown by the remote node are unwrapped and thrown as is.
+ * The caller rethrows those its operation declares, and wraps the other
+ * checked exceptions in an {@link UndeclaredThrowableException}, as the proxy
+ * would.
+ * 
+ * @author hhildebrand
+ * 
+ */
+final class RemoteOperation {
+    /**
+     * @param getter
+     *            - the name of the getter of the attribute
+     * @return the read of the attribute of the node
+     */
+    static RemoteOperation attribute(String getter) {
+        verify(getter);
+        return new RemoteOperation(getter.substring("get".length()), null);
+    }
+
+    /**
+     * @param name
+     * @param parameterTypes
+     * @return the operation of the node
+     */
+    static RemoteOperation operation(String name, Class<?>... parameterTypes) {
+        String[] signature = new String[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            signature[i] = parameterTypes[i].getName();
+        }
+        verify(name, parameterTypes);
+        return new RemoteOperation(name, signature);
+    }
+
+    private static Exception unwrap(Throwable e) {
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return (Exception) e;
+    }
+
+    private static void verify(String name, Class<?>... parameterTypes) {
+        try {
+            NodeMBean.class.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(
+                                               String.format("No such operation of NodeMBean: %s",
+                                                             name), e);
+        }
+    }
+
+    private final String   name;
+    private final String[] signature;
+
+    private RemoteOperation(String name, String[] signature) {
+        this.name = name;
+        this.signature = signature;
+    }
+
+    /**
+     * Invoke the operation on the target
+     * 
+     * @param channel
+     * @param target
+     * @param params
+     * @return the result of the operation
+     * @throws Exception
+     *             - the exception thrown by the remote node, unwrapped from
+     *             the MBean exception reporting it
+     */
+    Object invoke(NodeChannel channel, ObjectName target, Object[] params)
+                                                                          throws Exception {
+        try {
+            if (signature == null) {
+                return channel.getAttribute(target, name);
+            }
+            return channel.invoke(target, name, params, signature);
+        } catch (MBeanException e) {
+            throw unwrap(e.getTargetException());
+        } catch (RuntimeMBeanException e) {
+            throw unwrap(e.getTargetException());
+        } catch (RuntimeErrorException e) {
+            throw e.getTargetError();
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return name;
+    }
+}
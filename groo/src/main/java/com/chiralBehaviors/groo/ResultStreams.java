@@ -0,0 +1,238 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanException;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The server side of the streaming protocol. Each open stream runs its
+ * producer on the executor, handing batches of results to the consumer through
+ * a bounded queue. A producer which gets ahead of its consumer blocks.
+ * Streams which are not read for longer than the idle timeout are closed by a
+ * reaper, which runs while any stream is open.
+ * 
+ * @author hhildebrand
+ * 
+ */
+class ResultStreams {
+    interface Producer<T> {
+        void produce(ResultHandler<T> sink) throws Exception;
+    }
+
+    private static class Reaper {
+        private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+                                                                    Thread thread = new Thread(
+                                                                                               r,
+                                                                                               "groo-stream-reaper");
+                                                                    thread.setDaemon(true);
+                                                                    return thread;
+                                                                });
+    }
+
+    private static class Stream {
+        private volatile long               lastAccess = System.currentTimeMillis();
+        private Object                      pending;
+        private volatile FutureTask<?>      producer;
+        private final BlockingQueue<Object> queue      = new ArrayBlockingQueue<>(
+                                                                                  CAPACITY);
+    }
+
+    static final int                          CAPACITY     = 64;
+    static final long                         IDLE_TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+
+    private static final Object               END          = new Object();
+    private static final Logger               log          = LoggerFactory.getLogger(ResultStreams.class);
+
+    private final Executor                    executor;
+    private final AtomicLong                  ids          = new AtomicLong();
+    private ScheduledFuture<?>                reaper;
+    private final ConcurrentMap<Long, Stream> streams      = new ConcurrentHashMap<>();
+
+    ResultStreams(Executor executor) {
+        this.executor = executor;
+    }
+
+    void close(long id) {
+        Stream stream = streams.remove(id);
+        if (stream != null) {
+            stream.producer.cancel(true);
+        }
+    }
+
+    void closeAll() {
+        for (Long id : streams.keySet()) {
+            close(id);
+        }
+        synchronized (this) {
+            if (reaper != null) {
+                reaper.cancel(false);
+                reaper = null;
+            }
+        }
+    }
+
+    /**
+     * Answer the batches which have arrived, waiting up to the timeout for the
+     * first
+     * 
+     * @param id
+     * @param timeout
+     * @param unit
+     * @return the batch of results, empty if none arrived in time, or null if
+     *         the stream is exhausted
+     * @throws MBeanException
+     * @throws ReflectionException
+     * @throws IOException
+     *             - if the stream is unknown, never opened or closed after
+     *             being idle
+     * @throws InterruptedException
+     */
+    @SuppressWarnings("unchecked")
+    <T> Map<ObjectName, OperationResult<T>> next(long id, long timeout,
+                                                 TimeUnit unit)
+                                                               throws MBeanException,
+                                                               ReflectionException,
+                                                               IOException,
+                                                               InterruptedException {
+        Stream stream = streams.get(id);
+        if (stream == null) {
+            throw new IOException(String.format("Unknown stream: %s", id));
+        }
+        synchronized (stream) {
+            stream.lastAccess = System.currentTimeMillis();
+            Map<ObjectName, OperationResult<T>> batch = new HashMap<>();
+            Object element = stream.pending != null ? stream.pending
+                                                   : stream.queue.poll(timeout,
+                                                                       unit);
+            stream.pending = null;
+            while (element != null) {
+                if (element == END || element instanceof Exception) {
+                    if (!batch.isEmpty()) {
+                        // deliver the results first, the end on the next read
+                        stream.pending = element;
+                        return batch;
+                    }
+                    streams.remove(id);
+                    if (element instanceof ReflectionException) {
+                        throw (ReflectionException) element;
+                    }
+                    if (element instanceof MBeanException) {
+                        throw (MBeanException) element;
+                    }
+                    if (element instanceof Exception) {
+                        throw new MBeanException((Exception) element);
+                    }
+                    return null;
+                }
+                batch.putAll((Map<ObjectName, OperationResult<T>>) element);
+                element = stream.queue.poll();
+            }
+            return batch;
+        }
+    }
+
+    <T> long open(final Producer<T> producer) {
+        expire();
+        final Stream stream = new Stream();
+        long id = ids.incrementAndGet();
+        stream.producer = new FutureTask<>(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                try {
+                    producer.produce(new ResultHandler<T>() {
+                        @Override
+                        public void onResults(Map<ObjectName, OperationResult<T>> results) {
+                            try {
+                                stream.queue.put(results);
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                throw new CancellationException();
+                            }
+                        }
+                    });
+                    stream.queue.put(END);
+                } catch (InterruptedException | CancellationException e) {
+                    // closed
+                } catch (Exception e) {
+                    stream.queue.put(e);
+                }
+                return null;
+            }
+        });
+        streams.put(id, stream);
+        executor.execute(stream.producer);
+        startReaper();
+        return id;
+    }
+
+    /**
+     * Ensure the reaper is running
+     */
+    private synchronized void startReaper() {
+        if (reaper == null) {
+            reaper = Reaper.SCHEDULER.scheduleWithFixedDelay(this::reap,
+                                                             IDLE_TIMEOUT,
+                                                             IDLE_TIMEOUT,
+                                                             TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Close the idle streams, stopping the reaper once none are open
+     */
+    private void reap() {
+        expire();
+        synchronized (this) {
+            if (streams.isEmpty() && reaper != null) {
+                reaper.cancel(false);
+                reaper = null;
+            }
+        }
+    }
+
+    private void expire() {
+        long expired = System.currentTimeMillis() - IDLE_TIMEOUT;
+        for (Map.Entry<Long, Stream> entry : streams.entrySet()) {
+            if (entry.getValue().lastAccess < expired) {
+                log.info(String.format("Closing idle stream %s", entry.getKey()));
+                close(entry.getKey());
+            }
+        }
+    }
+}
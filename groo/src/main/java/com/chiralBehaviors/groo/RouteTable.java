@@ -0,0 +1,231 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.management.ObjectName;
+
+/**
+ * A size bounded table of the children of a node which own the MBeans of
+ * remote names. The table is only a hint: a missing route costs a broadcast,
+ * and a stale route is discarded when the child no longer has the MBean, so
+ * evicting routes keeps the table bounded without affecting the answers of
+ * the node.
+ * <p>
+ * Reads and writes do not lock. The table may exceed its bound by a
+ * sixteenth before a single sweep evicts the least recently used routes, so
+ * the eviction is approximately least recently used. Discarding the routes of
+ * a child only marks the child removed; its routes are dropped when they are
+ * next read or swept.
+ * 
+ * @author hhildebrand
+ * 
+ */
+class RouteTable {
+    /**
+     * The child the routes lead to
+     */
+    private static class Owner {
+        private final NodeMBean  child;
+        private volatile boolean removed;
+
+        private Owner(NodeMBean child) {
+            this.child = child;
+        }
+    }
+
+    private static class Route {
+        private final Owner owner;
+        // racy by design: the eviction only needs an approximate recency
+        private long        used = System.nanoTime();
+
+        private Route(Owner owner) {
+            this.owner = owner;
+        }
+    }
+
+    private volatile int                              maxEntries;
+    private final ConcurrentMap<ChildIdentity, Owner> owners   = new ConcurrentHashMap<>();
+    private final ConcurrentMap<ObjectName, Route>    routes   = new ConcurrentHashMap<>();
+    private final AtomicBoolean                       sweeping = new AtomicBoolean();
+
+    RouteTable(int maxEntries) {
+        setMaxEntries(maxEntries);
+    }
+
+    /**
+     * @return the child which owns the name, or null
+     */
+    NodeMBean get(ObjectName name) {
+        Route route = routes.get(name);
+        if (route == null) {
+            return null;
+        }
+        if (route.owner.removed) {
+            routes.remove(name, route);
+            return null;
+        }
+        route.used = System.nanoTime();
+        return route.owner.child;
+    }
+
+    int getMaxEntries() {
+        return maxEntries;
+    }
+
+    void put(ObjectName name, NodeMBean child) {
+        routes.put(name, new Route(owner(child)));
+        evict();
+    }
+
+    void putIfAbsent(ObjectName name, NodeMBean child) {
+        Route route = routes.get(name);
+        if (route == null) {
+            routes.putIfAbsent(name, new Route(owner(child)));
+        } else if (route.owner.removed) {
+            routes.replace(name, route, new Route(owner(child)));
+        } else {
+            return;
+        }
+        evict();
+    }
+
+    /**
+     * Discard the route of the name
+     */
+    void remove(ObjectName name) {
+        routes.remove(name);
+    }
+
+    /**
+     * Discard the route of the name, if it is to the child
+     */
+    void remove(ObjectName name, NodeMBean child) {
+        Route route = routes.get(name);
+        if (route != null && route.owner.child == child) {
+            routes.remove(name, route);
+        }
+    }
+
+    /**
+     * Discard the routes to the child
+     */
+    void removeAll(NodeMBean child) {
+        Owner owner = owners.remove(new ChildIdentity(child));
+        if (owner != null) {
+            owner.removed = true;
+        }
+    }
+
+    void setMaxEntries(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException(
+                                               String.format("Max entries must be positive: %s",
+                                                             maxEntries));
+        }
+        this.maxEntries = maxEntries;
+        sweep();
+    }
+
+    /**
+     * @return a copy of the routes
+     */
+    Map<ObjectName, NodeMBean> snapshot() {
+        Map<ObjectName, NodeMBean> copy = new HashMap<>();
+        for (Map.Entry<ObjectName, Route> entry : routes.entrySet()) {
+            Owner owner = entry.getValue().owner;
+            if (!owner.removed) {
+                copy.put(entry.getKey(), owner.child);
+            }
+        }
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private void evict() {
+        int bound = maxEntries;
+        if (routes.size() > bound + (bound >> 4)) {
+            sweep();
+        }
+    }
+
+    private Owner owner(NodeMBean child) {
+        ChildIdentity key = new ChildIdentity(child);
+        Owner owner = owners.get(key);
+        if (owner == null) {
+            Owner created = new Owner(child);
+            owner = owners.putIfAbsent(key, created);
+            if (owner == null) {
+                owner = created;
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * Evict the routes of removed children, then the least recently used
+     * routes, until the table is within its bound. Only one thread sweeps at
+     * a time; the others carry on
+     */
+    private void sweep() {
+        if (!sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            int bound = maxEntries;
+            for (Map.Entry<ObjectName, Route> entry : routes.entrySet()) {
+                if (entry.getValue().owner.removed) {
+                    routes.remove(entry.getKey(), entry.getValue());
+                }
+            }
+            int excess = routes.size() - bound;
+            if (excess <= 0) {
+                return;
+            }
+            long[] used = new long[routes.size()];
+            int count = 0;
+            for (Route route : routes.values()) {
+                if (count == used.length) {
+                    break;
+                }
+                used[count++] = route.used;
+            }
+            if (count == 0) {
+                return;
+            }
+            Arrays.sort(used, 0, count);
+            long cutoff = used[Math.min(excess, count) - 1];
+            for (Map.Entry<ObjectName, Route> entry : routes.entrySet()) {
+                if (excess <= 0) {
+                    break;
+                }
+                if (entry.getValue().used <= cutoff
+                    && routes.remove(entry.getKey(), entry.getValue())) {
+                    excess--;
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * The process wide record of the stack traces of failed operations, keyed by
+ * an id derived from the class and stack of the exception. Identical
+ * failures share a single id and a single rendered trace, so a storm of the
+ * same failure costs one trace rather than one per MBean. The record is
+ * bounded both in the number of traces and in their total length, evicting
+ * the least recently used traces; the trace of an evicted id is no longer
+ * available through {@link NodeMBean#getStackTrace(long)}.
+ * 
+ * @author hhildebrand
+ * 
+ */
+final class StackTraces {
+    private static class Traces extends LinkedHashMap<Long, String> {
+        private static final long serialVersionUID = 1L;
+
+        private long length;
+
+        private Traces() {
+            super(16, 0.75f, true);
+        }
+
+        /**
+         * Record the trace, evicting the least recently used traces beyond
+         * the bounds. The trace just recorded is always kept
+         */
+        private void add(long id, String trace) {
+            String previous = put(id, trace);
+            length += trace.length()
+                      - (previous == null ? 0 : previous.length());
+            Iterator<String> eldest = values().iterator();
+            while (size() > 1
+                   && (size() > MAX_TRACES || length > MAX_TRACE_LENGTH)) {
+                length -= eldest.next().length();
+                eldest.remove();
+            }
+        }
+    }
+
+    /**
+     * The bound on the total length, in characters, of the recorded traces
+     */
+    static final long           MAX_TRACE_LENGTH = 4L * 1024 * 1024;
+
+    /**
+     * The bound on the number of recorded traces
+     */
+    static final int            MAX_TRACES       = 1024;
+
+    private static final int    MAX_CAUSES       = 16;
+    private static final Traces traces           = new Traces();
+
+    /**
+     * @param traceId
+     * @return the recorded stack trace, or null if the trace is unknown to
+     *         this process
+     */
+    static synchronized String get(long traceId) {
+        return traces.get(traceId);
+    }
+
+    /**
+     * Record the stack trace of the exception
+     * 
+     * @param e
+     * @return the id of the trace, never 0
+     */
+    static long record(Throwable e) {
+        long id = id(e);
+        synchronized (StackTraces.class) {
+            if (traces.containsKey(id)) {
+                return id;
+            }
+        }
+        String trace = OperationResult.getStackTrace(e);
+        synchronized (StackTraces.class) {
+            traces.add(id, trace);
+        }
+        return id;
+    }
+
+    /**
+     * @return the 64 bit FNV-1a hash of the classes, messages and stacks of
+     *         the exception and its causes
+     */
+    private static long id(Throwable e) {
+        long hash = 0xcbf29ce484222325L;
+        int causes = 0;
+        for (Throwable t = e; t != null && causes++ < MAX_CAUSES; t = t.getCause()) {
+            hash = mix(hash, t.getClass().getName().hashCode());
+            hash = mix(hash, String.valueOf(t.getMessage()).hashCode());
+            for (StackTraceElement element : t.getStackTrace()) {
+                hash = mix(hash, element.hashCode());
+            }
+        }
+        return hash == 0L ? 1L : hash;
+    }
+
+    private static long mix(long hash, int value) {
+        for (int i = 0; i < 4; i++) {
+            hash ^= (value >>> (i * 8)) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private StackTraces() {
+    }
+}
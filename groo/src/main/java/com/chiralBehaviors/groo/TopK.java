@@ -0,0 +1,118 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import javax.management.ObjectName;
+
+/**
+ * Retains the k best ranked values offered, using a heap of at most k
+ * entries whose root is the worst of those retained
+ * 
+ * @author hhildebrand
+ * 
+ */
+class TopK {
+    /**
+     * The initial capacity of the heap, which grows as needed, so that a
+     * large k does not preallocate its slots
+     */
+    private static final int                                   INITIAL_CAPACITY = 64;
+
+    private final PriorityQueue<Map.Entry<ObjectName, Number>> heap;
+    private final int                                          k;
+    private final Comparator<Map.Entry<ObjectName, Number>>    order;
+
+    /**
+     * @param k
+     *            - the number of values retained
+     * @param highest
+     *            - true if the highest values are the best, false if the
+     *            lowest
+     */
+    TopK(int k, final boolean highest) {
+        if (k < 1) {
+            throw new IllegalArgumentException(
+                                               String.format("K must be positive: %s",
+                                                             k));
+        }
+        this.k = k;
+        order = new Comparator<Map.Entry<ObjectName, Number>>() {
+            @Override
+            public int compare(Map.Entry<ObjectName, Number> a,
+                               Map.Entry<ObjectName, Number> b) {
+                int compared = Double.compare(a.getValue().doubleValue(),
+                                              b.getValue().doubleValue());
+                return highest ? compared : -compared;
+            }
+        };
+        heap = new PriorityQueue<>(Math.min(k, INITIAL_CAPACITY), order);
+    }
+
+    /**
+     * Offer the value of the MBean. Values which are not numbers are ignored
+     * 
+     * @param objectName
+     * @param value
+     */
+    void offer(ObjectName objectName, Object value) {
+        if (!(value instanceof Number)) {
+            return;
+        }
+        Map.Entry<ObjectName, Number> entry = new SimpleImmutableEntry<>(
+                                                                         objectName,
+                                                                         (Number) value);
+        if (heap.size() < k) {
+            heap.add(entry);
+        } else if (order.compare(entry, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(entry);
+        }
+    }
+
+    /**
+     * Offer all the ranked values
+     * 
+     * @param ranked
+     */
+    void offerAll(Map<ObjectName, Number> ranked) {
+        for (Map.Entry<ObjectName, Number> entry : ranked.entrySet()) {
+            offer(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * @return the retained values, best first
+     */
+    Map<ObjectName, Number> ranked() {
+        List<Map.Entry<ObjectName, Number>> entries = new ArrayList<>(heap);
+        Collections.sort(entries, Collections.reverseOrder(order));
+        Map<ObjectName, Number> ranked = new LinkedHashMap<>();
+        for (Map.Entry<ObjectName, Number> entry : entries) {
+            ranked.put(entry.getKey(), entry.getValue());
+        }
+        return ranked;
+    }
+}
@@ -25,7 +25,9 @@ import javax.management.MalformedObjectNameException;
 import javax.management.ObjectName;
 
 import com.chiralBehaviors.disovery.configuration.DiscoveryModule;
+import com.chiralBehaviors.groo.ExecutionMode;
 import com.chiralBehaviors.groo.Groo;
+import com.chiralBehaviors.groo.NodeExecutors;
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -47,14 +49,21 @@ public class GrooConfiguration {
 
     public String                            description     = "Every day I be wandering...";
 
+    /**
+     * The process wide execution mode of the nodes
+     */
+    public ExecutionMode                     executionMode   = ExecutionMode.SHARED;
+
     public List<NetworkBuilderConfiguration> networkBuilders = Collections.emptyList();
 
     public Groo construct() throws MalformedObjectNameException,
                            NullPointerException, IOException {
+        NodeExecutors.setMode(executionMode);
         Groo groo = new Groo(description);
         for (NetworkBuilderConfiguration config : networkBuilders) {
             groo.addNetworkBuilder(ObjectName.getInstance(config.networkPattern),
-                                   null, config.parentProperties);
+                                   null, config.parentProperties,
+                                   NodeExecutors.executor(config.executionMode));
         }
         return groo;
     }
@@ -16,11 +16,18 @@
 
 package com.chiralBehaviors.groo.configuration;
 
+import com.chiralBehaviors.groo.ExecutionMode;
+
 /**
  * @author hhildebrand
  * 
  */
 public class NetworkBuilderConfiguration {
-    public String   networkPattern;
-    public String[] parentProperties = new String[] {};
+    /**
+     * The execution mode of the parents created by this builder, or null to
+     * follow the process wide mode
+     */
+    public ExecutionMode executionMode;
+    public String        networkPattern;
+    public String[]      parentProperties = new String[] {};
 }
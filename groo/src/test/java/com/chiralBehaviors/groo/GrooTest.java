@@ -17,14 +17,20 @@
 package com.chiralBehaviors.groo;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.management.MBeanServer;
 import javax.management.MBeanServerFactory;
 import javax.management.ObjectName;
+import javax.management.QueryExp;
+import javax.management.remote.JMXConnectionNotification;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -139,4 +145,226 @@ public class GrooTest {
         groo.addConnection(new LocalMbscFactory(groo, leaf2Mbs, "Leaf 2 MBS"));
         assertEquals(2, intermediate.getChildren().size());
     }
+
+    @Test
+    public void testReconnect() throws Exception {
+        Groo groo = new Groo("Groo the wanderer");
+        intermediateMbs.registerMBean(groo,
+                                      ObjectName.getInstance("groo", "id", "1"));
+        groo.addParent(intermediate);
+        leaf1Mbs.registerMBean(leaf1, leaf1Name);
+        final AtomicInteger attempts = new AtomicInteger();
+        final MbscFactory factory = new LocalMbscFactory(groo, leaf1Mbs,
+                                                         "Leaf 1 MBS") {
+            @Override
+            protected boolean isReconnectable() {
+                return true;
+            }
+
+            @Override
+            protected void reconnect() throws IOException {
+                if (attempts.incrementAndGet() == 1) {
+                    throw new IOException("still down");
+                }
+            }
+        };
+        factory.setInitialBackoff(10);
+        factory.setMaxBackoff(100);
+        groo.addConnection(factory);
+        assertEquals(ConnectionState.UP, factory.getState());
+        assertEquals(1, intermediate.getChildren().size());
+
+        factory.connectListener.handleNotification(new JMXConnectionNotification(
+                                                                                 JMXConnectionNotification.FAILED,
+                                                                                 this,
+                                                                                 "Leaf 1 MBS",
+                                                                                 1,
+                                                                                 "failed",
+                                                                                 null),
+                                                   null);
+        assertEquals(0, intermediate.getChildren().size());
+        assertTrue(Utils.waitForCondition(2000, new Condition() {
+            @Override
+            public boolean isTrue() {
+                return factory.getState() == ConnectionState.UP;
+            }
+        }));
+        assertEquals(2, attempts.get());
+        assertTrue(Utils.waitForCondition(1000, new Condition() {
+            @Override
+            public boolean isTrue() {
+                return intermediate.getChildren().size() == 1;
+            }
+        }));
+
+        factory.close();
+        assertEquals(ConnectionState.CLOSED, factory.getState());
+        factory.connectListener.handleNotification(new JMXConnectionNotification(
+                                                                                 JMXConnectionNotification.FAILED,
+                                                                                 this,
+                                                                                 "Leaf 1 MBS",
+                                                                                 2,
+                                                                                 "failed",
+                                                                                 null),
+                                                   null);
+        assertEquals(ConnectionState.CLOSED, factory.getState());
+    }
+
+    @Test
+    public void testUnregistration() throws Exception {
+        Groo groo = new Groo("Groo the wanderer");
+        intermediateMbs.registerMBean(groo,
+                                      ObjectName.getInstance("groo", "id", "1"));
+        final Node other = new Node(ObjectName.getInstance("leaf-domain:*"),
+                                    null);
+        intermediateMbs.registerMBean(other,
+                                      ObjectName.getInstance("intermediate-domain",
+                                                             "id", "2"));
+        groo.addParent(intermediate);
+        groo.addParent(other);
+        leaf1Mbs.registerMBean(leaf1, leaf1Name);
+        leaf1Mbs.registerMBean(leaf2, leaf2Name);
+        MbscFactory factory = new LocalMbscFactory(groo, leaf1Mbs,
+                                                   "Leaf 1 MBS");
+        groo.addConnection(factory);
+        assertEquals(2, intermediate.getChildren().size());
+        assertEquals(2, other.getChildren().size());
+
+        leaf1Mbs.unregisterMBean(leaf1Name);
+        assertTrue(Utils.waitForCondition(1000, new Condition() {
+            @Override
+            public boolean isTrue() {
+                return intermediate.getChildren().size() == 1
+                       && other.getChildren().size() == 1;
+            }
+        }));
+        assertEquals(leaf2Name,
+                     intermediate.getChildren().iterator().next().getName());
+        assertEquals(leaf2Name,
+                     other.getChildren().iterator().next().getName());
+    }
+
+    @Test
+    public void testResync() throws Exception {
+        Groo groo = new Groo("Groo the wanderer");
+        intermediateMbs.registerMBean(groo,
+                                      ObjectName.getInstance("groo", "id", "1"));
+        groo.addParent(intermediate);
+        leaf1Mbs.registerMBean(leaf1, leaf1Name);
+        final MbscFactory factory = new LocalMbscFactory(groo, leaf1Mbs,
+                                                         "Leaf 1 MBS");
+        groo.addConnection(factory);
+        assertEquals(1, intermediate.getChildren().size());
+
+        // lose the notifications of the changes to the leaf MBean server
+        factory.deregisterListeners();
+        final ObjectName leaf3Name = ObjectName.getInstance("leaf-domain",
+                                                            "id", "3");
+        leaf1Mbs.unregisterMBean(leaf1Name);
+        leaf1Mbs.registerMBean(new Node(), leaf3Name);
+        assertEquals(1, intermediate.getChildren().size());
+
+        factory.connectListener.handleNotification(new JMXConnectionNotification(
+                                                                                 JMXConnectionNotification.NOTIFS_LOST,
+                                                                                 this,
+                                                                                 "Leaf 1 MBS",
+                                                                                 1,
+                                                                                 "lost",
+                                                                                 null),
+                                                   null);
+        assertTrue(Utils.waitForCondition(1000, new Condition() {
+            @Override
+            public boolean isTrue() {
+                return factory.getState() == ConnectionState.UP;
+            }
+        }));
+        assertEquals(1, intermediate.getChildren().size());
+        assertEquals(leaf3Name,
+                     intermediate.getChildren().iterator().next().getName());
+        assertEquals(1,
+                     factory.getKnown(intermediate.getFilter().getHandback()).size());
+        assertTrue(factory.isKnown(leaf3Name));
+        assertFalse(factory.isKnown(leaf1Name));
+
+        long version = factory.nextResync();
+        assertTrue(factory.isCurrentResync(version));
+        factory.nextResync();
+        assertFalse(factory.isCurrentResync(version));
+    }
+
+    @Test
+    public void testRegistrationDuringResync() throws Exception {
+        Groo groo = new Groo("Groo the wanderer");
+        intermediateMbs.registerMBean(groo,
+                                      ObjectName.getInstance("groo", "id", "1"));
+        final ObjectName leaf3Name = ObjectName.getInstance("leaf-domain",
+                                                            "id", "3");
+        final AtomicBoolean registering = new AtomicBoolean();
+        final AtomicBoolean registered = new AtomicBoolean();
+        // register the leaf while the resync is querying the names
+        QueryExp query = new QueryExp() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public boolean apply(ObjectName name) {
+                if (registering.compareAndSet(true, false)) {
+                    try {
+                        leaf1Mbs.registerMBean(new Node(), leaf3Name);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    registered.set(true);
+                }
+                return true;
+            }
+
+            @Override
+            public void setMBeanServer(MBeanServer s) {
+            }
+        };
+        final Node parent = new Node(
+                                     ObjectName.getInstance("leaf-domain:*"),
+                                     query);
+        intermediateMbs.registerMBean(parent,
+                                      ObjectName.getInstance("intermediate-domain",
+                                                             "id", "2"));
+        groo.addParent(parent);
+        leaf1Mbs.registerMBean(leaf1, leaf1Name);
+        final MbscFactory factory = new LocalMbscFactory(groo, leaf1Mbs,
+                                                         "Leaf 1 MBS");
+        groo.addConnection(factory);
+        assertEquals(1, parent.getChildren().size());
+
+        registering.set(true);
+        factory.connectListener.handleNotification(new JMXConnectionNotification(
+                                                                                 JMXConnectionNotification.NOTIFS_LOST,
+                                                                                 this,
+                                                                                 "Leaf 1 MBS",
+                                                                                 1,
+                                                                                 "lost",
+                                                                                 null),
+                                                   null);
+        assertTrue(Utils.waitForCondition(1000, new Condition() {
+            @Override
+            public boolean isTrue() {
+                return registered.get()
+                       && !factory.notifiedSince(leaf3Name, 0);
+            }
+        }));
+        assertTrue(factory.isKnown(leaf3Name));
+        assertEquals(2, parent.getChildren().size());
+    }
+
+    @Test
+    public void testBackoff() throws Exception {
+        MbscFactory factory = new LocalMbscFactory(null, leaf1Mbs, "Leaf 1 MBS");
+        factory.setInitialBackoff(100);
+        factory.setMaxBackoff(1000);
+        for (int attempt = 0; attempt < 40; attempt++) {
+            long ceiling = Math.min(1000, 100L << Math.min(attempt, 30));
+            long backoff = factory.backoff(attempt);
+            assertTrue(backoff >= ceiling / 2);
+            assertFalse(backoff > ceiling);
+        }
+    }
 }
@@ -0,0 +1,101 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * @author hhildebrand
+ * 
+ */
+public class NodeExecutorsTest {
+
+    @After
+    public void reset() {
+        NodeExecutors.setMode(ExecutionMode.SHARED);
+    }
+
+    @Test
+    public void testNodesShareExecutor() {
+        assertSame(NodeExecutors.executor(), new Node().getExecutor());
+        assertSame(new Node().getExecutor(), new Node().getExecutor());
+    }
+
+    @Test
+    public void testSharedMode() throws Exception {
+        NodeExecutors.setMode(ExecutionMode.SHARED);
+        Thread thread = runOn(NodeExecutors.executor());
+        assertTrue(thread.isDaemon());
+        assertTrue(thread.getName().startsWith("groo-node-"));
+    }
+
+    @Test
+    public void testVirtualMode() throws Exception {
+        NodeExecutors.setMode(ExecutionMode.VIRTUAL);
+        assertEquals(ExecutionMode.VIRTUAL, NodeExecutors.getMode());
+        Thread thread = runOn(NodeExecutors.executor());
+        if (NodeExecutors.isVirtualAvailable()) {
+            Method isVirtual = Thread.class.getMethod("isVirtual");
+            assertTrue((Boolean) isVirtual.invoke(thread));
+        } else {
+            assertTrue(thread.getName().startsWith("groo-node-"));
+        }
+
+        MBeanServer mbs = MBeanServerFactory.newMBeanServer();
+        ObjectName test1a = ObjectName.getInstance("MyDomain", "test1", "a");
+        mbs.registerMBean(new Test1(), test1a);
+        Node leaf = new Node();
+        mbs.registerMBean(leaf, ObjectName.getInstance("leaf-domain", "id", "1"));
+        Node intermediate = new Node();
+        MBeanServerFactory.newMBeanServer().registerMBean(intermediate,
+                                                          ObjectName.getInstance("intermediate-domain",
+                                                                                 "id",
+                                                                                 "1"));
+        intermediate.addChild(leaf);
+        assertEquals(-1, intermediate.getAttribute(test1a, "Attribute1"));
+    }
+
+    private Thread runOn(Executor executor)
+                                                  throws InterruptedException {
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                thread.set(Thread.currentThread());
+                latch.countDown();
+            }
+        });
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        return thread.get();
+    }
+}
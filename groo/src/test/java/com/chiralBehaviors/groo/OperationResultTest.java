@@ -0,0 +1,144 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+
+package com.chiralBehaviors.groo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+import com.chiralBehaviors.groo.OperationResult.Code;
+
+/**
+ * @author hhildebrand
+ * 
+ */
+public class OperationResultTest {
+
+    @Test
+    public void testFailureStorm() throws Exception {
+        Map<ObjectName, OperationResult<Object>> results = new HashMap<>();
+        Map<ObjectName, OperationResult<Object>> legacy = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            ObjectName name = ObjectName.getInstance("MyDomain", "test1",
+                                                     Integer.toString(i));
+            IllegalStateException e = fail();
+            results.put(name, OperationResult.failure(e));
+            legacy.put(name,
+                       new OperationResult<Object>(false, null, e.getMessage(),
+                                                   OperationResult.getStackTrace(e)));
+        }
+        OperationResult<Object> failure = results.values().iterator().next();
+        assertFalse(failure.isSuccess());
+        assertEquals(Code.EXCEPTION, failure.getCode());
+        assertEquals(IllegalStateException.class.getName(),
+                     failure.getExceptionClass());
+        assertEquals("bad deploy", failure.getMessage());
+        assertTrue(failure.getStackTrace().contains("bad deploy"));
+        for (OperationResult<Object> result : results.values()) {
+            assertEquals(failure.getTraceId(), result.getTraceId());
+        }
+        assertTrue(serialized(results) * 4 < serialized(legacy));
+
+        OperationResult<Object> other = OperationResult.failure(new IllegalArgumentException(
+                                                                                             "bad deploy"));
+        assertNotEquals(failure.getTraceId(), other.getTraceId());
+    }
+
+    @Test
+    public void testSuccess() throws Exception {
+        OperationResult<Object> success = OperationResult.success();
+        assertSame(success, roundTrip(new OperationResult<Object>()));
+        assertTrue(success.isSuccess());
+        assertEquals(Code.SUCCESS, success.getCode());
+        assertEquals("success", success.getMessage());
+        assertNull(success.getStackTrace());
+
+        OperationResult<Object> value = roundTrip(new OperationResult<Object>(
+                                                                              42));
+        assertEquals(42, value.getResult());
+        assertEquals("success", value.getMessage());
+
+        OperationResult<Object> recovered = new OperationResult<Object>(
+                                                                        true,
+                                                                        42,
+                                                                        null,
+                                                                        fail());
+        assertTrue(recovered.isSuccess());
+        assertEquals(0L, recovered.getTraceId());
+        assertNull(recovered.getExceptionClass());
+    }
+
+    @Test
+    public void testTraceBound() throws Exception {
+        char[] message = new char[(int) (StackTraces.MAX_TRACE_LENGTH / 2)];
+        Arrays.fill(message, 'a');
+        long first = StackTraces.record(new IllegalStateException(
+                                                                  new String(
+                                                                             message)));
+        assertNotNull(StackTraces.get(first));
+        Arrays.fill(message, 'b');
+        long second = StackTraces.record(new IllegalStateException(
+                                                                   new String(
+                                                                              message)));
+        assertNull(StackTraces.get(first));
+        assertNotNull(StackTraces.get(second));
+    }
+
+    private IllegalStateException fail() {
+        return new IllegalStateException("bad deploy");
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T roundTrip(T object) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(
+                                                          new ByteArrayInputStream(
+                                                                                   bytes.toByteArray()))) {
+            return (T) in.readObject();
+        }
+    }
+
+    private int serialized(Object object) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(object);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.size();
+    }
+}
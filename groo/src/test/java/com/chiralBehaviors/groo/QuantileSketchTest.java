@@ -0,0 +1,98 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+/**
+ * @author hhildebrand
+ * 
+ */
+public class QuantileSketchTest {
+
+    @Test
+    public void testBoundedBins() {
+        QuantileSketch sketch = new QuantileSketch(0.01, 64);
+        for (int i = 1; i <= 1000000; i *= 10) {
+            sketch.add(i);
+        }
+        assertEquals(7, sketch.getCount());
+        assertEquals(1000000, sketch.getQuantile(1), 1000000 * 0.01);
+        assertTrue(serialized(sketch) < 2048);
+    }
+
+    @Test
+    public void testMerge() throws Exception {
+        QuantileSketch merged = new QuantileSketch();
+        QuantileSketch whole = new QuantileSketch();
+        for (int child = 0; child < 4; child++) {
+            QuantileSketch partial = new QuantileSketch();
+            for (int i = child; i < 20000; i += 4) {
+                partial.add(i - 1000);
+                whole.add(i - 1000);
+            }
+            merged.merge(roundTrip(partial));
+        }
+        assertEquals(20000, merged.getCount());
+        for (double q : new double[] { 0, 0.1, 0.5, 0.9, 0.99, 1 }) {
+            assertEquals(whole.getQuantile(q), merged.getQuantile(q), 0.0);
+        }
+    }
+
+    @Test
+    public void testQuantiles() {
+        QuantileSketch sketch = new QuantileSketch();
+        assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+        for (int i = 1; i <= 10000; i++) {
+            sketch.add(i);
+        }
+        assertEquals(5000, sketch.getQuantile(0.5), 5000 * 0.01);
+        assertEquals(9900, sketch.getQuantile(0.99), 9900 * 0.01);
+        assertEquals(1, sketch.getQuantile(0), 0.01);
+        assertTrue(serialized(sketch) < 16 * 1024);
+    }
+
+    private QuantileSketch roundTrip(QuantileSketch sketch) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(sketch);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(
+                                                          new ByteArrayInputStream(
+                                                                                   bytes.toByteArray()))) {
+            return (QuantileSketch) in.readObject();
+        }
+    }
+
+    private int serialized(QuantileSketch sketch) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(sketch);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.size();
+    }
+}
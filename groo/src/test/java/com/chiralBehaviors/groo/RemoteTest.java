@@ -17,19 +17,43 @@
 package com.chiralBehaviors.groo;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.rmi.registry.LocateRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.InstanceNotFoundException;
 import javax.management.MBeanServer;
 import javax.management.MBeanServerFactory;
 import javax.management.ObjectName;
+import javax.management.StandardMBean;
 import javax.management.remote.JMXConnector;
+import javax.management.remote.JMXConnectorFactory;
 import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
 
 import org.junit.After;
 import org.junit.Before;
@@ -147,6 +171,361 @@ public class RemoteTest {
         assertNotNull(result.get(test2b));
     }
 
+    @Test
+    public void testAsyncDelegation() throws Exception {
+        Groo groo = new Groo("Groo the wanderer");
+        intermediateMbs.registerMBean(groo,
+                                      ObjectName.getInstance("groo", "id", "1"));
+        groo.addParent(intermediate);
+        leaf1Mbs.registerMBean(leaf1, leaf1Name);
+        leaf1Connector.connect();
+        groo.addConnection(new BasicMbscFactory(groo, leaf1Connector, null));
+        leaf2Mbs.registerMBean(leaf2, leaf2Name);
+        leaf2Connector.connect();
+        groo.addConnection(new BasicMbscFactory(groo, leaf2Connector, null));
+        assertEquals(2, intermediate.getChildren().size());
+        Map<ObjectName, OperationResult<Object>> result = intermediate.<Object> invokeAsync(multiTest2,
+                                                                                            null,
+                                                                                            "operationFoo",
+                                                                                            new Object[] { "testy" },
+                                                                                            new String[] { String.class.getCanonicalName() }).get();
+        assertEquals(2, result.size());
+        for (Map.Entry<ObjectName, OperationResult<Object>> entry : result.entrySet()) {
+            assertEquals("testy", entry.getValue().getResult());
+        }
+        assertEquals(-1, intermediate.getAttributeAsync(test1b, "Attribute1").get());
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        Groo groo = new Groo("Groo the wanderer");
+        intermediateMbs.registerMBean(groo,
+                                      ObjectName.getInstance("groo", "id", "1"));
+        groo.addParent(intermediate);
+        leaf1Mbs.registerMBean(leaf1, leaf1Name);
+        leaf1Connector.connect();
+        groo.addConnection(new BasicMbscFactory(groo, leaf1Connector, null));
+        leaf2Mbs.registerMBean(leaf2, leaf2Name);
+        leaf2Connector.connect();
+        groo.addConnection(new BasicMbscFactory(groo, leaf2Connector, null));
+        final Map<ObjectName, OperationResult<AttributeList>> result = new HashMap<>();
+        intermediate.streamAttributes(multiTest1, null, new String[] {
+                "Attribute1", "Attribute2" },
+                                      new ResultHandler<AttributeList>() {
+                                          @Override
+                                          public void onResults(Map<ObjectName, OperationResult<AttributeList>> results) {
+                                              result.putAll(results);
+                                          }
+                                      });
+        assertEquals(2, result.size());
+        assertEquals(2, result.get(test1a).getResult().size());
+        assertEquals(2, result.get(test1b).getResult().size());
+    }
+
+    @Test
+    public void testConnectorPool() throws Exception {
+        leaf1Mbs.registerMBean(leaf1, leaf1Name);
+        List<JMXConnector> connectors = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            connectors.add(leaf1Server.toJMXConnector(new HashMap<String, Object>()));
+        }
+        BasicMbscFactory factory = new BasicMbscFactory(
+                                                        new Groo(
+                                                                 "Groo the wanderer"),
+                                                        connectors, null);
+        assertEquals(3, factory.getPoolSize());
+        final MbscNodeWrapper wrapper = new MbscNodeWrapper(factory, leaf1Name);
+        List<CompletableFuture<Object>> outstanding = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            outstanding.add(wrapper.getAttributeAsync(test1a, "Attribute1"));
+        }
+        for (CompletableFuture<Object> future : outstanding) {
+            assertEquals(-1, future.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(-1, wrapper.getAttribute(test1a, "Attribute1"));
+        assertNotNull(factory.getMBeanServerConnection());
+
+        // concurrent slow calls are spread across the connectors, which
+        // connect only when first used
+        ObjectName slow = ObjectName.getInstance("MyDomain", "slow", "a");
+        leaf1Mbs.registerMBean(new StandardMBean(new Test1() {
+            @Override
+            public int getAttribute1() {
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 0;
+            }
+        }, Test1MBean.class), slow);
+        outstanding.clear();
+        for (int i = 0; i < 6; i++) {
+            outstanding.add(wrapper.getAttributeAsync(slow, "Attribute1"));
+        }
+        for (CompletableFuture<Object> future : outstanding) {
+            assertEquals(0, future.get(10, TimeUnit.SECONDS));
+        }
+        for (JMXConnector connector : connectors) {
+            assertNotNull(connector.getConnectionId());
+        }
+    }
+
+    @Test
+    public void testNioTransport() throws Exception {
+        byte[] secret = "the wanderer".getBytes(StandardCharsets.UTF_8);
+        NioNodeServer leaf1Nio = new NioNodeServer(leaf1Mbs, secret);
+        NioNodeServer leaf2Nio = new NioNodeServer(
+                                                   leaf2Mbs,
+                                                   new InetSocketAddress(
+                                                                         InetAddress.getLoopbackAddress(),
+                                                                         0),
+                                                   secret);
+        leaf1Nio.start();
+        leaf2Nio.start();
+        try {
+            Groo groo = new Groo("Groo the wanderer");
+            intermediateMbs.registerMBean(groo,
+                                          ObjectName.getInstance("groo", "id",
+                                                                 "1"));
+            groo.addParent(intermediate);
+            leaf1Mbs.registerMBean(leaf1, leaf1Name);
+            leaf1Connector.connect();
+            groo.addConnection(new NioMbscFactory(groo, leaf1Connector, null,
+                                                  leaf1Nio.getAddress(), secret));
+            leaf2Mbs.registerMBean(leaf2, leaf2Name);
+            leaf2Connector.connect();
+            groo.addConnection(new NioMbscFactory(groo, leaf2Connector, null,
+                                                  leaf2Nio.getAddress(), secret));
+            assertEquals(2, intermediate.getChildren().size());
+
+            Map<ObjectName, OperationResult<Object>> result = intermediate.invoke(multiTest2,
+                                                                                  null,
+                                                                                  "operationFoo",
+                                                                                  new Object[] { "testy" },
+                                                                                  new String[] { String.class.getCanonicalName() });
+            assertEquals(2, result.size());
+            assertEquals("testy", result.get(test2a).getResult());
+            assertEquals("testy", result.get(test2b).getResult());
+            // the operations went over the node servers, not the connectors
+            assertTrue(leaf1Nio.getServed() > 0);
+            assertTrue(leaf2Nio.getServed() > 0);
+
+            LongColumns columns = intermediate.getLongAttribute(multiTest1,
+                                                                null,
+                                                                "Attribute1");
+            assertEquals(2, columns.size());
+
+            List<CompletableFuture<Object>> outstanding = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                outstanding.add(intermediate.getAttributeAsync(i % 2 == 0 ? test1a
+                                                                         : test1b,
+                                                               "Attribute1"));
+            }
+            for (CompletableFuture<Object> future : outstanding) {
+                assertEquals(-1, future.get(10, TimeUnit.SECONDS));
+            }
+
+            try {
+                intermediate.getAttribute(test1a, "Missing");
+                fail("Expected the attribute not to be found");
+            } catch (AttributeNotFoundException e) {
+                // expected
+            }
+
+            NioNodeChannel channel = NioNodeChannel.open(leaf1Nio.getAddress(),
+                                                         secret, 10000);
+            try {
+                channel.getAttribute(test1a, "Attribute1");
+                fail("Expected only nodes to be served");
+            } catch (SecurityException e) {
+                // expected
+            } finally {
+                channel.close();
+            }
+
+            assertTrue(FramedConnection.isAllowed("[Ljava.lang.String;"));
+            assertTrue(FramedConnection.isAllowed("[[I"));
+            assertFalse(FramedConnection.isAllowed("java.lang.invoke.SerializedLambda"));
+            assertFalse(FramedConnection.isAllowed("[Lorg.example.Gadget;"));
+
+            try {
+                NioNodeChannel.open(leaf1Nio.getAddress(),
+                                    "the barbarian".getBytes(StandardCharsets.UTF_8),
+                                    10000).close();
+                fail("Expected the connection to be rejected");
+            } catch (IOException e) {
+                // expected
+            }
+
+            // a malformed answer to the challenge closes only its own connection
+            try (Socket malformed = new Socket(InetAddress.getLoopbackAddress(),
+                                               leaf1Nio.getAddress().getPort())) {
+                malformed.setSoTimeout(10000);
+                ByteBuffer frame = FramedConnection.encode(0,
+                                                           FramedConnection.AUTHENTICATE,
+                                                           out -> out.writeInt(-1));
+                malformed.getOutputStream().write(frame.array(), 0,
+                                                  frame.limit());
+                InputStream in = malformed.getInputStream();
+                while (in.read() >= 0) {
+                    // drain the challenge until the server closes
+                }
+            }
+            NioNodeChannel survivor = NioNodeChannel.open(leaf1Nio.getAddress(),
+                                                          secret, 10000);
+            try {
+                assertEquals(leaf1Name, survivor.getAttribute(leaf1Name, "Name"));
+            } finally {
+                survivor.close();
+            }
+        } finally {
+            leaf1Nio.stop();
+            leaf2Nio.stop();
+        }
+    }
+
+    @Test
+    public void testNioHandshake() throws Exception {
+        byte[] secret = "the wanderer".getBytes(StandardCharsets.UTF_8);
+        NioNodeServer server = new NioNodeServer(leaf1Mbs, secret);
+        server.setAuthenticationTimeout(100);
+        server.start();
+        try (Socket idle = new Socket(InetAddress.getLoopbackAddress(),
+                                      server.getAddress().getPort())) {
+            idle.setSoTimeout(10000);
+            InputStream in = idle.getInputStream();
+            while (in.read() >= 0) {
+                // drain the challenge until the server closes
+            }
+        } finally {
+            server.stop();
+        }
+
+        // a server which does not share the secret is not trusted
+        try (ServerSocket impostor = new ServerSocket(
+                                                      0,
+                                                      1,
+                                                      InetAddress.getLoopbackAddress())) {
+            CompletableFuture<Void> served = CompletableFuture.runAsync(() -> {
+                try (Socket accepted = impostor.accept()) {
+                    ByteBuffer challenge = FramedConnection.encode(0,
+                                                                   FramedConnection.CHALLENGE,
+                                                                   out -> out.write(new byte[FramedConnection.CHALLENGE_LENGTH]));
+                    accepted.getOutputStream().write(challenge.array(), 0,
+                                                     challenge.limit());
+                    ByteBuffer proof = FramedConnection.encode(0,
+                                                               FramedConnection.AUTHENTICATED,
+                                                               out -> out.write(new byte[FramedConnection.ANSWER_LENGTH]));
+                    accepted.getOutputStream().write(proof.array(), 0,
+                                                     proof.limit());
+                    accepted.getInputStream().read();
+                } catch (IOException e) {
+                    // the client hung up
+                }
+            });
+            try {
+                NioNodeChannel.open(new InetSocketAddress(
+                                                          InetAddress.getLoopbackAddress(),
+                                                          impostor.getLocalPort()),
+                                    secret, 10000).close();
+                fail("Expected the server to be rejected");
+            } catch (IOException e) {
+                // expected
+            }
+            served.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testNioRequestTimeout() throws Exception {
+        byte[] secret = "the wanderer".getBytes(StandardCharsets.UTF_8);
+        // requests are never run, so never answered
+        NioNodeServer silent = new NioNodeServer(
+                                                 leaf1Mbs,
+                                                 new InetSocketAddress(
+                                                                       InetAddress.getLoopbackAddress(),
+                                                                       0),
+                                                 secret, task -> {
+                                                 });
+        leaf1Mbs.registerMBean(leaf1, leaf1Name);
+        silent.start();
+        NioNodeChannel channel = NioNodeChannel.open(silent.getAddress(),
+                                                     secret, 100);
+        try {
+            channel.getAttribute(leaf1Name, "Name");
+            fail("Expected the request to time out");
+        } catch (SocketTimeoutException e) {
+            // expected
+        } finally {
+            channel.close();
+            silent.stop();
+        }
+    }
+
+    @Test
+    public void testReconnect() throws Exception {
+        int port = Utils.allocatePort();
+        LocateRegistry.createRegistry(port);
+        JMXServiceURL url = new JMXServiceURL(
+                                              String.format("service:jmx:rmi:///jndi/rmi://localhost:%s/groo",
+                                                            port));
+        JMXConnectorServer server = JMXConnectorServerFactory.newJMXConnectorServer(url,
+                                                                                    null,
+                                                                                    leaf1Mbs);
+        server.start();
+        Map<String, Object> environment = new HashMap<>();
+        environment.put("jmx.remote.x.client.connection.check.period", 100L);
+
+        Groo groo = new Groo("Groo the wanderer");
+        intermediateMbs.registerMBean(groo,
+                                      ObjectName.getInstance("groo", "id", "1"));
+        groo.addParent(intermediate);
+        leaf1Mbs.registerMBean(leaf1, leaf1Name);
+        final BasicMbscFactory factory = new BasicMbscFactory(
+                                                              groo,
+                                                              Collections.singletonList(JMXConnectorFactory.connect(url,
+                                                                                                                    environment)),
+                                                              environment,
+                                                              null);
+        factory.setInitialBackoff(50);
+        factory.setMaxBackoff(200);
+        groo.addConnection(factory);
+        assertEquals(1, intermediate.getChildren().size());
+
+        server.stop();
+        assertTrue(Utils.waitForCondition(10000, new Condition() {
+            @Override
+            public boolean isTrue() {
+                return intermediate.getChildren().isEmpty();
+            }
+        }));
+        assertEquals(ConnectionState.BACKING_OFF, factory.getState());
+
+        server = JMXConnectorServerFactory.newJMXConnectorServer(url, null,
+                                                                 leaf1Mbs);
+        server.start();
+        try {
+            assertTrue(Utils.waitForCondition(10000, new Condition() {
+                @Override
+                public boolean isTrue() {
+                    return factory.getState() == ConnectionState.UP
+                           && intermediate.getChildren().size() == 1;
+                }
+            }));
+            Map<ObjectName, OperationResult<Object>> result = intermediate.invoke(multiTest1,
+                                                                                  null,
+                                                                                  "operation1",
+                                                                                  null,
+                                                                                  null);
+            assertEquals(1, result.size());
+            assertEquals("-1", result.get(test1a).getResult());
+        } finally {
+            factory.close();
+            server.stop();
+        }
+    }
+
     @Test
     public void testRegistrationNotifications() throws Exception {
         Groo groo = new Groo("Groo the wanderer");
@@ -171,4 +550,88 @@ public class RemoteTest {
         assertEquals(2, intermediate.getChildren().size());
     }
 
+    @Test
+    public void testWrapperHandle() throws Exception {
+        final AtomicInteger channels = new AtomicInteger();
+        final NodeChannel broken = new NodeChannel() {
+            @Override
+            public Object getAttribute(ObjectName name, String attribute)
+                                                                         throws IOException {
+                throw new IOException("Connection reset");
+            }
+
+            @Override
+            public Object invoke(ObjectName name, String operationName,
+                                 Object[] params, String[] signature)
+                                                                     throws IOException {
+                throw new IOException("Connection reset");
+            }
+        };
+        MbscNodeWrapper wrapper = new MbscNodeWrapper(
+                                                      new LocalMbscFactory(
+                                                                           new Groo(
+                                                                                    "Groo the wanderer"),
+                                                                           leaf1Mbs,
+                                                                           "local") {
+                                                          @Override
+                                                          NodeChannel getNodeChannel() {
+                                                              channels.incrementAndGet();
+                                                              return broken;
+                                                          }
+                                                      }, leaf1Name);
+        try {
+            wrapper.queryNames(multiTest1, null);
+            fail("Expected the connection to fail");
+        } catch (IOException e) {
+            // expected
+        }
+        assertEquals(1, channels.get());
+
+        // an operation which does not declare IOException still drops the channel
+        try {
+            wrapper.getMBeanInfo(test1a);
+            fail("Expected the connection to fail");
+        } catch (UndeclaredThrowableException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertEquals(2, channels.get());
+        try {
+            wrapper.getObjectInstance(test1a);
+            fail("Expected the connection to fail");
+        } catch (UndeclaredThrowableException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+        assertEquals(3, channels.get());
+    }
+
+    @Test
+    public void testWrapperInvocation() throws Exception {
+        leaf1Mbs.registerMBean(leaf1, leaf1Name);
+        leaf1Connector.connect();
+        MbscNodeWrapper wrapper = new MbscNodeWrapper(
+                                                      new BasicMbscFactory(
+                                                                           new Groo(
+                                                                                    "Groo the wanderer"),
+                                                                           leaf1Connector,
+                                                                           null),
+                                                      leaf1Name);
+        assertEquals(Integer.valueOf(leaf1Mbs.getMBeanCount()),
+                     wrapper.getMBeanCount());
+        assertEquals(-1, wrapper.getAttribute(test1a, "Attribute1"));
+        assertEquals(2, wrapper.queryNames(multiTest1, null).size()
+                        + wrapper.queryNames(multiTest2, null).size());
+        assertTrue(wrapper.isRegistered(test2a));
+        try {
+            wrapper.getAttribute(test1b, "Attribute1");
+            fail("Expected the instance not to be found");
+        } catch (InstanceNotFoundException e) {
+            // expected
+        }
+        try {
+            wrapper.getAttribute(test1a, "Missing");
+            fail("Expected the attribute not to be found");
+        } catch (AttributeNotFoundException e) {
+            // expected
+        }
+    }
 }
@@ -17,42 +17,79 @@
 package com.chiralBehaviors.groo;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.management.Attribute;
 import javax.management.AttributeList;
+import javax.management.InstanceNotFoundException;
 import javax.management.MBeanServer;
 import javax.management.MBeanServerFactory;
 import javax.management.ObjectName;
+import javax.management.QueryExp;
+import javax.management.StandardMBean;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 /**
  * @author hhildebrand
  * 
  */
 public class TestIntermediate {
-    private Node       intermediate;
-    private ObjectName intermediateName;
-    private NodeMBean  leaf1;
-    private ObjectName leaf1Name;
-    private NodeMBean  leaf2;
-    private ObjectName leaf2Name;
-    private ObjectName multiTest1;
-    private ObjectName multiTest2;
-    private ObjectName test1a;
-    private ObjectName test1b;
-    private ObjectName test2a;
-    private ObjectName test2b;
+    private Node        intermediate;
+    private ObjectName  intermediateName;
+    private Node        leaf1;
+    private ObjectName  leaf1Name;
+    private Node        leaf2;
+    private ObjectName  leaf2Name;
+    private MBeanServer mbs1;
+    private MBeanServer mbs2;
+    private ObjectName  multiTest1;
+    private ObjectName  multiTest2;
+    private ObjectName  test1a;
+    private ObjectName  test1b;
+    private ObjectName  test2a;
+    private ObjectName  test2b;
 
     @Before
     public void initialize() throws Exception {
-        MBeanServer mbs1 = MBeanServerFactory.newMBeanServer();
-        MBeanServer mbs2 = MBeanServerFactory.newMBeanServer();
+        mbs1 = MBeanServerFactory.newMBeanServer();
+        mbs2 = MBeanServerFactory.newMBeanServer();
         MBeanServer mbs3 = MBeanServerFactory.newMBeanServer();
         test1a = ObjectName.getInstance("MyDomain", "test1", "a");
         test1b = ObjectName.getInstance("MyDomain", "test1", "b");
@@ -78,6 +115,446 @@ public class TestIntermediate {
         intermediate.addChild(leaf2);
     }
 
+    @Test
+    public void testAggregate() throws Exception {
+        intermediate.setAttribute(test1a, new Attribute("Attribute1", 3));
+        assertEquals(2L,
+                     intermediate.aggregate(multiTest1, null, "Attribute1",
+                                            Aggregation.SUM).getValue());
+        assertEquals(2L,
+                     intermediate.aggregate(multiTest1, null, "Attribute1",
+                                            Aggregation.COUNT).getValue());
+        assertEquals(-1.0,
+                     intermediate.aggregate(multiTest1, null, "Attribute1",
+                                            Aggregation.MIN).getValue());
+        assertEquals(3.0,
+                     intermediate.aggregate(multiTest1, null, "Attribute1",
+                                            Aggregation.MAX).getValue());
+        assertEquals(1.0,
+                     intermediate.aggregate(multiTest1, null, "Attribute1",
+                                            Aggregation.AVG).getValue());
+        assertNull(intermediate.aggregate(multiTest1, null, "Missing",
+                                          Aggregation.MAX).getValue());
+        Aggregate sketch = intermediate.aggregate(multiTest1, null,
+                                                  "Attribute1",
+                                                  Aggregation.SKETCH);
+        assertEquals(2, sketch.getSketch().getCount());
+        assertEquals(3.0, sketch.getQuantile(1), 3 * 0.01);
+        assertEquals(-1.0, sketch.getQuantile(0), 0.01);
+    }
+
+    @Test
+    public void testAggregateExactSum() throws Exception {
+        Aggregate sum = new Aggregate(Aggregation.SUM);
+        sum.add(1L << 53);
+        sum.add(1);
+        assertEquals((1L << 53) + 1, sum.getValue());
+
+        Aggregate partial = new Aggregate(Aggregation.SUM);
+        partial.add(Long.MAX_VALUE);
+        partial.add(Long.MAX_VALUE);
+        sum.merge(partial);
+        assertEquals(BigInteger.valueOf(Long.MAX_VALUE).shiftLeft(1).add(BigInteger.valueOf((1L << 53) + 1)),
+                     sum.getValue());
+
+        partial = new Aggregate(Aggregation.SUM);
+        partial.add(Long.MIN_VALUE);
+        partial.add(Long.MIN_VALUE);
+        sum.merge(partial);
+        assertEquals((1L << 53) - 1, sum.getValue());
+
+        sum.add(0.5);
+        assertEquals((double) (1L << 53), sum.getValue());
+    }
+
+    @Test
+    public void testAggregateGroupBy() throws Exception {
+        ObjectName all = ObjectName.getInstance("MyDomain:*");
+        Map<String, Aggregate> groups = intermediate.aggregate(all, null,
+                                                               "Attribute1",
+                                                               Aggregation.SUM,
+                                                               new String[] { "test1" });
+        assertEquals(3, groups.size());
+        assertEquals(-1L, groups.get("test1=a").getValue());
+        assertEquals(-1L, groups.get("test1=b").getValue());
+        assertEquals(2L, groups.get("").getCount());
+
+        intermediate.setAttribute(test1a, new Attribute("Attribute1", 3));
+        groups = intermediate.aggregate(multiTest1, null, "Attribute1",
+                                        Aggregation.MAX,
+                                        new String[] { "test1", "missing" });
+        assertEquals(2, groups.size());
+        assertEquals(3.0, groups.get("test1=a").getValue());
+        assertEquals(-1.0, groups.get("test1=b").getValue());
+    }
+
+    @Test
+    public void testAsync() throws Exception {
+        assertEquals(-1, intermediate.getAttributeAsync(test1b, "Attribute1").get());
+        assertEquals("-1",
+                     intermediate.invokeAsync(test1a, "operation1", null, null).get());
+        assertEquals(leaf2, intermediate.getRoutes().get(test1b));
+
+        Map<ObjectName, OperationResult<Object>> result = intermediate.<Object> getAttributeAsync(multiTest1,
+                                                                                                  null,
+                                                                                                  "Attribute1").get();
+        assertEquals(2, result.size());
+        for (OperationResult<Object> value : result.values()) {
+            assertEquals(-1, value.getResult());
+        }
+
+        intermediate.setAttributeAsync(multiTest2, null,
+                                       new Attribute("Attribute1", 5)).get();
+        assertEquals(5, intermediate.getAttribute(test2a, "Attribute1"));
+        assertEquals(5, intermediate.getAttribute(test2b, "Attribute1"));
+
+        assertEquals(4, intermediate.queryNamesAsync(ObjectName.getInstance("MyDomain:*"),
+                                                     null).get().size());
+        assertEquals(intermediate.getMBeanCount(),
+                     intermediate.getMBeanCountAsync().get());
+        assertTrue(intermediate.isRegisteredAsync(test2b).get());
+
+        ObjectName missing = ObjectName.getInstance("MyDomain", "test1", "c");
+        assertFalse(intermediate.isRegisteredAsync(missing).get());
+        try {
+            intermediate.getAttributeAsync(missing, "Attribute1").get();
+            fail("Expected instance not found");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof InstanceNotFoundException);
+        }
+    }
+
+    @Test
+    public void testCachedAttributes() throws Exception {
+        assertEquals(-1, intermediate.getCachedAttribute(test1a, "Attribute1",
+                                                         60000));
+        mbs1.setAttribute(test1a, new Attribute("Attribute1", 5));
+        assertEquals(-1, intermediate.getCachedAttribute(test1a, "Attribute1",
+                                                         60000));
+        assertEquals(-1, leaf1.getCachedAttribute(test1a, "Attribute1", 60000));
+        assertEquals(5,
+                     intermediate.getCachedAttribute(test1a, "Attribute1", 0));
+
+        AttributeList attrs = intermediate.getCachedAttributes(test1a,
+                                                               new String[] {
+                                                                       "Attribute1",
+                                                                       "Attribute2" },
+                                                               60000);
+        assertEquals(2, attrs.size());
+        assertEquals(5, attrs.asList().get(0).getValue());
+        assertEquals(-2, attrs.asList().get(1).getValue());
+
+        Map<ObjectName, OperationResult<Object>> result = intermediate.getCachedAttribute(multiTest1,
+                                                                                          null,
+                                                                                          "Attribute1",
+                                                                                          60000);
+        assertEquals(2, result.size());
+        mbs2.setAttribute(test1b, new Attribute("Attribute1", 9));
+        assertEquals(-1, intermediate.getCachedAttribute(test1b, "Attribute1",
+                                                         60000));
+        assertEquals(-1,
+                     intermediate.<Object> getCachedAttribute(multiTest1, null,
+                                                              "Attribute1",
+                                                              60000).get(test1b).getResult());
+
+        assertEquals(-1, leaf2.getCachedAttribute(test1b, "Attribute1", 60000));
+
+        intermediate.setAttribute(test1b, new Attribute("Attribute1", 7));
+        assertEquals(7, intermediate.getCachedAttribute(test1b, "Attribute1",
+                                                        60000));
+
+        intermediate.setAttributeCacheSize(2);
+        assertEquals(7,
+                     intermediate.<Object> getCachedAttribute(multiTest1, null,
+                                                              "Attribute1",
+                                                              60000).get(test1b).getResult());
+        mbs2.setAttribute(test1b, new Attribute("Attribute1", 11));
+        assertEquals(7,
+                     intermediate.<Object> getCachedAttribute(multiTest1, null,
+                                                              "Attribute1",
+                                                              60000).get(test1b).getResult());
+    }
+
+    @Test
+    public void testCachedPatternMembers() throws Exception {
+        // two values and the two members of the pattern exceed the bound
+        intermediate.setAttributeCacheSize(3);
+        assertEquals(2,
+                     intermediate.getCachedAttribute(multiTest1, null,
+                                                     "Attribute1", 60000).size());
+        mbs1.setAttribute(test1a, new Attribute("Attribute1", 5));
+        mbs2.setAttribute(test1b, new Attribute("Attribute1", 9));
+        // the evicted value is read again, the other is served from the cache
+        Map<ObjectName, OperationResult<Object>> result = intermediate.getCachedAttribute(multiTest1,
+                                                                                          null,
+                                                                                          "Attribute1",
+                                                                                          60000);
+        assertEquals(2, result.size());
+        int read = 0;
+        for (OperationResult<Object> value : result.values()) {
+            if (!Integer.valueOf(-1).equals(value.getResult())) {
+                read++;
+            }
+        }
+        assertEquals(1, read);
+
+        // members which outweigh the bound are not cached at all
+        intermediate.setAttributeCacheSize(1);
+        assertEquals(2,
+                     intermediate.getCachedAttribute(multiTest1, null,
+                                                     "Attribute1", 60000).size());
+    }
+
+    @Test
+    public void testChildIdentity() throws Exception {
+        // unnamed nodes are equal, and a node's hash changes when it is named
+        Node first = new Node();
+        Node second = new Node();
+        assertTrue(intermediate.addChild(first));
+        assertTrue(intermediate.addChild(second));
+        assertFalse(intermediate.addChild(first));
+        MBeanServerFactory.newMBeanServer().registerMBean(first,
+                                                          ObjectName.getInstance("leaf-domain",
+                                                                                 "id",
+                                                                                 "4"));
+        intermediate.removeChild(first);
+        assertEquals(3, intermediate.getChildren().size());
+        assertFalse(intermediate.getChildren().contains(first));
+        assertTrue(intermediate.getChildren().contains(second));
+
+        // circuits follow the identity of the child as well
+        ChildCircuits circuits = new ChildCircuits(1, 60000, 0);
+        Node unnamed = new Node();
+        Node other = new Node();
+        try {
+            circuits.guard(unnamed, (Callable<Object>) () -> {
+                throw new IOException("Unable to connect");
+            }).call();
+            fail("Expected the request to fail");
+        } catch (IOException e) {
+            // expected
+        }
+        assertTrue(circuits.isOpen(unnamed));
+        assertFalse(circuits.isOpen(other));
+        MBeanServerFactory.newMBeanServer().registerMBean(unnamed,
+                                                          ObjectName.getInstance("leaf-domain",
+                                                                                 "id",
+                                                                                 "5"));
+        assertTrue(circuits.isOpen(unnamed));
+    }
+
+    @Test
+    public void testCircuitBreaker() throws Exception {
+        NodeMBean dead = mock(NodeMBean.class);
+        ObjectName deadName = ObjectName.getInstance("leaf-domain", "id", "3");
+        when(dead.getName()).thenReturn(deadName);
+        when(dead.getAttribute(any(ObjectName.class), any(QueryExp.class),
+                               any(String.class))).thenThrow(new IllegalStateException(
+                                                                                       "Unable to connect"));
+        intermediate.addChild(dead);
+        intermediate.setFailureThreshold(2);
+
+        assertEquals(2,
+                     intermediate.getAttribute(multiTest1, null, "Attribute1").size());
+        assertFalse(intermediate.isCircuitOpen(dead));
+        intermediate.getAttribute(multiTest1, null, "Attribute1");
+        assertTrue(intermediate.isCircuitOpen(dead));
+
+        Map<ObjectName, OperationResult<Object>> results = intermediate.getAttribute(multiTest1,
+                                                                                     null,
+                                                                                     "Attribute1");
+        assertEquals(3, results.size());
+        assertFalse(results.get(deadName).isSuccess());
+        assertEquals(Node.CIRCUIT_OPEN, results.get(deadName).getMessage());
+        verify(dead, times(2)).getAttribute(any(ObjectName.class),
+                                            any(QueryExp.class),
+                                            any(String.class));
+
+        doReturn(new HashMap<>()).when(dead).getAttribute(any(ObjectName.class),
+                                                          any(QueryExp.class),
+                                                          any(String.class));
+        intermediate.setOpenInterval(0);
+        assertEquals(2,
+                     intermediate.getAttribute(multiTest1, null, "Attribute1").size());
+        assertFalse(intermediate.isCircuitOpen(dead));
+    }
+
+    @Test
+    public void testCircuitProbes() throws Exception {
+        ChildCircuits circuits = new ChildCircuits(1, 60000, 0);
+        NodeMBean child = mock(NodeMBean.class);
+        Callable<Object> failing = circuits.guard(child,
+                                                  (Callable<Object>) () -> {
+                                                      throw new IOException(
+                                                                            "Unable to connect");
+                                                  });
+        try {
+            failing.call();
+            fail("Expected the request to fail");
+        } catch (IOException e) {
+            // expected
+        }
+        assertTrue(circuits.isOpen(child));
+        assertFalse(circuits.allow(child));
+
+        circuits.setOpenInterval(50);
+        Thread.sleep(60);
+        assertTrue(circuits.allow(child));
+        assertFalse(circuits.allow(child));
+
+        // a cancelled probe is neither a success nor a failure, and lets the next request probe
+        CompletableFuture<Object> cancelled = new CompletableFuture<>();
+        circuits.guard(child, cancelled);
+        cancelled.cancel(true);
+        assertTrue(circuits.isOpen(child));
+        assertTrue(circuits.allow(child));
+
+        // an interrupted probe does not close the circuit
+        try {
+            circuits.guard(child, (Callable<Object>) () -> {
+                throw new InterruptedException();
+            }).call();
+            fail("Expected the request to be interrupted");
+        } catch (InterruptedException e) {
+            // expected
+        }
+        assertTrue(circuits.isOpen(child));
+
+        // a probe which never reports expires after the open interval
+        assertTrue(circuits.allow(child));
+        assertFalse(circuits.allow(child));
+        Thread.sleep(60);
+        assertTrue(circuits.allow(child));
+
+        assertEquals("answered",
+                     circuits.guard(child, (Callable<Object>) () -> "answered").call());
+        assertFalse(circuits.isOpen(child));
+        assertTrue(circuits.allow(child));
+    }
+
+    @Test
+    public void testColumns() throws Exception {
+        ColumnarResult<Object> columns = intermediate.getAttributeColumns(multiTest1,
+                                                                          null,
+                                                                          "Attribute1");
+        assertEquals(2, columns.size());
+        for (int i = 0; i < columns.size(); i++) {
+            assertTrue(columns.isSuccess(i));
+            assertEquals(-1, columns.getValue(i));
+        }
+        assertTrue(columns.getNames().containsAll(Arrays.asList(test1a,
+                                                                test1b)));
+        assertEquals(leaf1, intermediate.getRoutes().get(test1a));
+        assertEquals(leaf2, intermediate.getRoutes().get(test1b));
+
+        columns = intermediate.invokeColumns(multiTest2, null, "operationFoo",
+                                             new Object[] { "testy" },
+                                             new String[] { String.class.getCanonicalName() });
+        assertEquals(2, columns.size());
+        Map<ObjectName, OperationResult<Object>> results = columns.toMap();
+        assertEquals("testy", results.get(test2a).getResult());
+        assertEquals("testy", results.get(test2b).getResult());
+
+        columns.addFailure(test1a, "failed");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(columns);
+        }
+        @SuppressWarnings("unchecked")
+        ColumnarResult<Object> copy = (ColumnarResult<Object>) new ObjectInputStream(
+                                                                                     new ByteArrayInputStream(
+                                                                                                              bytes.toByteArray())).readObject();
+        assertEquals(3, copy.size());
+        assertTrue(copy.isSuccess(0));
+        assertFalse(copy.isSuccess(2));
+        assertEquals(test1a, copy.getName(2));
+        assertEquals("failed", copy.getMessage(2));
+        assertNull(copy.getValue(2));
+
+        @SuppressWarnings("unchecked")
+        ColumnarResult<Object> second = (ColumnarResult<Object>) new ObjectInputStream(
+                                                                                       new ByteArrayInputStream(
+                                                                                                                bytes.toByteArray())).readObject();
+        for (int i = 0; i < copy.size(); i++) {
+            assertSame(copy.getName(i), second.getName(i));
+        }
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        NodeMBean hung = mock(NodeMBean.class);
+        ObjectName hungName = ObjectName.getInstance("leaf-domain", "id", "3");
+        when(hung.getName()).thenReturn(hungName);
+        when(hung.getAttribute(any(ObjectName.class), any(QueryExp.class),
+                               any(String.class), anyLong(),
+                               any(TimeUnit.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(30000);
+                return null;
+            }
+        });
+        intermediate.addChild(hung);
+        NodeMBean unnamed = mock(NodeMBean.class);
+        when(unnamed.getAttribute(any(ObjectName.class), any(QueryExp.class),
+                                  any(String.class), anyLong(),
+                                  any(TimeUnit.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                Thread.sleep(30000);
+                return null;
+            }
+        });
+        intermediate.addChild(unnamed);
+
+        long start = System.currentTimeMillis();
+        Map<ObjectName, OperationResult<Object>> result = intermediate.getAttribute(multiTest1,
+                                                                                    null,
+                                                                                    "Attribute1",
+                                                                                    500,
+                                                                                    TimeUnit.MILLISECONDS);
+        assertTrue(System.currentTimeMillis() - start < 10000);
+        assertEquals(4, result.size());
+        assertEquals(-1, result.get(test1a).getResult());
+        assertEquals(-1, result.get(test1b).getResult());
+        assertFalse(result.get(hungName).isSuccess());
+        assertEquals(Node.TIMED_OUT, result.get(hungName).getMessage());
+        int unnamedResults = 0;
+        for (Map.Entry<ObjectName, OperationResult<Object>> entry : result.entrySet()) {
+            if (Node.UNNAMED_CHILD_DOMAIN.equals(entry.getKey().getDomain())) {
+                assertEquals(Node.TIMED_OUT, entry.getValue().getMessage());
+                unnamedResults++;
+            }
+        }
+        assertEquals(1, unnamedResults);
+
+        ArgumentCaptor<Long> budget = ArgumentCaptor.forClass(Long.class);
+        verify(hung).getAttribute(eq(multiTest1), any(QueryExp.class),
+                                  eq("Attribute1"), budget.capture(),
+                                  eq(TimeUnit.MILLISECONDS));
+        assertTrue(budget.getValue() < 500);
+
+        // a local MBean is bounded by the deadline as well
+        ObjectName slow = ObjectName.getInstance("MyDomain", "slow", "a");
+        mbs1.registerMBean(new StandardMBean(new Test1() {
+            @Override
+            public int getAttribute1() {
+                try {
+                    Thread.sleep(30000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 0;
+            }
+        }, Test1MBean.class), slow);
+        start = System.currentTimeMillis();
+        result = leaf1.getAttribute(ObjectName.getInstance("MyDomain:slow=*"),
+                                    null, "Attribute1", 500,
+                                    TimeUnit.MILLISECONDS);
+        assertTrue(System.currentTimeMillis() - start < 10000);
+        assertEquals(Node.TIMED_OUT, result.get(slow).getMessage());
+    }
+
     @Test
     public void testGetAttribute() throws Exception {
         Object result = intermediate.getAttribute(test1a, "Attribute1");
@@ -99,6 +576,38 @@ public class TestIntermediate {
         assertEquals(-2, result.asList().get(1).getValue());
     }
 
+    @Test
+    public void testInstanceOfRoute() throws Exception {
+        NodeMBean owner = mock(NodeMBean.class);
+        when(owner.getName()).thenReturn(ObjectName.getInstance("leaf-domain",
+                                                                "id", "3"));
+        when(owner.isInstanceOf(test1a, Test1.class.getName())).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return true;
+        });
+        // the empty node answers first, but does not own the name
+        Node bystander = new Node();
+        MBeanServer mbs3 = MBeanServerFactory.newMBeanServer();
+        mbs3.registerMBean(bystander,
+                           ObjectName.getInstance("leaf-domain", "id", "4"));
+        Node parent = new Node();
+        MBeanServerFactory.newMBeanServer().registerMBean(parent,
+                                                          ObjectName.getInstance("intermediate-domain",
+                                                                                 "id",
+                                                                                 "2"));
+        parent.addChild(bystander);
+        parent.addChild(owner);
+        try {
+            bystander.isInstanceOf(test1a, Test1.class.getName());
+            fail("Expected the instance not to be found");
+        } catch (InstanceNotFoundException e) {
+            // expected
+        }
+        assertTrue(parent.isInstanceOf(test1a, Test1.class.getName()));
+        assertEquals(owner, parent.getRoutes().get(test1a));
+        assertTrue(parent.isInstanceOf(test1a, Test1.class.getName()));
+    }
+
     @Test
     public void testInvoke() throws Exception {
         Object result = intermediate.invoke(test1a, "operation1", null, null);
@@ -106,6 +615,73 @@ public class TestIntermediate {
         assertEquals("-1", result);
     }
 
+    @Test
+    public void testLocalColumns() throws Exception {
+        ObjectName failing = ObjectName.getInstance("MyDomain", "bulk",
+                                                    "failing");
+        mbs1.registerMBean(new StandardMBean(new Test1() {
+            @Override
+            public int getAttribute1() {
+                throw new IllegalStateException("broken");
+            }
+        }, Test1MBean.class), failing);
+        for (int i = 0; i < 10; i++) {
+            mbs1.registerMBean(new Test1(),
+                               ObjectName.getInstance("MyDomain", "bulk",
+                                                      Integer.toString(i)));
+        }
+        ObjectName bulk = ObjectName.getInstance("MyDomain:bulk=*");
+        for (int batchSize : new int[] { 64, 3 }) {
+            leaf1.setLocalBatchSize(batchSize);
+            LongColumns longs = leaf1.getLongAttribute(bulk, null,
+                                                       "Attribute1");
+            assertEquals(11, longs.size());
+            ColumnarResult<Object> columns = leaf1.getAttributeColumns(bulk,
+                                                                       null,
+                                                                       "Attribute1");
+            assertEquals(11, columns.size());
+            for (int i = 0; i < columns.size(); i++) {
+                boolean broken = failing.equals(columns.getName(i));
+                assertEquals(!broken, columns.isSuccess(i));
+                assertEquals(!broken, longs.isSuccess(longs.getNames().indexOf(columns.getName(i))));
+                if (broken) {
+                    assertTrue(columns.getMessage(i).contains("broken"));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLongAttributeIsExact() throws Exception {
+        Object[] values = { 7L, (byte) 7, new AtomicLong(7),
+                BigInteger.valueOf(7), 7.5, 7.0f, new BigDecimal("7"),
+                BigInteger.ONE.shiftLeft(Long.SIZE) };
+        for (int i = 0; i < values.length; i++) {
+            final Object value = values[i];
+            mbs1.registerMBean(new StandardMBean(new ValueMBean() {
+                @Override
+                public Object getValue() {
+                    return value;
+                }
+            }, ValueMBean.class), ObjectName.getInstance("MyDomain", "value",
+                                                         Integer.toString(i)));
+        }
+        LongColumns longs = leaf1.getLongAttribute(ObjectName.getInstance("MyDomain:value=*"),
+                                                   null, "Value");
+        assertEquals(values.length, longs.size());
+        for (int i = 0; i < longs.size(); i++) {
+            int index = Integer.parseInt(longs.getNames().get(i).getKeyProperty("value"));
+            if (index < 4) {
+                assertTrue(longs.isSuccess(i));
+                assertEquals(7L, longs.getLong(i));
+            } else {
+                assertFalse(longs.isSuccess(i));
+                assertEquals(String.format(Node.NOT_A_NUMBER, values[index]),
+                             longs.getMessage(i));
+            }
+        }
+    }
+
     @Test
     public void testMultiGetAttribute() throws Exception {
         Map<ObjectName, OperationResult<Object>> result = intermediate.getAttribute(multiTest1,
@@ -203,6 +779,141 @@ public class TestIntermediate {
         assertNotNull(result.get(test1b));
     }
 
+    @Test
+    public void testNumericColumns() throws Exception {
+        LongColumns longs = intermediate.getLongAttribute(multiTest1, null,
+                                                          "Attribute1");
+        assertEquals(2, longs.size());
+        assertTrue(Arrays.equals(new long[] { -1, -1 }, longs.getValues()));
+        assertTrue(longs.getNames().containsAll(Arrays.asList(test1a, test1b)));
+
+        DoubleColumns doubles = intermediate.getDoubleAttribute(multiTest1,
+                                                                null,
+                                                                "Attribute2");
+        assertEquals(2, doubles.size());
+        for (int i = 0; i < doubles.size(); i++) {
+            assertTrue(doubles.isSuccess(i));
+            assertEquals(-2.0, doubles.getDouble(i), 0.0);
+        }
+
+        longs.addFailure(test2a, Node.NOT_A_NUMBER);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(longs);
+        }
+        LongColumns copy = (LongColumns) new ObjectInputStream(
+                                                               new ByteArrayInputStream(
+                                                                                        bytes.toByteArray())).readObject();
+        assertEquals(3, copy.size());
+        assertEquals(-1, copy.getLong(1));
+        assertFalse(copy.isSuccess(2));
+        assertEquals(Node.NOT_A_NUMBER, copy.getMessage(2));
+    }
+
+    @Test
+    public void testObjectNamePoolEviction() throws Exception {
+        ObjectName hot = ObjectNames.intern(ObjectName.getInstance("pool-test:id=hot"));
+        ObjectName cold = ObjectNames.intern(ObjectName.getInstance("pool-test:id=cold"));
+        // the pool sweeps once it exceeds its bound by a sixteenth
+        for (int i = 0; i < 2 * ObjectNames.MAX_NAMES; i++) {
+            ObjectNames.intern(ObjectName.getInstance("pool-test:filler="
+                                                      + i));
+            if (i % 1024 == 0) {
+                ObjectNames.intern(hot);
+            }
+        }
+        // a full pool evicts the least recently used names, not every name
+        assertSame(hot, ObjectNames.intern("pool-test:id=hot"));
+        assertFalse(cold == ObjectNames.intern("pool-test:id=cold"));
+    }
+
+    @Test
+    public void testQueryCache() throws Exception {
+        intermediate.setQueryCacheTtl(60000);
+        leaf1.setQueryCacheTtl(60000);
+        assertEquals(2, intermediate.queryNames(multiTest1, null).size());
+        assertEquals(1, leaf1.queryNames(multiTest1, null).size());
+        assertEquals(2, intermediate.getMBeanCount(multiTest1, null));
+
+        ObjectName test1c = ObjectName.getInstance("MyDomain", "test1", "c");
+        mbs1.registerMBean(new Test1(), test1c);
+        assertEquals(2, leaf1.queryNames(multiTest1, null).size());
+        assertEquals(2, intermediate.queryNames(multiTest1, null).size());
+
+        intermediate.invalidateQueries();
+        assertEquals(3, intermediate.queryNames(multiTest1, null).size());
+        assertEquals(3, intermediate.getMBeanCount(multiTest1, null));
+
+        intermediate.removeChild(leaf2);
+        assertEquals(2, intermediate.queryNames(multiTest1, null).size());
+
+        // queries which render the same are not confused
+        assertEquals(2,
+                     intermediate.queryNames(multiTest1, new Verdict(true)).size());
+        assertEquals(0,
+                     intermediate.queryNames(multiTest1, new Verdict(false)).size());
+        assertEquals(2,
+                     intermediate.queryNames(multiTest1, new Verdict(true)).size());
+    }
+
+    @Test
+    public void testRouteTable() throws Exception {
+        RouteTable table = new RouteTable(64);
+        table.put(test1a, leaf1);
+        for (int i = 0; i < 1000; i++) {
+            table.put(ObjectName.getInstance("MyDomain", "route",
+                                             Integer.toString(i)), leaf2);
+            assertEquals(leaf1, table.get(test1a));
+        }
+        // the bound is approximate, by at most a sixteenth
+        assertTrue(table.snapshot().size() <= 64 + 4);
+
+        table.removeAll(leaf2);
+        assertEquals(1, table.snapshot().size());
+        assertNull(table.get(ObjectName.getInstance("MyDomain", "route",
+                                                    "999")));
+        table.put(test1b, leaf2);
+        assertEquals(leaf2, table.get(test1b));
+    }
+
+    @Test
+    public void testRouting() throws Exception {
+        NodeMBean bystander = mock(NodeMBean.class);
+        when(bystander.getName()).thenReturn(ObjectName.getInstance("leaf-domain",
+                                                                    "id", "3"));
+        intermediate.addChild(bystander);
+        assertEquals(bystander,
+                     intermediate.getRoutes().get(bystander.getName()));
+
+        intermediate.queryNames(multiTest1, null);
+        assertEquals(leaf1, intermediate.getRoutes().get(test1a));
+        assertEquals(leaf2, intermediate.getRoutes().get(test1b));
+
+        assertEquals(-1, intermediate.getAttribute(test1a, "Attribute1"));
+        assertEquals("-1", intermediate.invoke(test1b, "operation1", null,
+                                               null));
+        verify(bystander, never()).getAttribute(any(ObjectName.class),
+                                                any(String.class));
+        verify(bystander, never()).invoke(any(ObjectName.class),
+                                          any(String.class),
+                                          any(Object[].class),
+                                          any(String[].class));
+
+        intermediate.unregistered(test1a);
+        assertNull(intermediate.getRoutes().get(test1a));
+        assertEquals(leaf2, intermediate.getRoutes().get(test1b));
+
+        intermediate.setRouteTableSize(1);
+        assertEquals(1, intermediate.getRoutes().size());
+        intermediate.queryNames(multiTest1, null);
+        assertEquals(1, intermediate.getRoutes().size());
+
+        intermediate.removeChild(bystander);
+        assertNull(intermediate.getRoutes().get(bystander.getName()));
+        assertEquals(-1, intermediate.getAttribute(test1a, "Attribute1"));
+        assertEquals(1, intermediate.getRoutes().size());
+    }
+
     @Test
     public void testSetAttribute() throws Exception {
         intermediate.setAttribute(test1a, new Attribute("Attribute1", 1));
@@ -223,4 +934,162 @@ public class TestIntermediate {
         assertEquals(1, result.asList().get(0).getValue());
         assertEquals(2, result.asList().get(1).getValue());
     }
+
+    @Test
+    public void testStaleRoute() throws Exception {
+        intermediate.queryNames(multiTest1, null);
+        assertEquals(leaf1, intermediate.getRoutes().get(test1a));
+        mbs1.unregisterMBean(test1a);
+        mbs2.registerMBean(new Test1(), test1a);
+
+        assertEquals(-1, intermediate.getAttribute(test1a, "Attribute1"));
+        assertEquals(leaf2, intermediate.getRoutes().get(test1a));
+    }
+
+    @Test
+    public void testStatistics() throws Exception {
+        // not published unless asked, so the MBean count is unchanged
+        assertFalse(mbs1.isRegistered(NodeStatistics.nameFor(leaf1Name)));
+        for (Node leaf : Arrays.asList(leaf1, leaf2)) {
+            MBeanServer mbs = leaf == leaf1 ? mbs1 : mbs2;
+            ObjectName name = leaf.getName();
+            mbs.unregisterMBean(name);
+            leaf.setPublishStatistics(true);
+            mbs.registerMBean(leaf, name);
+        }
+
+        intermediate.queryNames(multiTest1, null);
+        intermediate.getAttribute(multiTest1, null, "Attribute1");
+        intermediate.getAttribute(multiTest1, null, "Attribute1");
+
+        NodeStatistics statistics = intermediate.getStatistics();
+        assertEquals(Long.valueOf(1),
+                     statistics.getOperationCounts().get("queryNames"));
+        assertEquals(Long.valueOf(2),
+                     statistics.getOperationCounts().get("getAttribute"));
+        assertEquals(0, statistics.getInFlight());
+        assertEquals(2, statistics.getMaxFanOut());
+        assertEquals(Long.valueOf(3),
+                     statistics.getChildRequests().get(leaf1Name.toString()));
+        assertEquals(Long.valueOf(0),
+                     statistics.getChildErrors().get(leaf1Name.toString()));
+        long total = 0;
+        for (long count : statistics.latencyHistogram("getAttribute")) {
+            total += count;
+        }
+        assertEquals(2, total);
+        assertTrue(statistics.latencyQuantile("getAttribute", 0.99) >= 1);
+        assertEquals(-1, statistics.latencyQuantile("invoke", 0.5));
+
+        ObjectName leafStatistics = ObjectName.getInstance("leaf-domain.statistics:*");
+        Map<ObjectName, OperationResult<Map<String, Long>>> counts = intermediate.getAttribute(leafStatistics,
+                                                                                               null,
+                                                                                               "OperationCounts");
+        assertEquals(2, counts.size());
+        OperationResult<Map<String, Long>> leaf1Counts = counts.get(NodeStatistics.nameFor(leaf1Name));
+        assertTrue(leaf1Counts.isSuccess());
+        assertEquals(Long.valueOf(2),
+                     leaf1Counts.getResult().get("getAttribute"));
+
+        intermediate.getAttributeAsync(multiTest1, null, "Attribute1").get();
+        intermediate.getCachedAttribute(test1a, "Attribute1", 60000);
+        intermediate.streamAttribute(multiTest1, null, "Attribute1",
+                                     new ResultHandler<Object>() {
+                                         @Override
+                                         public void onResults(Map<ObjectName, OperationResult<Object>> results) {
+                                         }
+                                     });
+        assertEquals(Long.valueOf(1),
+                     statistics.getOperationCounts().get("getAttributeAsync"));
+        assertEquals(Long.valueOf(1),
+                     statistics.getOperationCounts().get("getCachedAttribute"));
+        assertEquals(Long.valueOf(1),
+                     statistics.getOperationCounts().get("streamAttribute"));
+
+        intermediate.removeChild(leaf2);
+        assertNull(statistics.getChildRequests().get(leaf2Name.toString()));
+        assertNotNull(statistics.getChildRequests().get(leaf1Name.toString()));
+
+        statistics.reset();
+        assertTrue(statistics.getOperationCounts().isEmpty());
+        mbs1.unregisterMBean(leaf1Name);
+        assertFalse(mbs1.isRegistered(NodeStatistics.nameFor(leaf1Name)));
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        final List<Map<ObjectName, OperationResult<Object>>> batches = new ArrayList<>();
+        intermediate.streamAttribute(multiTest1, null, "Attribute1",
+                                     new ResultHandler<Object>() {
+                                         @Override
+                                         public void onResults(Map<ObjectName, OperationResult<Object>> results) {
+                                             batches.add(results);
+                                         }
+                                     });
+        assertEquals(2, batches.size());
+        Map<ObjectName, OperationResult<Object>> all = new HashMap<>();
+        for (Map<ObjectName, OperationResult<Object>> batch : batches) {
+            all.putAll(batch);
+        }
+        assertEquals(-1, all.get(test1a).getResult());
+        assertEquals(-1, all.get(test1b).getResult());
+
+        long stream = intermediate.openInvokeStream(multiTest2, null,
+                                                    "operationFoo",
+                                                    new Object[] { "testy" },
+                                                    new String[] { String.class.getCanonicalName() });
+        all.clear();
+        Map<ObjectName, OperationResult<Object>> batch;
+        while ((batch = intermediate.nextBatch(stream, 1, TimeUnit.SECONDS)) != null) {
+            all.putAll(batch);
+        }
+        assertEquals(2, all.size());
+        assertEquals("testy", all.get(test2a).getResult());
+        assertEquals("testy", all.get(test2b).getResult());
+        try {
+            intermediate.nextBatch(stream, 1, TimeUnit.SECONDS);
+            fail("Stream should be closed");
+        } catch (IOException e) {
+            // expected
+        }
+
+        // more local results than the stream buffers
+        int count = ResultStreams.CAPACITY * 3;
+        for (int i = 0; i < count; i++) {
+            mbs1.registerMBean(new Test1(),
+                               ObjectName.getInstance("MyDomain", "bulk",
+                                                      Integer.toString(i)));
+        }
+        all.clear();
+        stream = intermediate.openAttributeStream(ObjectName.getInstance("MyDomain:bulk=*"),
+                                                  null, "Attribute1");
+        while ((batch = intermediate.nextBatch(stream, 1, TimeUnit.SECONDS)) != null) {
+            all.putAll(batch);
+        }
+        assertEquals(count, all.size());
+    }
+
+    @Test
+    public void testTop() throws Exception {
+        intermediate.setAttribute(test1a, new Attribute("Attribute1", 3));
+        intermediate.setAttribute(test2b, new Attribute("Attribute1", 7));
+        intermediate.setAttribute(test1b, new Attribute("Attribute1", -5));
+        ObjectName all = ObjectName.getInstance("MyDomain:*");
+        Map<ObjectName, Number> top = intermediate.top(all, null,
+                                                       "Attribute1", 2, true);
+        assertEquals(Arrays.asList(test2b, test1a),
+                     new ArrayList<>(top.keySet()));
+        assertEquals(7, top.get(test2b));
+        assertEquals(leaf2, intermediate.getRoutes().get(test2b));
+
+        Map<ObjectName, Number> bottom = intermediate.top(all, null,
+                                                          "Attribute1", 3,
+                                                          false);
+        assertEquals(Arrays.asList(test1b, test2a, test1a),
+                     new ArrayList<>(bottom.keySet()));
+
+        // k bounds the results, it does not size them
+        assertEquals(4, intermediate.top(all, null, "Attribute1",
+                                         Integer.MAX_VALUE, true).size());
+    }
 }
@@ -21,6 +21,8 @@ import static org.junit.Assert.assertNotNull;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.management.Attribute;
 import javax.management.AttributeList;
@@ -91,6 +93,66 @@ public class TestLeaf {
         assertEquals("-1", result);
     }
 
+    @Test
+    public void testLocalBatching() throws Exception {
+        MBeanServer mbs = MBeanServerFactory.newMBeanServer();
+        for (int i = 0; i < 200; i++) {
+            mbs.registerMBean(new Test1(),
+                              ObjectName.getInstance("MyDomain", "test1",
+                                                     Integer.toString(i)));
+        }
+        final AtomicInteger dispatched = new AtomicInteger();
+        final Executor executor = NodeExecutors.executor();
+        Node node = new Node(null, null, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                dispatched.incrementAndGet();
+                executor.execute(command);
+            }
+        });
+        node.setLocalBatchSize(50);
+        node.setLocalParallelism(2);
+        mbs.registerMBean(node, leafName);
+
+        Map<ObjectName, OperationResult<Object>> result = node.getAttribute(multiTest1,
+                                                                            null,
+                                                                            "Attribute1");
+        assertEquals(200, result.size());
+        for (OperationResult<Object> value : result.values()) {
+            assertEquals(-1, value.getResult());
+        }
+        assertEquals(2, dispatched.get());
+
+        dispatched.set(0);
+        result = node.getAttributeAsync(multiTest1, null, "Attribute1").get();
+        assertEquals(200, result.size());
+        assertEquals(2, dispatched.get());
+
+        dispatched.set(0);
+        assertEquals(-200L,
+                     node.aggregate(multiTest1, null, "Attribute1",
+                                    Aggregation.SUM).getValue());
+        assertEquals(2, dispatched.get());
+
+        dispatched.set(0);
+        Map<String, Aggregate> groups = node.aggregate(multiTest1, null,
+                                                       "Attribute1",
+                                                       Aggregation.COUNT,
+                                                       new String[] { "missing" });
+        assertEquals(200L, groups.get("").getValue());
+        assertEquals(2, dispatched.get());
+
+        dispatched.set(0);
+        node.setLocalBatchSize(500);
+        result = node.getAttribute(multiTest1, null, "Attribute1");
+        assertEquals(200, result.size());
+        assertEquals(0, dispatched.get());
+        assertEquals(200L,
+                     node.aggregate(multiTest1, null, "Attribute1",
+                                    Aggregation.COUNT).getValue());
+        assertEquals(0, dispatched.get());
+    }
+
     @Test
     public void testMultiGetAttribute() throws Exception {
         Map<ObjectName, OperationResult<Object>> result = leaf.getAttribute(multiTest1,
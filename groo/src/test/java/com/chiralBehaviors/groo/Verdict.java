@@ -0,0 +1,51 @@
+/** 
+ * (C) Copyright 2014 Chiral Behaviors, All Rights Reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *     
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, 
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. 
+ * See the License for the specific language governing permissions and 
+ * limitations under the License.
+ */
+
+package com.chiralBehaviors.groo;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.QueryExp;
+
+/**
+ * A query which renders the same whatever its verdict
+ * 
+ * @author hhildebrand
+ * 
+ */
+public class Verdict implements QueryExp {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean     accept;
+
+    public Verdict(boolean accept) {
+        this.accept = accept;
+    }
+
+    @Override
+    public boolean apply(ObjectName name) {
+        return accept;
+    }
+
+    @Override
+    public void setMBeanServer(MBeanServer s) {
+    }
+
+    @Override
+    public String toString() {
+        return "verdict";
+    }
+}